@@ -23,13 +23,20 @@ package org.apache.bookkeeper.bookie;
 
 import com.google.common.util.concurrent.RateLimiter;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.util.MathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Abstract entry log compactor used for compaction.
  */
 public abstract class AbstractLogCompactor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractLogCompactor.class);
+
     protected final ServerConfiguration conf;
     protected final Throttler throttler;
 
@@ -57,20 +64,98 @@ public abstract class AbstractLogCompactor {
      */
     public void cleanUpAndRecover() {}
 
+    /**
+     * Record the latency of a read served to clients, used to adapt the compaction rate.
+     */
+    void recordForegroundReadLatency(long latencyNanos) {
+        throttler.recordForegroundLatency(latencyNanos);
+    }
+
+    /**
+     * Whether compaction should pause because the reads served to clients are too slow.
+     */
+    boolean isForegroundOverloaded() {
+        return throttler.isForegroundOverloaded();
+    }
+
     static class Throttler {
+        // the foreground latency is sampled, and the rate adjusted, at most once per interval
+        private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+        private static final double MIN_RATE_RATIO = 0.01;
+        private static final double RATE_INCREASE_RATIO = 0.1;
+
         private final RateLimiter rateLimiter;
         private final boolean isThrottleByBytes;
+        private final double maxRate;
+        private final long latencyTargetMicros;
+        private final long pauseLatencyMicros;
+        // null if the compaction rate doesn't depend on the foreground latency
+        private final ForegroundLatencyMonitor latencyMonitor;
+        private long lastAdjustTimeNanos;
+        private long lastForegroundLatencyMicros;
 
         Throttler(ServerConfiguration conf) {
             this.isThrottleByBytes  = conf.getIsThrottleByBytes();
-            this.rateLimiter = RateLimiter.create(this.isThrottleByBytes
-                ? conf.getCompactionRateByBytes() : conf.getCompactionRateByEntries());
+            this.maxRate = this.isThrottleByBytes
+                ? conf.getCompactionRateByBytes() : conf.getCompactionRateByEntries();
+            this.rateLimiter = RateLimiter.create(maxRate);
+            this.latencyTargetMicros = TimeUnit.MILLISECONDS.toMicros(conf.getCompactionReadLatencyTargetMillis());
+            this.pauseLatencyMicros = TimeUnit.MILLISECONDS.toMicros(conf.getCompactionPauseReadLatencyMillis());
+            this.latencyMonitor = latencyTargetMicros > 0 || pauseLatencyMicros > 0
+                ? new ForegroundLatencyMonitor() : null;
+            this.lastAdjustTimeNanos = MathUtils.nowInNano();
         }
 
         // acquire. if bybytes: bytes of this entry; if byentries: 1.
         void acquire(int permits) {
+            if (null != latencyMonitor) {
+                maybeAdjustRate();
+            }
             rateLimiter.acquire(this.isThrottleByBytes ? permits : 1);
         }
+
+        void recordForegroundLatency(long latencyNanos) {
+            if (null != latencyMonitor) {
+                latencyMonitor.recordLatency(latencyNanos);
+            }
+        }
+
+        boolean isForegroundOverloaded() {
+            if (pauseLatencyMicros <= 0) {
+                return false;
+            }
+            maybeAdjustRate();
+            synchronized (this) {
+                return lastForegroundLatencyMicros > pauseLatencyMicros;
+            }
+        }
+
+        private synchronized void maybeAdjustRate() {
+            long now = MathUtils.nowInNano();
+            if (now - lastAdjustTimeNanos < ADJUST_INTERVAL_NANOS) {
+                return;
+            }
+            lastAdjustTimeNanos = now;
+            lastForegroundLatencyMicros = latencyMonitor.getPercentileMicrosAndReset(99.0);
+            if (latencyTargetMicros <= 0) {
+                return;
+            }
+            double rate = rateLimiter.getRate();
+            double newRate;
+            if (lastForegroundLatencyMicros > latencyTargetMicros) {
+                // back off quickly, the foreground reads compete with the compaction for the disk
+                newRate = Math.max(maxRate * MIN_RATE_RATIO, rate / 2);
+            } else {
+                newRate = Math.min(maxRate, rate + maxRate * RATE_INCREASE_RATIO);
+            }
+            if (newRate != rate) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Foreground read p99 latency is {} us, changing the compaction rate from {} to {}",
+                            lastForegroundLatencyMicros, rate, newRate);
+                }
+                rateLimiter.setRate(newRate);
+            }
+        }
     }
 
 }
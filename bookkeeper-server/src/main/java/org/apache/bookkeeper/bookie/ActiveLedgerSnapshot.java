@@ -0,0 +1,150 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.meta.LedgerManager;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
+import org.apache.bookkeeper.util.collections.ConcurrentLongHashMap;
+import org.apache.bookkeeper.util.collections.ConcurrentLongHashSet;
+import org.apache.bookkeeper.versioning.Versioned;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The set of the ledgers of a bookie that are known to exist in the metadata store.
+ *
+ * <p>Each ledger of the set is watched through the {@link LedgerManager}, and is removed from the set
+ * as soon as its metadata is deleted. So a ledger missing from the set is either new to the bookie or
+ * deleted, and only those ledgers need to be looked up by the garbage collector. A watch lost (e.g. on
+ * a session expiration) only delays the garbage collection of a ledger until the set is rebuilt from a
+ * full metadata scan, a ledger is never considered deleted while it exists.
+ *
+ * <p>The ledger manager reads the metadata of a ledger when a listener is registered on it, to set the
+ * watch and notify the listener. A ledger missing from the set is looked up through that first
+ * notification rather than by a separate read, so its metadata is read once.
+ */
+class ActiveLedgerSnapshot implements LedgerMetadataListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActiveLedgerSnapshot.class);
+
+    private final LedgerManager ledgerManager;
+    private final ConcurrentLongHashSet ledgers = new ConcurrentLongHashSet();
+    // ledgers watched by a lookup, waiting for their first notification
+    private final ConcurrentLongHashMap<CompletableFuture<Boolean>> pendingLookups =
+            new ConcurrentLongHashMap<>();
+
+    ActiveLedgerSnapshot(LedgerManager ledgerManager) {
+        this.ledgerManager = ledgerManager;
+    }
+
+    boolean contains(long ledgerId) {
+        return ledgers.contains(ledgerId);
+    }
+
+    long size() {
+        return ledgers.size();
+    }
+
+    /**
+     * Add a ledger known to exist in the metadata store, and watch it for deletion.
+     */
+    void add(long ledgerId) {
+        // add the ledger before watching it, so a deletion notified while registering removes it
+        if (ledgers.add(ledgerId)) {
+            ledgerManager.registerLedgerMetadataListener(ledgerId, this);
+        }
+    }
+
+    /**
+     * Look up a ledger missing from the snapshot by watching it, and add it to the snapshot if it exists.
+     *
+     * @return a future completed with whether the ledger exists in the metadata store
+     */
+    CompletableFuture<Boolean> lookup(long ledgerId) {
+        CompletableFuture<Boolean> exists = new CompletableFuture<>();
+        CompletableFuture<Boolean> pendingLookup = pendingLookups.putIfAbsent(ledgerId, exists);
+        if (null != pendingLookup) {
+            return pendingLookup;
+        }
+        // the lookup is pending before watching the ledger, as the first notification may come while registering
+        ledgerManager.registerLedgerMetadataListener(ledgerId, this);
+        return exists;
+    }
+
+    /**
+     * Stop watching a ledger whose lookup did not complete in time, it is looked up again on the next
+     * garbage collection.
+     */
+    void cancelLookup(long ledgerId) {
+        if (null != pendingLookups.remove(ledgerId)) {
+            ledgerManager.unregisterLedgerMetadataListener(ledgerId, this);
+        }
+    }
+
+    /**
+     * Remove a ledger, e.g. after it has been garbage collected from the bookie.
+     */
+    void remove(long ledgerId) {
+        if (ledgers.remove(ledgerId)) {
+            ledgerManager.unregisterLedgerMetadataListener(ledgerId, this);
+        }
+    }
+
+    /**
+     * Replace the ledgers of the snapshot, keeping the watches of the ledgers in both sets.
+     *
+     * @param activeLedgers the ledgers of the bookie found in a full scan of the metadata store
+     */
+    void reset(Set<Long> activeLedgers) {
+        for (Long ledgerId : ledgers.items()) {
+            if (!activeLedgers.contains(ledgerId)) {
+                remove(ledgerId);
+            }
+        }
+        for (Long ledgerId : activeLedgers) {
+            add(ledgerId);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Watching {} active ledgers for deletion", ledgers.size());
+        }
+    }
+
+    @Override
+    public void onChanged(long ledgerId, Versioned<LedgerMetadata> metadata) {
+        CompletableFuture<Boolean> pendingLookup = pendingLookups.remove(ledgerId);
+        if (null != pendingLookup) {
+            if (null != metadata) {
+                ledgers.add(ledgerId);
+            }
+            pendingLookup.complete(null != metadata);
+        } else if (null == metadata) {
+            // the ledger manager drops the listeners of a deleted ledger by itself
+            if (ledgers.remove(ledgerId) && LOG.isDebugEnabled()) {
+                LOG.debug("Ledger {} is deleted from the metadata store", ledgerId);
+            }
+        }
+    }
+}
@@ -58,6 +58,10 @@ public interface BookKeeperServerStats {
     String READ_ENTRY_LONG_POLL_PRE_WAIT = "READ_ENTRY_LONG_POLL_PRE_WAIT";
     String READ_ENTRY_LONG_POLL_WAIT = "READ_ENTRY_LONG_POLL_WAIT";
     String READ_ENTRY_LONG_POLL_READ = "READ_ENTRY_LONG_POLL_READ";
+    String RANGE_READ_ENTRY_REQUEST = "RANGE_READ_ENTRY_REQUEST";
+    String RANGE_READ_ENTRY = "RANGE_READ_ENTRY";
+    String RANGE_ADD_ENTRY_REQUEST = "RANGE_ADD_ENTRY_REQUEST";
+    String RANGE_ADD_ENTRY = "RANGE_ADD_ENTRY";
     String WRITE_LAC_REQUEST = "WRITE_LAC_REQUEST";
     String WRITE_LAC = "WRITE_LAC";
     String READ_LAC_REQUEST = "READ_LAC_REQUEST";
@@ -91,6 +95,8 @@ public interface BookKeeperServerStats {
     String ADD_ENTRY_IN_PROGRESS = "ADD_ENTRY_IN_PROGRESS";
     String ADD_ENTRY_BLOCKED = "ADD_ENTRY_BLOCKED";
     String ADD_ENTRY_BLOCKED_WAIT = "ADD_ENTRY_BLOCKED_WAIT";
+    String RESPONSES_PER_FLUSH = "RESPONSES_PER_FLUSH";
+    String ADD_ENTRY_DIGEST_MISMATCH = "ADD_ENTRY_DIGEST_MISMATCH";
     String READ_ENTRY_IN_PROGRESS = "READ_ENTRY_IN_PROGRESS";
     String READ_ENTRY_BLOCKED = "READ_ENTRY_BLOCKED";
     String READ_ENTRY_BLOCKED_WAIT = "READ_ENTRY_BLOCKED_WAIT";
@@ -109,6 +115,9 @@ public interface BookKeeperServerStats {
     String JOURNAL_FORCE_WRITE_LATENCY = "JOURNAL_FORCE_WRITE_LATENCY";
     String JOURNAL_FORCE_WRITE_BATCH_ENTRIES = "JOURNAL_FORCE_WRITE_BATCH_ENTRIES";
     String JOURNAL_FORCE_WRITE_BATCH_BYTES = "JOURNAL_FORCE_WRITE_BATCH_BYTES";
+    String JOURNAL_FORCE_WRITE_GROUP_REQUESTS = "JOURNAL_FORCE_WRITE_GROUP_REQUESTS";
+    String JOURNAL_FORCE_WRITE_GROUP_BYTES = "JOURNAL_FORCE_WRITE_GROUP_BYTES";
+    String JOURNAL_FORCE_WRITE_GROUP_LATENCY = "JOURNAL_FORCE_WRITE_GROUP_LATENCY";
     String JOURNAL_FLUSH_LATENCY = "JOURNAL_FLUSH_LATENCY";
     String JOURNAL_QUEUE_LATENCY = "JOURNAL_QUEUE_LATENCY";
     String JOURNAL_PROCESS_TIME_LATENCY = "JOURNAL_PROCESS_TIME_LATENCY";
@@ -134,6 +143,12 @@ public interface BookKeeperServerStats {
     // Counters
     String JOURNAL_WRITE_BYTES = "JOURNAL_WRITE_BYTES";
     String JOURNAL_QUEUE_SIZE = "JOURNAL_QUEUE_SIZE";
+    // per journal directory stats, labeled by journal index
+    String JOURNAL_INDEX_LABEL = "journalIndex";
+    String JOURNAL_DIR_WRITE_BYTES = "JOURNAL_DIR_WRITE_BYTES";
+    String JOURNAL_DIR_QUEUE_LENGTH = "JOURNAL_DIR_QUEUE_LENGTH";
+    String JOURNAL_DIR_SYNC = "JOURNAL_DIR_SYNC";
+    String JOURNAL_DIR_LEDGERS = "JOURNAL_DIR_LEDGERS";
     String READ_BYTES = "READ_BYTES";
     String WRITE_BYTES = "WRITE_BYTES";
 
@@ -149,6 +164,7 @@ public interface BookKeeperServerStats {
     String THREAD_RUNTIME = "THREAD_RUNTIME";
     String MAJOR_COMPACTION_COUNT = "MAJOR_COMPACTION_COUNT";
     String MINOR_COMPACTION_COUNT = "MINOR_COMPACTION_COUNT";
+    String COMPACTION_PAUSED_COUNT = "COMPACTION_PAUSED_COUNT";
     String ACTIVE_LEDGER_COUNT = "ACTIVE_LEDGER_COUNT";
     String DELETED_LEDGER_COUNT = "DELETED_LEDGER_COUNT";
 
@@ -21,6 +21,7 @@
 
 package org.apache.bookkeeper.bookie;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_MEMORY_MAX;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_MEMORY_USED;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_SCOPE;
@@ -117,6 +118,7 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
     final LedgerManager ledgerManager;
     final LedgerStorage ledgerStorage;
     final List<Journal> journals;
+    private final JournalSelector journalSelector;
 
     final HandleFactory handles;
     final boolean entryLogPerLedgerEnabled;
@@ -728,6 +730,8 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
                     conf, ledgerDirsManager, statsLogger.scope(JOURNAL_SCOPE), allocator));
         }
 
+        journalSelector = new JournalSelector(journals, conf.getJournalLoadAwareSelectionEnabled());
+
         this.entryLogPerLedgerEnabled = conf.isEntryLogPerLedgerEnabled();
         CheckpointSource checkpointSource = new CheckpointSourceList(journals);
 
@@ -784,6 +788,7 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
 
 
         handles = new HandleFactoryImpl(ledgerStorage);
+        ledgerStorage.registerLedgerDeletionListener(journalSelector::ledgerDeleted);
 
         // Expose Stats
         this.bookieStats = new BookieStats(statsLogger);
@@ -1265,7 +1270,7 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
     }
 
     private Journal getJournal(long ledgerId) {
-        return journals.get(MathUtils.signSafeMod(ledgerId, journals.size()));
+        return journalSelector.getJournal(ledgerId);
     }
 
     /**
@@ -1281,6 +1286,57 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
 
         // journal `addEntry` should happen after the entry is added to ledger storage.
         // otherwise the journal entry can potentially be rolled before the ledger is created in ledger storage.
+        logMasterKeyIfNeeded(ledgerId, masterKey);
+
+        if (!writeDataToJournal) {
+            cb.writeComplete(0, ledgerId, entryId, null, ctx);
+            return;
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Adding {}@{}", entryId, ledgerId);
+        }
+        getJournal(ledgerId).logAddEntry(entry, ackBeforeSync, cb, ctx);
+    }
+
+    /**
+     * Add a range of consecutive entries to a ledger as specified by handle.
+     * The callback is triggered once, for the last entry of the range.
+     */
+    private void addEntriesInternal(LedgerDescriptor handle, List<ByteBuf> entries,
+                                    boolean ackBeforeSync, WriteCallback cb, Object ctx, byte[] masterKey)
+            throws IOException, BookieException, InterruptedException {
+        long ledgerId = handle.getLedgerId();
+        long firstEntryId = entries.get(0).getLong(entries.get(0).readerIndex() + 8);
+        for (int i = 0; i < entries.size(); i++) {
+            ByteBuf entry = entries.get(i);
+            if (entry.getLong(entry.readerIndex()) != ledgerId
+                    || entry.getLong(entry.readerIndex() + 8) != firstEntryId + i) {
+                throw new IllegalArgumentException("Entries of a range add must be consecutive entries of ledger "
+                        + ledgerId + " starting at " + firstEntryId);
+            }
+        }
+
+        long lastEntryId = firstEntryId;
+        for (ByteBuf entry : entries) {
+            lastEntryId = handle.addEntry(entry);
+            bookieStats.getWriteBytes().add(entry.readableBytes());
+        }
+
+        logMasterKeyIfNeeded(ledgerId, masterKey);
+
+        if (!writeDataToJournal) {
+            cb.writeComplete(0, ledgerId, lastEntryId, null, ctx);
+            return;
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Adding {}-{}@{}", firstEntryId, lastEntryId, ledgerId);
+        }
+        getJournal(ledgerId).logAddEntries(ledgerId, firstEntryId, entries, ackBeforeSync, cb, ctx);
+    }
+
+    private void logMasterKeyIfNeeded(long ledgerId, byte[] masterKey) throws InterruptedException {
         if (masterKeyCache.get(ledgerId) == null) {
             // Force the load into masterKey cache
             byte[] oldValue = masterKeyCache.putIfAbsent(ledgerId, masterKey);
@@ -1296,16 +1352,6 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
                 getJournal(ledgerId).logAddEntry(bb, false /* ackBeforeSync */, new NopWriteCallback(), null);
             }
         }
-
-        if (!writeDataToJournal) {
-            cb.writeComplete(0, ledgerId, entryId, null, ctx);
-            return;
-        }
-
-        if (LOG.isTraceEnabled()) {
-            LOG.trace("Adding {}@{}", entryId, ledgerId);
-        }
-        getJournal(ledgerId).logAddEntry(entry, ackBeforeSync, cb, ctx);
     }
 
     /**
@@ -1430,6 +1476,50 @@ public class BookieImpl extends BookieCriticalThread implements Bookie {
         }
     }
 
+    /**
+     * Add a range of consecutive entries of the same ledger. The entries are journaled
+     * as a group and the callback is triggered once, with the id of the last entry,
+     * when the whole range is persisted.
+     */
+    public void addEntries(List<ByteBuf> entries, boolean ackBeforeSync, WriteCallback cb, Object ctx,
+                           byte[] masterKey)
+            throws IOException, BookieException, InterruptedException {
+        long requestNanos = MathUtils.nowInNano();
+        boolean success = false;
+        long rangeSize = 0;
+        try {
+            checkArgument(!entries.isEmpty(), "No entries to add");
+            LedgerDescriptor handle = getLedgerForEntry(entries.get(0), masterKey);
+            synchronized (handle) {
+                if (handle.isFenced()) {
+                    throw BookieException
+                            .create(BookieException.Code.LedgerFencedException);
+                }
+                for (ByteBuf entry : entries) {
+                    rangeSize += entry.readableBytes();
+                }
+                addEntriesInternal(handle, entries, ackBeforeSync, cb, ctx, masterKey);
+            }
+            success = true;
+        } catch (NoWritableLedgerDirException e) {
+            stateManager.transitionToReadOnlyMode();
+            throw new IOException(e);
+        } finally {
+            long elapsedNanos = MathUtils.elapsedNanos(requestNanos);
+            if (success) {
+                bookieStats.getAddEntryStats().registerSuccessfulEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+                bookieStats.getAddBytesStats().registerSuccessfulValue(rangeSize);
+            } else {
+                bookieStats.getAddEntryStats().registerFailedEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+                bookieStats.getAddBytesStats().registerFailedValue(rangeSize);
+            }
+
+            for (ByteBuf entry : entries) {
+                entry.release();
+            }
+        }
+    }
+
     /**
      * Fences a ledger. From this point on, clients will be unable to
      * write to this ledger. Only recoveryAddEntry will be
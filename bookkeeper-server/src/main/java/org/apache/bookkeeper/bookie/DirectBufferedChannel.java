@@ -0,0 +1,133 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import com.sun.jna.Memory;
+
+import io.netty.buffer.ByteBufAllocator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.bookkeeper.util.NativeIO;
+
+/**
+ * A {@link BufferedChannel} that writes through a file descriptor opened with O_DIRECT,
+ * so journal writes bypass the page cache and persisting them only needs an fdatasync.
+ *
+ * <p>O_DIRECT requires the file offset, the length and the memory address of every write
+ * to be aligned. The write buffer always starts at an aligned file offset: a flush writes
+ * the buffer rounded up to the alignment with zeros, and keeps the trailing partial block
+ * in the buffer so that it is written again, completed, by the next flush. The content
+ * is copied into an aligned native buffer before being written.
+ */
+class DirectBufferedChannel extends BufferedChannel {
+
+    private final int fd;
+    private final int alignment;
+    // keep a reference to the allocated memory, the aligned view does not own it
+    private final Memory memory;
+    private final Memory alignedMemory;
+    private final ByteBuffer alignedBuffer;
+    private boolean closed = false;
+
+    DirectBufferedChannel(ByteBufAllocator allocator, FileChannel fc, int fd,
+                          int capacity, int alignment) throws IOException {
+        super(allocator, fc, alignedCapacity(capacity, alignment));
+        this.fd = fd;
+        this.alignment = alignment;
+        this.memory = new Memory(writeCapacity + alignment);
+        this.alignedMemory = memory.align(alignment);
+        this.alignedBuffer = alignedMemory.getByteBuffer(0, writeCapacity);
+
+        // start the write buffer at an aligned offset, with the head of the partial block
+        // that precedes the write position
+        long start = position - position % alignment;
+        if (start != position) {
+            ByteBuffer head = writeBuffer.internalNioBuffer(0, (int) (position - start));
+            while (head.hasRemaining()) {
+                if (fc.read(head, start + head.position()) < 0) {
+                    throw new IOException("Unable to read the partial block at " + start);
+                }
+            }
+            writeBuffer.writerIndex((int) (position - start));
+            writeBufferStartPosition.set(start);
+        }
+    }
+
+    private static int alignedCapacity(int capacity, int alignment) {
+        return Math.max(alignment, capacity - capacity % alignment);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            super.close();
+        } finally {
+            NativeIO.closeFd(fd);
+            closed = true;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        int length = writeBuffer.writerIndex();
+        if (length == 0) {
+            return;
+        }
+        int tail = length % alignment;
+        int alignedLength = tail == 0 ? length : length - tail + alignment;
+
+        ByteBuffer dst = alignedBuffer.duplicate();
+        dst.limit(length);
+        writeBuffer.getBytes(0, dst);
+        for (int i = length; i < alignedLength; i++) {
+            alignedBuffer.put(i, (byte) 0);
+        }
+
+        long start = writeBufferStartPosition.get();
+        NativeIO.pwriteFully(fd, alignedMemory, alignedLength, start);
+
+        // keep the trailing partial block, it is rewritten by the next flush
+        writeBuffer.readerIndex(length - tail);
+        writeBuffer.discardReadBytes();
+        writeBufferStartPosition.set(start + length - tail);
+    }
+
+    @Override
+    public long forceWrite(boolean forceMetadata) throws IOException {
+        // the trailing partial block of the last flush is on the disk as well, but it is
+        // reported as unpersisted since it is rewritten by the next flush
+        long positionForceWrite = writeBufferStartPosition.get();
+        if (unpersistedBytesBound > 0) {
+            synchronized (this) {
+                unpersistedBytes.set(writeBuffer.readableBytes());
+            }
+        }
+        NativeIO.sync(fd, forceMetadata);
+        return positionForceWrite;
+    }
+}
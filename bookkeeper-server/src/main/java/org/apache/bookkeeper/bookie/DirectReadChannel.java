@@ -0,0 +1,59 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.function.IntSupplier;
+
+/**
+ * A read channel of an entry log that serves reads from a shared {@link EntryLogReadBlockCache}
+ * instead of a private read buffer.
+ */
+class DirectReadChannel extends BufferedReadChannel {
+
+    private final long logId;
+    private final EntryLogReadBlockCache cache;
+    // the O_DIRECT file descriptor of the entry log, -1 if the log is read through the file channel
+    private final IntSupplier directFd;
+
+    DirectReadChannel(FileChannel fileChannel, long logId, EntryLogReadBlockCache cache, IntSupplier directFd) {
+        super(fileChannel, 0);
+        this.logId = logId;
+        this.cache = cache;
+        this.directFd = directFd;
+    }
+
+    @Override
+    public synchronized int read(ByteBuf dest, long pos, int length) throws IOException {
+        invocationCount++;
+        FileChannel fc = validateAndGetFileChannel();
+        long eof = fc.size();
+        // return -1 if the given position is greater than or equal to the file's current size.
+        if (pos >= eof) {
+            return -1;
+        }
+        return cache.read(logId, directFd.getAsInt(), fc, dest, pos, (int) Math.min(length, eof - pos));
+    }
+}
@@ -21,6 +21,9 @@
 
 package org.apache.bookkeeper.bookie;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.function.LongPredicate;
 
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongHashMap;
@@ -34,11 +37,17 @@ public class EntryLogMetadata {
     private long remainingSize;
     private final ConcurrentLongLongHashMap ledgersMap;
 
+    private static final short SERIALIZATION_VERSION = 1;
+
     public EntryLogMetadata(long logId) {
+        this(logId, 256);
+    }
+
+    private EntryLogMetadata(long logId, int expectedLedgers) {
         this.entryLogId = logId;
 
         totalSize = remainingSize = 0;
-        ledgersMap = new ConcurrentLongLongHashMap(256, 1);
+        ledgersMap = new ConcurrentLongLongHashMap(expectedLedgers, 1);
     }
 
     public void addLedgerSize(long ledgerId, long size) {
@@ -88,6 +97,54 @@ public class EntryLogMetadata {
         });
     }
 
+    /**
+     * Serialize the metadata as
+     * {@code [version][entryLogId][totalSize][remainingSize][ledgersCount]([ledgerId][size])*}.
+     */
+    public void serialize(DataOutputStream out) throws IOException {
+        out.writeShort(SERIALIZATION_VERSION);
+        out.writeLong(entryLogId);
+        out.writeLong(totalSize);
+        out.writeLong(remainingSize);
+        out.writeLong(ledgersMap.size());
+        IOException[] error = new IOException[1];
+        ledgersMap.forEach((ledgerId, size) -> {
+            if (error[0] != null) {
+                return;
+            }
+            try {
+                out.writeLong(ledgerId);
+                out.writeLong(size);
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    public static EntryLogMetadata deserialize(DataInputStream in) throws IOException {
+        short version = in.readShort();
+        if (version != SERIALIZATION_VERSION) {
+            throw new IOException("Unsupported entry log metadata version " + version);
+        }
+        long logId = in.readLong();
+        long totalSize = in.readLong();
+        long remainingSize = in.readLong();
+        long ledgersCount = in.readLong();
+        if (ledgersCount < 0 || ledgersCount > Integer.MAX_VALUE) {
+            throw new IOException("Invalid ledgers count " + ledgersCount + " for entry log " + logId);
+        }
+        EntryLogMetadata metadata = new EntryLogMetadata(logId, (int) Math.max(16, ledgersCount));
+        for (long i = 0; i < ledgersCount; i++) {
+            metadata.ledgersMap.put(in.readLong(), in.readLong());
+        }
+        metadata.totalSize = totalSize;
+        metadata.remainingSize = remainingSize;
+        return metadata;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,317 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import com.sun.jna.Pointer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.util.NativeIO;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.LongPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded off-heap cache of fixed size blocks of entry log files, shared by all the
+ * readers of an {@link EntryLogger}.
+ *
+ * <p>Missing blocks are loaded with direct I/O when the entry log was opened with O_DIRECT,
+ * so entry log reads neither go through nor pollute the OS page cache, and the block size
+ * is the only readahead done on entry logs. The memory used for entry log reads is bounded
+ * by the size of the cache.
+ *
+ * <p>Blocks are evicted with the CLOCK algorithm. Lookups are lock-free: each slot has a
+ * version, odd while the slot is being loaded, and a reader discards what it copied from a
+ * slot whose version changed during the copy.
+ *
+ * <p>The blocks of an entry log are dropped with {@link #invalidate(long)} when the entry log
+ * is removed, so they don't hold cache space until evicted, and are never served for another
+ * file with the same log id.
+ */
+public class EntryLogReadBlockCache implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(EntryLogReadBlockCache.class);
+
+    // alignment of the blocks on the disk and in memory, as required by O_DIRECT
+    static final int ALIGNMENT = 4096;
+
+    private static final int NO_SLOT = -1;
+
+    private final int blockSize;
+    private final int numBlocks;
+    private final ByteBuf memory;
+    // address of the first aligned slot, 0 when the memory address is not available
+    private final long alignedAddress;
+    private final ByteBuffer[] slots;
+
+    // (logId, blockIndex) -> (slot, 0)
+    private final ConcurrentLongLongPairHashMap index;
+    // owner and number of valid bytes of each slot, published by the slot version
+    private final long[] slotLogIds;
+    private final long[] slotBlocks;
+    private final int[] slotLengths;
+    private final AtomicLongArray slotVersions;
+    private final AtomicIntegerArray referenced;
+
+    // guarded by this
+    private int clockHand = 0;
+    // number of invalidations, blocks loaded while an invalidation happened are not cached
+    private volatile long invalidations = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public EntryLogReadBlockCache(ByteBufAllocator allocator, long maxSize, int blockSize,
+                                  Counter hits, Counter misses) {
+        this.blockSize = Math.max(ALIGNMENT, blockSize - blockSize % ALIGNMENT);
+        this.numBlocks = (int) Math.max(1, Math.min(maxSize, Integer.MAX_VALUE - ALIGNMENT) / this.blockSize);
+        this.hits = hits;
+        this.misses = misses;
+
+        int capacity = numBlocks * this.blockSize + ALIGNMENT;
+        this.memory = allocator.directBuffer(capacity, capacity);
+        int alignOffset = 0;
+        if (memory.hasMemoryAddress()) {
+            alignOffset = (int) ((ALIGNMENT - memory.memoryAddress() % ALIGNMENT) % ALIGNMENT);
+            this.alignedAddress = memory.memoryAddress() + alignOffset;
+        } else {
+            this.alignedAddress = 0;
+        }
+        this.slots = new ByteBuffer[numBlocks];
+        for (int i = 0; i < numBlocks; i++) {
+            slots[i] = memory.nioBuffer(alignOffset + i * this.blockSize, this.blockSize);
+        }
+
+        this.index = new ConcurrentLongLongPairHashMap(numBlocks, 2 * Runtime.getRuntime().availableProcessors());
+        this.slotLogIds = new long[numBlocks];
+        this.slotBlocks = new long[numBlocks];
+        this.slotLengths = new int[numBlocks];
+        this.slotVersions = new AtomicLongArray(numBlocks);
+        this.referenced = new AtomicIntegerArray(numBlocks);
+        for (int i = 0; i < numBlocks; i++) {
+            slotLogIds[i] = -1;
+        }
+
+        LOG.info("Created entry log read block cache of {} blocks of {} bytes", numBlocks, this.blockSize);
+    }
+
+    /**
+     * Whether blocks can be loaded from file descriptors opened with O_DIRECT.
+     */
+    public boolean isDirectIOAvailable() {
+        return alignedAddress != 0 && NativeIO.isDirectIOSupported();
+    }
+
+    /**
+     * Read {@code length} bytes of entry log {@code logId} at {@code pos} into {@code dest}.
+     *
+     * @param fd a file descriptor of the entry log opened with O_DIRECT, or -1 to load
+     *           the missing blocks through {@code fc}
+     * @return the number of bytes read, which is less than {@code length} only at the end of the file
+     */
+    int read(long logId, int fd, FileChannel fc, ByteBuf dest, long pos, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            long position = pos + read;
+            long block = position / blockSize;
+            int offsetInBlock = (int) (position % blockSize);
+
+            int copied = copyFromCache(logId, block, offsetInBlock, dest, length - read);
+            if (copied < 0) {
+                misses.inc();
+                copied = loadAndCopy(logId, block, offsetInBlock, fd, fc, dest, length - read);
+                if (copied <= 0) {
+                    // end of the file
+                    break;
+                }
+            } else {
+                hits.inc();
+            }
+            read += copied;
+        }
+        return read;
+    }
+
+    private int copyFromCache(long logId, long block, int offsetInBlock, ByteBuf dest, int length) {
+        LongPair res = index.get(logId, block);
+        if (res == null) {
+            return -1;
+        }
+        int slot = (int) res.first;
+        long version = slotVersions.get(slot);
+        if ((version & 1) != 0 || slotLogIds[slot] != logId || slotBlocks[slot] != block) {
+            // the slot is being loaded or was reused
+            return -1;
+        }
+        int validLength = slotLengths[slot];
+        if (offsetInBlock >= validLength) {
+            // the block was cached while it was the partial tail of the file
+            return -1;
+        }
+
+        int toCopy = Math.min(length, validLength - offsetInBlock);
+        int writerIndex = dest.writerIndex();
+        ByteBuffer src = slots[slot].duplicate();
+        src.position(offsetInBlock).limit(offsetInBlock + toCopy);
+        dest.writeBytes(src);
+
+        if (slotVersions.get(slot) != version) {
+            // the slot was reused while copying
+            dest.writerIndex(writerIndex);
+            return -1;
+        }
+        referenced.lazySet(slot, 1);
+        return toCopy;
+    }
+
+    private int loadAndCopy(long logId, long block, int offsetInBlock, int fd, FileChannel fc,
+                            ByteBuf dest, int length) throws IOException {
+        int slot = acquireSlot();
+        if (slot == NO_SLOT) {
+            // every slot is being loaded, read straight from the file
+            int toRead = Math.min(length, dest.writableBytes());
+            int read = fc.read(dest.nioBuffer(dest.writerIndex(), toRead), block * blockSize + offsetInBlock);
+            if (read > 0) {
+                dest.writerIndex(dest.writerIndex() + read);
+            }
+            return read;
+        }
+
+        long invalidationsBeforeLoad = invalidations;
+        int loaded = 0;
+        int toCopy = 0;
+        try {
+            loaded = loadBlock(slot, block, fd, fc);
+            if (loaded > offsetInBlock) {
+                // copy while the slot is still owned by this reader
+                toCopy = Math.min(length, loaded - offsetInBlock);
+                ByteBuffer src = slots[slot].duplicate();
+                src.position(offsetInBlock).limit(offsetInBlock + toCopy);
+                dest.writeBytes(src);
+            }
+        } finally {
+            publishSlot(slot, logId, block, loaded, invalidationsBeforeLoad);
+        }
+        return toCopy;
+    }
+
+    private synchronized void publishSlot(int slot, long logId, long block, int loaded,
+                                          long invalidationsBeforeLoad) {
+        // the block may belong to an entry log invalidated during the load
+        boolean cacheable = loaded > 0 && invalidations == invalidationsBeforeLoad;
+        slotLogIds[slot] = cacheable ? logId : -1;
+        slotBlocks[slot] = block;
+        slotLengths[slot] = cacheable ? loaded : 0;
+        slotVersions.incrementAndGet(slot);
+        if (cacheable) {
+            index.put(logId, block, slot, 0);
+            referenced.lazySet(slot, 1);
+        }
+    }
+
+    /**
+     * Drop all the cached blocks of entry log {@code logId}.
+     */
+    public synchronized void invalidate(long logId) {
+        invalidations++;
+        for (int slot = 0; slot < numBlocks; slot++) {
+            if (slotLogIds[slot] != logId || (slotVersions.get(slot) & 1) != 0) {
+                continue;
+            }
+            // take the slot like acquireSlot(), so concurrent lookups discard it
+            slotVersions.incrementAndGet(slot);
+            index.remove(logId, slotBlocks[slot], slot, 0);
+            slotLogIds[slot] = -1;
+            slotLengths[slot] = 0;
+            referenced.set(slot, 0);
+            slotVersions.incrementAndGet(slot);
+        }
+    }
+
+    private int loadBlock(int slot, long block, int fd, FileChannel fc) throws IOException {
+        long offset = block * blockSize;
+        if (fd >= 0 && alignedAddress != 0) {
+            // a direct read at the end of the file returns what is left, so a single read is enough
+            return Math.max(0, NativeIO.preadOnce(fd, new Pointer(alignedAddress + (long) slot * blockSize),
+                    blockSize, offset));
+        }
+        ByteBuffer dst = slots[slot].duplicate();
+        dst.clear();
+        while (dst.hasRemaining()) {
+            int read = fc.read(dst, offset + dst.position());
+            if (read <= 0) {
+                break;
+            }
+        }
+        return dst.position();
+    }
+
+    /**
+     * Pick a slot to load a block into with the CLOCK algorithm. The returned slot is
+     * unpublished (odd version) and no longer reachable from the index.
+     */
+    private synchronized int acquireSlot() {
+        for (int i = 0; i < 2 * numBlocks; i++) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % numBlocks;
+
+            if ((slotVersions.get(slot) & 1) != 0) {
+                // being loaded by another reader
+                continue;
+            }
+            if (referenced.get(slot) != 0) {
+                // second chance
+                referenced.set(slot, 0);
+                continue;
+            }
+
+            slotVersions.incrementAndGet(slot);
+            if (slotLogIds[slot] >= 0) {
+                // only drop the mapping if the block was not cached again in another slot
+                index.remove(slotLogIds[slot], slotBlocks[slot], slot, 0);
+            }
+            return slot;
+        }
+        return NO_SLOT;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    public long size() {
+        return index.size() * blockSize;
+    }
+
+    @Override
+    public void close() {
+        memory.release();
+    }
+}
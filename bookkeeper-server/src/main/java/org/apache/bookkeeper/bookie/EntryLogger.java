@@ -60,6 +60,7 @@ import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.DiskChecker;
 import org.apache.bookkeeper.util.IOUtils;
+import org.apache.bookkeeper.util.NativeIO;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongHashMap;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongHashMap.BiConsumerLong;
 import org.slf4j.Logger;
@@ -339,10 +340,21 @@ public class EntryLogger {
     public EntryLogger(ServerConfiguration conf,
             LedgerDirsManager ledgerDirsManager, EntryLogListener listener, StatsLogger statsLogger,
             ByteBufAllocator allocator) throws IOException {
+        this(conf, ledgerDirsManager, listener, statsLogger, allocator, null);
+    }
+
+    /**
+     * Create an EntryLogger whose reads are served by the given block cache, loading missing
+     * blocks with direct I/O when possible. A null cache uses the per-thread read buffers.
+     */
+    public EntryLogger(ServerConfiguration conf,
+            LedgerDirsManager ledgerDirsManager, EntryLogListener listener, StatsLogger statsLogger,
+            ByteBufAllocator allocator, EntryLogReadBlockCache readBlockCache) throws IOException {
         //We reserve 500 bytes as overhead for the protocol.  This is not 100% accurate
         // but the protocol varies so an exact value is difficult to determine
         this.maxSaneEntrySize = conf.getNettyMaxFrameSizeBytes() - 500;
         this.allocator = allocator;
+        this.readBlockCache = readBlockCache;
         this.ledgerDirsManager = ledgerDirsManager;
         this.conf = conf;
         entryLogPerLedgerEnabled = conf.isEntryLogPerLedgerEnabled();
@@ -443,6 +455,16 @@ public class EntryLogger {
      */
     private final ConcurrentMap<Long, FileChannel> logid2FileChannel = new ConcurrentHashMap<Long, FileChannel>();
 
+    /**
+     * The block cache serving the reads, null when reads go through the per-thread read buffers.
+     */
+    private final EntryLogReadBlockCache readBlockCache;
+
+    /**
+     * The file descriptors of the log files opened with O_DIRECT for the read block cache.
+     */
+    private final ConcurrentMap<Long, Integer> logid2DirectFd = new ConcurrentHashMap<Long, Integer>();
+
     /**
      * Put the logId, bc pair in the map responsible for the current thread.
      * @param logId
@@ -466,6 +488,14 @@ public class EntryLogger {
                 LOG.warn("Exception while closing channel for log file:" + logId);
             }
         }
+        Integer directFd = logid2DirectFd.remove(logId);
+        if (null != directFd) {
+            try {
+                NativeIO.closeFd(directFd);
+            } catch (IOException e) {
+                LOG.warn("Exception while closing direct file descriptor for log file:" + logId);
+            }
+        }
     }
 
     public BufferedReadChannel getFromChannels(long logId) {
@@ -525,6 +555,9 @@ public class EntryLogger {
      */
     protected boolean removeEntryLog(long entryLogId) {
         removeFromChannelsAndClose(entryLogId);
+        if (readBlockCache != null) {
+            readBlockCache.invalidate(entryLogId);
+        }
         File entryLogFile;
         try {
             entryLogFile = findFile(entryLogId);
@@ -901,6 +934,18 @@ public class EntryLogger {
             newFc.close();
             newFc = oldFc;
         }
+        if (readBlockCache != null) {
+            if (readBlockCache.isDirectIOAvailable() && !logid2DirectFd.containsKey(entryLogId)) {
+                int directFd = NativeIO.openDirectForRead(file.getPath());
+                if (directFd >= 0 && logid2DirectFd.putIfAbsent(entryLogId, directFd) != null) {
+                    NativeIO.closeFd(directFd);
+                }
+            }
+            fc = new DirectReadChannel(newFc, entryLogId, readBlockCache,
+                    () -> logid2DirectFd.getOrDefault(entryLogId, -1));
+            putInReadChannels(entryLogId, fc);
+            return fc;
+        }
         // We set the position of the write buffer of this buffered channel to Long.MAX_VALUE
         // so that there are no overlaps with the write buffer while reading
         fc = new BufferedReadChannel(newFc, conf.getReadBufferBytes());
@@ -1165,6 +1210,10 @@ public class EntryLogger {
             }
             // clear the mapping, so we don't need to go through the channels again in finally block in normal case.
             logid2FileChannel.clear();
+            for (int directFd : logid2DirectFd.values()) {
+                NativeIO.closeFd(directFd);
+            }
+            logid2DirectFd.clear();
             entryLogManager.close();
             synchronized (compactionLogLock) {
                 if (compactionLogChannel != null) {
@@ -0,0 +1,51 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.util.LogLinearHistogram;
+
+/**
+ * Lock-free histogram of the latencies of the foreground operations, i.e. the ones served to clients.
+ *
+ * <p>Latencies are recorded in microseconds in a {@link LogLinearHistogram}, which keeps a percentile
+ * within 12.5% of the actual value, and is cheap enough to be recorded on every operation.
+ */
+class ForegroundLatencyMonitor {
+
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+    void recordLatency(long latencyNanos) {
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Get the given percentile of the latencies recorded since the previous call, and start a new window.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the percentile in microseconds, 0 if no latency was recorded
+     */
+    long getPercentileMicrosAndReset(double percentile) {
+        return histogram.getPercentileAndReset(percentile);
+    }
+}
@@ -24,18 +24,18 @@ package org.apache.bookkeeper.bookie;
 import com.google.common.annotations.VisibleForTesting;
 import io.netty.util.concurrent.DefaultThreadFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.Getter;
@@ -56,9 +56,10 @@ import org.slf4j.LoggerFactory;
 public class GarbageCollectorThread extends SafeRunnable {
     private static final Logger LOG = LoggerFactory.getLogger(GarbageCollectorThread.class);
     private static final int SECOND = 1000;
+    private static final String ENTRYLOG_METADATA_CACHE_DIR = "entrylogIndexCache";
 
     // Maps entry log files to the set of ledgers that comprise the file and the size usage per ledger
-    private Map<Long, EntryLogMetadata> entryLogMetaMap = new ConcurrentHashMap<Long, EntryLogMetadata>();
+    private final EntryLogMetadataMap entryLogMetaMap;
 
     private final ScheduledExecutorService gcExecutor;
     Future<?> scheduledFuture = null;
@@ -153,6 +154,7 @@ public class GarbageCollectorThread extends SafeRunnable {
         this.entryLogger = ledgerStorage.getEntryLogger();
         this.ledgerStorage = ledgerStorage;
         this.gcWaitTime = conf.getGcWaitTime();
+        this.entryLogMetaMap = createEntryLogMetadataMap();
 
         this.numActiveEntryLogs = 0;
         this.totalEntryLogSize = 0L;
@@ -345,7 +347,12 @@ public class GarbageCollectorThread extends SafeRunnable {
 
         // Extract all of the ledger ID's that comprise all of the entry logs
         // (except for the current new one which is still being written to).
-        entryLogMetaMap = extractMetaFromEntryLogs(entryLogMetaMap);
+        try {
+            extractMetaFromEntryLogs(entryLogMetaMap);
+        } catch (IOException e) {
+            LOG.error("Failed to access the entry log metadata map, skipping this gc run", e);
+            return;
+        }
 
         // gc inactive/deleted ledgers
         doGcLedgers();
@@ -408,23 +415,46 @@ public class GarbageCollectorThread extends SafeRunnable {
     private void doGcEntryLogs() {
         // Get a cumulative count, don't update until complete
         AtomicLong totalEntryLogSizeAcc = new AtomicLong(0L);
+        AtomicInteger numActiveEntryLogsAcc = new AtomicInteger(0);
+
+        // The metadata of the removed entry logs is removed once the iteration is done, rather
+        // than from the map being iterated
+        List<Long> removedEntryLogs = new ArrayList<>();
 
         // Loop through all of the entry logs and remove the non-active ledgers.
-        entryLogMetaMap.forEach((entryLogId, meta) -> {
-           removeIfLedgerNotExists(meta);
-           if (meta.isEmpty()) {
-               // This means the entry log is not associated with any active ledgers anymore.
-               // We can remove this entry log file now.
-               LOG.info("Deleting entryLogId " + entryLogId + " as it has no active ledgers!");
-               removeEntryLog(entryLogId);
-               gcStats.getReclaimedSpaceViaDeletes().add(meta.getTotalSize());
-           }
-
-           totalEntryLogSizeAcc.getAndAdd(meta.getRemainingSize());
-        });
+        try {
+            entryLogMetaMap.forEach((entryLogId, meta) -> {
+               long priorRemainingSize = meta.getRemainingSize();
+               removeIfLedgerNotExists(meta);
+               if (meta.isEmpty()) {
+                   // This means the entry log is not associated with any active ledgers anymore.
+                   // We can remove this entry log file now.
+                   LOG.info("Deleting entryLogId " + entryLogId + " as it has no active ledgers!");
+                   if (entryLogger.removeEntryLog(entryLogId)) {
+                       removedEntryLogs.add(entryLogId);
+                   }
+                   gcStats.getReclaimedSpaceViaDeletes().add(meta.getTotalSize());
+               } else {
+                   if (meta.getRemainingSize() != priorRemainingSize) {
+                       updateEntryLogMetadata(entryLogId, meta);
+                   }
+                   numActiveEntryLogsAcc.incrementAndGet();
+               }
+
+               totalEntryLogSizeAcc.getAndAdd(meta.getRemainingSize());
+            });
+        } catch (IOException e) {
+            LOG.error("Failed to iterate the entry log metadata map", e);
+            return;
+        } finally {
+            for (long entryLogId : removedEntryLogs) {
+                LOG.info("Removing entry log metadata for {}", entryLogId);
+                removeEntryLogMetadata(entryLogId);
+            }
+        }
 
         this.totalEntryLogSize = totalEntryLogSizeAcc.get();
-        this.numActiveEntryLogs = entryLogMetaMap.keySet().size();
+        this.numActiveEntryLogs = numActiveEntryLogsAcc.get();
     }
 
     private void removeIfLedgerNotExists(EntryLogMetadata meta) {
@@ -443,31 +473,43 @@ public class GarbageCollectorThread extends SafeRunnable {
      * Compact entry logs if necessary.
      *
      * <p>
-     * Compaction will be executed from low unused space to high unused space.
-     * Those entry log files whose remaining size percentage is higher than threshold
-     * would not be compacted.
+     * Compaction will be executed from the entry logs with the highest cost-benefit score, see
+     * {@link #getCompactionScore}, to the ones with the lowest. Those entry log files whose remaining size percentage is
+     * higher than threshold would not be compacted.
      * </p>
      */
     @VisibleForTesting
     void doCompactEntryLogs(double threshold, long maxTimeMillis) {
         LOG.info("Do compaction to compact those files lower than {}", threshold);
 
-        // sort the ledger meta by usage in ascending order.
-        List<EntryLogMetadata> logsToCompact = new ArrayList<EntryLogMetadata>();
-        logsToCompact.addAll(entryLogMetaMap.values());
-        logsToCompact.sort(Comparator.comparing(EntryLogMetadata::getUsage));
-
         final int numBuckets = 10;
         int[] entryLogUsageBuckets = new int[numBuckets];
         int[] compactedBuckets = new int[numBuckets];
 
+        // Only the logs below the threshold are kept around, so that a persisted metadata
+        // map doesn't have to be fully materialized on heap for the compaction.
+        List<EntryLogMetadata> logsToCompact = new ArrayList<EntryLogMetadata>();
+        try {
+            entryLogMetaMap.forEach((entryLogId, meta) -> {
+                entryLogUsageBuckets[calculateUsageIndex(numBuckets, meta.getUsage())]++;
+                if (meta.getUsage() < threshold) {
+                    logsToCompact.add(meta);
+                }
+            });
+        } catch (IOException e) {
+            LOG.error("Failed to iterate the entry log metadata map", e);
+            return;
+        }
+        // sort the ledger meta by cost-benefit score in descending order.
+        logsToCompact.sort(compactionOrder(entryLogger.getLeastUnflushedLogId()));
+
         long start = System.currentTimeMillis();
         long end = start;
         long timeDiff = 0;
+        boolean stopCompaction = false;
 
         for (EntryLogMetadata meta : logsToCompact) {
             int bucketIndex = calculateUsageIndex(numBuckets, meta.getUsage());
-            entryLogUsageBuckets[bucketIndex]++;
 
             if (timeDiff < maxTimeMillis) {
                 end = System.currentTimeMillis();
@@ -478,6 +520,12 @@ public class GarbageCollectorThread extends SafeRunnable {
                 // report of where the usage was prior to running compaction.
                 continue;
             }
+            if (!stopCompaction && !waitForForegroundLoad(start, maxTimeMillis)) {
+                stopCompaction = true;
+            }
+            if (stopCompaction) {
+                continue;
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Compacting entry log {} with usage {} below threshold {}",
                         meta.getEntryLogId(), meta.getUsage(), threshold);
@@ -501,6 +549,73 @@ public class GarbageCollectorThread extends SafeRunnable {
                 entryLogUsageBuckets, compactedBuckets);
     }
 
+    /**
+     * Order the entry logs from the most to the least worth compacting.
+     *
+     * @param curLogId the id of the entry log being written, used as the clock of the entry log ages
+     */
+    @VisibleForTesting
+    static Comparator<EntryLogMetadata> compactionOrder(long curLogId) {
+        return Comparator.comparingDouble((EntryLogMetadata meta) -> getCompactionScore(meta, curLogId)).reversed();
+    }
+
+    /**
+     * Cost-benefit score of compacting an entry log, (1 - u) * age / (1 + u) for a usage u: the whole
+     * log is read and its remaining entries are rewritten to reclaim 1 - u, and the older the log, the
+     * less likely its remaining entries are to be deleted soon, so the longer the space stays reclaimed.
+     * The age is the number of entry logs rolled since, as the entry log ids grow by 1 on each roll.
+     */
+    static double getCompactionScore(EntryLogMetadata meta, long curLogId) {
+        long totalSize = meta.getTotalSize();
+        if (totalSize <= 0) {
+            return 0;
+        }
+        double usage = meta.getUsage();
+        long age = Math.max(1, curLogId - meta.getEntryLogId());
+        return (1 - usage) * age / (1 + usage);
+    }
+
+    /**
+     * Wait while the reads served to clients are too slow to compact another entry log, unless
+     * the garbage collection is forced because the disks are full.
+     *
+     * @return false if compaction must stop, because it ran out of time or the gc is stopping
+     */
+    private boolean waitForForegroundLoad(long start, long maxTimeMillis) {
+        boolean waiting = false;
+        while (!forceGarbageCollection.get() && compactor.isForegroundOverloaded()) {
+            if (!running || (maxTimeMillis > 0 && System.currentTimeMillis() - start > maxTimeMillis)) {
+                LOG.info("Compaction stopped while paused for the foreground load");
+                return false;
+            }
+            if (!waiting) {
+                LOG.info("Pausing compaction, the foreground reads are too slow");
+                gcStats.getCompactionPausedCounter().inc();
+                waiting = true;
+            }
+            try {
+                Thread.sleep(SECOND);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (waiting) {
+            LOG.info("Resuming compaction");
+        }
+        return true;
+    }
+
+    /**
+     * Record the latency of an entry log read served to clients, so that compaction can back off when
+     * it slows the reads down.
+     *
+     * @param latencyNanos the read latency in nanoseconds
+     */
+    public void recordForegroundReadLatency(long latencyNanos) {
+        compactor.recordForegroundReadLatency(latencyNanos);
+    }
+
     /**
      * Calculate the index for the batch based on the usage between 0 and 1.
      *
@@ -530,6 +645,12 @@ public class GarbageCollectorThread extends SafeRunnable {
 
         // Interrupt GC executor thread
         gcExecutor.shutdownNow();
+        try {
+            gcExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            entryLogMetaMap.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close the entry log metadata map", e);
+        }
     }
 
     /**
@@ -542,8 +663,41 @@ public class GarbageCollectorThread extends SafeRunnable {
         // remove entry log file successfully
         if (entryLogger.removeEntryLog(entryLogId)) {
             LOG.info("Removing entry log metadata for {}", entryLogId);
+            removeEntryLogMetadata(entryLogId);
+        }
+    }
+
+    private void removeEntryLogMetadata(long entryLogId) {
+        try {
             entryLogMetaMap.remove(entryLogId);
+        } catch (IOException e) {
+            LOG.warn("Failed to remove the metadata of entry log {}", entryLogId, e);
+        }
+    }
+
+    private void updateEntryLogMetadata(long entryLogId, EntryLogMetadata meta) {
+        try {
+            entryLogMetaMap.put(entryLogId, meta);
+        } catch (IOException e) {
+            LOG.warn("Failed to update the metadata of entry log {}", entryLogId, e);
+        }
+    }
+
+    private EntryLogMetadataMap createEntryLogMetadataMap() throws IOException {
+        if (!conf.isGcEntryLogMetadataCacheEnabled()) {
+            return new InMemoryEntryLogMetadataMap();
+        }
+        // Each ledger directory has its own gc thread, so keep one store per ledger directory.
+        File ledgerDir = entryLogger.getLedgerDirsManager().getAllLedgerDirs().get(0);
+        String basePath = conf.getGcEntryLogMetadataCachePath();
+        String subPath = ENTRYLOG_METADATA_CACHE_DIR;
+        if (basePath == null) {
+            basePath = ledgerDir.getPath();
+        } else {
+            subPath = ENTRYLOG_METADATA_CACHE_DIR + "-"
+                    + ledgerDir.getAbsolutePath().replace(File.separatorChar, '_');
         }
+        return new PersistentEntryLogMetadataMap(basePath, subPath, conf, entryLogger::logExists);
     }
 
     /**
@@ -582,7 +736,8 @@ public class GarbageCollectorThread extends SafeRunnable {
      *          Existing EntryLogs to Meta
      * @throws IOException
      */
-    protected Map<Long, EntryLogMetadata> extractMetaFromEntryLogs(Map<Long, EntryLogMetadata> entryLogMetaMap) {
+    protected EntryLogMetadataMap extractMetaFromEntryLogs(EntryLogMetadataMap entryLogMetaMap)
+            throws IOException {
         // Extract it for every entry log except for the current one.
         // Entry Log ID's are just a long value that starts at 0 and increments
         // by 1 when the log fills up and we roll to a new one.
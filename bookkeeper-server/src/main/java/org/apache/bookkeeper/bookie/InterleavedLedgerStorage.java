@@ -413,7 +413,9 @@ public class InterleavedLedgerStorage implements CompactableLedgerStorage, Entry
             return retBytes;
         } finally {
             if (success) {
-                getEntryStats.registerSuccessfulEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
+                long elapsedNanos = MathUtils.elapsedNanos(startTimeNanos);
+                getEntryStats.registerSuccessfulEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+                gcThread.recordForegroundReadLatency(elapsedNanos);
             } else {
                 getEntryStats.registerFailedEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
             }
@@ -47,6 +47,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.bookkeeper.bookie.LedgerDirsManager.NoWritableLedgerDirException;
 import org.apache.bookkeeper.bookie.stats.JournalStats;
@@ -362,7 +364,6 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         private JournalChannel logFile;
         private RecyclableArrayList<QueueEntry> forceWriteWaiters;
         private boolean shouldClose;
-        private boolean isMarker;
         private long lastFlushedPosition;
         private long logId;
         private long enqueueTime;
@@ -372,28 +373,23 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
             journalStats.getFwEnqueueTimeStats()
                 .registerSuccessfulEvent(MathUtils.elapsedNanos(enqueueTime), TimeUnit.NANOSECONDS);
 
-            if (isMarker) {
-                return 0;
-            }
-
             try {
                 if (shouldForceWrite) {
                     long startTime = MathUtils.nowInNano();
                     this.logFile.forceWrite(false);
-                    journalStats.getJournalSyncStats()
-                        .registerSuccessfulEvent(MathUtils.elapsedNanos(startTime), TimeUnit.NANOSECONDS);
+                    long syncNanos = MathUtils.elapsedNanos(startTime);
+                    journalStats.getJournalSyncStats().registerSuccessfulEvent(syncNanos, TimeUnit.NANOSECONDS);
+                    journalStats.getJournalDirSyncStats().registerSuccessfulEvent(syncNanos, TimeUnit.NANOSECONDS);
                 }
                 lastLogMark.setCurLogMark(this.logId, this.lastFlushedPosition);
 
                 // Notify the waiters that the force write succeeded
-                for (int i = 0; i < forceWriteWaiters.size(); i++) {
-                    QueueEntry qe = forceWriteWaiters.get(i);
-                    if (qe != null) {
-                        cbThreadPool.execute(qe);
-                    }
-                }
+                int numWaiters = forceWriteWaiters.size();
+                RecyclableArrayList<QueueEntry> waiters = forceWriteWaiters;
+                forceWriteWaiters = null;
+                notifyPersisted(waiters);
 
-                return forceWriteWaiters.size();
+                return numWaiters;
             } finally {
                 closeFileIfNecessary();
             }
@@ -430,19 +426,18 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         }
     }
 
-    private ForceWriteRequest createForceWriteRequest(JournalChannel logFile,
+    @VisibleForTesting
+    ForceWriteRequest createForceWriteRequest(JournalChannel logFile,
                           long logId,
                           long lastFlushedPosition,
                           RecyclableArrayList<QueueEntry> forceWriteWaiters,
-                          boolean shouldClose,
-                          boolean isMarker) {
+                          boolean shouldClose) {
         ForceWriteRequest req = forceWriteRequestsRecycler.get();
         req.forceWriteWaiters = forceWriteWaiters;
         req.logFile = logFile;
         req.logId = logId;
         req.lastFlushedPosition = lastFlushedPosition;
         req.shouldClose = shouldClose;
-        req.isMarker = isMarker;
         req.enqueueTime = MathUtils.nowInNano();
         journalStats.getForceWriteQueueSize().inc();
         return req;
@@ -459,14 +454,25 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
     /**
      * ForceWriteThread is a background thread which makes the journal durable periodically.
      *
+     * <p>All the requests that are pending when the thread wakes up are drained at once. When group
+     * force writes are enabled, consecutive requests for the same journal file are satisfied by a single
+     * fsync, since the journal thread has already flushed their data to the file before enqueuing them.
+     * The journal thread keeps writing the next group while the current one is being synced.
      */
-    private class ForceWriteThread extends BookieCriticalThread {
+    @VisibleForTesting
+    class ForceWriteThread extends BookieCriticalThread {
         volatile boolean running = true;
         // This holds the queue entries that should be notified after a
         // successful force write
         Thread threadToNotifyOnEx;
         // should we group force writes
         private final boolean enableGroupForceWrites;
+        // requests drained from the force write queue in the current iteration
+        private final List<ForceWriteRequest> localRequests = new ArrayList<>();
+        // position of the last fsync, used to report the number of bytes covered by each group
+        private long lastSyncedLogId = -1;
+        private long lastSyncedPosition = 0;
+
         // make flush interval as a parameter
         public ForceWriteThread(Thread threadToNotifyOnEx, boolean enableGroupForceWrites) {
             super("ForceWriteThread");
@@ -485,45 +491,27 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                 }
             }
 
-            boolean shouldForceWrite = true;
-            int numReqInLastForceWrite = 0;
             while (running) {
-                ForceWriteRequest req = null;
                 try {
-                    req = forceWriteRequests.take();
-                    // Force write the file and then notify the write completions
-                    //
-                    if (!req.isMarker) {
-                        if (shouldForceWrite) {
-                            // if we are going to force write, any request that is already in the
-                            // queue will benefit from this force write - post a marker prior to issuing
-                            // the flush so until this marker is encountered we can skip the force write
-                            if (enableGroupForceWrites) {
-                                forceWriteRequests.put(createForceWriteRequest(req.logFile, 0, 0, null, false, true));
-                            }
+                    if (forceWriteRequests.drainTo(localRequests) == 0) {
+                        localRequests.add(forceWriteRequests.take());
+                    }
 
-                            // If we are about to issue a write, record the number of requests in
-                            // the last force write and then reset the counter so we can accumulate
-                            // requests in the write we are about to issue
-                            if (numReqInLastForceWrite > 0) {
-                                journalStats.getForceWriteGroupingCountStats()
-                                    .registerSuccessfulValue(numReqInLastForceWrite);
-                                numReqInLastForceWrite = 0;
+                    int numRequests = localRequests.size();
+                    int groupStart = 0;
+                    while (groupStart < numRequests) {
+                        int groupEnd = groupStart + 1;
+                        if (enableGroupForceWrites) {
+                            JournalChannel logFile = localRequests.get(groupStart).logFile;
+                            // A request closing the file is always the last one for that file
+                            while (groupEnd < numRequests
+                                    && localRequests.get(groupEnd).logFile == logFile
+                                    && !localRequests.get(groupEnd - 1).shouldClose) {
+                                groupEnd++;
                             }
                         }
-                    }
-                    numReqInLastForceWrite += req.process(shouldForceWrite);
-
-                    if (enableGroupForceWrites
-                            // if its a marker we should switch back to flushing
-                            && !req.isMarker
-                            // This indicates that this is the last request in a given file
-                            // so subsequent requests will go to a different file so we should
-                            // flush on the next request
-                            && !req.shouldClose) {
-                        shouldForceWrite = false;
-                    } else {
-                        shouldForceWrite = true;
+                        processGroup(groupStart, groupEnd);
+                        groupStart = groupEnd;
                     }
                 } catch (IOException ioe) {
                     LOG.error("I/O exception in ForceWrite thread", ioe);
@@ -531,23 +519,62 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     LOG.info("ForceWrite thread interrupted");
-                    // close is idempotent
-                    if (null != req) {
-                        req.shouldClose = true;
-                        req.closeFileIfNecessary();
-                    }
                     running = false;
                 } finally {
-                    if (req != null) {
+                    for (int i = 0; i < localRequests.size(); i++) {
+                        ForceWriteRequest req = localRequests.get(i);
+                        if (!running) {
+                            // close is idempotent
+                            req.shouldClose = true;
+                            req.closeFileIfNecessary();
+                        }
                         req.recycle();
                     }
+                    localRequests.clear();
                 }
             }
+            // The requests still queued are never synced, close their files
+            forceWriteRequests.drainTo(localRequests);
+            for (int i = 0; i < localRequests.size(); i++) {
+                ForceWriteRequest req = localRequests.get(i);
+                req.shouldClose = true;
+                req.closeFileIfNecessary();
+                req.recycle();
+            }
+            localRequests.clear();
             // Regardless of what caused us to exit, we should notify the
             // the parent thread as it should either exit or be in the process
             // of exiting else we will have write requests hang
             threadToNotifyOnEx.interrupt();
         }
+
+        /**
+         * Sync the journal file once for the requests in [groupStart, groupEnd) and notify their waiters.
+         */
+        private void processGroup(int groupStart, int groupEnd) throws IOException {
+            ForceWriteRequest first = localRequests.get(groupStart);
+            ForceWriteRequest last = localRequests.get(groupEnd - 1);
+            long groupEnqueueTime = first.enqueueTime;
+            long groupBytes = last.lastFlushedPosition
+                    - (last.logId == lastSyncedLogId ? lastSyncedPosition : 0);
+
+            int numWaiters = 0;
+            for (int i = groupStart; i < groupEnd; i++) {
+                // Every request in the group was flushed to the file before it was enqueued, and
+                // all of them were dequeued before the fsync issued for the first one, so that
+                // fsync covers the data of the whole group
+                numWaiters += localRequests.get(i).process(i == groupStart);
+            }
+            lastSyncedLogId = last.logId;
+            lastSyncedPosition = last.lastFlushedPosition;
+
+            journalStats.getForceWriteGroupingCountStats().registerSuccessfulValue(numWaiters);
+            journalStats.getForceWriteGroupRequestsStats().registerSuccessfulValue(groupEnd - groupStart);
+            journalStats.getForceWriteGroupBytesStats().registerSuccessfulValue(Math.max(0, groupBytes));
+            journalStats.getForceWriteGroupLatencyStats()
+                .registerSuccessfulEvent(MathUtils.elapsedNanos(groupEnqueueTime), TimeUnit.NANOSECONDS);
+        }
+
         // shutdown sync thread
         void shutdown() throws InterruptedException {
             running = false;
@@ -606,6 +633,8 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
     private final boolean flushWhenQueueEmpty;
     // should we hint the filesystem to remove pages from cache after force write
     private final boolean removePagesFromCache;
+    // should the journal be written with direct I/O
+    private final boolean directIO;
     private final int journalFormatVersionToWrite;
     private final int journalAlignmentSize;
     // control PageCache flush interval when syncData disabled to reduce disk io util
@@ -624,9 +653,17 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
      * The thread pool used to handle callback.
      */
     private final ExecutorService cbThreadPool;
+    private final int numCallbackThreads;
 
     // journal entry queue to commit
     final BlockingQueue<QueueEntry> queue;
+    // entries drained from the queue in a single batch, only accessed by the journal thread
+    private final ArrayList<QueueEntry> localQueueEntries;
+    private int localQueueEntriesIdx = 0;
+    // number of drained entries not consumed yet, counted in the journal queue length
+    private volatile int localQueueLength = 0;
+    // max entries drained at once, which can be pending on top of the journal queue size
+    private static final int MAX_LOCAL_QUEUE_ENTRIES = 64;
     final BlockingQueue<ForceWriteRequest> forceWriteRequests;
 
     volatile boolean running = true;
@@ -637,6 +674,11 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
     // Expose Stats
     private final JournalStats journalStats;
 
+    // bytes appended to the journal files, sampled by the load aware journal selection
+    private final LongAdder writtenBytes = new LongAdder();
+    // ledgers assigned to this journal by the load aware journal selection
+    private final AtomicLong assignedLedgers = new AtomicLong();
+
     public Journal(int journalIndex, File journalDirectory, ServerConfiguration conf,
             LedgerDirsManager ledgerDirsManager) {
         this(journalIndex, journalDirectory, conf, ledgerDirsManager, NullStatsLogger.INSTANCE,
@@ -656,6 +698,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
             queue = new ArrayBlockingQueue<>(conf.getJournalQueueSize());
             forceWriteRequests = new ArrayBlockingQueue<>(conf.getJournalQueueSize());
         }
+        localQueueEntries = new ArrayList<>(MAX_LOCAL_QUEUE_ENTRIES);
 
         // Adjust the journal max memory in case there are multiple journals configured.
         long journalMaxMemory = conf.getJournalMaxMemorySizeMb() / conf.getJournalDirNames().length * 1024 * 1024;
@@ -675,6 +718,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         this.journalFormatVersionToWrite = conf.getJournalFormatVersionToWrite();
         this.journalAlignmentSize = conf.getJournalAlignmentSize();
         this.journalPageCacheFlushIntervalMSec = conf.getJournalPageCacheFlushIntervalMSec();
+        this.numCallbackThreads = conf.getNumJournalCallbackThreads();
         if (conf.getNumJournalCallbackThreads() > 0) {
             this.cbThreadPool = Executors.newFixedThreadPool(conf.getNumJournalCallbackThreads(),
                                                          new DefaultThreadFactory("bookie-journal-callback"));
@@ -687,6 +731,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         this.flushWhenQueueEmpty = maxGroupWaitInNanos <= 0 || conf.getJournalFlushWhenQueueEmpty();
 
         this.removePagesFromCache = conf.getJournalRemovePagesFromCache();
+        this.directIO = conf.getJournalDirectIOEnabled();
         // read last log mark
         if (conf.getJournalDirs().length == 1) {
             lastMarkFileName = LAST_MARK_DEFAULT_NAME;
@@ -699,7 +744,8 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         }
 
         // Expose Stats
-        this.journalStats = new JournalStats(statsLogger);
+        this.journalStats = new JournalStats(statsLogger, journalIndex,
+                () -> (long) getJournalQueueLength(), assignedLedgers::get);
     }
 
     JournalStats getJournalStats() {
@@ -879,6 +925,38 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                 journalStats.getJournalCbQueueSize()));
     }
 
+    /**
+     * record a range of consecutive add entry operations in journal. The entries are
+     * enqueued back to back so they land in the same journal group commit, and the
+     * callback is triggered once, when the last entry of the range is persisted.
+     */
+    public void logAddEntries(long ledgerId, long firstEntryId, List<ByteBuf> entries,
+                              boolean ackBeforeSync, WriteCallback cb, Object ctx)
+            throws InterruptedException {
+        long rangeSize = 0;
+        for (ByteBuf entry : entries) {
+            rangeSize += entry.readableBytes();
+        }
+        memoryLimitController.reserveMemory(rangeSize);
+
+        final int lastIndex = entries.size() - 1;
+        final WriteCallback nopCb = new BookieImpl.NopWriteCallback();
+        for (int i = 0; i <= lastIndex; i++) {
+            ByteBuf entry = entries.get(i);
+            // Retain entry until it gets written to journal
+            entry.retain();
+
+            journalStats.getJournalQueueSize().inc();
+            journalStats.getJournalCbQueueSize().inc();
+
+            queue.put(QueueEntry.create(
+                    entry, ackBeforeSync, ledgerId, firstEntryId + i,
+                    i == lastIndex ? cb : nopCb, i == lastIndex ? ctx : null, MathUtils.nowInNano(),
+                    journalStats.getJournalAddEntryStats(),
+                    journalStats.getJournalCbQueueSize()));
+        }
+    }
+
     void forceLedger(long ledgerId, WriteCallback cb, Object ctx) {
         queue.add(QueueEntry.create(
                 null, false /* ackBeforeSync */, ledgerId,
@@ -890,13 +968,72 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         journalStats.getJournalCbQueueSize().inc();
     }
 
+    /**
+     * Get the number of bytes appended to the journal files since the journal was created.
+     */
+    long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    AtomicLong getAssignedLedgers() {
+        return assignedLedgers;
+    }
+
     /**
      * Get the length of journal entries queue.
      *
-     * @return length of journal entry queue.
+     * @return length of journal entry queue, including the entries drained but not written yet.
      */
     public int getJournalQueueLength() {
-        return queue.size();
+        return queue.size() + localQueueLength;
+    }
+
+    /**
+     * Run the callbacks of the entries persisted by a force write. The entries are split by
+     * ledger in one task per callback thread, so that different ledgers are notified in
+     * parallel while the callbacks of a ledger in this force write run in order.
+     */
+    private void notifyPersisted(RecyclableArrayList<QueueEntry> waiters) {
+        if (numCallbackThreads <= 1 || waiters.size() <= 1) {
+            cbThreadPool.execute(() -> {
+                runCallbacks(waiters);
+                waiters.recycle();
+            });
+            return;
+        }
+
+        List<List<QueueEntry>> partitions = new ArrayList<>(numCallbackThreads);
+        for (int i = 0; i < numCallbackThreads; i++) {
+            partitions.add(null);
+        }
+        for (int i = 0; i < waiters.size(); i++) {
+            QueueEntry qe = waiters.get(i);
+            if (qe != null) {
+                int idx = MathUtils.signSafeMod(qe.ledgerId, numCallbackThreads);
+                List<QueueEntry> partition = partitions.get(idx);
+                if (partition == null) {
+                    partition = new ArrayList<>();
+                    partitions.set(idx, partition);
+                }
+                partition.add(qe);
+            }
+        }
+        waiters.recycle();
+
+        for (List<QueueEntry> partition : partitions) {
+            if (partition != null) {
+                cbThreadPool.execute(() -> runCallbacks(partition));
+            }
+        }
+    }
+
+    private static void runCallbacks(List<QueueEntry> entries) {
+        for (int i = 0; i < entries.size(); i++) {
+            QueueEntry qe = entries.get(i);
+            if (qe != null) {
+                qe.run();
+            }
+        }
     }
 
     /**
@@ -960,7 +1097,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                     journalCreationWatcher.reset().start();
                     logFile = new JournalChannel(journalDirectory, logId, journalPreAllocSize, journalWriteBufferSize,
                                         journalAlignmentSize, removePagesFromCache,
-                                        journalFormatVersionToWrite, getBufferedChannelBuilder());
+                                        journalFormatVersionToWrite, getBufferedChannelBuilder(), directIO);
 
                     journalStats.getJournalCreationStats().registerSuccessfulEvent(
                             journalCreationWatcher.stop().elapsed(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
@@ -977,7 +1114,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                     }
 
                     if (numEntriesToFlush == 0) {
-                        qe = queue.take();
+                        qe = takeQueueEntry();
                         dequeueStartTime = MathUtils.nowInNano();
                         journalStats.getJournalQueueSize().dec();
                         journalStats.getJournalQueueStats()
@@ -988,7 +1125,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                         if (flushWhenQueueEmpty || pollWaitTimeNanos < 0) {
                             pollWaitTimeNanos = 0;
                         }
-                        qe = queue.poll(pollWaitTimeNanos, TimeUnit.NANOSECONDS);
+                        qe = pollQueueEntry(pollWaitTimeNanos);
                         dequeueStartTime = MathUtils.nowInNano();
 
                         if (qe != null) {
@@ -1083,7 +1220,7 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                                     || (System.currentTimeMillis() - lastFlushTimeMs
                                     >= journalPageCacheFlushIntervalMSec)) {
                                 forceWriteRequests.put(createForceWriteRequest(logFile, logId, lastFlushPosition,
-                                        toFlush, shouldRolloverJournal, false));
+                                        toFlush, shouldRolloverJournal));
                                 lastFlushTimeMs = System.currentTimeMillis();
                             }
                             toFlush = entryListRecycler.newInstance();
@@ -1123,6 +1260,8 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
                 } else if (qe.entryId != BookieImpl.METAENTRY_ID_FORCE_LEDGER) {
                     int entrySize = qe.entry.readableBytes();
                     journalStats.getJournalWriteBytes().add(entrySize);
+                    journalStats.getJournalDirWriteBytes().add(entrySize);
+                    writtenBytes.add(entrySize);
 
                     batchSize += (4 + entrySize);
 
@@ -1158,6 +1297,55 @@ public class Journal extends BookieCriticalThread implements CheckpointSource {
         LOG.info("Journal exited loop!");
     }
 
+    /**
+     * Take the next entry to write, blocking until one is available. Whenever the journal thread has to go
+     * to the shared queue, it drains a batch of the pending entries at once, so that producers and the journal
+     * thread only contend on the queue once per batch rather than once per entry. The batch is small, so that
+     * the journal queue size still bounds the entries accepted by the journal.
+     */
+    private QueueEntry takeQueueEntry() throws InterruptedException {
+        QueueEntry qe = nextLocalQueueEntry();
+        if (qe == null) {
+            qe = queue.take();
+            drainQueue();
+        }
+        return qe;
+    }
+
+    /**
+     * Poll the next entry to write, waiting up to the given time if none is available.
+     */
+    private QueueEntry pollQueueEntry(long timeoutNanos) throws InterruptedException {
+        QueueEntry qe = nextLocalQueueEntry();
+        if (qe == null) {
+            if (drainQueue() > 0) {
+                qe = nextLocalQueueEntry();
+            } else {
+                qe = queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return qe;
+    }
+
+    private int drainQueue() {
+        int drained = queue.drainTo(localQueueEntries, MAX_LOCAL_QUEUE_ENTRIES);
+        localQueueLength = drained;
+        return drained;
+    }
+
+    private QueueEntry nextLocalQueueEntry() {
+        if (localQueueEntriesIdx < localQueueEntries.size()) {
+            QueueEntry qe = localQueueEntries.get(localQueueEntriesIdx++);
+            localQueueLength = localQueueEntries.size() - localQueueEntriesIdx;
+            return qe;
+        }
+        if (localQueueEntriesIdx > 0) {
+            localQueueEntries.clear();
+            localQueueEntriesIdx = 0;
+        }
+        return null;
+    }
+
     public BufferedChannelBuilder getBufferedChannelBuilder() {
         return (FileChannel fc, int capacity) -> new BufferedChannel(allocator, fc, capacity);
     }
@@ -25,6 +25,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import io.netty.buffer.UnpooledByteBufAllocator;
+
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -99,7 +101,7 @@ class JournalChannel implements Closeable {
     JournalChannel(File journalDirectory, long logId,
                    long preAllocSize, int writeBufferSize, long position) throws IOException {
          this(journalDirectory, logId, preAllocSize, writeBufferSize, SECTOR_SIZE,
-                 position, false, V5, Journal.BufferedChannelBuilder.DEFAULT_BCBUILDER);
+                 position, false, V5, Journal.BufferedChannelBuilder.DEFAULT_BCBUILDER, false);
     }
 
     // Open journal to write
@@ -115,7 +117,15 @@ class JournalChannel implements Closeable {
                    boolean fRemoveFromPageCache, int formatVersionToWrite,
                    Journal.BufferedChannelBuilder bcBuilder) throws IOException {
         this(journalDirectory, logId, preAllocSize, writeBufferSize, journalAlignSize,
-                START_OF_FILE, fRemoveFromPageCache, formatVersionToWrite, bcBuilder);
+                START_OF_FILE, fRemoveFromPageCache, formatVersionToWrite, bcBuilder, false);
+    }
+
+    JournalChannel(File journalDirectory, long logId,
+                   long preAllocSize, int writeBufferSize, int journalAlignSize,
+                   boolean fRemoveFromPageCache, int formatVersionToWrite,
+                   Journal.BufferedChannelBuilder bcBuilder, boolean directIO) throws IOException {
+        this(journalDirectory, logId, preAllocSize, writeBufferSize, journalAlignSize,
+                START_OF_FILE, fRemoveFromPageCache, formatVersionToWrite, bcBuilder, directIO);
     }
 
     /**
@@ -138,12 +148,15 @@ class JournalChannel implements Closeable {
      *          whether to remove cached pages from page cache.
      * @param formatVersionToWrite
      *          format version to write
+     * @param directIO
+     *          whether to write the journal with O_DIRECT, if supported by the platform.
      * @throws IOException
      */
     private JournalChannel(File journalDirectory, long logId,
                            long preAllocSize, int writeBufferSize, int journalAlignSize,
                            long position, boolean fRemoveFromPageCache,
-                           int formatVersionToWrite, Journal.BufferedChannelBuilder bcBuilder) throws IOException {
+                           int formatVersionToWrite, Journal.BufferedChannelBuilder bcBuilder,
+                           boolean directIO) throws IOException {
         this.journalAlignSize = journalAlignSize;
         this.zeros = ByteBuffer.allocate(journalAlignSize);
         this.preAllocSize = preAllocSize - preAllocSize % journalAlignSize;
@@ -175,7 +188,16 @@ class JournalChannel implements Closeable {
             bb.clear();
             fc.write(bb);
 
-            bc = bcBuilder.create(fc, writeBufferSize);
+            int directFd = directIO ? NativeIO.openDirect(fn.getPath()) : -1;
+            if (directFd >= 0) {
+                bc = new DirectBufferedChannel(UnpooledByteBufAllocator.DEFAULT, fc, directFd,
+                        writeBufferSize, journalAlignSize);
+            } else {
+                if (directIO) {
+                    LOG.warn("Direct I/O is not available for journal {}, using buffered writes", fn);
+                }
+                bc = bcBuilder.create(fc, writeBufferSize);
+            }
             forceWrite(true);
             nextPrealloc = this.preAllocSize;
             fc.write(zeros, nextPrealloc - journalAlignSize);
@@ -286,7 +308,8 @@ class JournalChannel implements Closeable {
         // +------------------------+---------------------------O
         // lastDropPosition     newDropPos             lastForceWritePosition
         //
-        if (fRemoveFromPageCache) {
+        // pages written with direct I/O never land in the page cache
+        if (fRemoveFromPageCache && !(bc instanceof DirectBufferedChannel)) {
             long newDropPos = newForceWritePosition - cacheDropLagBytes;
             if (lastDropPosition < newDropPos) {
                 NativeIO.bestEffortRemoveFromPageCache(fd, lastDropPosition, newDropPos - lastDropPosition);
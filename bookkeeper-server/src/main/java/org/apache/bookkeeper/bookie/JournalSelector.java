@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.util.MathUtils;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongHashMap;
+
+/**
+ * Assign ledgers to journals.
+ *
+ * <p>By default a ledger is written to the journal picked by hashing its ledger id. In load
+ * aware mode a ledger is assigned on its first write to the journal with the lowest load,
+ * and sticks to it until it is deleted: moving a ledger to another journal would break the
+ * ordering of its entries and of its force ledger requests.
+ *
+ * <p>The load of a journal is the exponentially weighted moving average of the bytes per second
+ * appended to it, plus the bytes waiting in its queue, so hot ledgers are spread across the
+ * journal directories by the ledgers created after them.
+ *
+ * <p>Assignments are only kept in memory, so after a restart a ledger may be assigned to another
+ * journal. This is safe: every journal is replayed on startup, replayed entries are identified by
+ * their ledger and entry ids, and the entries written before the restart were either synced or
+ * lost by the journal they were written to, as with a single journal. A force ledger request only
+ * needs to cover the entries written since the restart, which are all in the new journal.
+ */
+class JournalSelector {
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // weight of the last sample in the moving average of the journal throughput
+    private static final double ALPHA = 0.3;
+
+    private final List<Journal> journals;
+    private final boolean loadAware;
+
+    // ledgerId -> journal index
+    private final ConcurrentLongLongHashMap assignments;
+
+    // guarded by this
+    private final double[] bytesPerSecond;
+    private final long[] lastWrittenBytes;
+    private long lastSampleNanos;
+
+    JournalSelector(List<Journal> journals, boolean loadAware) {
+        this.journals = journals;
+        this.loadAware = loadAware && journals.size() > 1;
+        this.assignments = this.loadAware
+                ? new ConcurrentLongLongHashMap(1024, 2 * Runtime.getRuntime().availableProcessors())
+                : null;
+        this.bytesPerSecond = new double[journals.size()];
+        this.lastWrittenBytes = new long[journals.size()];
+        this.lastSampleNanos = MathUtils.nowInNano();
+    }
+
+    Journal getJournal(long ledgerId) {
+        if (!loadAware || ledgerId < 0) {
+            return journals.get(MathUtils.signSafeMod(ledgerId, journals.size()));
+        }
+        long index = assignments.get(ledgerId);
+        if (index < 0) {
+            index = assignments.computeIfAbsent(ledgerId, lid -> assign());
+        }
+        return journals.get((int) index);
+    }
+
+    /**
+     * Forget the journal of a deleted ledger.
+     */
+    void ledgerDeleted(long ledgerId) {
+        if (!loadAware || ledgerId < 0) {
+            return;
+        }
+        long index = assignments.remove(ledgerId);
+        if (index >= 0) {
+            journals.get((int) index).getAssignedLedgers().decrementAndGet();
+        }
+    }
+
+    private synchronized long assign() {
+        long now = MathUtils.nowInNano();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed >= SAMPLE_INTERVAL_NANOS) {
+            for (int i = 0; i < journals.size(); i++) {
+                long written = journals.get(i).getWrittenBytes();
+                double rate = (written - lastWrittenBytes[i]) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                bytesPerSecond[i] = ALPHA * rate + (1 - ALPHA) * bytesPerSecond[i];
+                lastWrittenBytes[i] = written;
+            }
+            lastSampleNanos = now;
+        }
+
+        int selected = 0;
+        double minLoad = Double.MAX_VALUE;
+        for (int i = 0; i < journals.size(); i++) {
+            Journal journal = journals.get(i);
+            double load = bytesPerSecond[i] + journal.getMemoryUsage();
+            // break ties, e.g. on an idle bookie, with the number of ledgers already assigned
+            if (load < minLoad || (load == minLoad
+                    && journal.getAssignedLedgers().get() < journals.get(selected).getAssignedLedgers().get())) {
+                minLoad = load;
+                selected = i;
+            }
+        }
+        journals.get(selected).getAssignedLedgers().incrementAndGet();
+        return selected;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.CloseableIterator;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorageFactory.DbConfigType;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorageRocksDB;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry log metadata map backed by a RocksDB instance.
+ *
+ * <p>The per-log ledger size maps are kept serialized outside of the java heap and are only
+ * materialized while the garbage collector is processing them. Since the store is persisted,
+ * entry logs that were already scanned don't need to be scanned again after a bookie restart.
+ *
+ * <p>The map is updated by the garbage collector thread only.
+ */
+public class PersistentEntryLogMetadataMap implements EntryLogMetadataMap {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentEntryLogMetadataMap.class);
+
+    private final KeyValueStorage metadataStore;
+
+    // Number of entry logs in the store, kept up to date so that size() doesn't scan the store
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Load the map from its store.
+     *
+     * @param logExists whether an entry log still exists. The metadata of the logs that don't, e.g. left
+     *                  behind by a crash between the removal of a log and the removal of its metadata, is
+     *                  removed on load, so that it doesn't have to be checked on every garbage collection
+     */
+    public PersistentEntryLogMetadataMap(String metadataPath, String subPath, ServerConfiguration conf,
+                                         LongPredicate logExists) throws IOException {
+        LOG.info("Loading persistent entry log metadata map from {}/{}", metadataPath, subPath);
+        File metadataDir = new File(metadataPath);
+        if (!metadataDir.exists() && !metadataDir.mkdirs()) {
+            throw new IOException("Failed to create entry log metadata directory " + metadataDir);
+        }
+        this.metadataStore = new KeyValueStorageRocksDB(metadataPath, subPath, DbConfigType.Small, conf);
+        try {
+            removeStaleEntries(logExists);
+        } catch (IOException e) {
+            metadataStore.close();
+            throw e;
+        }
+    }
+
+    private void removeStaleEntries(LongPredicate logExists) throws IOException {
+        List<Long> staleLogIds = new ArrayList<>();
+        int count = 0;
+        try (CloseableIterator<byte[]> keys = metadataStore.keys()) {
+            while (keys.hasNext()) {
+                long entryLogId = fromKey(keys.next());
+                if (logExists.test(entryLogId)) {
+                    count++;
+                } else {
+                    staleLogIds.add(entryLogId);
+                }
+            }
+        }
+        // deleted once the iteration is done, rather than from the store being iterated
+        for (long entryLogId : staleLogIds) {
+            LOG.info("Removing the metadata of entry log {}, which doesn't exist anymore", entryLogId);
+            metadataStore.delete(toKey(entryLogId));
+        }
+        size.set(count);
+    }
+
+    @Override
+    public boolean containsKey(long entryLogId) throws IOException {
+        return metadataStore.get(toKey(entryLogId)) != null;
+    }
+
+    @Override
+    public void put(long entryLogId, EntryLogMetadata entryLogMeta) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                64 + (int) Math.min(entryLogMeta.getLedgersMap().size() * 16, Integer.MAX_VALUE - 64));
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            entryLogMeta.serialize(out);
+        }
+        byte[] key = toKey(entryLogId);
+        boolean added = metadataStore.get(key) == null;
+        metadataStore.put(key, baos.toByteArray());
+        if (added) {
+            size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<Long, EntryLogMetadata> action) throws IOException {
+        try (CloseableIterator<Entry<byte[], byte[]>> iterator = metadataStore.iterator()) {
+            while (iterator.hasNext()) {
+                Entry<byte[], byte[]> entry = iterator.next();
+                long entryLogId = fromKey(entry.getKey());
+                EntryLogMetadata entryLogMeta;
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.getValue()))) {
+                    entryLogMeta = EntryLogMetadata.deserialize(in);
+                }
+                action.accept(entryLogId, entryLogMeta);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long entryLogId) throws IOException {
+        byte[] key = toKey(entryLogId);
+        if (metadataStore.get(key) != null) {
+            metadataStore.delete(key);
+            size.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        metadataStore.close();
+    }
+
+    private static byte[] toKey(long entryLogId) {
+        byte[] key = new byte[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            key[i] = (byte) entryLogId;
+            entryLogId >>>= 8;
+        }
+        return key;
+    }
+
+    private static long fromKey(byte[] key) {
+        long entryLogId = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            entryLogId = (entryLogId << 8) | (key[i] & 0xFF);
+        }
+        return entryLogId;
+    }
+}
@@ -25,11 +25,15 @@ import static org.apache.bookkeeper.common.concurrent.FutureUtils.result;
 
 import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -69,6 +73,11 @@ import org.slf4j.LoggerFactory;
  * </ul>
  * </p>
  *
+ * <p>If {@link ServerConfiguration#getGcFullMetadataScanWaitTimeMillis()} is positive, the ledgers of the
+ * bookie found in the metadata store are kept in an {@link ActiveLedgerSnapshot} between two full scans,
+ * and the garbage collection only reads the metadata of the ledgers missing from the snapshot.
+ * </p>
+ *
  * <p>TODO: eliminate the direct usage of zookeeper here {@link https://github.com/apache/bookkeeper/issues/1331}
  */
 public class ScanAndCompareGarbageCollector implements GarbageCollector {
@@ -88,6 +97,10 @@ public class ScanAndCompareGarbageCollector implements GarbageCollector {
     private final String zkLedgersRootPath;
     private final boolean verifyMetadataOnGc;
     private int activeLedgerCounter;
+    private final long fullMetadataScanIntervalMillis;
+    private long lastFullMetadataScanTimeMillis;
+    // null if every garbage collection scans all the ledger metadata
+    private final ActiveLedgerSnapshot activeLedgerSnapshot;
 
     public ScanAndCompareGarbageCollector(LedgerManager ledgerManager, CompactableLedgerStorage ledgerStorage,
             ServerConfiguration conf, StatsLogger statsLogger) throws IOException {
@@ -108,6 +121,14 @@ public class ScanAndCompareGarbageCollector implements GarbageCollector {
 
         verifyMetadataOnGc = conf.getVerifyMetadataOnGC();
 
+        this.fullMetadataScanIntervalMillis = conf.getGcFullMetadataScanWaitTimeMillis();
+        this.lastFullMetadataScanTimeMillis = 0;
+        if (fullMetadataScanIntervalMillis > 0 && null != ledgerManager) {
+            this.activeLedgerSnapshot = new ActiveLedgerSnapshot(ledgerManager);
+        } else {
+            this.activeLedgerSnapshot = null;
+        }
+
         this.activeLedgerCounter = 0;
     }
 
@@ -141,12 +162,22 @@ public class ScanAndCompareGarbageCollector implements GarbageCollector {
                     LOG.info("No over-replicated ledgers found.");
                 } else {
                     LOG.info("Removed over-replicated ledgers: {}", overReplicatedLedgers);
+                    if (null != activeLedgerSnapshot) {
+                        overReplicatedLedgers.forEach(activeLedgerSnapshot::remove);
+                    }
                 }
                 lastOverReplicatedLedgerGcTimeMillis = System.currentTimeMillis();
             }
 
-            // Iterate over all the ledger on the metadata store
             long zkOpTimeoutMs = this.conf.getZkTimeout() * 2;
+            if (null != activeLedgerSnapshot
+                    && System.currentTimeMillis() - lastFullMetadataScanTimeMillis < fullMetadataScanIntervalMillis) {
+                gcLedgersMissingFromSnapshot(bkActiveLedgers, garbageCleaner, zkOpTimeoutMs);
+                return;
+            }
+
+            // Iterate over all the ledger on the metadata store
+            Set<Long> cleanedLedgers = new HashSet<>();
             LedgerRangeIterator ledgerRangeIterator = ledgerManager
                     .getLedgerRanges(zkOpTimeoutMs);
             Set<Long> ledgersInMetadata = null;
@@ -210,9 +241,16 @@ public class ScanAndCompareGarbageCollector implements GarbageCollector {
                             }
                         }
                         garbageCleaner.clean(bkLid);
+                        cleanedLedgers.add(bkLid);
                     }
                 }
             }
+
+            if (null != activeLedgerSnapshot) {
+                bkActiveLedgers.removeAll(cleanedLedgers);
+                activeLedgerSnapshot.reset(bkActiveLedgers);
+                lastFullMetadataScanTimeMillis = System.currentTimeMillis();
+            }
         } catch (Throwable t) {
             // ignore exception, collecting garbage next time
             LOG.warn("Exception when iterating over the metadata", t);
@@ -229,6 +267,40 @@ public class ScanAndCompareGarbageCollector implements GarbageCollector {
         }
     }
 
+    /**
+     * Garbage collect the ledgers of the bookie that are missing from the active ledger snapshot, i.e.
+     * the ledgers deleted since they were added to the snapshot and the ledgers new to the bookie.
+     */
+    private void gcLedgersMissingFromSnapshot(NavigableSet<Long> bkActiveLedgers, GarbageCleaner garbageCleaner,
+                                              long zkOpTimeoutMs) throws Exception {
+        // watch all the missing ledgers before waiting, so their metadata is read concurrently
+        Map<Long, CompletableFuture<Boolean>> lookups = new LinkedHashMap<>();
+        for (Long bkLid : bkActiveLedgers) {
+            if (!activeLedgerSnapshot.contains(bkLid)) {
+                lookups.put(bkLid, activeLedgerSnapshot.lookup(bkLid));
+            }
+        }
+        for (Map.Entry<Long, CompletableFuture<Boolean>> lookup : lookups.entrySet()) {
+            long bkLid = lookup.getKey();
+            boolean exists;
+            try {
+                exists = result(lookup.getValue(), zkOpTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // the metadata could not be read, e.g. the metadata store is unavailable
+                LOG.warn("Time-out while fetching metadata for Ledger {} : {}.", bkLid, e.getMessage());
+                activeLedgerSnapshot.cancelLookup(bkLid);
+                continue;
+            }
+            if (!exists) {
+                garbageCleaner.clean(bkLid);
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Looked up {} ledgers missing from the snapshot of {} active ledgers",
+                    lookups.size(), activeLedgerSnapshot.size());
+        }
+    }
+
     private Set<Long> removeOverReplicatedledgers(Set<Long> bkActiveledgers, final GarbageCleaner garbageCleaner)
             throws InterruptedException, KeeperException {
         final List<ACL> zkAcls = ZkUtils.getACLs(conf);
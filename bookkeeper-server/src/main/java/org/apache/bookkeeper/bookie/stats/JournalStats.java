@@ -25,11 +25,18 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.FORCE_LEDGER;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_ADD_ENTRY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_CB_QUEUE_SIZE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_CREATION_LATENCY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_DIR_LEDGERS;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_DIR_QUEUE_LENGTH;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_DIR_SYNC;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_DIR_WRITE_BYTES;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FLUSH_LATENCY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_LEDGER;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_BYTES;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_ENTRIES;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_ENQUEUE;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_BYTES;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_LATENCY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_REQUESTS;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUPING_COUNT;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_QUEUE_SIZE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_NUM_FLUSH_EMPTY_QUEUE;
@@ -42,9 +49,11 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_SCOPE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_SYNC;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_WRITE_BYTES;
 
+import java.util.function.Supplier;
 import lombok.Getter;
 import org.apache.bookkeeper.bookie.BookKeeperServerStats;
 import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.stats.annotations.StatsDoc;
@@ -127,6 +136,23 @@ public class JournalStats {
         help = "The distribution of number of bytes grouped together into a force write request"
     )
     private final OpStatsLogger forceWriteBatchBytesStats;
+    @StatsDoc(
+        name = JOURNAL_FORCE_WRITE_GROUP_REQUESTS,
+        help = "The distribution of number of force write requests satisfied by a single fsync"
+    )
+    private final OpStatsLogger forceWriteGroupRequestsStats;
+    @StatsDoc(
+        name = JOURNAL_FORCE_WRITE_GROUP_BYTES,
+        help = "The distribution of number of journal bytes made durable by a single fsync"
+    )
+    private final OpStatsLogger forceWriteGroupBytesStats;
+    @StatsDoc(
+        name = JOURNAL_FORCE_WRITE_GROUP_LATENCY,
+        help = "operation stats of force write groups, from enqueuing the oldest request of the group"
+            + " until all its waiters are notified",
+        happensAfter = JOURNAL_FORCE_WRITE_ENQUEUE
+    )
+    private final OpStatsLogger forceWriteGroupLatencyStats;
     @StatsDoc(
         name = JOURNAL_QUEUE_SIZE,
         help = "The journal queue size"
@@ -162,8 +188,35 @@ public class JournalStats {
         help = "The number of bytes appended to the journal"
     )
     private final Counter journalWriteBytes;
+    @StatsDoc(
+        name = JOURNAL_DIR_WRITE_BYTES,
+        help = "The number of bytes appended to a journal directory, labeled by journal index"
+    )
+    private final Counter journalDirWriteBytes;
+    @StatsDoc(
+        name = JOURNAL_DIR_SYNC,
+        help = "operation stats of syncing data to a journal directory, labeled by journal index",
+        parent = JOURNAL_SYNC
+    )
+    private final OpStatsLogger journalDirSyncStats;
+    @StatsDoc(
+        name = JOURNAL_DIR_QUEUE_LENGTH,
+        help = "The number of requests waiting in the queue of a journal directory, labeled by journal index"
+    )
+    private final Gauge<Long> journalDirQueueLengthGauge;
+    @StatsDoc(
+        name = JOURNAL_DIR_LEDGERS,
+        help = "The number of ledgers assigned to a journal directory by the load aware journal selection,"
+            + " labeled by journal index"
+    )
+    private final Gauge<Long> journalDirLedgersGauge;
 
     public JournalStats(StatsLogger statsLogger) {
+        this(statsLogger, 0, () -> 0L, () -> 0L);
+    }
+
+    public JournalStats(StatsLogger statsLogger, int journalIndex,
+                        Supplier<Long> queueLengthSupplier, Supplier<Long> assignedLedgersSupplier) {
         journalAddEntryStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_ADD_ENTRY);
         journalForceLedgerStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_LEDGER);
         journalSyncStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_SYNC);
@@ -177,6 +230,11 @@ public class JournalStats {
         forceWriteBatchEntriesStats =
                 statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_ENTRIES);
         forceWriteBatchBytesStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_BYTES);
+        forceWriteGroupRequestsStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_REQUESTS);
+        forceWriteGroupBytesStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_BYTES);
+        forceWriteGroupLatencyStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUP_LATENCY);
         journalQueueSize = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_QUEUE_SIZE);
         forceWriteQueueSize = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_FORCE_WRITE_QUEUE_SIZE);
         journalCbQueueSize = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_CB_QUEUE_SIZE);
@@ -185,6 +243,36 @@ public class JournalStats {
                 statsLogger.getCounter(BookKeeperServerStats.JOURNAL_NUM_FLUSH_MAX_OUTSTANDING_BYTES);
         flushEmptyQueueCounter = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_NUM_FLUSH_EMPTY_QUEUE);
         journalWriteBytes = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_WRITE_BYTES);
+
+        StatsLogger journalDirStatsLogger = statsLogger.scopeLabel(
+                BookKeeperServerStats.JOURNAL_INDEX_LABEL, String.valueOf(journalIndex));
+        journalDirWriteBytes = journalDirStatsLogger.getCounter(BookKeeperServerStats.JOURNAL_DIR_WRITE_BYTES);
+        journalDirSyncStats = journalDirStatsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_DIR_SYNC);
+        journalDirQueueLengthGauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return queueLengthSupplier.get();
+            }
+        };
+        journalDirStatsLogger.registerGauge(BookKeeperServerStats.JOURNAL_DIR_QUEUE_LENGTH,
+                journalDirQueueLengthGauge);
+        journalDirLedgersGauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return assignedLedgersSupplier.get();
+            }
+        };
+        journalDirStatsLogger.registerGauge(BookKeeperServerStats.JOURNAL_DIR_LEDGERS, journalDirLedgersGauge);
     }
 
 }
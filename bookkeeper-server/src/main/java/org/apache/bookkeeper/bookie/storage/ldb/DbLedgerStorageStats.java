@@ -48,6 +48,8 @@ class DbLedgerStorageStats {
     private static final String READ_CACHE_MISSES = "read-cache-misses";
     private static final String READAHEAD_BATCH_COUNT = "readahead-batch-count";
     private static final String READAHEAD_BATCH_SIZE = "readahead-batch-size";
+    private static final String READAHEAD_RANDOM_ACCESS_SKIPS = "readahead-random-access-skips";
+    private static final String READAHEAD_DROPS = "readahead-drops";
     private static final String FLUSH = "flush";
     private static final String FLUSH_SIZE = "flush-size";
     private static final String THROTTLED_WRITE_REQUESTS = "throttled-write-requests";
@@ -56,6 +58,12 @@ class DbLedgerStorageStats {
     private static final String WRITE_CACHE_COUNT = "write-cache-count";
     private static final String READ_CACHE_SIZE = "read-cache-size";
     private static final String READ_CACHE_COUNT = "read-cache-count";
+    private static final String READ_CACHE_LOOKUP_HITS = "read-cache-lookup-hits";
+    private static final String READ_CACHE_LOOKUP_MISSES = "read-cache-lookup-misses";
+    private static final String READ_CACHE_EVICTED_ENTRIES = "read-cache-evicted-entries";
+    private static final String READ_CACHE_ADMISSION_REJECTS = "read-cache-admission-rejects";
+    private static final String ENTRY_LOG_BLOCK_CACHE_HITS = "entrylog-block-cache-hits";
+    private static final String ENTRY_LOG_BLOCK_CACHE_MISSES = "entrylog-block-cache-misses";
 
     @StatsDoc(
         name = ADD_ENTRY,
@@ -91,6 +99,16 @@ class DbLedgerStorageStats {
         help = "the distribution of num of bytes to read in one readahead batch"
     )
     private final OpStatsLogger readAheadBatchSizeStats;
+    @StatsDoc(
+        name = READAHEAD_RANDOM_ACCESS_SKIPS,
+        help = "The number of read cache misses not followed by a readahead because the ledger is read randomly"
+    )
+    private final Counter readAheadRandomAccessSkips;
+    @StatsDoc(
+        name = READAHEAD_DROPS,
+        help = "The number of readaheads dropped because too many readaheads were pending"
+    )
+    private final Counter readAheadDrops;
     @StatsDoc(
         name = FLUSH,
         help = "operation stats of flushing write cache to entry log files"
@@ -111,6 +129,36 @@ class DbLedgerStorageStats {
         help = "The number of requests rejected due to write cache is full"
     )
     private final Counter rejectedWriteRequests;
+    @StatsDoc(
+        name = READ_CACHE_LOOKUP_HITS,
+        help = "The number of entries found in the read cache, hit rate is hits / (hits + misses)"
+    )
+    private final Counter readCacheLookupHits;
+    @StatsDoc(
+        name = READ_CACHE_LOOKUP_MISSES,
+        help = "The number of entries not found in the read cache"
+    )
+    private final Counter readCacheLookupMisses;
+    @StatsDoc(
+        name = READ_CACHE_EVICTED_ENTRIES,
+        help = "The number of entries evicted from the read cache"
+    )
+    private final Counter readCacheEvictedEntries;
+    @StatsDoc(
+        name = READ_CACHE_ADMISSION_REJECTS,
+        help = "The number of read-ahead entries not admitted in the read cache to protect hot entries"
+    )
+    private final Counter readCacheAdmissionRejects;
+    @StatsDoc(
+        name = ENTRY_LOG_BLOCK_CACHE_HITS,
+        help = "The number of entry log blocks read from the direct I/O block cache"
+    )
+    private final Counter entryLogBlockCacheHits;
+    @StatsDoc(
+        name = ENTRY_LOG_BLOCK_CACHE_MISSES,
+        help = "The number of entry log blocks loaded from disk into the direct I/O block cache"
+    )
+    private final Counter entryLogBlockCacheMisses;
 
     @StatsDoc(
         name = WRITE_CACHE_SIZE,
@@ -144,11 +192,19 @@ class DbLedgerStorageStats {
         readCacheMissStats = stats.getOpStatsLogger(READ_CACHE_MISSES);
         readAheadBatchCountStats = stats.getOpStatsLogger(READAHEAD_BATCH_COUNT);
         readAheadBatchSizeStats = stats.getOpStatsLogger(READAHEAD_BATCH_SIZE);
+        readAheadRandomAccessSkips = stats.getCounter(READAHEAD_RANDOM_ACCESS_SKIPS);
+        readAheadDrops = stats.getCounter(READAHEAD_DROPS);
         flushStats = stats.getOpStatsLogger(FLUSH);
         flushSizeStats = stats.getOpStatsLogger(FLUSH_SIZE);
 
         throttledWriteRequests = stats.getCounter(THROTTLED_WRITE_REQUESTS);
         rejectedWriteRequests = stats.getCounter(REJECTED_WRITE_REQUESTS);
+        readCacheLookupHits = stats.getCounter(READ_CACHE_LOOKUP_HITS);
+        readCacheLookupMisses = stats.getCounter(READ_CACHE_LOOKUP_MISSES);
+        readCacheEvictedEntries = stats.getCounter(READ_CACHE_EVICTED_ENTRIES);
+        readCacheAdmissionRejects = stats.getCounter(READ_CACHE_ADMISSION_REJECTS);
+        entryLogBlockCacheHits = stats.getCounter(ENTRY_LOG_BLOCK_CACHE_HITS);
+        entryLogBlockCacheMisses = stats.getCounter(ENTRY_LOG_BLOCK_CACHE_MISSES);
 
         writeCacheSizeGauge = new Gauge<Long>() {
             @Override
@@ -0,0 +1,230 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.util.collections.ConcurrentLongHashMap;
+
+/**
+ * Decide, per ledger, how many entries to read ahead after a read cache miss, and
+ * run the read-ahead in the background.
+ *
+ * <p>A ledger read sequentially, where each miss is on the entry following the previous
+ * read-ahead window, gets its window doubled up to the max batch size. A miss elsewhere
+ * shrinks the window, and after consecutive random misses read-ahead is disabled for the
+ * ledger until the reader becomes sequential again.
+ *
+ * <p>There is at most one pending read-ahead per ledger, and a bounded number overall: when
+ * too many are pending, new ones are dropped. A reader that misses an entry being read by
+ * the running read-ahead waits for it rather than reading the entry twice.
+ */
+class ReadAheadManager {
+
+    /**
+     * Read entries of a ledger into the read cache.
+     */
+    interface ReadAheadFiller {
+        /**
+         * @return the number of entries read
+         */
+        int fill(long ledgerId, long firstEntryId, long firstEntryLocation, int maxEntries);
+    }
+
+    // number of consecutive random misses after which read-ahead is disabled for a ledger
+    private static final int RANDOM_MISSES_THRESHOLD = 2;
+    private static final long STATE_CACHING_TIME_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int MAX_PENDING_READ_AHEADS = 64;
+    private static final long MAX_READ_AHEAD_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int initialBatchSize;
+    private final int maxBatchSize;
+    private final ReadAheadFiller filler;
+    private final Counter randomAccessSkips;
+    private final Counter drops;
+
+    private final ConcurrentLongHashMap<LedgerReadAheadState> states =
+            new ConcurrentLongHashMap<>(1024, 2 * Runtime.getRuntime().availableProcessors());
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_READ_AHEADS), new DefaultThreadFactory("db-storage-read-ahead"));
+
+    ReadAheadManager(int initialBatchSize, int maxBatchSize, ReadAheadFiller filler, Counter randomAccessSkips,
+                     Counter drops) {
+        this.initialBatchSize = initialBatchSize;
+        this.maxBatchSize = Math.max(initialBatchSize, maxBatchSize);
+        this.filler = filler;
+        this.randomAccessSkips = randomAccessSkips;
+        this.drops = drops;
+    }
+
+    /**
+     * Record a read cache miss on {@code entryId} and schedule a read-ahead of the entries
+     * following it, stored from {@code nextEntryLocation}, if the ledger is read sequentially.
+     */
+    void onReadCacheMiss(long ledgerId, long entryId, long nextEntryLocation) {
+        if (initialBatchSize <= 0) {
+            return;
+        }
+
+        LedgerReadAheadState state = states.computeIfAbsent(ledgerId, lid -> new LedgerReadAheadState());
+        int window;
+        synchronized (state) {
+            if (state.inProgress) {
+                // The reader is ahead of the pending read-ahead, it will be served from the disk meanwhile
+                state.lastMissEntryId = entryId;
+                state.lastMissNanos = System.nanoTime();
+                return;
+            }
+            window = state.onMiss(entryId);
+            if (window == 0) {
+                randomAccessSkips.inc();
+                return;
+            }
+            state.inProgress = true;
+            state.fillFirstEntryId = entryId + 1;
+            state.fillEndEntryId = entryId + 1 + window;
+        }
+
+        final int maxEntries = window;
+        try {
+            executor.execute(() -> {
+                synchronized (state) {
+                    state.filling = true;
+                    state.fillSequence++;
+                }
+                int count = 0;
+                try {
+                    count = filler.fill(ledgerId, entryId + 1, nextEntryLocation, maxEntries);
+                } finally {
+                    synchronized (state) {
+                        state.inProgress = false;
+                        state.filling = false;
+                        state.nextExpectedMiss = entryId + 1 + count;
+                        state.notifyAll();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Too many read-aheads are pending, the reader is served from the disk
+            drops.inc();
+            synchronized (state) {
+                state.inProgress = false;
+            }
+        }
+    }
+
+    /**
+     * Wait for the running read-ahead of the ledger if it is going to read {@code entryId},
+     * so that the entry is looked up again in the read cache instead of being read twice.
+     *
+     * @return true if a read-ahead of the entry completed
+     */
+    boolean awaitReadAhead(long ledgerId, long entryId) {
+        LedgerReadAheadState state = states.get(ledgerId);
+        if (state == null) {
+            return false;
+        }
+
+        synchronized (state) {
+            if (!state.filling || entryId < state.fillFirstEntryId || entryId >= state.fillEndEntryId) {
+                return false;
+            }
+            long fillSequence = state.fillSequence;
+            long deadline = System.nanoTime() + MAX_READ_AHEAD_WAIT_NANOS;
+            try {
+                while (state.filling && state.fillSequence == fillSequence) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(state, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    void ledgerDeleted(long ledgerId) {
+        states.remove(ledgerId);
+    }
+
+    /**
+     * Forget the ledgers that were not read recently.
+     */
+    void cleanupStaleStates() {
+        long now = System.nanoTime();
+        states.removeIf((ledgerId, state) -> now - state.lastMissNanos > STATE_CACHING_TIME_NANOS);
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private class LedgerReadAheadState {
+        private long lastMissEntryId = -2;
+        // the first entry after the last read-ahead window
+        private long nextExpectedMiss = -1;
+        private int window = 0;
+        private int randomMisses = 0;
+        private boolean inProgress = false;
+        // the entries requested from the pending read-ahead, and whether it is running
+        private long fillFirstEntryId = -1;
+        private long fillEndEntryId = -1;
+        private boolean filling = false;
+        private long fillSequence = 0;
+        private volatile long lastMissNanos;
+
+        /**
+         * @return the read-ahead window to use after this miss, 0 to skip read-ahead
+         */
+        int onMiss(long entryId) {
+            lastMissNanos = System.nanoTime();
+            boolean sequential = entryId == lastMissEntryId + 1
+                    || (entryId > lastMissEntryId && entryId <= nextExpectedMiss);
+            lastMissEntryId = entryId;
+            // Until the read-ahead completes, the next miss is expected right after this entry
+            nextExpectedMiss = entryId + 1;
+
+            if (sequential) {
+                randomMisses = 0;
+                window = window == 0 ? initialBatchSize : Math.min(maxBatchSize, window * 2);
+            } else if (window == 0 && randomMisses == 0) {
+                // First read of the ledger
+                window = initialBatchSize;
+            } else {
+                randomMisses++;
+                window = randomMisses >= RANDOM_MISSES_THRESHOLD ? 0 : Math.max(initialBatchSize, window / 2);
+            }
+            return window;
+        }
+    }
+}
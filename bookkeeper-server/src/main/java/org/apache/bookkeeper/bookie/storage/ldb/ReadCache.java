@@ -27,11 +27,12 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 
 import java.io.Closeable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.LongPair;
 
@@ -40,118 +41,235 @@ import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.Long
  *
  * <p>Uses the specified amount of memory and pairs it with a hashmap.
  *
- * <p>The memory is splitted in multiple segments that are used in a
- * ring-buffer fashion. When the read cache is full, the oldest segment
- * is cleared and rotated to make space for new entries to be added to
- * the read cache.
+ * <p>The memory is splitted in multiple segments. New entries are appended to the
+ * current segment and, when it is full, a segment is picked with the CLOCK algorithm,
+ * cleared and becomes the current segment. A segment whose entries were read more than
+ * once on average since it was filled is given a second chance, so the segments filled
+ * by a scan (e.g. read-ahead of a catching up reader) are evicted before the hot ones.
+ * When every segment is hot, read-ahead entries are not admitted in the cache.
+ *
+ * <p>Lookups are lock-free: each segment has a version, odd while the segment is being
+ * cleared, and an entry copied from a segment whose version changed meanwhile is discarded.
  */
 public class ReadCache implements Closeable {
 
-    private static final int DEFAULT_MAX_SEGMENT_SIZE = 1 * 1024 * 1024 * 1024;
+    private static final int DEFAULT_MAX_SEGMENT_SIZE = 128 * 1024 * 1024;
+    private static final int DEFAULT_MAX_SEGMENTS_COUNT = 64;
+
+    private final ByteBuf[] cacheSegments;
+    private final ConcurrentLongLongPairHashMap[] cacheIndexes;
 
-    private final List<ByteBuf> cacheSegments;
-    private final List<ConcurrentLongLongPairHashMap> cacheIndexes;
+    // even while the segment is stable, odd while it is being cleared
+    private final AtomicLongArray segmentVersions;
+    // the number of puts copying an entry into each segment
+    private final AtomicIntegerArray segmentWriters;
+    private final AtomicIntegerArray segmentOffsets;
+    // the number of entries read from each segment since it was filled
+    private final LongAdder[] segmentHits;
 
-    private int currentSegmentIdx;
-    private final AtomicInteger currentSegmentOffset = new AtomicInteger(0);
+    private volatile int currentSegmentIdx;
+    // guarded by this
+    private int clockHand;
 
     private final int segmentSize;
 
     private ByteBufAllocator allocator;
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictedEntries;
+    private final Counter admissionRejects;
 
     public ReadCache(ByteBufAllocator allocator, long maxCacheSize) {
-        this(allocator, maxCacheSize, DEFAULT_MAX_SEGMENT_SIZE);
+        this(allocator, maxCacheSize, defaultMaxSegmentSize(maxCacheSize));
+    }
+
+    public ReadCache(ByteBufAllocator allocator, long maxCacheSize,
+                     Counter hits, Counter misses, Counter evictedEntries, Counter admissionRejects) {
+        this(allocator, maxCacheSize, defaultMaxSegmentSize(maxCacheSize), hits, misses, evictedEntries,
+                admissionRejects);
     }
 
     public ReadCache(ByteBufAllocator allocator, long maxCacheSize, int maxSegmentSize) {
+        this(allocator, maxCacheSize, maxSegmentSize, NullStatsLogger.INSTANCE.getCounter("hits"),
+                NullStatsLogger.INSTANCE.getCounter("misses"), NullStatsLogger.INSTANCE.getCounter("evictions"),
+                NullStatsLogger.INSTANCE.getCounter("admission-rejects"));
+    }
+
+    public ReadCache(ByteBufAllocator allocator, long maxCacheSize, int maxSegmentSize,
+                     Counter hits, Counter misses, Counter evictedEntries, Counter admissionRejects) {
         this.allocator = allocator;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictedEntries = evictedEntries;
+        this.admissionRejects = admissionRejects;
         int segmentsCount = Math.max(2, (int) (maxCacheSize / maxSegmentSize));
         segmentSize = (int) (maxCacheSize / segmentsCount);
 
-        cacheSegments = new ArrayList<>();
-        cacheIndexes = new ArrayList<>();
+        cacheSegments = new ByteBuf[segmentsCount];
+        cacheIndexes = new ConcurrentLongLongPairHashMap[segmentsCount];
+        segmentVersions = new AtomicLongArray(segmentsCount);
+        segmentWriters = new AtomicIntegerArray(segmentsCount);
+        segmentOffsets = new AtomicIntegerArray(segmentsCount);
+        segmentHits = new LongAdder[segmentsCount];
 
         for (int i = 0; i < segmentsCount; i++) {
-            cacheSegments.add(Unpooled.directBuffer(segmentSize, segmentSize));
-            cacheIndexes.add(new ConcurrentLongLongPairHashMap(4096, 2 * Runtime.getRuntime().availableProcessors()));
+            cacheSegments[i] = Unpooled.directBuffer(segmentSize, segmentSize);
+            cacheIndexes[i] = new ConcurrentLongLongPairHashMap(4096, 2 * Runtime.getRuntime().availableProcessors());
+            segmentHits[i] = new LongAdder();
         }
+        currentSegmentIdx = 0;
+        clockHand = 1;
+    }
+
+    private static int defaultMaxSegmentSize(long maxCacheSize) {
+        // Bound the number of segments, since a lookup may check all of them
+        return (int) Math.min(Integer.MAX_VALUE,
+                Math.max(DEFAULT_MAX_SEGMENT_SIZE, maxCacheSize / DEFAULT_MAX_SEGMENTS_COUNT));
     }
 
     @Override
     public void close() {
-        cacheSegments.forEach(ByteBuf::release);
+        for (ByteBuf segment : cacheSegments) {
+            segment.release();
+        }
     }
 
     public void put(long ledgerId, long entryId, ByteBuf entry) {
+        put(ledgerId, entryId, entry, false);
+    }
+
+    /**
+     * Insert an entry in the cache.
+     *
+     * @param readAhead whether the entry was read speculatively, in which case it is not
+     *                  admitted if making space for it would evict a hot segment
+     */
+    public void put(long ledgerId, long entryId, ByteBuf entry, boolean readAhead) {
         int entrySize = entry.readableBytes();
         int alignedSize = align64(entrySize);
+        if (entrySize > segmentSize) {
+            admissionRejects.inc();
+            return;
+        }
 
-        lock.readLock().lock();
+        while (true) {
+            int segmentIdx = currentSegmentIdx;
+            segmentWriters.incrementAndGet(segmentIdx);
+            try {
+                if ((segmentVersions.get(segmentIdx) & 1) != 0 || segmentIdx != currentSegmentIdx) {
+                    // the segment is being cleared, retry on the next one
+                    continue;
+                }
+                if (segmentOffsets.get(segmentIdx) + entrySize <= segmentSize) {
+                    int offset = segmentOffsets.getAndAdd(segmentIdx, alignedSize);
+                    if (offset + entrySize <= segmentSize) {
+                        // Copy entry into read cache segment
+                        cacheSegments[segmentIdx].setBytes(offset, entry, entry.readerIndex(), entrySize);
+                        cacheIndexes[segmentIdx].put(ledgerId, entryId, offset, entrySize);
+                        return;
+                    }
+                }
+            } finally {
+                segmentWriters.decrementAndGet(segmentIdx);
+            }
 
-        try {
-            int offset = currentSegmentOffset.getAndAdd(alignedSize);
-            if (offset + entrySize > segmentSize) {
-                // Roll-over the segment (outside the read-lock)
-            } else {
-                // Copy entry into read cache segment
-                cacheSegments.get(currentSegmentIdx).setBytes(offset, entry, entry.readerIndex(),
-                        entry.readableBytes());
-                cacheIndexes.get(currentSegmentIdx).put(ledgerId, entryId, offset, entrySize);
+            // We could not insert in the current segment, roll-over to another one
+            if (!rotate(segmentIdx, readAhead)) {
+                admissionRejects.inc();
                 return;
             }
-        } finally {
-            lock.readLock().unlock();
         }
+    }
 
-        // We could not insert in segment, we to get the write lock and roll-over to
-        // next segment
-        lock.writeLock().lock();
-
-        try {
-            int offset = currentSegmentOffset.getAndAdd(entrySize);
-            if (offset + entrySize > segmentSize) {
-                // Rollover to next segment
-                currentSegmentIdx = (currentSegmentIdx + 1) % cacheSegments.size();
-                currentSegmentOffset.set(alignedSize);
-                cacheIndexes.get(currentSegmentIdx).clear();
-                offset = 0;
+    /**
+     * Replace the full segment {@code fullSegmentIdx} as current segment by the segment
+     * picked by the CLOCK hand.
+     *
+     * @return false if the cache refused to evict a hot segment for a read-ahead entry
+     */
+    private synchronized boolean rotate(int fullSegmentIdx, boolean readAhead) {
+        if (currentSegmentIdx != fullSegmentIdx) {
+            // Already rotated by another put
+            return true;
+        }
+
+        int segmentsCount = cacheSegments.length;
+        int victimIdx = -1;
+        for (int i = 0; i < segmentsCount && victimIdx < 0; i++) {
+            int idx = clockHand;
+            clockHand = (clockHand + 1) % segmentsCount;
+            if (idx == currentSegmentIdx) {
+                continue;
             }
 
-            // Copy entry into read cache segment
-            cacheSegments.get(currentSegmentIdx).setBytes(offset, entry, entry.readerIndex(), entry.readableBytes());
-            cacheIndexes.get(currentSegmentIdx).put(ledgerId, entryId, offset, entrySize);
-        } finally {
-            lock.writeLock().unlock();
+            long segmentHitCount = segmentHits[idx].sum();
+            if (segmentHitCount <= cacheIndexes[idx].size()) {
+                victimIdx = idx;
+            } else {
+                // Second chance, with the hits decayed so that a hot segment eventually cools down
+                segmentHits[idx].add(-segmentHitCount / 2);
+            }
         }
+
+        if (victimIdx < 0) {
+            if (readAhead) {
+                return false;
+            }
+            victimIdx = clockHand == currentSegmentIdx ? (clockHand + 1) % segmentsCount : clockHand;
+            clockHand = (victimIdx + 1) % segmentsCount;
+        }
+
+        // Block the lookups and wait for the puts still copying into the segment
+        segmentVersions.incrementAndGet(victimIdx);
+        while (segmentWriters.get(victimIdx) != 0) {
+            Thread.yield();
+        }
+        evictedEntries.add(cacheIndexes[victimIdx].size());
+        cacheIndexes[victimIdx].clear();
+        segmentHits[victimIdx].reset();
+        segmentOffsets.set(victimIdx, 0);
+        segmentVersions.incrementAndGet(victimIdx);
+
+        currentSegmentIdx = victimIdx;
+        return true;
     }
 
     public ByteBuf get(long ledgerId, long entryId) {
-        lock.readLock().lock();
-
-        try {
-            // We need to check all the segments, starting from the current one and looking
-            // backward to minimize the
-            // checks for recently inserted entries
-            int size = cacheSegments.size();
-            for (int i = 0; i < size; i++) {
-                int segmentIdx = (currentSegmentIdx + (size - i)) % size;
-
-                LongPair res = cacheIndexes.get(segmentIdx).get(ledgerId, entryId);
-                if (res != null) {
-                    int entryOffset = (int) res.first;
-                    int entryLen = (int) res.second;
-
-                    ByteBuf entry = allocator.directBuffer(entryLen, entryLen);
-                    entry.writeBytes(cacheSegments.get(segmentIdx), entryOffset, entryLen);
-                    return entry;
+        // We need to check all the segments, starting from the current one and looking
+        // backward to minimize the checks for recently inserted entries
+        int current = currentSegmentIdx;
+        int size = cacheSegments.length;
+        for (int i = 0; i < size; i++) {
+            int segmentIdx = (current + (size - i)) % size;
+
+            long version = segmentVersions.get(segmentIdx);
+            if ((version & 1) != 0) {
+                // the segment is being cleared
+                continue;
+            }
+
+            LongPair res = cacheIndexes[segmentIdx].get(ledgerId, entryId);
+            if (res != null) {
+                int entryOffset = (int) res.first;
+                int entryLen = (int) res.second;
+
+                ByteBuf entry = allocator.directBuffer(entryLen, entryLen);
+                entry.writeBytes(cacheSegments[segmentIdx], entryOffset, entryLen);
+
+                if (segmentVersions.get(segmentIdx) != version) {
+                    // the segment was cleared while copying the entry
+                    entry.release();
+                    continue;
                 }
+                segmentHits[segmentIdx].increment();
+                hits.inc();
+                return entry;
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         // Entry not found in any segment
+        misses.inc();
         return null;
     }
 
@@ -159,41 +277,29 @@ public class ReadCache implements Closeable {
      * @return the total size of cached entries
      */
     public long size() {
-        lock.readLock().lock();
-
-        try {
-            long size = 0;
-            for (int i = 0; i < cacheIndexes.size(); i++) {
-                if (i == currentSegmentIdx) {
-                    size += currentSegmentOffset.get();
-                } else if (!cacheIndexes.get(i).isEmpty()) {
-                    size += segmentSize;
-                } else {
-                    // the segment is empty
-                }
+        long size = 0;
+        for (int i = 0; i < cacheIndexes.length; i++) {
+            if (i == currentSegmentIdx) {
+                size += Math.min(segmentOffsets.get(i), segmentSize);
+            } else if (!cacheIndexes[i].isEmpty()) {
+                size += segmentSize;
+            } else {
+                // the segment is empty
             }
-
-            return size;
-        } finally {
-            lock.readLock().unlock();
         }
+
+        return size;
     }
 
     /**
      * @return the total number of cached entries
      */
     public long count() {
-        lock.readLock().lock();
-
-        try {
-            long count = 0;
-            for (int i = 0; i < cacheIndexes.size(); i++) {
-                count += cacheIndexes.get(i).size();
-            }
-
-            return count;
-        } finally {
-            lock.readLock().unlock();
+        long count = 0;
+        for (int i = 0; i < cacheIndexes.length; i++) {
+            count += cacheIndexes[i].size();
         }
+
+        return count;
     }
 }
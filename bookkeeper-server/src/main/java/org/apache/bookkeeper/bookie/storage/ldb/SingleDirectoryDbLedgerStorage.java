@@ -54,6 +54,7 @@ import org.apache.bookkeeper.bookie.CheckpointSource.Checkpoint;
 import org.apache.bookkeeper.bookie.Checkpointer;
 import org.apache.bookkeeper.bookie.CompactableLedgerStorage;
 import org.apache.bookkeeper.bookie.EntryLocation;
+import org.apache.bookkeeper.bookie.EntryLogReadBlockCache;
 import org.apache.bookkeeper.bookie.EntryLogger;
 import org.apache.bookkeeper.bookie.GarbageCollectionStatus;
 import org.apache.bookkeeper.bookie.GarbageCollectorThread;
@@ -102,6 +103,9 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
     // Cache where we insert entries for speculative reading
     private final ReadCache readCache;
 
+    // Cache of entry log blocks read with direct I/O, null when entry logs are read through the page cache
+    private final EntryLogReadBlockCache entryLogReadBlockCache;
+
     private final StampedLock writeCacheRotationLock = new StampedLock();
 
     protected final ReentrantLock flushMutex = new ReentrantLock();
@@ -124,6 +128,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
     private final long writeCacheMaxSize;
     private final long readCacheMaxSize;
     private final int readAheadCacheBatchSize;
+    private final ReadAheadManager readAheadManager;
 
     private final long maxThrottleTimeNanos;
 
@@ -131,6 +136,14 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
 
     static final String READ_AHEAD_CACHE_BATCH_SIZE = "dbStorage_readAheadCacheBatchSize";
     private static final int DEFAULT_READ_AHEAD_CACHE_BATCH_SIZE = 100;
+    static final String READ_AHEAD_CACHE_MAX_BATCH_SIZE = "dbStorage_readAheadCacheMaxBatchSize";
+    private static final int DEFAULT_READ_AHEAD_CACHE_MAX_BATCH_SIZE = 1000;
+
+    static final String DIRECT_IO_ENTRY_LOGGER = "dbStorage_directIOEntryLogger";
+    static final String DIRECT_IO_ENTRY_LOGGER_READ_CACHE_SIZE_MB = "dbStorage_directIOEntryLoggerReadCacheSizeMb";
+    static final String DIRECT_IO_ENTRY_LOGGER_READ_BLOCK_SIZE = "dbStorage_directIOEntryLoggerReadBlockSizeBytes";
+    private static final long DEFAULT_DIRECT_IO_ENTRY_LOGGER_READ_CACHE_SIZE_MB = 64;
+    private static final int DEFAULT_DIRECT_IO_ENTRY_LOGGER_READ_BLOCK_SIZE = 64 * 1024;
 
     private static final long DEFAULT_MAX_THROTTLE_TIME_MILLIS = TimeUnit.SECONDS.toMillis(10);
 
@@ -164,7 +177,24 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                 DEFAULT_MAX_THROTTLE_TIME_MILLIS);
         maxThrottleTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxThrottleTimeMillis);
 
-        readCache = new ReadCache(allocator, readCacheMaxSize);
+        dbLedgerStorageStats = new DbLedgerStorageStats(
+            statsLogger,
+            this::getWriteCacheSize,
+            this::getWriteCacheCount,
+            this::getReadCacheSize,
+            this::getReadCacheCount
+        );
+
+        readCache = new ReadCache(allocator, readCacheMaxSize,
+                dbLedgerStorageStats.getReadCacheLookupHits(),
+                dbLedgerStorageStats.getReadCacheLookupMisses(),
+                dbLedgerStorageStats.getReadCacheEvictedEntries(),
+                dbLedgerStorageStats.getReadCacheAdmissionRejects());
+
+        readAheadManager = new ReadAheadManager(readAheadCacheBatchSize,
+                conf.getInt(READ_AHEAD_CACHE_MAX_BATCH_SIZE, DEFAULT_READ_AHEAD_CACHE_MAX_BATCH_SIZE),
+                this::fillReadAheadCache, dbLedgerStorageStats.getReadAheadRandomAccessSkips(),
+                dbLedgerStorageStats.getReadAheadDrops());
 
         ledgerIndex = new LedgerMetadataIndex(conf, KeyValueStorageRocksDB.factory, baseDir, statsLogger);
         entryLocationIndex = new EntryLocationIndex(conf, KeyValueStorageRocksDB.factory, baseDir, statsLogger);
@@ -175,16 +205,25 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                 TransientLedgerInfo.LEDGER_INFO_CACHING_TIME_MINUTES,
                 TransientLedgerInfo.LEDGER_INFO_CACHING_TIME_MINUTES, TimeUnit.MINUTES);
 
-        entryLogger = new EntryLogger(conf, ledgerDirsManager, null, statsLogger, allocator);
-        gcThread = new GarbageCollectorThread(conf, ledgerManager, this, statsLogger);
+        if (conf.getBoolean(DIRECT_IO_ENTRY_LOGGER, false)) {
+            long blockCacheSize = DbLedgerStorage.getLongVariableOrDefault(conf,
+                    DIRECT_IO_ENTRY_LOGGER_READ_CACHE_SIZE_MB, DEFAULT_DIRECT_IO_ENTRY_LOGGER_READ_CACHE_SIZE_MB)
+                    * 1024 * 1024;
+            int blockSize = conf.getInt(DIRECT_IO_ENTRY_LOGGER_READ_BLOCK_SIZE,
+                    DEFAULT_DIRECT_IO_ENTRY_LOGGER_READ_BLOCK_SIZE);
+            entryLogReadBlockCache = new EntryLogReadBlockCache(allocator, blockCacheSize, blockSize,
+                    dbLedgerStorageStats.getEntryLogBlockCacheHits(),
+                    dbLedgerStorageStats.getEntryLogBlockCacheMisses());
+            if (!entryLogReadBlockCache.isDirectIOAvailable()) {
+                log.warn("Direct I/O is not available on {}, entry logs will be read through the page cache",
+                        baseDir);
+            }
+        } else {
+            entryLogReadBlockCache = null;
+        }
 
-        dbLedgerStorageStats = new DbLedgerStorageStats(
-            statsLogger,
-            () -> writeCache.size() + writeCacheBeingFlushed.size(),
-            () -> writeCache.count() + writeCacheBeingFlushed.count(),
-            () -> readCache.size(),
-            () -> readCache.count()
-        );
+        entryLogger = new EntryLogger(conf, ledgerDirsManager, null, statsLogger, allocator, entryLogReadBlockCache);
+        gcThread = new GarbageCollectorThread(conf, ledgerManager, this, statsLogger);
         ledgerDirsManager.addLedgerDirsListener(getLedgerDirsListener());
     }
 
@@ -200,6 +239,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
      * Evict all the ledger info object that were not used recently.
      */
     private void cleanupStaleTransientLedgerInfo() {
+        readAheadManager.cleanupStaleStates();
         transientLedgerInfoCache.removeIf((ledgerId, ledgerInfo) -> {
             boolean isStale = ledgerInfo.isStale();
             if (isStale) {
@@ -231,6 +271,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             flush();
 
             gcThread.shutdown();
+            readAheadManager.shutdown();
             entryLogger.shutdown();
 
             cleanupExecutor.shutdown();
@@ -242,6 +283,9 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             writeCache.close();
             writeCacheBeingFlushed.close();
             readCache.close();
+            if (entryLogReadBlockCache != null) {
+                entryLogReadBlockCache.close();
+            }
             executor.shutdown();
 
         } catch (IOException e) {
@@ -442,6 +486,16 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             return entry;
         }
 
+        // The entry may be being read by a read-ahead
+        if (readAheadManager.awaitReadAhead(ledgerId, entryId)) {
+            entry = readCache.get(ledgerId, entryId);
+            if (entry != null) {
+                recordSuccessfulEvent(dbLedgerStorageStats.getReadCacheHitStats(), startTime);
+                recordSuccessfulEvent(dbLedgerStorageStats.getReadEntryStats(), startTime);
+                return entry;
+            }
+        }
+
         // Read from main storage
         long entryLocation;
         try {
@@ -457,24 +511,26 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
 
         readCache.put(ledgerId, entryId, entry);
 
-        // Try to read more entries
+        // Try to read more entries, in the background
         long nextEntryLocation = entryLocation + 4 /* size header */ + entry.readableBytes();
-        fillReadAheadCache(ledgerId, entryId + 1, nextEntryLocation);
+        readAheadManager.onReadCacheMiss(ledgerId, entryId, nextEntryLocation);
 
         recordSuccessfulEvent(dbLedgerStorageStats.getReadCacheMissStats(), startTime);
         recordSuccessfulEvent(dbLedgerStorageStats.getReadEntryStats(), startTime);
+        gcThread.recordForegroundReadLatency(MathUtils.elapsedNanos(startTime));
         return entry;
     }
 
-    private void fillReadAheadCache(long orginalLedgerId, long firstEntryId, long firstEntryLocation) {
+    private int fillReadAheadCache(long orginalLedgerId, long firstEntryId, long firstEntryLocation,
+                                   int maxEntries) {
+        int count = 0;
         try {
             long firstEntryLogId = (firstEntryLocation >> 32);
             long currentEntryLogId = firstEntryLogId;
             long currentEntryLocation = firstEntryLocation;
-            int count = 0;
             long size = 0;
 
-            while (count < readAheadCacheBatchSize
+            while (count < maxEntries
                     && size < maxReadAheadBytesSize
                     && currentEntryLogId == firstEntryLogId) {
                 ByteBuf entry = entryLogger.internalReadEntry(orginalLedgerId, firstEntryId, currentEntryLocation,
@@ -490,7 +546,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                     }
 
                     // Insert entry in read cache
-                    readCache.put(orginalLedgerId, currentEntryId, entry);
+                    readCache.put(orginalLedgerId, currentEntryId, entry, true /* readAhead */);
 
                     count++;
                     firstEntryId++;
@@ -510,6 +566,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                 log.debug("Exception during read ahead for ledger: {}: e", orginalLedgerId, e);
             }
         }
+        return count;
     }
 
     public ByteBuf getLastEntry(long ledgerId) throws IOException {
@@ -606,23 +663,27 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             // position for each entry
 
             Batch batch = entryLocationIndex.newBatch();
-            writeCacheBeingFlushed.forEach((ledgerId, entryId, entry) -> {
-                try {
-                    long location = entryLogger.addEntry(ledgerId, entry, true);
-                    entryLocationIndex.addLocation(batch, ledgerId, entryId, location);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+            try {
+                writeCacheBeingFlushed.forEach((ledgerId, entryId, entry) -> {
+                    try {
+                        long location = entryLogger.addEntry(ledgerId, entry, true);
+                        entryLocationIndex.addLocation(batch, ledgerId, entryId, location);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
 
-            entryLogger.flush();
+                flushEntryLogger();
 
-            long batchFlushStarTime = System.nanoTime();
-            batch.flush();
-            batch.close();
-            if (log.isDebugEnabled()) {
-                log.debug("DB batch flushed time : {} s",
-                        MathUtils.elapsedNanos(batchFlushStarTime) / (double) TimeUnit.SECONDS.toNanos(1));
+                // The index is only written once the entries it points to are persisted
+                long batchFlushStarTime = System.nanoTime();
+                flushEntryLocations(batch);
+                if (log.isDebugEnabled()) {
+                    log.debug("DB batch flushed time : {} s",
+                            MathUtils.elapsedNanos(batchFlushStarTime) / (double) TimeUnit.SECONDS.toNanos(1));
+                }
+            } finally {
+                batch.close();
             }
 
             ledgerIndex.flush();
@@ -671,6 +732,16 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
         }
     }
 
+    @VisibleForTesting
+    void flushEntryLogger() throws IOException {
+        entryLogger.flush();
+    }
+
+    @VisibleForTesting
+    void flushEntryLocations(Batch batch) throws IOException {
+        batch.flush();
+    }
+
     /**
      * Swap the current write cache with the replacement cache.
      */
@@ -727,6 +798,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
         if (tli != null) {
             tli.close();
         }
+        readAheadManager.ledgerDeleted(ledgerId);
     }
 
     @Override
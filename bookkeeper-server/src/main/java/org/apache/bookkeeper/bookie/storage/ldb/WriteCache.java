@@ -28,6 +28,7 @@ import io.netty.buffer.Unpooled;
 
 import java.io.Closeable;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -50,6 +51,11 @@ import org.slf4j.LoggerFactory;
  *
  * <p>There is the possibility to iterate through the stored entries in an ordered
  * way, by (ledgerId, entry).
+ *
+ * <p>Entries are read without copying, as retained slices of the cache segments. A
+ * segment still referenced by readers when the cache is cleared is skipped by the
+ * writes until the readers release their entries, so that the cache never uses more
+ * memory than its configured size.
  */
 public class WriteCache implements Closeable {
 
@@ -68,6 +74,10 @@ public class WriteCache implements Closeable {
 
     private final ByteBuf[] cacheSegments;
     private final int segmentsCount;
+    // set for the segments still referenced by readers when the cache was cleared
+    private final AtomicIntegerArray retainedSegments;
+    // incremented when the cache is cleared, to detect entries read across a clear
+    private final AtomicLong generation = new AtomicLong(0);
 
     private final long maxCacheSize;
     private final int maxSegmentSize;
@@ -102,6 +112,7 @@ public class WriteCache implements Closeable {
         this.segmentsCount = 1 + (int) (maxCacheSize / maxSegmentSize);
 
         this.cacheSegments = new ByteBuf[segmentsCount];
+        this.retainedSegments = new AtomicIntegerArray(segmentsCount);
 
         for (int i = 0; i < segmentsCount - 1; i++) {
             // All intermediate segments will be full-size
@@ -119,6 +130,14 @@ public class WriteCache implements Closeable {
         index.clear();
         lastEntryMap.clear();
         deletedLedgers.clear();
+
+        // Entries found in the index before it was cleared are discarded by readers that
+        // see the new generation, the others were retained before the check below
+        generation.incrementAndGet();
+        for (int i = 0; i < segmentsCount; i++) {
+            // Readers still hold entries of this segment, it must not be overwritten yet
+            retainedSegments.set(i, cacheSegments[i].refCnt() > 1 ? 1 : 0);
+        }
     }
 
     @Override
@@ -151,6 +170,10 @@ public class WriteCache implements Closeable {
                 // If an entry is at the end of a segment, we need to get a new offset and try
                 // again in next segment
                 continue;
+            } else if (!isSegmentWritable(segmentIdx)) {
+                // Skip the segment, its memory is accounted to the readers until the next clear
+                cacheOffset.accumulateAndGet((long) (segmentIdx + 1) << segmentOffsetBits, Math::max);
+                continue;
             } else {
                 // Found a good offset
                 break;
@@ -180,7 +203,14 @@ public class WriteCache implements Closeable {
         return true;
     }
 
+    /**
+     * Get an entry from the cache.
+     *
+     * @return a read-only slice of the cache holding the entry, which must be released
+     *         to let the cache reuse its memory, or null if the entry is not in the cache
+     */
     public ByteBuf get(long ledgerId, long entryId) {
+        long currentGeneration = generation.get();
         LongPair result = index.get(ledgerId, entryId);
         if (result == null) {
             return null;
@@ -188,14 +218,32 @@ public class WriteCache implements Closeable {
 
         long offset = result.first;
         int size = (int) result.second;
-        ByteBuf entry = allocator.buffer(size, size);
 
         int localOffset = (int) (offset & segmentOffsetMask);
         int segmentIdx = (int) (offset >>> segmentOffsetBits);
-        entry.writeBytes(cacheSegments[segmentIdx], localOffset, size);
+        ByteBuf entry = cacheSegments[segmentIdx].retainedSlice(localOffset, size).asReadOnly();
+
+        if (generation.get() != currentGeneration) {
+            // The cache was cleared meanwhile, the segment may be overwritten
+            entry.release();
+            return null;
+        }
         return entry;
     }
 
+    private boolean isSegmentWritable(int segmentIdx) {
+        if (retainedSegments.get(segmentIdx) == 0) {
+            return true;
+        }
+        if (cacheSegments[segmentIdx].refCnt() > 1) {
+            // Entries read before the last clear are still referenced
+            return false;
+        }
+        // Readers that retain an entry from now on see the new generation and discard it
+        retainedSegments.set(segmentIdx, 0);
+        return true;
+    }
+
     public ByteBuf getLastEntry(long ledgerId) {
         long lastEntryId = lastEntryMap.get(ledgerId);
         if (lastEntryId == -1) {
@@ -0,0 +1,243 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.util.LogLinearHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SpeculativeRequestExecutionPolicy} that derives the speculative timeout from the latency
+ * of recent requests.
+ *
+ * <p>Request latencies reported through {@link #onRequestComplete(long, TimeUnit)} are collected in
+ * a histogram over a fixed window. At the end of each window the first speculative timeout is set
+ * to the configured percentile of the latencies seen, bounded by {@code maxSpeculativeRequestTimeout}.
+ * Until a window has seen enough requests, {@code firstSpeculativeRequestTimeout} is used. Further
+ * speculative requests for the same request back off like in {@link DefaultSpeculativeRequestExecutionPolicy}.
+ *
+ * <p>Speculative requests are also limited to a percentage of the requests initiated over the
+ * current and previous windows, and at least one is always allowed. When the budget is used up, the
+ * speculative request is skipped and retried at the next timeout, so that a pause of one bookie
+ * cannot double the load on the others.
+ */
+public class AdaptiveSpeculativeRequestExecutionPolicy implements SpeculativeRequestExecutionPolicy {
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveSpeculativeRequestExecutionPolicy.class);
+
+    static final long DEFAULT_WINDOW_MS = 10000;
+    // fewer samples than this don't give a meaningful high percentile
+    static final long MIN_SAMPLES_PER_WINDOW = 100;
+    // the scheduler can't do much better than a millisecond
+    static final long MIN_TIMEOUT_MICROS = 1000;
+
+    final long firstSpeculativeRequestTimeoutMicros;
+    final long maxSpeculativeRequestTimeoutMicros;
+    final float backoffMultiplier;
+    final double latencyPercentile;
+    final double maxSpeculativeRequestPercent;
+    final long windowNanos;
+
+    private volatile Window window;
+    private final AtomicLong nextRotationNanos;
+    private volatile long previousRequests = 0;
+    private volatile long previousSpeculativeRequests = 0;
+    private volatile long speculativeRequestTimeoutMicros;
+
+    public AdaptiveSpeculativeRequestExecutionPolicy(int firstSpeculativeRequestTimeout,
+                                                     int maxSpeculativeRequestTimeout,
+                                                     float backoffMultiplier,
+                                                     double latencyPercentile,
+                                                     double maxSpeculativeRequestPercent) {
+        this(firstSpeculativeRequestTimeout, maxSpeculativeRequestTimeout, backoffMultiplier,
+                latencyPercentile, maxSpeculativeRequestPercent, DEFAULT_WINDOW_MS);
+    }
+
+    AdaptiveSpeculativeRequestExecutionPolicy(int firstSpeculativeRequestTimeout,
+                                              int maxSpeculativeRequestTimeout,
+                                              float backoffMultiplier,
+                                              double latencyPercentile,
+                                              double maxSpeculativeRequestPercent,
+                                              long windowMs) {
+        if (backoffMultiplier <= 0) {
+            throw new IllegalArgumentException("Invalid value provided for backoffMultiplier");
+        }
+        if (latencyPercentile <= 0 || latencyPercentile >= 100) {
+            throw new IllegalArgumentException("Invalid value provided for latencyPercentile");
+        }
+        if (maxSpeculativeRequestPercent < 0) {
+            throw new IllegalArgumentException("Invalid value provided for maxSpeculativeRequestPercent");
+        }
+        this.firstSpeculativeRequestTimeoutMicros = TimeUnit.MILLISECONDS.toMicros(firstSpeculativeRequestTimeout);
+        this.maxSpeculativeRequestTimeoutMicros = TimeUnit.MILLISECONDS.toMicros(
+                Math.max(firstSpeculativeRequestTimeout, maxSpeculativeRequestTimeout));
+        this.backoffMultiplier = backoffMultiplier;
+        this.latencyPercentile = latencyPercentile;
+        this.maxSpeculativeRequestPercent = maxSpeculativeRequestPercent;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.window = new Window();
+        this.nextRotationNanos = new AtomicLong(MathUtils.nowInNano() + windowNanos);
+        this.speculativeRequestTimeoutMicros = firstSpeculativeRequestTimeoutMicros;
+    }
+
+    @Override
+    public ScheduledFuture<?> initiateSpeculativeRequest(final ScheduledExecutorService scheduler,
+            final SpeculativeRequestExecutor requestExecutor) {
+        maybeRotate(MathUtils.nowInNano()).requests.increment();
+        return scheduleSpeculativeRequest(scheduler, requestExecutor, speculativeRequestTimeoutMicros);
+    }
+
+    @Override
+    public void onRequestComplete(long latency, TimeUnit unit) {
+        maybeRotate(MathUtils.nowInNano()).record(unit.toMicros(latency));
+    }
+
+    /**
+     * @return the timeout before the first speculative request, in microseconds
+     */
+    long getSpeculativeRequestTimeoutMicros() {
+        return speculativeRequestTimeoutMicros;
+    }
+
+    private ScheduledFuture<?> scheduleSpeculativeRequest(final ScheduledExecutorService scheduler,
+                                                          final SpeculativeRequestExecutor requestExecutor,
+                                                          final long timeoutMicros) {
+        final long nextTimeoutMicros = Math.min(maxSpeculativeRequestTimeoutMicros,
+                Math.round((double) timeoutMicros * backoffMultiplier));
+        try {
+            return scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!tryAcquireSpeculativeRequest()) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Speculative request budget exhausted, delaying speculative request for {}",
+                                    requestExecutor);
+                        }
+                        scheduleSpeculativeRequest(scheduler, requestExecutor, nextTimeoutMicros);
+                        return;
+                    }
+                    ListenableFuture<Boolean> issueNextRequest = requestExecutor.issueSpeculativeRequest();
+                    Futures.addCallback(issueNextRequest, new FutureCallback<Boolean>() {
+                        @Override
+                        public void onSuccess(Boolean issueNextRequest) {
+                            if (issueNextRequest) {
+                                scheduleSpeculativeRequest(scheduler, requestExecutor, nextTimeoutMicros);
+                            } else if (LOG.isTraceEnabled()) {
+                                LOG.trace("Stopped issuing speculative requests for {}, "
+                                        + "speculativeReadTimeoutMicros = {}", requestExecutor, timeoutMicros);
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Throwable thrown) {
+                            LOG.warn("Failed to issue speculative request for {}, speculativeReadTimeoutMicros = {} : ",
+                                    requestExecutor, timeoutMicros, thrown);
+                        }
+                    }, directExecutor());
+                }
+            }, timeoutMicros, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException re) {
+            if (!scheduler.isShutdown()) {
+                LOG.warn("Failed to schedule speculative request for {}, speculativeReadTimeoutMicros = {} : ",
+                        requestExecutor, timeoutMicros, re);
+            }
+        }
+        return null;
+    }
+
+    @VisibleForTesting
+    boolean tryAcquireSpeculativeRequest() {
+        Window current = maybeRotate(MathUtils.nowInNano());
+        if (maxSpeculativeRequestPercent == 0) {
+            current.speculativeRequests.increment();
+            return true;
+        }
+        // always allow one speculative request, so that a client sending few requests still gets one
+        double budget = Math.max(1,
+                (previousRequests + current.requests.sum()) * maxSpeculativeRequestPercent / 100);
+        // the check and the increment race with other timeouts, which can overshoot by a few requests
+        if (previousSpeculativeRequests + current.speculativeRequests.sum() + 1 > budget) {
+            return false;
+        }
+        current.speculativeRequests.increment();
+        return true;
+    }
+
+    private Window maybeRotate(long nowNanos) {
+        long rotation = nextRotationNanos.get();
+        if (nowNanos - rotation < 0 || !nextRotationNanos.compareAndSet(rotation, nowNanos + windowNanos)) {
+            return window;
+        }
+        Window completed = window;
+        window = new Window();
+        previousRequests = completed.requests.sum();
+        previousSpeculativeRequests = completed.speculativeRequests.sum();
+
+        long percentileMicros = completed.getPercentileMicros(latencyPercentile);
+        if (percentileMicros >= 0) {
+            speculativeRequestTimeoutMicros = Math.max(MIN_TIMEOUT_MICROS,
+                    Math.min(maxSpeculativeRequestTimeoutMicros, percentileMicros));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Speculative request timeout set to {} us, p{} of {} requests is {} us",
+                        speculativeRequestTimeoutMicros, latencyPercentile, completed.samples.sum(),
+                        percentileMicros);
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Latency histogram and request counts of one window.
+     */
+    static class Window {
+        final LogLinearHistogram latencies = new LogLinearHistogram();
+        final LongAdder samples = new LongAdder();
+        final LongAdder requests = new LongAdder();
+        final LongAdder speculativeRequests = new LongAdder();
+
+        void record(long micros) {
+            latencies.record(micros);
+            samples.increment();
+        }
+
+        /**
+         * @return the upper bound of the bucket holding the percentile, -1 if there are too few samples
+         */
+        long getPercentileMicros(double percentile) {
+            if (samples.sum() < MIN_SAMPLES_PER_WINDOW) {
+                return -1;
+            }
+            return latencies.getPercentile(percentile);
+        }
+    }
+}
@@ -66,6 +66,7 @@ import org.apache.bookkeeper.client.api.ListLedgersResultBuilder;
 import org.apache.bookkeeper.client.api.OpenBuilder;
 import org.apache.bookkeeper.client.api.WriteFlag;
 import org.apache.bookkeeper.common.allocator.ByteBufAllocatorBuilder;
+import org.apache.bookkeeper.common.util.MemoryLimitController;
 import org.apache.bookkeeper.common.util.OrderedExecutor;
 import org.apache.bookkeeper.common.util.OrderedScheduler;
 import org.apache.bookkeeper.common.util.ReflectionUtils;
@@ -88,6 +89,7 @@ import org.apache.bookkeeper.proto.BookieAddressResolver;
 import org.apache.bookkeeper.proto.BookieClient;
 import org.apache.bookkeeper.proto.BookieClientImpl;
 import org.apache.bookkeeper.proto.DataFormats;
+import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.EventLoopUtil;
@@ -123,6 +125,11 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
     private final BookKeeperClientStats clientStats;
     private final double bookieQuarantineRatio;
 
+    // bounds the payload bytes of outstanding adds across all ledgers, null if unlimited
+    private final MemoryLimitController addMemoryLimitController;
+    // read latency of each bookie, used to reorder reads, null if disabled
+    private final BookieReadLatencyTracker readLatencyTracker;
+
     // whether the event loop group is one we created, or is owned by whoever
     // instantiated us
     boolean ownEventLoopGroup = false;
@@ -142,6 +149,8 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
     final LedgerManagerFactory ledgerManagerFactory;
     final LedgerManager ledgerManager;
     final LedgerIdGenerator ledgerIdGenerator;
+    // Cache of the metadata of opened ledgers, null if disabled
+    final LedgerMetadataCache ledgerMetadataCache;
 
     // Ensemble Placement Policy
     final EnsemblePlacementPolicy placementPolicy;
@@ -442,6 +451,29 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         this.statsLogger = rootStatsLogger.scope(BookKeeperClientStats.CLIENT_SCOPE);
         this.clientStats = BookKeeperClientStats.newInstance(this.statsLogger);
 
+        if (internalConf.addEntryMemoryLimitBytes > 0) {
+            this.addMemoryLimitController = new MemoryLimitController(internalConf.addEntryMemoryLimitBytes);
+            this.clientStats.registerAddMemoryReservedBytesGauge(new Gauge<Long>() {
+                @Override
+                public Long getDefaultValue() {
+                    return 0L;
+                }
+
+                @Override
+                public Long getSample() {
+                    return addMemoryLimitController.currentUsage();
+                }
+            });
+        } else {
+            this.addMemoryLimitController = null;
+        }
+        if (internalConf.enableReorderReadsByLatency) {
+            this.readLatencyTracker = new BookieReadLatencyTracker(internalConf.readLatencyEwmaDecayTimeMs,
+                    this.statsLogger);
+        } else {
+            this.readLatencyTracker = null;
+        }
+
         // initialize metadata driver
         try {
             String metadataServiceUriStr = conf.getMetadataServiceUri();
@@ -538,6 +570,12 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         }
         this.ledgerManager = new CleanupLedgerManager(ledgerManagerFactory.newLedgerManager());
         this.ledgerIdGenerator = ledgerManagerFactory.newLedgerIdGenerator();
+        if (conf.getLedgerMetadataCacheMaxEntries() > 0) {
+            this.ledgerMetadataCache = new LedgerMetadataCache(ledgerManager, scheduler,
+                    conf.getLedgerMetadataCacheMaxEntries(), clientStats);
+        } else {
+            this.ledgerMetadataCache = null;
+        }
 
         this.bookieQuarantineRatio = conf.getBookieQuarantineRatio();
         scheduleBookieHealthCheckIfEnabled(conf);
@@ -552,6 +590,8 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         internalConf = ClientInternalConf.fromConfig(conf);
         statsLogger = NullStatsLogger.INSTANCE;
         clientStats = BookKeeperClientStats.newInstance(statsLogger);
+        addMemoryLimitController = null;
+        readLatencyTracker = null;
         scheduler = null;
         requestTimer = null;
         metadataDriver = null;
@@ -561,6 +601,7 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         ledgerManagerFactory = null;
         ledgerManager = null;
         ledgerIdGenerator = null;
+        ledgerMetadataCache = null;
         featureProvider = null;
         eventLoopGroup = null;
         bookieWatcher = null;
@@ -635,6 +676,29 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         return ledgerManager;
     }
 
+    /**
+     * Read the metadata of a ledger, from the ledger metadata cache if it is enabled.
+     *
+     * @param ledgerId ledger id
+     * @param closedOnly only use the cached metadata if the ledger is closed
+     * @return a future completed with the ledger metadata
+     */
+    CompletableFuture<Versioned<LedgerMetadata>> readLedgerMetadata(long ledgerId, boolean closedOnly) {
+        if (null == ledgerMetadataCache) {
+            return ledgerManager.readLedgerMetadata(ledgerId);
+        }
+        return ledgerMetadataCache.readLedgerMetadata(ledgerId, closedOnly);
+    }
+
+    /**
+     * Drop the cached metadata of a ledger, if the ledger metadata cache is enabled.
+     */
+    void invalidateLedgerMetadata(long ledgerId) {
+        if (null != ledgerMetadataCache) {
+            ledgerMetadataCache.invalidate(ledgerId);
+        }
+    }
+
     @VisibleForTesting
     LedgerManager getUnderlyingLedgerManager() {
         return ((CleanupLedgerManager) ledgerManager).getUnderlying();
@@ -1361,7 +1425,8 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
      * @param cb    callback method
      */
     public void asyncIsClosed(long lId, final IsClosedCallback cb, final Object ctx){
-        ledgerManager.readLedgerMetadata(lId).whenComplete((metadata, exception) -> {
+        // a ledger never gets reopened, so a cached closed metadata is always up to date
+        readLedgerMetadata(lId, true).whenComplete((metadata, exception) -> {
                 if (exception == null) {
                     cb.isClosedComplete(BKException.Code.OK, metadata.getValue().isClosed(), ctx);
                 } else {
@@ -1644,6 +1709,16 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
             public ByteBufAllocator getByteBufAllocator() {
                 return allocator;
             }
+
+            @Override
+            public MemoryLimitController getAddMemoryLimitController() {
+                return addMemoryLimitController;
+            }
+
+            @Override
+            public BookieReadLatencyTracker getReadLatencyTracker() {
+                return readLatencyTracker;
+            }
         };
 
     ClientContext getClientCtx() {
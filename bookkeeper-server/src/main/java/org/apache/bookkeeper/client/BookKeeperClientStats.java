@@ -58,9 +58,12 @@ public interface BookKeeperClientStats {
     String READ_LAST_CONFIRMED_AND_ENTRY = "READ_LAST_CONFIRMED_AND_ENTRY";
     String READ_LAST_CONFIRMED_AND_ENTRY_RESPONSE = "READ_LAST_CONFIRMED_AND_ENTRY_RESPONSE";
     String PENDING_ADDS = "NUM_PENDING_ADD";
+    String ADD_MEMORY_RESERVED_BYTES = "ADD_MEMORY_RESERVED_BYTES";
     String ENSEMBLE_CHANGES = "NUM_ENSEMBLE_CHANGE";
     String LAC_UPDATE_HITS = "LAC_UPDATE_HITS";
     String LAC_UPDATE_MISSES = "LAC_UPDATE_MISSES";
+    String LEDGER_METADATA_CACHE_HITS = "LEDGER_METADATA_CACHE_HITS";
+    String LEDGER_METADATA_CACHE_MISSES = "LEDGER_METADATA_CACHE_MISSES";
     String GET_BOOKIE_INFO_OP = "GET_BOOKIE_INFO";
     String SPECULATIVE_READ_COUNT = "SPECULATIVE_READ_COUNT";
     String READ_REQUESTS_REORDERED = "READ_REQUESTS_REORDERED";
@@ -71,6 +74,10 @@ public interface BookKeeperClientStats {
 
     String CHANNEL_READ_OP = "READ_ENTRY";
     String CHANNEL_TIMEOUT_READ = "TIMEOUT_READ_ENTRY";
+    String CHANNEL_RANGE_READ_OP = "RANGE_READ_ENTRY";
+    String CHANNEL_TIMEOUT_RANGE_READ = "TIMEOUT_RANGE_READ_ENTRY";
+    String CHANNEL_RANGE_ADD_OP = "RANGE_ADD_ENTRY";
+    String CHANNEL_TIMEOUT_RANGE_ADD = "TIMEOUT_RANGE_ADD_ENTRY";
     String CHANNEL_ADD_OP = "ADD_ENTRY";
     String CHANNEL_TIMEOUT_ADD = "TIMEOUT_ADD_ENTRY";
     String CHANNEL_WRITE_LAC_OP = "WRITE_LAC";
@@ -82,6 +89,7 @@ public interface BookKeeperClientStats {
     String TIMEOUT_GET_BOOKIE_INFO = "TIMEOUT_GET_BOOKIE_INFO";
     String CHANNEL_START_TLS_OP = "START_TLS";
     String CHANNEL_TIMEOUT_START_TLS_OP = "TIMEOUT_START_TLS";
+    String CHANNEL_REQUESTS_PER_FLUSH = "REQUESTS_PER_FLUSH";
     String TIMEOUT_GET_LIST_OF_ENTRIES_OF_LEDGER = "TIMEOUT_GET_LIST_OF_ENTRIES_OF_LEDGER";
 
     String NETTY_EXCEPTION_CNT = "NETTY_EXCEPTION_CNT";
@@ -104,6 +112,7 @@ public interface BookKeeperClientStats {
     String NUM_WRITABLE_BOOKIES_IN_DEFAULT_FAULTDOMAIN = "NUM_WRITABLE_BOOKIES_IN_DEFAULT_FAULTDOMAIN";
 
     String BOOKIE_LABEL = "bookie";
+    String BOOKIE_READ_LATENCY_EWMA = "BOOKIE_READ_LATENCY_EWMA";
 
     OpStatsLogger getCreateOpLogger();
     OpStatsLogger getOpenOpLogger();
@@ -125,11 +134,14 @@ public interface BookKeeperClientStats {
     Counter getEnsembleChangeCounter();
     Counter getLacUpdateHitsCounter();
     Counter getLacUpdateMissesCounter();
+    Counter getLedgerMetadataCacheHitsCounter();
+    Counter getLedgerMetadataCacheMissesCounter();
     OpStatsLogger getClientChannelWriteWaitLogger();
     OpStatsLogger getWriteDelayedDueToNotEnoughFaultDomainsLatency();
     Counter getWriteDelayedDueToNotEnoughFaultDomains();
     Counter getWriteTimedOutDueToNotEnoughFaultDomains();
     void registerPendingAddsGauge(Gauge<Integer> gauge);
+    void registerAddMemoryReservedBytesGauge(Gauge<Long> gauge);
 
     static BookKeeperClientStats newInstance(StatsLogger stats) {
         return new BookKeeperClientStatsImpl(stats);
@@ -0,0 +1,111 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import static org.apache.bookkeeper.client.BookKeeperClientStats.BOOKIE_LABEL;
+import static org.apache.bookkeeper.client.BookKeeperClientStats.BOOKIE_READ_LATENCY_EWMA;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+/**
+ * Keeps a moving average of the read latency observed from each bookie, shared by all the ledgers
+ * of a client.
+ *
+ * <p>The average is weighted by time rather than by number of samples, and it decays towards zero
+ * while a bookie is not read from. A bookie that was avoided because it had been slow is therefore
+ * tried again after a while, instead of keeping a stale latency forever. A sample above the
+ * current average replaces it, so that a bookie turning slow is noticed on its first slow read.
+ */
+class BookieReadLatencyTracker {
+
+    private final double decayTimeNanos;
+    private final StatsLogger statsLogger;
+    private final ConcurrentHashMap<BookieId, Ewma> latencies = new ConcurrentHashMap<>();
+
+    BookieReadLatencyTracker(long decayTimeMs, StatsLogger statsLogger) {
+        this.decayTimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, decayTimeMs));
+        this.statsLogger = statsLogger;
+    }
+
+    void recordReadLatency(BookieId bookie, long latencyNanos) {
+        Ewma ewma = latencies.get(bookie);
+        if (ewma == null) {
+            ewma = latencies.computeIfAbsent(bookie, this::newEwma);
+        }
+        ewma.update(latencyNanos, MathUtils.nowInNano());
+    }
+
+    /**
+     * @return the average read latency of <i>bookie</i> in microseconds, or -1 if it was never read
+     */
+    long getReadLatencyMicros(BookieId bookie) {
+        Ewma ewma = latencies.get(bookie);
+        if (ewma == null) {
+            return -1L;
+        }
+        return TimeUnit.NANOSECONDS.toMicros((long) ewma.get(MathUtils.nowInNano()));
+    }
+
+    private Ewma newEwma(BookieId bookie) {
+        Ewma ewma = new Ewma();
+        statsLogger.scopeLabel(BOOKIE_LABEL, bookie.toString()).registerGauge(BOOKIE_READ_LATENCY_EWMA,
+                new Gauge<Long>() {
+                    @Override
+                    public Long getDefaultValue() {
+                        return 0L;
+                    }
+
+                    @Override
+                    public Long getSample() {
+                        return TimeUnit.NANOSECONDS.toMicros((long) ewma.get(MathUtils.nowInNano()));
+                    }
+                });
+        return ewma;
+    }
+
+    private class Ewma {
+        private double value = 0;
+        private long lastUpdateNanos = MathUtils.nowInNano();
+
+        synchronized void update(long sampleNanos, long nowNanos) {
+            if (sampleNanos > value) {
+                value = sampleNanos;
+            } else {
+                double weight = weight(nowNanos);
+                value = value * weight + sampleNanos * (1 - weight);
+            }
+            lastUpdateNanos = nowNanos;
+        }
+
+        synchronized double get(long nowNanos) {
+            return value * weight(nowNanos);
+        }
+
+        private double weight(long nowNanos) {
+            return Math.exp(-Math.max(0, nowNanos - lastUpdateNanos) / decayTimeNanos);
+        }
+    }
+}
@@ -44,4 +44,14 @@ public interface BookiesHealthInfo {
      */
     long getBookiePendingRequests(BookieId bookieSocketAddress);
 
+    /**
+     * Returns the recent read latency of a bookie.
+     *
+     * @param bookieSocketAddress
+     * @return moving average of the read latency in microseconds, -1 if it is not known
+     */
+    default long getBookieReadLatencyMicros(BookieId bookieSocketAddress) {
+        return -1L;
+    }
+
 }
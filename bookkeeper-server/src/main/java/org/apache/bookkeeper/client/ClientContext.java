@@ -22,6 +22,7 @@ package org.apache.bookkeeper.client;
 
 import io.netty.buffer.ByteBufAllocator;
 
+import org.apache.bookkeeper.common.util.MemoryLimitController;
 import org.apache.bookkeeper.common.util.OrderedExecutor;
 import org.apache.bookkeeper.common.util.OrderedScheduler;
 import org.apache.bookkeeper.meta.LedgerManager;
@@ -44,4 +45,6 @@ interface ClientContext {
     OrderedScheduler getScheduler();
     BookKeeperClientStats getClientStats();
     boolean isClientClosed();
+    MemoryLimitController getAddMemoryLimitController(); // null if adds are not memory limited
+    BookieReadLatencyTracker getReadLatencyTracker(); // null if read latencies are not tracked
 }
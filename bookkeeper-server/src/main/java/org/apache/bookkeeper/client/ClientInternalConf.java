@@ -40,9 +40,18 @@ class ClientInternalConf {
     final long addEntryQuorumTimeoutNanos;
     final boolean enableParallelRecoveryRead;
     final boolean enableReorderReadSequence;
+    final boolean enableReorderReadsByLatency;
+    final long readLatencyEwmaDecayTimeMs;
     final boolean enableStickyReads;
+    final boolean enableRangeRead;
+    final long rangeReadMaxSizeBytes;
+    final boolean enableRangeAdd;
+    final int rangeAddMaxEntries;
+    final long rangeAddMaxSizeBytes;
     final int recoveryReadBatchSize;
     final int throttleValue;
+    final long addEntryMemoryLimitBytes;
+    final boolean addEntryMemoryLimitFailFast;
     final int bookieFailureHistoryExpirationMSec;
     final int maxAllowedEnsembleChanges;
     final long timeoutMonitorIntervalSec;
@@ -67,11 +76,15 @@ class ClientInternalConf {
                                FeatureProvider featureProvider) {
         this.explicitLacInterval = conf.getExplictLacInterval();
         this.enableReorderReadSequence = conf.isReorderReadSequenceEnabled();
+        this.enableReorderReadsByLatency = conf.isReorderReadsByLatencyEnabled();
+        this.readLatencyEwmaDecayTimeMs = conf.getReadLatencyEwmaDecayTimeMs();
         this.enableParallelRecoveryRead = conf.getEnableParallelRecoveryRead();
         this.recoveryReadBatchSize = conf.getRecoveryReadBatchSize();
         this.waitForWriteSetMs = conf.getWaitTimeoutOnBackpressureMillis();
         this.addEntryQuorumTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getAddEntryQuorumTimeout());
         this.throttleValue = conf.getThrottleValue();
+        this.addEntryMemoryLimitBytes = conf.getAddEntryMemoryLimitBytes();
+        this.addEntryMemoryLimitFailFast = conf.getAddEntryMemoryLimitFailFast();
         this.bookieFailureHistoryExpirationMSec = conf.getBookieFailureHistoryExpirationMSec();
 
         this.disableEnsembleChangeFeature = featureProvider.getFeature(conf.getDisableEnsembleChangeFeatureName());
@@ -82,9 +95,22 @@ class ClientInternalConf {
         this.enableBookieFailureTracking = conf.getEnableBookieFailureTracking();
         this.useV2WireProtocol = conf.getUseV2WireProtocol();
         this.enableStickyReads = conf.isStickyReadsEnabled();
+        this.enableRangeRead = conf.isRangeReadEnabled() && !conf.getUseV2WireProtocol();
+        this.rangeReadMaxSizeBytes = conf.getRangeReadMaxSizeBytes();
+        this.enableRangeAdd = conf.isRangeAddEnabled() && !conf.getUseV2WireProtocol();
+        this.rangeAddMaxEntries = conf.getRangeAddMaxEntries();
+        this.rangeAddMaxSizeBytes = conf.getRangeAddMaxSizeBytes();
         this.enforceMinNumFaultDomainsForWrite = conf.getEnforceMinNumFaultDomainsForWrite();
 
-        if (conf.getFirstSpeculativeReadTimeout() > 0) {
+        if (conf.getFirstSpeculativeReadTimeout() > 0 && conf.getSpeculativeReadTimeoutLatencyPercentile() > 0) {
+            this.readSpeculativeRequestPolicy =
+                    Optional.of(new AdaptiveSpeculativeRequestExecutionPolicy(
+                                        conf.getFirstSpeculativeReadTimeout(),
+                                        conf.getMaxSpeculativeReadTimeout(),
+                                        conf.getSpeculativeReadTimeoutBackoffMultiplier(),
+                                        conf.getSpeculativeReadTimeoutLatencyPercentile(),
+                                        conf.getSpeculativeReadMaxPercent()));
+        } else if (conf.getFirstSpeculativeReadTimeout() > 0) {
             this.readSpeculativeRequestPolicy =
                     Optional.of(new DefaultSpeculativeRequestExecutionPolicy(
                                         conf.getFirstSpeculativeReadTimeout(),
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking limiter of the number of bytes in flight.
+ *
+ * <p>Callers that can't be admitted right away are queued in FIFO order and run from the thread
+ * releasing the bytes they were waiting for, so no callback thread is ever blocked. A request
+ * larger than the limit is admitted once nothing else is in flight.
+ */
+class InFlightBytesThrottle {
+
+    private final long maxInFlightBytes;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private long inFlightBytes = 0;
+
+    private static class Waiter {
+        final long bytes;
+        final Runnable onAcquired;
+
+        Waiter(long bytes, Runnable onAcquired) {
+            this.bytes = bytes;
+            this.onAcquired = onAcquired;
+        }
+    }
+
+    InFlightBytesThrottle(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * Run {@code onAcquired} once {@code bytes} could be reserved. The bytes must be given back
+     * with {@link #release(long)} once the operation completes.
+     */
+    void acquire(long bytes, Runnable onAcquired) {
+        synchronized (this) {
+            if (!waiters.isEmpty() || !canAdmit(bytes)) {
+                waiters.add(new Waiter(bytes, onAcquired));
+                return;
+            }
+            inFlightBytes += bytes;
+        }
+        onAcquired.run();
+    }
+
+    void release(long bytes) {
+        List<Runnable> toRun = null;
+        synchronized (this) {
+            inFlightBytes -= bytes;
+            while (!waiters.isEmpty() && canAdmit(waiters.peek().bytes)) {
+                Waiter waiter = waiters.poll();
+                inFlightBytes += waiter.bytes;
+                if (toRun == null) {
+                    toRun = new ArrayList<>();
+                }
+                toRun.add(waiter.onAcquired);
+            }
+        }
+        if (toRun != null) {
+            for (Runnable r : toRun) {
+                r.run();
+            }
+        }
+    }
+
+    private boolean canAdmit(long bytes) {
+        return inFlightBytes == 0 || inFlightBytes + bytes <= maxInFlightBytes;
+    }
+}
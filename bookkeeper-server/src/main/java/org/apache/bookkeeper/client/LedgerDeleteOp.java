@@ -79,6 +79,7 @@ class LedgerDeleteOp {
         // When this completes, it will invoke the callback method below.
         bk.getLedgerManager().removeLedgerMetadata(ledgerId, Version.ANY)
             .whenCompleteAsync((ignore, exception) -> {
+                    bk.invalidateLedgerMetadata(ledgerId);
                     if (exception != null) {
                         deleteOpLogger.registerFailedEvent(MathUtils.elapsedNanos(startTime), TimeUnit.NANOSECONDS);
                     } else {
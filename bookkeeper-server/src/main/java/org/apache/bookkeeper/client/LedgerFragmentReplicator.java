@@ -26,8 +26,11 @@ import static org.apache.bookkeeper.replication.ReplicationStats.NUM_ENTRIES_REA
 import static org.apache.bookkeeper.replication.ReplicationStats.NUM_ENTRIES_WRITTEN;
 import static org.apache.bookkeeper.replication.ReplicationStats.REPLICATION_WORKER_SCOPE;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.netty.buffer.Unpooled;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +38,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
@@ -91,6 +95,12 @@ public class LedgerFragmentReplicator {
     )
     private final OpStatsLogger numBytesWritten;
 
+    // Limits the bytes being written to the new bookies, across all the ledgers being replicated
+    // through this replicator, and per target bookie. Null when the limit is disabled.
+    private final InFlightBytesThrottle inFlightBytesThrottle;
+    private final long maxInFlightBytesPerBookie;
+    private final Map<BookieId, InFlightBytesThrottle> bookieThrottles = new ConcurrentHashMap<>();
+
     public LedgerFragmentReplicator(BookKeeper bkc, StatsLogger statsLogger) {
         this.bkc = bkc;
         this.statsLogger = statsLogger;
@@ -98,6 +108,9 @@ public class LedgerFragmentReplicator {
         numBytesRead = this.statsLogger.getOpStatsLogger(NUM_BYTES_READ);
         numEntriesWritten = this.statsLogger.getCounter(NUM_ENTRIES_WRITTEN);
         numBytesWritten = this.statsLogger.getOpStatsLogger(NUM_BYTES_WRITTEN);
+        long maxInFlightBytes = bkc.getConf().getRereplicationMaxInFlightBytes();
+        this.inFlightBytesThrottle = maxInFlightBytes > 0 ? new InFlightBytesThrottle(maxInFlightBytes) : null;
+        this.maxInFlightBytesPerBookie = bkc.getConf().getRereplicationMaxInFlightBytesPerBookie();
     }
 
     public LedgerFragmentReplicator(BookKeeper bkc) {
@@ -156,10 +169,38 @@ public class LedgerFragmentReplicator {
         MultiCallback ledgerFragmentEntryMcb = new MultiCallback(
                 entriesToReplicate.size(), ledgerFragmentMcb, null, BKException.Code.OK,
                 BKException.Code.LedgerRecoveryException);
-        for (final Long entryId : entriesToReplicate) {
-            recoverLedgerFragmentEntry(entryId, lh, ledgerFragmentEntryMcb,
-                    newBookies, onReadEntryFailureCallback);
-        }
+        List<BookieId> orderedNewBookies = inThrottleOrder(newBookies);
+
+        /*
+         * Read the whole fragment with a single batched read. If that fails, fall
+         * back to reading the entries one by one, so that the entries that can't
+         * be read are reported individually.
+         */
+        lh.asyncReadEntries(startEntryId, endEntryId, new ReadCallback() {
+            @Override
+            public void readComplete(int rc, LedgerHandle lh, Enumeration<LedgerEntry> seq, Object ctx) {
+                if (rc != BKException.Code.OK) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Batch read of entries {}-{} of ledger {} failed, reading entries one by one",
+                                startEntryId, endEntryId, lh.getId(), BKException.create(rc));
+                    }
+                    try {
+                        for (final Long entryId : entriesToReplicate) {
+                            recoverLedgerFragmentEntry(entryId, lh, ledgerFragmentEntryMcb,
+                                    orderedNewBookies, onReadEntryFailureCallback);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        ledgerFragmentMcb.processResult(BKException.Code.InterruptedException, null, null);
+                    }
+                    return;
+                }
+                while (seq.hasMoreElements()) {
+                    LedgerEntry entry = seq.nextElement();
+                    writeEntryToNewBookies(lh, entry, ledgerFragmentEntryMcb, orderedNewBookies);
+                }
+            }
+        }, null);
     }
 
     /**
@@ -305,14 +346,50 @@ public class LedgerFragmentReplicator {
     private void recoverLedgerFragmentEntry(final Long entryId,
             final LedgerHandle lh,
             final AsyncCallback.VoidCallback ledgerFragmentEntryMcb,
-            final Set<BookieId> newBookies,
+            final List<BookieId> newBookies,
             final BiConsumer<Long, Long> onReadEntryFailureCallback) throws InterruptedException {
         final long ledgerId = lh.getId();
+        /*
+         * Read the ledger entry using the LedgerHandle. This will allow us to
+         * read the entry from one of the other replicated bookies other than
+         * the dead one.
+         */
+        lh.asyncReadEntries(entryId, entryId, new ReadCallback() {
+            @Override
+            public void readComplete(int rc, LedgerHandle lh,
+                    Enumeration<LedgerEntry> seq, Object ctx) {
+                if (rc != BKException.Code.OK) {
+                    LOG.error("BK error reading ledger entry: " + entryId,
+                            BKException.create(rc));
+                    onReadEntryFailureCallback.accept(ledgerId, entryId);
+                    ledgerFragmentEntryMcb.processResult(rc, null, null);
+                    return;
+                }
+                writeEntryToNewBookies(lh, seq.nextElement(), ledgerFragmentEntryMcb, newBookies);
+            }
+        }, null);
+    }
+
+    /**
+     * Write an entry that was read from the surviving replicas to the new bookies
+     * we've selected, once the in flight bytes limits allow it.
+     */
+    private void writeEntryToNewBookies(final LedgerHandle lh,
+            final LedgerEntry entry,
+            final AsyncCallback.VoidCallback ledgerFragmentEntryMcb,
+            final List<BookieId> newBookies) {
+        final long entryId = entry.getEntryId();
+        final byte[] data = entry.getEntry();
+        final long dataLength = data.length;
+        numEntriesRead.inc();
+        numBytesRead.registerSuccessfulValue(dataLength);
+
         final AtomicInteger numCompleted = new AtomicInteger(0);
         final AtomicBoolean completed = new AtomicBoolean(false);
         final WriteCallback multiWriteCallback = new WriteCallback() {
             @Override
             public void writeComplete(int rc, long ledgerId, long entryId, BookieId addr, Object ctx) {
+                releaseInFlightBytes(addr, dataLength);
                 if (rc != BKException.Code.OK) {
                     LOG.error("BK error writing entry for ledgerId: {}, entryId: {}, bookie: {}",
                             ledgerId, entryId, addr, BKException.create(rc));
@@ -335,43 +412,76 @@ public class LedgerFragmentReplicator {
             }
         };
         /*
-         * Read the ledger entry using the LedgerHandle. This will allow us to
-         * read the entry from one of the other replicated bookies other than
-         * the dead one.
+         * Now that we've read the ledger entry, write it to the new
+         * bookie we've selected. The entries are written one by one rather
+         * than as range adds: range adds are checked against the fence state
+         * of the ledger, while rereplicated entries must be recovery adds so
+         * that they can be written to a ledger that was fenced on the bookie.
          */
-        lh.asyncReadEntries(entryId, entryId, new ReadCallback() {
-            @Override
-            public void readComplete(int rc, LedgerHandle lh,
-                    Enumeration<LedgerEntry> seq, Object ctx) {
-                if (rc != BKException.Code.OK) {
-                    LOG.error("BK error reading ledger entry: " + entryId,
-                            BKException.create(rc));
-                    onReadEntryFailureCallback.accept(ledgerId, entryId);
-                    ledgerFragmentEntryMcb.processResult(rc, null, null);
-                    return;
-                }
-                /*
-                 * Now that we've read the ledger entry, write it to the new
-                 * bookie we've selected.
-                 */
-                LedgerEntry entry = seq.nextElement();
-                byte[] data = entry.getEntry();
-                final long dataLength = data.length;
-                numEntriesRead.inc();
-                numBytesRead.registerSuccessfulValue(dataLength);
-                ByteBufList toSend = lh.getDigestManager()
-                        .computeDigestAndPackageForSending(entryId,
-                                lh.getLastAddConfirmed(), entry.getLength(),
-                                Unpooled.wrappedBuffer(data, 0, data.length));
-                for (BookieId newBookie : newBookies) {
-                    bkc.getBookieClient().addEntry(newBookie, lh.getId(),
-                            lh.getLedgerKey(), entryId, ByteBufList.clone(toSend),
-                            multiWriteCallback, dataLength, BookieProtocol.FLAG_RECOVERY_ADD,
-                            false, WriteFlag.NONE);
-                }
-                toSend.release();
+        acquireInFlightBytes(newBookies, dataLength, () -> {
+            ByteBufList toSend = lh.getDigestManager()
+                    .computeDigestAndPackageForSending(entryId,
+                            lh.getLastAddConfirmed(), entry.getLength(),
+                            Unpooled.wrappedBuffer(data, 0, data.length));
+            for (BookieId newBookie : newBookies) {
+                bkc.getBookieClient().addEntry(newBookie, lh.getId(),
+                        lh.getLedgerKey(), entryId, ByteBufList.clone(toSend),
+                        multiWriteCallback, dataLength, BookieProtocol.FLAG_RECOVERY_ADD,
+                        false, WriteFlag.NONE);
             }
-        }, null);
+            toSend.release();
+        });
+    }
+
+    /**
+     * Sort the new bookies in the order their throttles are acquired. Per bookie throttles are always
+     * acquired in the same order to avoid deadlocks.
+     */
+    @VisibleForTesting
+    static List<BookieId> inThrottleOrder(Set<BookieId> newBookies) {
+        List<BookieId> orderedNewBookies = new ArrayList<>(newBookies);
+        orderedNewBookies.sort(Comparator.comparing(BookieId::toString));
+        return orderedNewBookies;
+    }
+
+    /**
+     * Run {@code onAcquired} once {@code dataLength} bytes could be reserved for each of the
+     * new bookies, both in the global limit and in the limit of each bookie.
+     *
+     * @param newBookies the new bookies, in the order given by {@link #inThrottleOrder(Set)}
+     */
+    @VisibleForTesting
+    void acquireInFlightBytes(List<BookieId> newBookies, long dataLength, Runnable onAcquired) {
+        Runnable acquireBookies = () -> acquireBookieInFlightBytes(newBookies, 0, dataLength, onAcquired);
+        if (inFlightBytesThrottle != null) {
+            inFlightBytesThrottle.acquire(dataLength * newBookies.size(), acquireBookies);
+        } else {
+            acquireBookies.run();
+        }
+    }
+
+    private void acquireBookieInFlightBytes(List<BookieId> newBookies, int index, long dataLength,
+                                            Runnable onAcquired) {
+        if (maxInFlightBytesPerBookie <= 0 || index == newBookies.size()) {
+            onAcquired.run();
+            return;
+        }
+        getBookieThrottle(newBookies.get(index)).acquire(dataLength,
+                () -> acquireBookieInFlightBytes(newBookies, index + 1, dataLength, onAcquired));
+    }
+
+    @VisibleForTesting
+    void releaseInFlightBytes(BookieId bookie, long dataLength) {
+        if (maxInFlightBytesPerBookie > 0) {
+            getBookieThrottle(bookie).release(dataLength);
+        }
+        if (inFlightBytesThrottle != null) {
+            inFlightBytesThrottle.release(dataLength);
+        }
+    }
+
+    private InFlightBytesThrottle getBookieThrottle(BookieId bookie) {
+        return bookieThrottles.computeIfAbsent(bookie, b -> new InFlightBytesThrottle(maxInFlightBytesPerBookie));
     }
 
     /**
@@ -76,6 +76,7 @@ import org.apache.bookkeeper.client.impl.LedgerEntryImpl;
 import org.apache.bookkeeper.common.concurrent.FutureEventListener;
 import org.apache.bookkeeper.common.concurrent.FutureUtils;
 import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.common.util.MemoryLimitController;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookieProtocol;
 import org.apache.bookkeeper.proto.checksum.DigestManager;
@@ -143,6 +144,7 @@ public class LedgerHandle implements WriteHandle {
     final LoadingCache<BookieId, Long> bookieFailureHistory;
     final BookiesHealthInfo bookiesHealthInfo;
     final EnumSet<WriteFlag> writeFlags;
+    final RangeAddBatcher rangeAddBatcher;
 
     ScheduledFuture<?> timeoutFuture = null;
 
@@ -204,6 +206,12 @@ public class LedgerHandle implements WriteHandle {
             stickyBookieIndex = STICKY_READ_BOOKIE_INDEX_UNSET;
         }
 
+        if (clientCtx.getConf().enableRangeAdd) {
+            this.rangeAddBatcher = new RangeAddBatcher(this, clientCtx);
+        } else {
+            this.rangeAddBatcher = null;
+        }
+
         if (clientCtx.getConf().throttleValue > 0) {
             this.throttler = RateLimiter.create(clientCtx.getConf().throttleValue);
         } else {
@@ -239,6 +247,12 @@ public class LedgerHandle implements WriteHandle {
             public long getBookiePendingRequests(BookieId bookieSocketAddress) {
                 return clientCtx.getBookieClient().getNumPendingRequests(bookieSocketAddress, ledgerId);
             }
+
+            @Override
+            public long getBookieReadLatencyMicros(BookieId bookieSocketAddress) {
+                BookieReadLatencyTracker readLatencyTracker = clientCtx.getReadLatencyTracker();
+                return readLatencyTracker == null ? -1L : readLatencyTracker.getReadLatencyMicros(bookieSocketAddress);
+            }
         };
 
         ensembleChangeCounter = clientCtx.getClientStats().getEnsembleChangeCounter();
@@ -1293,10 +1307,76 @@ public class LedgerHandle implements WriteHandle {
         return success;
     }
 
+    /**
+     * Reserve the payload of an add in the memory limit shared by all the ledgers of the client.
+     * Depending on the configuration, this waits until enough memory is released or fails the add
+     * straight away.
+     *
+     * @return true if the add can proceed, false if it has been failed
+     */
+    boolean reserveAddMemory(final PendingAddOp op) {
+        MemoryLimitController memoryLimitController = clientCtx.getAddMemoryLimitController();
+        if (memoryLimitController == null || op.isRecoveryAdd) {
+            // recovery adds run on the worker threads that release memory, so they must never wait
+            return true;
+        }
+
+        int rc = BKException.Code.OK;
+        if (clientCtx.getConf().addEntryMemoryLimitFailFast) {
+            if (!memoryLimitController.tryReserveMemory(op.entryLength)) {
+                rc = BKException.Code.TooManyRequestsException;
+            }
+        } else {
+            try {
+                memoryLimitController.reserveMemory(op.entryLength);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rc = BKException.Code.InterruptedException;
+            }
+        }
+
+        if (rc == BKException.Code.OK) {
+            op.setReservedMemory(memoryLimitController, op.entryLength);
+            return true;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Failed to reserve {} bytes for add to ledger {}, {} bytes in use, rc: {}",
+                    op.entryLength, ledgerId, memoryLimitController.currentUsage(), rc);
+        }
+        // the add will not be pushed, so nothing else is going to release its payload or recycle it
+        op.payload.release();
+        op.payload = null;
+        final int failureRc = rc;
+        try {
+            clientCtx.getMainWorkerPool().executeOrdered(ledgerId, new SafeRunnable() {
+                @Override
+                public void safeRun() {
+                    op.cb.addCompleteWithLatency(failureRc, LedgerHandle.this, INVALID_ENTRY_ID, 0, op.ctx);
+                    op.recycle();
+                }
+
+                @Override
+                public String toString() {
+                    return String.format("AsyncAddEntryOverMemoryLimit(lid=%d)", ledgerId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            op.cb.addCompleteWithLatency(BookKeeper.getReturnRc(clientCtx.getBookieClient(),
+                                                                BKException.Code.InterruptedException),
+                    LedgerHandle.this, INVALID_ENTRY_ID, 0, op.ctx);
+            op.recycle();
+        }
+        return false;
+    }
+
     protected void doAsyncAddEntry(final PendingAddOp op) {
         if (throttler != null) {
             throttler.acquire();
         }
+        if (!reserveAddMemory(op)) {
+            return;
+        }
 
         boolean wasClosed = false;
         synchronized (this) {
@@ -1315,6 +1395,7 @@ public class LedgerHandle implements WriteHandle {
         }
 
         if (wasClosed) {
+            op.releaseReservedMemory();
             // make sure the callback is triggered in main worker pool
             try {
                 clientCtx.getMainWorkerPool().executeOrdered(ledgerId, new SafeRunnable() {
@@ -1350,6 +1431,7 @@ public class LedgerHandle implements WriteHandle {
         try {
             clientCtx.getMainWorkerPool().executeOrdered(ledgerId, op);
         } catch (RejectedExecutionException e) {
+            op.releaseReservedMemory();
             op.cb.addCompleteWithLatency(
                     BookKeeper.getReturnRc(clientCtx.getBookieClient(), BKException.Code.InterruptedException),
                     LedgerHandle.this, INVALID_ENTRY_ID, 0, op.ctx);
@@ -225,6 +225,9 @@ public class LedgerHandleAdv extends LedgerHandle implements WriteAdvHandle {
         if (throttler != null) {
             throttler.acquire();
         }
+        if (!reserveAddMemory(op)) {
+            return;
+        }
 
         boolean wasClosed = false;
         synchronized (this) {
@@ -241,6 +244,7 @@ public class LedgerHandleAdv extends LedgerHandle implements WriteAdvHandle {
         }
 
         if (wasClosed) {
+            op.releaseReservedMemory();
             // make sure the callback is triggered in main worker pool
             try {
                 clientCtx.getMainWorkerPool().submit(new SafeRunnable() {
@@ -271,6 +275,7 @@ public class LedgerHandleAdv extends LedgerHandle implements WriteAdvHandle {
         try {
             clientCtx.getMainWorkerPool().executeOrdered(ledgerId, op);
         } catch (RejectedExecutionException e) {
+            op.releaseReservedMemory();
             op.cb.addCompleteWithLatency(BookKeeper.getReturnRc(clientCtx.getBookieClient(),
                                                                 BKException.Code.InterruptedException),
                               LedgerHandleAdv.this, op.getEntryId(), 0, op.ctx);
@@ -0,0 +1,183 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.meta.LedgerManager;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.versioning.Version;
+import org.apache.bookkeeper.versioning.Versioned;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side cache of the metadata of the ledgers opened by the client.
+ *
+ * <p>The metadata of a closed ledger only changes when its ensembles are re-replicated, so it is cached until it is
+ * evicted. The metadata of an open ledger is watched in the metadata store while it is cached, and the cached copy
+ * is updated, or dropped if the ledger is deleted, on every change notification.
+ */
+class LedgerMetadataCache implements LedgerMetadataListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LedgerMetadataCache.class);
+
+    private final LedgerManager ledgerManager;
+    private final Executor executor;
+    private final Cache<Long, Versioned<LedgerMetadata>> cache;
+    private final Counter hitsCounter;
+    private final Counter missesCounter;
+    // ledgers whose metadata listener is registered, guarded by this
+    private final Set<Long> watchedLedgers = new HashSet<>();
+    // ledgers whose metadata listener is being registered or unregistered, guarded by this
+    private final Set<Long> syncingWatches = new HashSet<>();
+
+    LedgerMetadataCache(LedgerManager ledgerManager, Executor executor, int maxEntries,
+                        BookKeeperClientStats clientStats) {
+        this.ledgerManager = ledgerManager;
+        this.executor = executor;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .removalListener(this::onRemoval)
+                .build();
+        this.hitsCounter = clientStats.getLedgerMetadataCacheHitsCounter();
+        this.missesCounter = clientStats.getLedgerMetadataCacheMissesCounter();
+    }
+
+    /**
+     * Read the metadata of a ledger, from the cache if present.
+     *
+     * @param ledgerId ledger id
+     * @param closedOnly only return a cached metadata if the ledger is closed, the metadata of an open ledger is
+     *                   read from the metadata store and refreshed in the cache
+     * @return a future completed with the ledger metadata
+     */
+    CompletableFuture<Versioned<LedgerMetadata>> readLedgerMetadata(long ledgerId, boolean closedOnly) {
+        Versioned<LedgerMetadata> cached = cache.getIfPresent(ledgerId);
+        if (cached != null && (!closedOnly || cached.getValue().isClosed())) {
+            hitsCounter.inc();
+            return CompletableFuture.completedFuture(cached);
+        }
+        missesCounter.inc();
+        return ledgerManager.readLedgerMetadata(ledgerId).thenApply(metadata -> {
+            update(ledgerId, metadata);
+            return metadata;
+        });
+    }
+
+    /**
+     * Drop the cached metadata of a ledger, e.g. because the ledger was deleted.
+     */
+    void invalidate(long ledgerId) {
+        cache.invalidate(ledgerId);
+    }
+
+    @Override
+    public void onChanged(long ledgerId, Versioned<LedgerMetadata> metadata) {
+        if (null == metadata) {
+            // the ledger was deleted
+            cache.invalidate(ledgerId);
+        } else if (cache.getIfPresent(ledgerId) != null) {
+            update(ledgerId, metadata);
+        }
+    }
+
+    private void update(long ledgerId, Versioned<LedgerMetadata> metadata) {
+        boolean watchChanged;
+        synchronized (this) {
+            Versioned<LedgerMetadata> cached = cache.getIfPresent(ledgerId);
+            if (cached != null) {
+                if (Version.Occurred.BEFORE != cached.getVersion().compare(metadata.getVersion())) {
+                    // the cached metadata is already up to date
+                    return;
+                }
+            }
+            cache.put(ledgerId, metadata);
+            // closed ledgers are cached without watching them
+            watchChanged = metadata.getValue().isClosed() == watchedLedgers.contains(ledgerId);
+        }
+        if (watchChanged) {
+            updateWatch(ledgerId);
+        }
+    }
+
+    private void onRemoval(RemovalNotification<Long, Versioned<LedgerMetadata>> notification) {
+        if (notification.getCause() != RemovalCause.REPLACED && !notification.getValue().getValue().isClosed()) {
+            updateWatch(notification.getKey());
+        }
+    }
+
+    /**
+     * Watch the metadata of a ledger if it is cached and open, stop watching it otherwise.
+     */
+    private void updateWatch(long ledgerId) {
+        // the listener may be notified while the ledger manager is iterating over the listeners of the ledger,
+        // so register and unregister it from a different thread
+        try {
+            executor.execute(() -> syncWatch(ledgerId));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Failed to update the watch of the metadata of ledger {}", ledgerId, e);
+        }
+    }
+
+    private void syncWatch(long ledgerId) {
+        synchronized (this) {
+            if (!syncingWatches.add(ledgerId)) {
+                // the thread syncing the watch picks up the latest cached metadata before returning
+                return;
+            }
+        }
+        // the ledger manager is never called while holding the lock, as it notifies the listeners while holding
+        // its own lock; the cached metadata is checked again after each call, as it may have changed meanwhile
+        while (true) {
+            boolean watch;
+            synchronized (this) {
+                Versioned<LedgerMetadata> cached = cache.getIfPresent(ledgerId);
+                watch = cached != null && !cached.getValue().isClosed();
+                if (watch == watchedLedgers.contains(ledgerId)) {
+                    syncingWatches.remove(ledgerId);
+                    return;
+                }
+                if (watch) {
+                    watchedLedgers.add(ledgerId);
+                } else {
+                    watchedLedgers.remove(ledgerId);
+                }
+            }
+            if (watch) {
+                ledgerManager.registerLedgerMetadataListener(ledgerId, this);
+            } else {
+                ledgerManager.unregisterLedgerMetadataListener(ledgerId, this);
+            }
+        }
+    }
+}
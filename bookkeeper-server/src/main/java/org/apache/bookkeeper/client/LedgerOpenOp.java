@@ -109,9 +109,11 @@ class LedgerOpenOp {
         startTime = MathUtils.nowInNano();
 
         /**
-         * Asynchronously read the ledger metadata node.
+         * Asynchronously read the ledger metadata node. The metadata of an open ledger
+         * is never served from the cache when recovering it, since fencing has to use
+         * its latest ensemble.
          */
-        bk.getLedgerManager().readLedgerMetadata(ledgerId)
+        bk.readLedgerMetadata(ledgerId, doRecovery)
             .whenComplete((metadata, exception) -> {
                     if (exception != null) {
                         openComplete(BKException.getExceptionCode(exception), null);
@@ -38,6 +38,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.apache.bookkeeper.client.AsyncCallback.AddCallbackWithLatency;
 import org.apache.bookkeeper.client.api.WriteFlag;
+import org.apache.bookkeeper.common.util.MemoryLimitController;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.util.ByteBufList;
@@ -83,6 +84,8 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
     EnumSet<WriteFlag> writeFlags;
     boolean allowFailFast = false;
     List<BookieId> ensemble;
+    MemoryLimitController memoryLimitController;
+    long reservedMemory;
 
     static PendingAddOp create(LedgerHandle lh, ClientContext clientCtx,
                                List<BookieId> ensemble,
@@ -109,6 +112,8 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
         op.allowFailFast = false;
         op.qwcLatency = 0;
         op.writeFlags = writeFlags;
+        op.memoryLimitController = null;
+        op.reservedMemory = 0;
 
         if (op.addEntrySuccessBookies == null) {
             op.addEntrySuccessBookies = new HashSet<>();
@@ -149,9 +154,13 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
     void sendWriteRequest(List<BookieId> ensemble, int bookieIndex) {
         int flags = isRecoveryAdd ? FLAG_RECOVERY_ADD | FLAG_HIGH_PRIORITY : FLAG_NONE;
 
-        clientCtx.getBookieClient().addEntry(ensemble.get(bookieIndex),
-                                             lh.ledgerId, lh.ledgerKey, entryId, toSend, this, bookieIndex,
-                                             flags, allowFailFast, lh.writeFlags);
+        if (lh.rangeAddBatcher != null && !isRecoveryAdd && !allowFailFast) {
+            lh.rangeAddBatcher.addEntry(ensemble.get(bookieIndex), bookieIndex, this, toSend);
+        } else {
+            clientCtx.getBookieClient().addEntry(ensemble.get(bookieIndex),
+                                                 lh.ledgerId, lh.ledgerKey, entryId, toSend, this, bookieIndex,
+                                                 flags, allowFailFast, lh.writeFlags);
+        }
         ++pendingWriteRequests;
     }
 
@@ -469,6 +478,25 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
     }
 
 
+    /**
+     * Record the memory reserved for this add in the client-wide add memory limit.
+     */
+    void setReservedMemory(MemoryLimitController memoryLimitController, long reservedMemory) {
+        this.memoryLimitController = memoryLimitController;
+        this.reservedMemory = reservedMemory;
+    }
+
+    /**
+     * Give back the memory reserved for this add, if any. Called once the payload is no longer held.
+     */
+    void releaseReservedMemory() {
+        if (memoryLimitController != null) {
+            memoryLimitController.releaseMemory(reservedMemory);
+            memoryLimitController = null;
+            reservedMemory = 0;
+        }
+    }
+
     private void maybeRecycle() {
         /**
          * We have opportunity to recycle two objects here.
@@ -492,6 +520,7 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
         if (hasRun && callbackTriggered) {
             ReferenceCountUtil.release(toSend);
             toSend = null;
+            releaseReservedMemory();
         }
         // only recycle a pending add op after it has been run.
         if (hasRun && toSend == null && pendingWriteRequests == 0) {
@@ -499,6 +528,13 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
         }
     }
 
+    /**
+     * Recycle an add that was failed before being run, e.g. over the add memory limit, once its callback ran.
+     */
+    void recycle() {
+        recyclePendAddOpObject();
+    }
+
     private void recyclePendAddOpObject() {
         entryId = LedgerHandle.INVALID_ENTRY_ID;
         currentLedgerLength = -1;
@@ -506,6 +542,7 @@ class PendingAddOp extends SafeRunnable implements WriteCallback {
             ReferenceCountUtil.release(payload);
             payload = null;
         }
+        releaseReservedMemory();
         cb = null;
         ctx = null;
         ensemble = null;
@@ -41,6 +41,7 @@ import org.apache.bookkeeper.client.impl.LedgerEntryImpl;
 import org.apache.bookkeeper.common.util.SafeRunnable;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookieProtocol;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntriesCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallbackCtx;
 import org.apache.bookkeeper.proto.checksum.DigestManager;
@@ -55,7 +56,7 @@ import org.slf4j.LoggerFactory;
  * application as soon as it arrives rather than waiting for the whole thing.
  *
  */
-class PendingReadOp implements ReadEntryCallback, SafeRunnable {
+class PendingReadOp implements ReadEntryCallback, ReadEntriesCallback, SafeRunnable {
     private static final Logger LOG = LoggerFactory.getLogger(PendingReadOp.class);
 
     private ScheduledFuture<?> speculativeTask = null;
@@ -386,6 +387,21 @@ class PendingReadOp implements ReadEntryCallback, SafeRunnable {
             sendNextRead();
         }
 
+        /**
+         * Record that this entry was requested from the bookie at <i>bookieIndex</i> as
+         * part of a range read, so that retries and speculative reads continue with the
+         * other replicas of the write set.
+         */
+        synchronized void rangeReadSentTo(int bookieIndex, BookieId to) {
+            int replica = writeSet.indexOf(bookieIndex);
+            if (replica > 0) {
+                writeSet.moveAndShift(replica, 0);
+            }
+            nextReplicaIndexToReadFrom = 1;
+            sentReplicas.set(0);
+            sentToHosts.add(to);
+        }
+
         synchronized BookieId sendNextRead() {
             if (nextReplicaIndexToReadFrom >= getLedgerMetadata().getWriteQuorumSize()) {
                 // we are done, the read has failed from all replicas, just fail the
@@ -526,8 +542,14 @@ class PendingReadOp implements ReadEntryCallback, SafeRunnable {
             i++;
         } while (i <= endEntryId);
         // read the entries.
+        if (isRangeReadAllowed()) {
+            initiateRangeReads();
+        }
         for (LedgerEntryRequest entry : seq) {
-            entry.read();
+            // entries requested through a range read already have a read in flight
+            if (!(entry instanceof SequenceReadRequest) || ((SequenceReadRequest) entry).sentReplicas.isEmpty()) {
+                entry.read();
+            }
             if (!parallelRead && clientCtx.getConf().readSpeculativeRequestPolicy.isPresent()) {
                 speculativeTask = clientCtx.getConf().readSpeculativeRequestPolicy.get()
                     .initiateSpeculativeRequest(clientCtx.getScheduler(), entry);
@@ -535,6 +557,129 @@ class PendingReadOp implements ReadEntryCallback, SafeRunnable {
         }
     }
 
+    /**
+     * Range reads can be used only if every bookie of the ensemble stores every entry,
+     * otherwise a contiguous range of entries is spread over different bookies.
+     */
+    private boolean isRangeReadAllowed() {
+        return clientCtx.getConf().enableRangeRead
+            && !isRecoveryRead
+            && !parallelRead
+            && endEntryId > startEntryId
+            && getLedgerMetadata().getEnsembleSize() == getLedgerMetadata().getWriteQuorumSize();
+    }
+
+    private void initiateRangeReads() {
+        // split the requests into ranges of entries sharing the same ensemble
+        List<List<LedgerEntryRequest>> ranges = new ArrayList<>();
+        int rangeStart = 0;
+        for (int i = 1; i <= seq.size(); i++) {
+            if (i == seq.size() || seq.get(i).ensemble != seq.get(rangeStart).ensemble) {
+                ranges.add(new ArrayList<>(seq.subList(rangeStart, i)));
+                rangeStart = i;
+            }
+        }
+        for (List<LedgerEntryRequest> range : ranges) {
+            LedgerEntryRequest first = range.get(0);
+            int bookieIndex = first.writeSet.get(0);
+            BookieId to = first.ensemble.get(bookieIndex);
+            for (LedgerEntryRequest entry : range) {
+                ((SequenceReadRequest) entry).rangeReadSentTo(bookieIndex, to);
+            }
+            sendRangeReadTo(bookieIndex, to, range);
+        }
+    }
+
+    private static class RangeReadContext implements ReadEntryCallbackCtx {
+        final int bookieIndex;
+        final BookieId to;
+        final List<LedgerEntryRequest> entries;
+        final long sentTimeNanos;
+        long lac = LedgerHandle.INVALID_ENTRY_ID;
+
+        RangeReadContext(int bookieIndex, BookieId to, List<LedgerEntryRequest> entries) {
+            this.bookieIndex = bookieIndex;
+            this.to = to;
+            this.entries = entries;
+            this.sentTimeNanos = MathUtils.nowInNano();
+        }
+
+        @Override
+        public void setLastAddConfirmed(long lac) {
+            this.lac = lac;
+        }
+
+        @Override
+        public long getLastAddConfirmed() {
+            return lac;
+        }
+    }
+
+    void sendRangeReadTo(int bookieIndex, BookieId to, List<LedgerEntryRequest> entries) {
+        if (lh.throttler != null) {
+            lh.throttler.acquire(entries.size());
+        }
+        clientCtx.getBookieClient().readEntries(to, lh.ledgerId, entries.get(0).eId, entries.size(),
+                clientCtx.getConf().rangeReadMaxSizeBytes, this,
+                new RangeReadContext(bookieIndex, to, entries), BookieProtocol.FLAG_NONE);
+    }
+
+    @Override
+    public void readEntriesComplete(int rc, long ledgerId, long startEntryId, List<ByteBuf> buffers, Object ctx) {
+        final RangeReadContext rctx = (RangeReadContext) ctx;
+
+        // the latency of a range read grows with the number of entries it returns, so it is recorded per entry
+        // to be comparable with the latency of single entry reads
+        int numEntries = buffers == null ? 0 : buffers.size();
+        long entryLatencyNanos = MathUtils.elapsedNanos(rctx.sentTimeNanos) / Math.max(1, numEntries);
+        BookieReadLatencyTracker readLatencyTracker = clientCtx.getReadLatencyTracker();
+        if (readLatencyTracker != null
+                && (rc == BKException.Code.OK || rc == BKException.Code.TimeoutException)) {
+            readLatencyTracker.recordReadLatency(rctx.to, entryLatencyNanos);
+        }
+        if (rc == BKException.Code.OK && clientCtx.getConf().readSpeculativeRequestPolicy.isPresent()) {
+            clientCtx.getConf().readSpeculativeRequestPolicy.get()
+                .onRequestComplete(entryLatencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        int numRead = 0;
+        if (rc == BKException.Code.OK) {
+            heardFromHosts.add(rctx.to);
+            heardFromHostsBitSet.set(rctx.bookieIndex, true);
+
+            for (ByteBuf buffer : buffers) {
+                if (numRead < rctx.entries.size()
+                        && rctx.entries.get(numRead).complete(rctx.bookieIndex, rctx.to, buffer)) {
+                    submitCallback(BKException.Code.OK);
+                } else {
+                    buffer.release();
+                }
+                numRead++;
+            }
+            if (!isRecoveryRead) {
+                lh.updateLastConfirmed(rctx.getLastAddConfirmed(), 0L);
+            }
+        }
+
+        if (numRead >= rctx.entries.size() || complete.get()) {
+            return;
+        }
+        List<LedgerEntryRequest> remaining = rctx.entries.subList(numRead, rctx.entries.size());
+        if (numRead > 0) {
+            // the bookie stopped at its size limit, ask for the rest of the range
+            sendRangeReadTo(rctx.bookieIndex, rctx.to, new ArrayList<>(remaining));
+        } else {
+            // fall back to reading each entry from the other replicas
+            if (rc == BKException.Code.OK) {
+                rc = BKException.Code.ReadException;
+            }
+            for (LedgerEntryRequest entry : remaining) {
+                entry.logErrorAndReattemptRead(rctx.bookieIndex, rctx.to,
+                        "Error: " + BKException.getMessage(rc), rc);
+            }
+        }
+    }
+
     @Override
     public void safeRun() {
         initiate();
@@ -544,12 +689,14 @@ class PendingReadOp implements ReadEntryCallback, SafeRunnable {
         final int bookieIndex;
         final BookieId to;
         final LedgerEntryRequest entry;
+        final long sentTimeNanos;
         long lac = LedgerHandle.INVALID_ENTRY_ID;
 
         ReadContext(int bookieIndex, BookieId to, LedgerEntryRequest entry) {
             this.bookieIndex = bookieIndex;
             this.to = to;
             this.entry = entry;
+            this.sentTimeNanos = MathUtils.nowInNano();
         }
 
         @Override
@@ -583,6 +730,17 @@ class PendingReadOp implements ReadEntryCallback, SafeRunnable {
         final ReadContext rctx = (ReadContext) ctx;
         final LedgerEntryRequest entry = rctx.entry;
 
+        BookieReadLatencyTracker readLatencyTracker = clientCtx.getReadLatencyTracker();
+        if (readLatencyTracker != null
+                && (rc == BKException.Code.OK || rc == BKException.Code.TimeoutException)) {
+            // a timeout is the slowest read there is, it must count against the bookie
+            readLatencyTracker.recordReadLatency(rctx.to, MathUtils.elapsedNanos(rctx.sentTimeNanos));
+        }
+        if (rc == BKException.Code.OK && clientCtx.getConf().readSpeculativeRequestPolicy.isPresent()) {
+            clientCtx.getConf().readSpeculativeRequestPolicy.get()
+                .onRequestComplete(MathUtils.elapsedNanos(rctx.sentTimeNanos), TimeUnit.NANOSECONDS);
+        }
+
         if (rc != BKException.Code.OK) {
             entry.logErrorAndReattemptRead(rctx.bookieIndex, rctx.to, "Error: " + BKException.getMessage(rc), rc);
             return;
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -113,6 +114,7 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
     protected boolean enforceDurability = false;
     protected int stabilizePeriodSeconds = 0;
     protected int reorderThresholdPendingRequests = 0;
+    protected boolean reorderReadsByLatency = false;
     // looks like these only assigned in the same thread as constructor, immediately after constructor;
     // no need to make volatile
     protected StatsLogger statsLogger = null;
@@ -293,6 +295,7 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
                     return -1L;
                 }
             });
+        this.reorderReadsByLatency = conf.isReorderReadsByLatencyEnabled();
         return initialize(
                 dnsResolver,
                 timer,
@@ -803,6 +806,51 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
             ensemble, writeSet, writeSetWithRegion, bookiesHealthInfo, false, "", writeSet.size());
     }
 
+    /**
+     * Move the better of two randomly picked replicas to the front of the read sequence, if it is
+     * better than the current first replica. A replica is scored by its recent read latency times
+     * its number of pending requests. Comparing two random replicas, rather than always taking the
+     * best one, keeps all the clients from piling onto the same bookie as soon as it looks faster
+     * than the others.
+     *
+     * @return true if the read sequence was changed
+     */
+    private boolean reorderReadSequenceByLatency(List<BookieId> ensemble,
+                                                 BookiesHealthInfo bookiesHealthInfo,
+                                                 DistributionSchedule.WriteSet writeSet) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(writeSet.size());
+        int second = random.nextInt(writeSet.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        long firstScore = readScore(bookiesHealthInfo, ensemble.get(writeSet.get(first)));
+        long secondScore = readScore(bookiesHealthInfo, ensemble.get(writeSet.get(second)));
+        int best = secondScore < firstScore ? second : first;
+        long bestScore = Math.min(firstScore, secondScore);
+        // the current first replica may not have been picked, only replace it with a better one, so
+        // that a tie keeps the original order
+        long headScore = readScore(bookiesHealthInfo, ensemble.get(writeSet.get(0)));
+        if (best == 0 || bestScore >= headScore) {
+            return false;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("read set reordered by latency from {} to {} (score {} vs {})",
+                    ensemble.get(writeSet.get(0)), ensemble.get(writeSet.get(best)), headScore, bestScore);
+        }
+        writeSet.moveAndShift(best, 0);
+        return true;
+    }
+
+    private static long readScore(BookiesHealthInfo bookiesHealthInfo, BookieId bookie) {
+        long latencyMicros = bookiesHealthInfo.getBookieReadLatencyMicros(bookie);
+        if (latencyMicros < 0) {
+            // not read from yet, give it a chance so that its latency becomes known
+            return 0;
+        }
+        return (latencyMicros + 1) * (bookiesHealthInfo.getBookiePendingRequests(bookie) + 1);
+    }
+
     /**
      * This function orders the read sequence with a given region. For region-unaware policies (e.g.
      * RackAware), we pass in false for regionAware and an empty myRegion. When this happens, any
@@ -896,6 +944,10 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
             }
         }
 
+        if (reorderReadsByLatency && !reordered && writeSet.size() > 1) {
+            reordered = reorderReadSequenceByLatency(ensemble, bookiesHealthInfo, writeSet);
+        }
+
         if (!isAnyBookieUnavailable) {
             if (reordered) {
                 readReorderedCounter.registerSuccessfulValue(1);
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.client;
+
+import static org.apache.bookkeeper.proto.BookieProtocol.FLAG_NONE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
+import org.apache.bookkeeper.util.ByteBufList;
+import org.apache.bookkeeper.util.SafeRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups the write requests of consecutive entries of a ledger going to the same
+ * bookie into a single range add request.
+ *
+ * <p>Write requests are accumulated per bookie index. A batch is sent when it reaches
+ * the configured number of entries or bytes, when the next entry for that bookie is
+ * not consecutive to the batch, or when the flush task scheduled on the ledger's
+ * ordered executor runs. Since add operations of a ledger run on that same executor,
+ * the flush task picks up every add that was already queued when the first entry of
+ * the batch was sent, so batching does not delay a lone add.
+ */
+class RangeAddBatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(RangeAddBatcher.class);
+
+    private final LedgerHandle lh;
+    private final ClientContext clientCtx;
+    private final int maxEntries;
+    private final long maxSizeBytes;
+
+    // guarded by this
+    private final Map<Integer, Batch> batches = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    RangeAddBatcher(LedgerHandle lh, ClientContext clientCtx) {
+        this.lh = lh;
+        this.clientCtx = clientCtx;
+        this.maxEntries = clientCtx.getConf().rangeAddMaxEntries;
+        this.maxSizeBytes = clientCtx.getConf().rangeAddMaxSizeBytes;
+    }
+
+    /**
+     * Queue the write request of {@code op} to the bookie at {@code bookieIndex}.
+     */
+    void addEntry(BookieId addr, int bookieIndex, PendingAddOp op, ByteBufList toSend) {
+        Batch toFlush = null;
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = batches.get(bookieIndex);
+            if (batch != null && !batch.accepts(addr, op.entryId)) {
+                toFlush = batches.remove(bookieIndex);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(addr, bookieIndex);
+                batches.put(bookieIndex, batch);
+            }
+            batch.add(op, toSend);
+            if (batch.ops.size() >= maxEntries || batch.sizeBytes >= maxSizeBytes) {
+                full = batches.remove(bookieIndex);
+            }
+            if (!flushScheduled && !batches.isEmpty()) {
+                flushScheduled = true;
+                scheduleFlush();
+            }
+        }
+        if (toFlush != null) {
+            send(toFlush);
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /**
+     * Send all the pending batches.
+     */
+    void flush() {
+        List<Batch> toFlush;
+        synchronized (this) {
+            flushScheduled = false;
+            if (batches.isEmpty()) {
+                return;
+            }
+            toFlush = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        toFlush.forEach(this::send);
+    }
+
+    private void scheduleFlush() {
+        try {
+            clientCtx.getMainWorkerPool().executeOrdered(lh.ledgerId, new SafeRunnable() {
+                @Override
+                public void safeRun() {
+                    flush();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            LOG.warn("Failed to schedule the flush of range adds for ledger {}, sending them now", lh.ledgerId);
+            flushScheduled = false;
+            List<Batch> toFlush = new ArrayList<>(batches.values());
+            batches.clear();
+            toFlush.forEach(this::send);
+        }
+    }
+
+    private void send(Batch batch) {
+        try {
+            if (batch.ops.size() == 1) {
+                clientCtx.getBookieClient().addEntry(batch.addr, lh.ledgerId, lh.ledgerKey,
+                        batch.entryIds.get(0), batch.toSend.get(0), batch.ops.get(0), batch.bookieIndex,
+                        FLAG_NONE, false, lh.writeFlags);
+            } else {
+                clientCtx.getBookieClient().addEntries(batch.addr, lh.ledgerId, lh.ledgerKey,
+                        batch.entryIds.get(0), batch.toSend, batch, null, lh.writeFlags);
+            }
+        } finally {
+            batch.toSend.forEach(ByteBufList::release);
+        }
+    }
+
+    /**
+     * Write requests of consecutive entries to one bookie of the ensemble.
+     */
+    private static class Batch implements WriteCallback {
+        final BookieId addr;
+        final int bookieIndex;
+        final List<PendingAddOp> ops = new ArrayList<>();
+        // the entry ids and payloads are captured when the op is batched, as the
+        // op could be completed by another bookie and release its payload meanwhile
+        final List<Long> entryIds = new ArrayList<>();
+        final List<ByteBufList> toSend = new ArrayList<>();
+        long sizeBytes = 0;
+
+        Batch(BookieId addr, int bookieIndex) {
+            this.addr = addr;
+            this.bookieIndex = bookieIndex;
+        }
+
+        boolean accepts(BookieId addr, long entryId) {
+            return this.addr.equals(addr) && entryIds.get(entryIds.size() - 1) + 1 == entryId;
+        }
+
+        void add(PendingAddOp op, ByteBufList payload) {
+            payload.retain();
+            ops.add(op);
+            entryIds.add(op.entryId);
+            toSend.add(payload);
+            sizeBytes += payload.readableBytes();
+        }
+
+        @Override
+        public void writeComplete(int rc, long ledgerId, long lastEntryId, BookieId addr, Object ctx) {
+            for (int i = 0; i < ops.size(); i++) {
+                ops.get(i).writeComplete(rc, ledgerId, entryIds.get(i), addr, bookieIndex);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.bookkeeper.client;
 
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Define a policy for speculative request execution.
@@ -42,4 +43,14 @@ public interface SpeculativeRequestExecutionPolicy {
      */
     ScheduledFuture<?> initiateSpeculativeRequest(ScheduledExecutorService scheduler,
             SpeculativeRequestExecutor requestExectuor);
+
+    /**
+     * Notify the policy of the latency of a request that completed, so that policies can adapt
+     * their timeouts to the observed latency.
+     *
+     * @param latency latency of the request
+     * @param unit unit of the latency
+     */
+    default void onRequestComplete(long latency, TimeUnit unit) {
+    }
 }
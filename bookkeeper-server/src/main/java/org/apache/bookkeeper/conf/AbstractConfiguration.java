@@ -84,8 +84,13 @@ public abstract class AbstractConfiguration<T extends AbstractConfiguration>
     protected static final String METADATA_SERVICE_URI = "metadataServiceUri";
     protected static final String ZK_LEDGERS_ROOT_PATH = "zkLedgersRootPath";
     protected static final String ZK_REQUEST_RATE_LIMIT = "zkRequestRateLimit";
+    protected static final String ZK_LEDGER_METADATA_BATCH_MAX_OPS = "zkLedgerMetadataBatchMaxOps";
+    protected static final String ZK_LEDGER_RANGES_PREFETCH_NODES = "zkLedgerRangesPrefetchNodes";
     protected static final String AVAILABLE_NODE = "available";
     protected static final String REREPLICATION_ENTRY_BATCH_SIZE = "rereplicationEntryBatchSize";
+    protected static final String REREPLICATION_MAX_IN_FLIGHT_BYTES = "rereplicationMaxInFlightBytes";
+    protected static final String REREPLICATION_MAX_IN_FLIGHT_BYTES_PER_BOOKIE =
+            "rereplicationMaxInFlightBytesPerBookie";
     protected static final String STORE_SYSTEMTIME_AS_LEDGER_UNDERREPLICATED_MARK_TIME =
             "storeSystemTimeAsLedgerUnderreplicatedMarkTime";
     protected static final String STORE_SYSTEMTIME_AS_LEDGER_CREATION_TIME = "storeSystemTimeAsLedgerCreationTime";
@@ -534,6 +539,51 @@ public abstract class AbstractConfiguration<T extends AbstractConfiguration>
         setProperty(ZK_REQUEST_RATE_LIMIT, rateLimit);
     }
 
+    /**
+     * Get the max number of ledger metadata creations, updates and deletions coalesced in a single zookeeper
+     * multi transaction.
+     *
+     * @return the max number of operations per transaction. If 0 or 1, operations are sent one by one.
+     */
+    public int getZkLedgerMetadataBatchMaxOps() {
+        return getInt(ZK_LEDGER_METADATA_BATCH_MAX_OPS, 0);
+    }
+
+    /**
+     * Set the max number of ledger metadata creations, updates and deletions coalesced in a single zookeeper
+     * multi transaction.
+     *
+     * @param maxOps
+     *          the max number of operations per transaction, 0 to send operations one by one.
+     * @return configuration instance.
+     */
+    public T setZkLedgerMetadataBatchMaxOps(int maxOps) {
+        setProperty(ZK_LEDGER_METADATA_BATCH_MAX_OPS, maxOps);
+        return getThis();
+    }
+
+    /**
+     * Get the number of leaf ledger znodes whose children are listed ahead of the ledger range iteration.
+     *
+     * @return the number of leaf znodes listed in parallel while iterating the ledger ranges.
+     */
+    public int getZkLedgerRangesPrefetchNodes() {
+        return getInt(ZK_LEDGER_RANGES_PREFETCH_NODES, 1);
+    }
+
+    /**
+     * Set the number of leaf ledger znodes whose children are listed ahead of the ledger range iteration.
+     * Listing ahead bounds the memory of a scan to a few ranges while hiding the zookeeper round trips.
+     *
+     * @param prefetchNodes
+     *          the number of leaf znodes listed in parallel, 1 to list them one by one.
+     * @return configuration instance.
+     */
+    public T setZkLedgerRangesPrefetchNodes(int prefetchNodes) {
+        setProperty(ZK_LEDGER_RANGES_PREFETCH_NODES, prefetchNodes);
+        return getThis();
+    }
+
     /**
      * Are z-node created with strict ACLs.
      *
@@ -580,6 +630,36 @@ public abstract class AbstractConfiguration<T extends AbstractConfiguration>
         return getLong(REREPLICATION_ENTRY_BATCH_SIZE, 10);
     }
 
+    /**
+     * Set the max number of bytes of re-replicated entries that can be in flight, being written
+     * to the new bookies, across all the ledgers being re-replicated. 0 disables the limit.
+     */
+    public void setRereplicationMaxInFlightBytes(long rereplicationMaxInFlightBytes) {
+        setProperty(REREPLICATION_MAX_IN_FLIGHT_BYTES, rereplicationMaxInFlightBytes);
+    }
+
+    /**
+     * Get the max number of bytes of re-replicated entries that can be in flight.
+     */
+    public long getRereplicationMaxInFlightBytes() {
+        return getLong(REREPLICATION_MAX_IN_FLIGHT_BYTES, 0);
+    }
+
+    /**
+     * Set the max number of bytes of re-replicated entries that can be in flight to a single
+     * target bookie. 0 disables the limit.
+     */
+    public void setRereplicationMaxInFlightBytesPerBookie(long rereplicationMaxInFlightBytesPerBookie) {
+        setProperty(REREPLICATION_MAX_IN_FLIGHT_BYTES_PER_BOOKIE, rereplicationMaxInFlightBytesPerBookie);
+    }
+
+    /**
+     * Get the max number of bytes of re-replicated entries that can be in flight to a single target bookie.
+     */
+    public long getRereplicationMaxInFlightBytesPerBookie() {
+        return getLong(REREPLICATION_MAX_IN_FLIGHT_BYTES_PER_BOOKIE, 0);
+    }
+
     /**
      * Get metastore implementation class.
      *
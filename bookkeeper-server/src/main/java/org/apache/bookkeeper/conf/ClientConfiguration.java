@@ -43,6 +43,8 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
 
     // Throttle value
     protected static final String THROTTLE = "throttle";
+    protected static final String ADD_ENTRY_MEMORY_LIMIT_BYTES = "addEntryMemoryLimitBytes";
+    protected static final String ADD_ENTRY_MEMORY_LIMIT_FAIL_FAST = "addEntryMemoryLimitFailFast";
 
     // Digest Type
     protected static final String DIGEST_TYPE = "digestType";
@@ -90,6 +92,7 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
 
     // NIO Parameters
     protected static final String CLIENT_TCP_NODELAY = "clientTcpNoDelay";
+    protected static final String CLIENT_FLUSH_CONSOLIDATION_MAX_FLUSHES = "clientFlushConsolidationMaxFlushes";
     protected static final String CLIENT_SOCK_KEEPALIVE = "clientSockKeepalive";
     protected static final String CLIENT_SENDBUFFER_SIZE = "clientSendBufferSize";
     protected static final String CLIENT_RECEIVEBUFFER_SIZE = "clientReceiveBufferSize";
@@ -107,6 +110,9 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
     protected static final String MAX_SPECULATIVE_READ_TIMEOUT = "maxSpeculativeReadTimeout";
     protected static final String SPECULATIVE_READ_TIMEOUT_BACKOFF_MULTIPLIER =
         "speculativeReadTimeoutBackoffMultiplier";
+    protected static final String SPECULATIVE_READ_TIMEOUT_LATENCY_PERCENTILE =
+        "speculativeReadTimeoutLatencyPercentile";
+    protected static final String SPECULATIVE_READ_MAX_PERCENT = "speculativeReadMaxPercent";
     protected static final String FIRST_SPECULATIVE_READ_LAC_TIMEOUT = "firstSpeculativeReadLACTimeout";
     protected static final String MAX_SPECULATIVE_READ_LAC_TIMEOUT = "maxSpeculativeReadLACTimeout";
     protected static final String SPECULATIVE_READ_LAC_TIMEOUT_BACKOFF_MULTIPLIER =
@@ -115,6 +121,13 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
     protected static final String RECOVERY_READ_BATCH_SIZE = "recoveryReadBatchSize";
     protected static final String REORDER_READ_SEQUENCE_ENABLED = "reorderReadSequenceEnabled";
     protected static final String STICKY_READS_ENABLED = "stickyReadSEnabled";
+    protected static final String RANGE_READ_ENABLED = "rangeReadEnabled";
+    protected static final String RANGE_READ_MAX_SIZE_BYTES = "rangeReadMaxSizeBytes";
+    protected static final String RANGE_ADD_ENABLED = "rangeAddEnabled";
+    protected static final String RANGE_ADD_MAX_ENTRIES = "rangeAddMaxEntries";
+    protected static final String RANGE_ADD_MAX_SIZE_BYTES = "rangeAddMaxSizeBytes";
+    // Ledger metadata cache
+    protected static final String LEDGER_METADATA_CACHE_MAX_ENTRIES = "ledgerMetadataCacheMaxEntries";
     // Add Parameters
     protected static final String OPPORTUNISTIC_STRIPING = "opportunisticStriping";
     protected static final String DELAY_ENSEMBLE_CHANGE = "delayEnsembleChange";
@@ -158,6 +171,8 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
     public static final String ENSEMBLE_PLACEMENT_POLICY = "ensemblePlacementPolicy";
     protected static final String NETWORK_TOPOLOGY_STABILIZE_PERIOD_SECONDS = "networkTopologyStabilizePeriodSeconds";
     protected static final String READ_REORDER_THRESHOLD_PENDING_REQUESTS = "readReorderThresholdPendingRequests";
+    protected static final String READ_REORDER_BY_LATENCY_ENABLED = "readReorderByLatencyEnabled";
+    protected static final String READ_LATENCY_EWMA_DECAY_TIME_MS = "readLatencyEwmaDecayTimeMs";
     protected static final String ENSEMBLE_PLACEMENT_POLICY_ORDER_SLOW_BOOKIES =
         "ensemblePlacementPolicyOrderSlowBookies";
 
@@ -245,6 +260,67 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Get the maximum number of payload bytes of outstanding adds, shared by all the ledgers of
+     * this client.
+     *
+     * @return memory limit of outstanding adds in bytes
+     * @see #setAddEntryMemoryLimitBytes(long)
+     */
+    public long getAddEntryMemoryLimitBytes() {
+        return this.getLong(ADD_ENTRY_MEMORY_LIMIT_BYTES, 0L);
+    }
+
+    /**
+     * Set the maximum number of payload bytes of outstanding adds, shared by all the ledgers of
+     * this client.
+     *
+     * <p>An add reserves its payload size when it is submitted and releases it once it has been
+     * acknowledged or failed. When the limit is reached, new adds either wait for memory to be
+     * released or fail, see {@link #setAddEntryMemoryLimitFailFast(boolean)}. Unlike the
+     * {@link #setThrottleValue(int) throttle}, this bounds the memory held by the client when
+     * bookies are slow to respond.
+     *
+     * <p>Setting the limit to 0 disables it.
+     *
+     * @param limitBytes
+     *          memory limit of outstanding adds in bytes
+     * @return client configuration
+     */
+    public ClientConfiguration setAddEntryMemoryLimitBytes(long limitBytes) {
+        this.setProperty(ADD_ENTRY_MEMORY_LIMIT_BYTES, limitBytes);
+        return this;
+    }
+
+    /**
+     * Whether adds fail instead of waiting when the add memory limit is reached.
+     *
+     * @return true if adds fail when the add memory limit is reached
+     * @see #setAddEntryMemoryLimitFailFast(boolean)
+     */
+    public boolean getAddEntryMemoryLimitFailFast() {
+        return this.getBoolean(ADD_ENTRY_MEMORY_LIMIT_FAIL_FAST, false);
+    }
+
+    /**
+     * Set whether adds fail instead of waiting when the add memory limit is reached.
+     *
+     * <p>By default the adding thread blocks until enough memory is released. When enabled, the
+     * add is completed immediately with a
+     * {@link org.apache.bookkeeper.client.BKException.Code#TooManyRequestsException} error.
+     * Fail fast should be enabled if adds are issued from add callbacks, as memory is released on
+     * the same threads that run the callbacks.
+     *
+     * @param failFast
+     *          whether adds fail when the add memory limit is reached
+     * @return client configuration
+     * @see #setAddEntryMemoryLimitBytes(long)
+     */
+    public ClientConfiguration setAddEntryMemoryLimitFailFast(boolean failFast) {
+        this.setProperty(ADD_ENTRY_MEMORY_LIMIT_FAIL_FAST, failFast);
+        return this;
+    }
+
     /**
      * Get autodetection of digest type.
      *
@@ -359,6 +435,32 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Get the max number of request flushes consolidated into a single flush of a bookie channel.
+     *
+     * @return the max number of flushes consolidated, 0 if every request is flushed on its own
+     * @see #setClientFlushConsolidationMaxFlushes(int)
+     */
+    public int getClientFlushConsolidationMaxFlushes() {
+        return getInt(CLIENT_FLUSH_CONSOLIDATION_MAX_FLUSHES, 0);
+    }
+
+    /**
+     * Set the max number of request flushes consolidated into a single flush of a bookie channel.
+     *
+     * <p>When many ledgers share the connections to a bookie, flushing every request costs a syscall
+     * per request. With flush consolidation, the requests written while the event loop of the channel
+     * is busy are flushed together, at the latest after the given number of requests.
+     *
+     * @param maxFlushes
+     *          the max number of flushes consolidated, 0 to flush every request on its own
+     * @return client configuration
+     */
+    public ClientConfiguration setClientFlushConsolidationMaxFlushes(int maxFlushes) {
+        setProperty(CLIENT_FLUSH_CONSOLIDATION_MAX_FLUSHES, maxFlushes);
+        return this;
+    }
+
     /**
      * get socket keepalive.
      *
@@ -1014,6 +1116,59 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Get the read latency percentile used as speculative read timeout.
+     *
+     * @return read latency percentile used as speculative read timeout, 0 if the timeout is static
+     * @see #setSpeculativeReadTimeoutLatencyPercentile(double)
+     */
+    public double getSpeculativeReadTimeoutLatencyPercentile() {
+        return getDouble(SPECULATIVE_READ_TIMEOUT_LATENCY_PERCENTILE, 0.0);
+    }
+
+    /**
+     * Set the read latency percentile used as speculative read timeout.
+     *
+     * <p>When set, the first speculative read timeout follows the given percentile (e.g. 95) of the
+     * latency of recent reads, up to {@link #getMaxSpeculativeReadTimeout()}, instead of being fixed.
+     * {@link #getFirstSpeculativeReadTimeout()} is used until enough reads have been seen, and
+     * speculative reads must still be enabled with a first speculative read timeout above 0.
+     * Speculative reads are then bounded by {@link #setSpeculativeReadMaxPercent(double)}.
+     *
+     * @param percentile
+     *          read latency percentile, in (0, 100), or 0 to use static timeouts.
+     * @return client configuration.
+     */
+    public ClientConfiguration setSpeculativeReadTimeoutLatencyPercentile(double percentile) {
+        setProperty(SPECULATIVE_READ_TIMEOUT_LATENCY_PERCENTILE, percentile);
+        return this;
+    }
+
+    /**
+     * Get the maximum percentage of reads that can be sent speculatively.
+     *
+     * @return maximum percentage of speculative reads
+     * @see #setSpeculativeReadMaxPercent(double)
+     */
+    public double getSpeculativeReadMaxPercent() {
+        return getDouble(SPECULATIVE_READ_MAX_PERCENT, 10.0);
+    }
+
+    /**
+     * Set the maximum percentage of reads that can be sent speculatively, when speculative read
+     * timeouts follow read latency (see {@link #setSpeculativeReadTimeoutLatencyPercentile(double)}).
+     * Once the limit is reached, speculative reads are delayed until the next timeout. This keeps a
+     * pause of one bookie from adding load on the other bookies.
+     *
+     * @param percent
+     *          maximum percentage of speculative reads, or 0 for no limit.
+     * @return client configuration.
+     */
+    public ClientConfiguration setSpeculativeReadMaxPercent(double percent) {
+        setProperty(SPECULATIVE_READ_MAX_PERCENT, percent);
+        return this;
+    }
+
     /**
      * Get the period of time after which the first speculative read last add confirmed and entry
      * should be triggered.
@@ -1174,6 +1329,147 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * If range reads are enabled or not.
+     *
+     * @return true if range reads are enabled, otherwise false.
+     */
+    public boolean isRangeReadEnabled() {
+        return getBoolean(RANGE_READ_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable reading contiguous ranges of entries with a single
+     * range read request per bookie.
+     *
+     * <p>If this flag is enabled and every bookie of the ensemble stores every
+     * entry (ensemble size equal to write quorum size), a read of multiple entries
+     * is sent as a range read request to one bookie of the ensemble instead of
+     * one read request per entry. Entries that can not be read this way fall back
+     * to the regular per entry read path. Range reads use the v3 wire protocol and
+     * are not used when {@link #getUseV2WireProtocol()} is set.
+     *
+     * @param enabled the flag to enable/disable range reads.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setRangeReadEnabled(boolean enabled) {
+        setProperty(RANGE_READ_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of payload bytes requested in a single range read.
+     *
+     * @return the max size of a range read response in bytes.
+     */
+    public long getRangeReadMaxSizeBytes() {
+        return getLong(RANGE_READ_MAX_SIZE_BYTES, 1024 * 1024);
+    }
+
+    /**
+     * Set the maximum number of payload bytes requested in a single range read.
+     * The bookie always returns at least one entry, even if it is larger than
+     * this limit.
+     *
+     * @param maxSizeBytes the max size of a range read response in bytes.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setRangeReadMaxSizeBytes(long maxSizeBytes) {
+        setProperty(RANGE_READ_MAX_SIZE_BYTES, maxSizeBytes);
+        return this;
+    }
+
+    /**
+     * If range adds are enabled or not.
+     *
+     * @return true if range adds are enabled, otherwise false.
+     */
+    public boolean isRangeAddEnabled() {
+        return getBoolean(RANGE_ADD_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable sending the writes of consecutive entries of a ledger to the
+     * same bookie as a single range add request.
+     *
+     * <p>Writes are grouped with the other writes already queued for the ledger, so
+     * batching does not add latency to a single add. Recovery adds and fast-fail adds
+     * are never batched. Range adds use the v3 wire protocol and are not used when
+     * {@link #getUseV2WireProtocol()} is set.
+     *
+     * @param enabled the flag to enable/disable range adds.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setRangeAddEnabled(boolean enabled) {
+        setProperty(RANGE_ADD_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of entries sent in a single range add request.
+     *
+     * @return the max number of entries of a range add.
+     */
+    public int getRangeAddMaxEntries() {
+        return getInt(RANGE_ADD_MAX_ENTRIES, 100);
+    }
+
+    /**
+     * Set the maximum number of entries sent in a single range add request.
+     *
+     * @param maxEntries the max number of entries of a range add.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setRangeAddMaxEntries(int maxEntries) {
+        setProperty(RANGE_ADD_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of payload bytes sent in a single range add request.
+     *
+     * @return the max size of a range add in bytes.
+     */
+    public long getRangeAddMaxSizeBytes() {
+        return getLong(RANGE_ADD_MAX_SIZE_BYTES, 1024 * 1024);
+    }
+
+    /**
+     * Set the maximum number of payload bytes sent in a single range add request.
+     * A batch is sent as soon as it reaches this size.
+     *
+     * @param maxSizeBytes the max size of a range add in bytes.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setRangeAddMaxSizeBytes(long maxSizeBytes) {
+        setProperty(RANGE_ADD_MAX_SIZE_BYTES, maxSizeBytes);
+        return this;
+    }
+
+    /**
+     * Get the max number of ledgers whose metadata is cached by the client when opening ledgers.
+     *
+     * <p>Metadata of closed ledgers is cached until it is evicted, while metadata of open ledgers is kept up to
+     * date by watching it in the metadata store. If zero (default), the cache is disabled and the metadata is read
+     * from the metadata store every time a ledger is opened.
+     *
+     * @return the max number of cached ledger metadata.
+     */
+    public int getLedgerMetadataCacheMaxEntries() {
+        return getInt(LEDGER_METADATA_CACHE_MAX_ENTRIES, 0);
+    }
+
+    /**
+     * Set the max number of ledgers whose metadata is cached by the client when opening ledgers.
+     *
+     * @param maxEntries the max number of cached ledger metadata, zero to disable the cache.
+     * @return client configuration instance.
+     */
+    public ClientConfiguration setLedgerMetadataCacheMaxEntries(int maxEntries) {
+        setProperty(LEDGER_METADATA_CACHE_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
     /**
      * Get Ensemble Placement Policy Class.
      *
@@ -1222,6 +1518,58 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Whether reads are reordered based on the observed read latency of bookies.
+     *
+     * @return true if reads are reordered based on read latency
+     * @see #setReorderReadsByLatencyEnabled(boolean)
+     */
+    public boolean isReorderReadsByLatencyEnabled() {
+        return getBoolean(READ_REORDER_BY_LATENCY_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable reordering reads based on the observed read latency of bookies.
+     *
+     * <p>When enabled, the client keeps a moving average of the read latency of each bookie. The
+     * rack aware and region aware placement policies then pick two random replicas of the entry
+     * and read first from the one with the lower average latency times pending requests, so that
+     * a slow but healthy bookie is avoided up front rather than after the speculative read timeout.
+     * This only applies if {@link #setReorderReadSequenceEnabled(boolean)} is enabled.
+     *
+     * @param enabled
+     *            whether to reorder reads based on read latency
+     * @return client configuration
+     */
+    public ClientConfiguration setReorderReadsByLatencyEnabled(boolean enabled) {
+        setProperty(READ_REORDER_BY_LATENCY_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the time over which the read latency average of a bookie decays.
+     *
+     * @return decay time of the read latency average in milliseconds
+     * @see #setReadLatencyEwmaDecayTimeMs(long)
+     */
+    public long getReadLatencyEwmaDecayTimeMs() {
+        return getLong(READ_LATENCY_EWMA_DECAY_TIME_MS, 10000L);
+    }
+
+    /**
+     * Set the time over which the read latency average of a bookie decays. A shorter time follows
+     * latency changes faster. While a bookie is not read from, its average also decays towards zero
+     * over this time, so that a bookie that was avoided is eventually tried again.
+     *
+     * @param decayTimeMs
+     *            decay time of the read latency average in milliseconds
+     * @return client configuration
+     */
+    public ClientConfiguration setReadLatencyEwmaDecayTimeMs(long decayTimeMs) {
+        setProperty(READ_LATENCY_EWMA_DECAY_TIME_MS, decayTimeMs);
+        return this;
+    }
+
     /**
      * Get the network topology stabilize period in seconds. if it is zero, this feature is turned off.
      *
@@ -31,6 +31,7 @@ import org.apache.bookkeeper.bookie.InterleavedLedgerStorage;
 import org.apache.bookkeeper.bookie.LedgerStorage;
 import org.apache.bookkeeper.bookie.SortedLedgerStorage;
 import org.apache.bookkeeper.bookie.storage.ldb.DbLedgerStorage;
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
 import org.apache.bookkeeper.common.conf.ConfigDef;
 import org.apache.bookkeeper.common.conf.ConfigException;
 import org.apache.bookkeeper.common.conf.ConfigKey;
@@ -105,13 +106,18 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String COMPACTION_RATE = "compactionRate";
     protected static final String COMPACTION_RATE_BY_ENTRIES = "compactionRateByEntries";
     protected static final String COMPACTION_RATE_BY_BYTES = "compactionRateByBytes";
+    protected static final String COMPACTION_READ_LATENCY_TARGET_MILLIS = "compactionReadLatencyTargetMillis";
+    protected static final String COMPACTION_PAUSE_READ_LATENCY_MILLIS = "compactionPauseReadLatencyMillis";
 
     // Gc Parameters
     protected static final String GC_WAIT_TIME = "gcWaitTime";
     protected static final String IS_FORCE_GC_ALLOW_WHEN_NO_SPACE = "isForceGCAllowWhenNoSpace";
     protected static final String GC_OVERREPLICATED_LEDGER_WAIT_TIME = "gcOverreplicatedLedgerWaitTime";
+    protected static final String GC_FULL_METADATA_SCAN_WAIT_TIME = "gcFullMetadataScanWaitTime";
     protected static final String USE_TRANSACTIONAL_COMPACTION = "useTransactionalCompaction";
     protected static final String VERIFY_METADATA_ON_GC = "verifyMetadataOnGC";
+    protected static final String GC_ENTRYLOG_METADATA_CACHE_ENABLED = "gcEntryLogMetadataCacheEnabled";
+    protected static final String GC_ENTRYLOG_METADATA_CACHE_PATH = "gcEntryLogMetadataCachePath";
     // Scrub Parameters
     protected static final String LOCAL_SCRUB_PERIOD = "localScrubInterval";
     protected static final String LOCAL_SCRUB_RATE_LIMIT = "localScrubRateLimit";
@@ -141,6 +147,8 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String JOURNAL_PRE_ALLOC_SIZE = "journalPreAllocSizeMB";
     protected static final String JOURNAL_WRITE_BUFFER_SIZE = "journalWriteBufferSizeKB";
     protected static final String JOURNAL_ALIGNMENT_SIZE = "journalAlignmentSize";
+    protected static final String JOURNAL_DIRECT_IO_ENABLED = "journalDirectIOEnabled";
+    protected static final String JOURNAL_LOAD_AWARE_SELECTION_ENABLED = "journalLoadAwareSelectionEnabled";
     protected static final String NUM_JOURNAL_CALLBACK_THREADS = "numJournalCallbackThreads";
     protected static final String JOURNAL_FORMAT_VERSION_TO_WRITE = "journalFormatVersionToWrite";
     protected static final String JOURNAL_QUEUE_SIZE = "journalQueueSize";
@@ -167,6 +175,7 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String ALLOW_STORAGE_EXPANSION = "allowStorageExpansion";
     // NIO and Netty Parameters
     protected static final String SERVER_TCP_NODELAY = "serverTcpNoDelay";
+    protected static final String SERVER_FLUSH_CONSOLIDATION_MAX_FLUSHES = "serverFlushConsolidationMaxFlushes";
     protected static final String SERVER_SOCK_KEEPALIVE = "serverSockKeepalive";
     protected static final String SERVER_SOCK_LINGER = "serverTcpLinger";
     protected static final String SERVER_WRITEBUFFER_LOW_WATER_MARK = "serverWriteBufferLowWaterMark";
@@ -196,9 +205,11 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String AUDITOR_PERIODIC_PLACEMENT_POLICY_CHECK_INTERVAL =
                                                                 "auditorPeriodicPlacementPolicyCheckInterval";
     protected static final String AUDITOR_LEDGER_VERIFICATION_PERCENTAGE = "auditorLedgerVerificationPercentage";
+    protected static final String AUDITOR_MAX_CONCURRENT_LEDGER_CHECKS = "auditorMaxConcurrentLedgerChecks";
     protected static final String AUTO_RECOVERY_DAEMON_ENABLED = "autoRecoveryDaemonEnabled";
     protected static final String LOST_BOOKIE_RECOVERY_DELAY = "lostBookieRecoveryDelay";
     protected static final String RW_REREPLICATE_BACKOFF_MS = "rwRereplicateBackoffMs";
+    protected static final String RW_MAX_CONCURRENT_LEDGERS = "rwMaxConcurrentLedgers";
     protected static final String UNDERREPLICATED_LEDGER_RECOVERY_GRACE_PERIOD =
             "underreplicatedLedgerRecoveryGracePeriod";
     protected static final String AUDITOR_REPLICAS_CHECK_INTERVAL = "auditorReplicasCheckInterval";
@@ -207,10 +218,13 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String NUM_ADD_WORKER_THREADS = "numAddWorkerThreads";
     protected static final String NUM_READ_WORKER_THREADS = "numReadWorkerThreads";
     protected static final String MAX_PENDING_READ_REQUESTS_PER_THREAD = "maxPendingReadRequestsPerThread";
+    protected static final String RANGE_READ_MAX_ENTRIES = "rangeReadMaxEntries";
     protected static final String MAX_PENDING_ADD_REQUESTS_PER_THREAD = "maxPendingAddRequestsPerThread";
     protected static final String NUM_LONG_POLL_WORKER_THREADS = "numLongPollWorkerThreads";
     protected static final String NUM_HIGH_PRIORITY_WORKER_THREADS = "numHighPriorityWorkerThreads";
     protected static final String READ_WORKER_THREADS_THROTTLING_ENABLED = "readWorkerThreadsThrottlingEnabled";
+    protected static final String ENTRY_DIGEST_VERIFICATION_TYPE = "entryDigestVerificationType";
+    protected static final String NUM_ENTRY_DIGEST_VERIFICATION_THREADS = "numEntryDigestVerificationThreads";
 
     // Long poll parameters
     protected static final String REQUEST_TIMER_TICK_DURATION_MILLISEC = "requestTimerTickDurationMs";
@@ -412,6 +426,30 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this;
     }
 
+    /**
+     * Get wait time in millis between two full scans of the ledger metadata by the garbage collector.
+     *
+     * @return full metadata scan wait time, 0 if every garbage collection scans all the ledger metadata
+     */
+    public long getGcFullMetadataScanWaitTimeMillis() {
+        return this.getLong(GC_FULL_METADATA_SCAN_WAIT_TIME, 0);
+    }
+
+    /**
+     * Set wait time between two full scans of the ledger metadata by the garbage collector. Default: 0
+     *
+     * <p>Between two full scans, the bookie keeps the set of its ledgers known to exist in the metadata
+     * store and watches them for deletion, so a garbage collection only reads the metadata of the ledgers
+     * that are not in the set. The full scan rebuilds the set in case some deletions were missed.
+     *
+     * @param gcWaitTime
+     * @return server configuration
+     */
+    public ServerConfiguration setGcFullMetadataScanWaitTime(long gcWaitTime, TimeUnit unit) {
+        this.setProperty(GC_FULL_METADATA_SCAN_WAIT_TIME, Long.toString(unit.toMillis(gcWaitTime)));
+        return this;
+    }
+
     /**
      * Get whether to use transactional compaction and using a separate log for compaction or not.
      *
@@ -450,6 +488,49 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this;
     }
 
+    /**
+     * Get whether the garbage collector keeps the entry log metadata in a persisted store
+     * outside of the java heap instead of an in-memory map.
+     *
+     * @return true if the entry log metadata cache is enabled
+     */
+    public boolean isGcEntryLogMetadataCacheEnabled() {
+        return this.getBoolean(GC_ENTRYLOG_METADATA_CACHE_ENABLED, false);
+    }
+
+    /**
+     * Set whether the garbage collector keeps the entry log metadata in a persisted store
+     * outside of the java heap instead of an in-memory map.
+     *
+     * @param gcEntryLogMetadataCacheEnabled
+     * @return server configuration
+     */
+    public ServerConfiguration setGcEntryLogMetadataCacheEnabled(boolean gcEntryLogMetadataCacheEnabled) {
+        this.setProperty(GC_ENTRYLOG_METADATA_CACHE_ENABLED, gcEntryLogMetadataCacheEnabled);
+        return this;
+    }
+
+    /**
+     * Get the directory where the entry log metadata cache is stored. If not set, the cache
+     * is stored in the ledger directory it belongs to.
+     *
+     * @return the entry log metadata cache path, or null for the default location
+     */
+    public String getGcEntryLogMetadataCachePath() {
+        return this.getString(GC_ENTRYLOG_METADATA_CACHE_PATH, null);
+    }
+
+    /**
+     * Set the directory where the entry log metadata cache is stored.
+     *
+     * @param gcEntryLogMetadataCachePath
+     * @return server configuration
+     */
+    public ServerConfiguration setGcEntryLogMetadataCachePath(String gcEntryLogMetadataCachePath) {
+        this.setProperty(GC_ENTRYLOG_METADATA_CACHE_PATH, gcEntryLogMetadataCachePath);
+        return this;
+    }
+
     /**
      * Get whether local scrub is enabled.
      *
@@ -782,6 +863,60 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this;
     }
 
+    /**
+     * Whether the journal is written with direct I/O.
+     *
+     * @return true if the journal is written with direct I/O.
+     */
+    public boolean getJournalDirectIOEnabled() {
+        return this.getBoolean(JOURNAL_DIRECT_IO_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable writing the journal with direct I/O (O_DIRECT).
+     *
+     * <p>Journal writes then bypass the page cache and a group commit only needs an
+     * fdatasync of the written blocks. Writes are aligned to {@link #getJournalAlignmentSize()},
+     * which must be a multiple of the logical block size of the journal device (usually
+     * 4096 on NVMe devices). Direct I/O is only available on Linux; on other platforms,
+     * or when the native library can not be loaded, the journal falls back to buffered writes.
+     *
+     * @param enabled
+     *          flag to enable/disable direct I/O for the journal.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalDirectIOEnabled(boolean enabled) {
+        this.setProperty(JOURNAL_DIRECT_IO_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Whether ledgers are assigned to journals based on the observed journal load.
+     *
+     * @return true if ledgers are assigned to the least loaded journal.
+     */
+    public boolean getJournalLoadAwareSelectionEnabled() {
+        return this.getBoolean(JOURNAL_LOAD_AWARE_SELECTION_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable load aware assignment of ledgers to journals.
+     *
+     * <p>By default a ledger is written to the journal picked by hashing its ledger id. When
+     * enabled, and multiple journal directories are configured, a ledger is assigned on its
+     * first write to the journal with the lowest observed write throughput and backlog, and
+     * sticks to it for as long as the bookie runs. Assignments are not persisted, so after a
+     * restart a ledger may be assigned to another journal.
+     *
+     * @param enabled
+     *          flag to enable/disable load aware journal selection.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalLoadAwareSelectionEnabled(boolean enabled) {
+        this.setProperty(JOURNAL_LOAD_AWARE_SELECTION_ENABLED, enabled);
+        return this;
+    }
+
     /**
      * Get journal format version to write.
      *
@@ -1345,6 +1480,29 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this;
     }
 
+    /**
+     * Get the max number of response flushes consolidated into a single flush of a client channel.
+     *
+     * @return the max number of flushes consolidated, 0 if every response is flushed on its own
+     */
+    public int getServerFlushConsolidationMaxFlushes() {
+        return getInt(SERVER_FLUSH_CONSOLIDATION_MAX_FLUSHES, 0);
+    }
+
+    /**
+     * Set the max number of response flushes consolidated into a single flush of a client channel.
+     * The responses written while the event loop of the channel is busy are flushed together, at the
+     * latest after the given number of responses.
+     *
+     * @param maxFlushes
+     *          the max number of flushes consolidated, 0 to flush every response on its own
+     * @return server configuration
+     */
+    public ServerConfiguration setServerFlushConsolidationMaxFlushes(int maxFlushes) {
+        setProperty(SERVER_FLUSH_CONSOLIDATION_MAX_FLUSHES, maxFlushes);
+        return this;
+    }
+
     /**
      * Get the number of IO threads. This is the number of
      * threads used by Netty to handle TCP connections.
@@ -1915,6 +2073,26 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return getInt(MAX_PENDING_READ_REQUESTS_PER_THREAD, 10000);
     }
 
+    /**
+     * Set the max number of entries returned in the response to a single range read request. Requests asking
+     * for more entries are served partially, and the client asks again for the rest.
+     *
+     * @param maxEntries max number of entries of a range read response
+     * @return server configuration
+     */
+    public ServerConfiguration setRangeReadMaxEntries(int maxEntries) {
+        setProperty(RANGE_READ_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
+    /**
+     * Get the max number of entries returned in the response to a single range read request (default: 1000).
+     * The size of the response is also bounded by {@link #getNettyMaxFrameSizeBytes()}.
+     */
+    public int getRangeReadMaxEntries() {
+        return getInt(RANGE_READ_MAX_ENTRIES, 1000);
+    }
+
     /**
      * Set the max number of pending add requests for each add worker thread. After the quota is reached, new requests
      * will be failed immediately.
@@ -1935,6 +2113,52 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return getInt(MAX_PENDING_ADD_REQUESTS_PER_THREAD, 10000);
     }
 
+    /**
+     * Set the digest type used to verify the entries received by add requests, before they are written.
+     * Entries whose digest doesn't match are rejected. Only {@link DigestType#CRC32} and
+     * {@link DigestType#CRC32C} can be verified by the bookie, since MAC digests require the ledger password.
+     *
+     * @param digestType digest type of the entries, or null to disable the verification
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryDigestVerificationType(DigestType digestType) {
+        setProperty(ENTRY_DIGEST_VERIFICATION_TYPE, digestType == null ? "" : digestType.toString());
+        return this;
+    }
+
+    /**
+     * Get the digest type used to verify the entries received by add requests (default: none, entries aren't
+     * verified).
+     *
+     * @return digest type of the entries, or null if the verification is disabled
+     */
+    public DigestType getEntryDigestVerificationType() {
+        String digestType = getString(ENTRY_DIGEST_VERIFICATION_TYPE, "");
+        return StringUtils.isBlank(digestType) ? null : DigestType.valueOf(digestType.trim());
+    }
+
+    /**
+     * Set the number of threads verifying the digest of the entries received by add requests. Each thread queues
+     * up to {@link #getMaxPendingAddRequestPerThread()} requests, further add requests are rejected.
+     *
+     * @param numThreads number of threads, if zero the digests are verified by the add worker threads
+     * @return server configuration
+     */
+    public ServerConfiguration setNumEntryDigestVerificationThreads(int numThreads) {
+        setProperty(NUM_ENTRY_DIGEST_VERIFICATION_THREADS, numThreads);
+        return this;
+    }
+
+    /**
+     * Get the number of threads verifying the digest of the entries received by add requests. If zero (default),
+     * the digests are verified by the add worker threads.
+     *
+     * @return number of threads
+     */
+    public int getNumEntryDigestVerificationThreads() {
+        return getInt(NUM_ENTRY_DIGEST_VERIFICATION_THREADS, 0);
+    }
+
 
 
     /**
@@ -2524,6 +2748,27 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return getLong(AUDITOR_LEDGER_VERIFICATION_PERCENTAGE, 0);
     }
 
+    /**
+     * Set the max number of ledgers the auditor checks concurrently in the periodic
+     * check of all ledgers and in the placement policy check.
+     *
+     * @param maxConcurrentLedgerChecks max number of ledgers checked concurrently
+     * @return ServerConfiguration
+     */
+    public ServerConfiguration setAuditorMaxConcurrentLedgerChecks(int maxConcurrentLedgerChecks) {
+        setProperty(AUDITOR_MAX_CONCURRENT_LEDGER_CHECKS, maxConcurrentLedgerChecks);
+        return this;
+    }
+
+    /**
+     * Get the max number of ledgers the auditor checks concurrently.
+     * @see #setAuditorMaxConcurrentLedgerChecks(int)
+     * @return max number of ledgers checked concurrently. Default is 100.
+     */
+    public int getAuditorMaxConcurrentLedgerChecks() {
+        return getInt(AUDITOR_MAX_CONCURRENT_LEDGER_CHECKS, 100);
+    }
+
     /**
      * Sets that whether the auto-recovery service can start along with Bookie
      * server itself or not.
@@ -2582,6 +2827,24 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         setProperty(RW_REREPLICATE_BACKOFF_MS, backoffMs);
     }
 
+    /**
+     * Get the max number of under replicated ledgers the replication worker rereplicates concurrently.
+     *
+     * @return max number of ledgers rereplicated concurrently
+     */
+    public int getRwMaxConcurrentLedgers() {
+        return getInt(RW_MAX_CONCURRENT_LEDGERS, 1);
+    }
+
+    /**
+     * Set the max number of under replicated ledgers the replication worker rereplicates concurrently.
+     *
+     * @param maxConcurrentLedgers max number of ledgers rereplicated concurrently
+     */
+    public void setRwMaxConcurrentLedgers(int maxConcurrentLedgers) {
+        setProperty(RW_MAX_CONCURRENT_LEDGERS, maxConcurrentLedgers);
+    }
+
     /**
      * Sets that whether force start a bookie in readonly mode.
      *
@@ -2723,6 +2986,52 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this;
     }
 
+    /**
+     * Get the p99 latency of the entry log reads served to clients that compaction tries to stay under.
+     *
+     * @return the read latency target in milliseconds, 0 if the compaction rate is not adapted
+     */
+    public long getCompactionReadLatencyTargetMillis() {
+        return getLong(COMPACTION_READ_LATENCY_TARGET_MILLIS, 0);
+    }
+
+    /**
+     * Set the p99 latency of the entry log reads served to clients that compaction tries to stay under.
+     * While the observed latency is above the target, the compaction rate is halved every second, down
+     * to a hundredth of the configured rate. Otherwise it grows back to the configured rate.
+     *
+     * @param latencyMillis the read latency target in milliseconds, 0 to always compact at the configured rate
+     *
+     * @return ServerConfiguration
+     */
+    public ServerConfiguration setCompactionReadLatencyTargetMillis(long latencyMillis) {
+        setProperty(COMPACTION_READ_LATENCY_TARGET_MILLIS, latencyMillis);
+        return this;
+    }
+
+    /**
+     * Get the p99 latency of the entry log reads served to clients above which compaction is paused.
+     *
+     * @return the read latency in milliseconds, 0 if compaction is never paused
+     */
+    public long getCompactionPauseReadLatencyMillis() {
+        return getLong(COMPACTION_PAUSE_READ_LATENCY_MILLIS, 0);
+    }
+
+    /**
+     * Set the p99 latency of the entry log reads served to clients above which compaction is paused.
+     * Compaction doesn't start a new entry log while paused, unless the garbage collection is forced
+     * because the disks are full.
+     *
+     * @param latencyMillis the read latency in milliseconds, 0 to never pause compaction
+     *
+     * @return ServerConfiguration
+     */
+    public ServerConfiguration setCompactionPauseReadLatencyMillis(long latencyMillis) {
+        setProperty(COMPACTION_PAUSE_READ_LATENCY_MILLIS, latencyMillis);
+        return this;
+    }
+
     /**
      * Should we remove pages from page cache after force write.
      *
@@ -2935,6 +3244,18 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
             throw new ConfigurationException("For persisiting explicitLac, journalFormatVersionToWrite should be >= 6"
                     + "and FileInfoFormatVersionToWrite should be >= 1");
         }
+        DigestType entryDigestVerificationType;
+        try {
+            entryDigestVerificationType = getEntryDigestVerificationType();
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid entry digest verification type : "
+                    + getString(ENTRY_DIGEST_VERIFICATION_TYPE), e);
+        }
+        if (entryDigestVerificationType != null && entryDigestVerificationType != DigestType.CRC32
+                && entryDigestVerificationType != DigestType.CRC32C) {
+            throw new ConfigurationException("Entry digest verification is only supported for CRC32 and CRC32C digests,"
+                    + " not " + entryDigestVerificationType);
+        }
     }
 
     /**
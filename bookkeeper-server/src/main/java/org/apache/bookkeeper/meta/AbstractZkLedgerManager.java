@@ -22,7 +22,11 @@ import com.google.common.annotations.VisibleForTesting;
 import io.netty.util.concurrent.DefaultThreadFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Optional;
@@ -32,9 +36,11 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.client.LedgerMetadataBuilder;
@@ -59,6 +65,8 @@ import org.apache.zookeeper.AsyncCallback.VoidCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooKeeper;
@@ -87,6 +95,11 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
             new ConcurrentHashMap<Long, Set<LedgerMetadataListener>>();
     // we use this to prevent long stack chains from building up in callbacks
     protected ScheduledExecutorService scheduler;
+    // coalesces metadata creations, updates and deletions into multi transactions, null if disabled
+    private final ZkMultiOpBatcher batcher;
+    // parents of the ledger znodes deleted by batches, which may have become empty
+    private final Set<String> parentsToCleanup = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean parentsCleanupScheduled = new AtomicBoolean(false);
 
     /**
      * ReadLedgerMetadataTask class.
@@ -169,6 +182,8 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
         this.ledgerRootPath = ZKMetadataDriverBase.resolveZkLedgersRootPath(conf);
         this.scheduler = Executors
                 .newSingleThreadScheduledExecutor(new DefaultThreadFactory("ZkLedgerManagerScheduler"));
+        int batchMaxOps = conf.getZkLedgerMetadataBatchMaxOps();
+        this.batcher = batchMaxOps > 1 ? new ZkMultiOpBatcher(zk, batchMaxOps) : null;
         if (LOG.isDebugEnabled()) {
             LOG.debug("Using AbstractZkLedgerManager with root path : {}", ledgerRootPath);
         }
@@ -320,8 +335,16 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
         }
 
         List<ACL> zkAcls = ZkUtils.getACLs(conf);
-        ZkUtils.asyncCreateFullPathOptimistic(zk, ledgerPath, data, zkAcls,
-                                              CreateMode.PERSISTENT, scb, null);
+        Runnable createLedgerNode = () -> ZkUtils.asyncCreateFullPathOptimistic(zk, ledgerPath, data, zkAcls,
+                                                                              CreateMode.PERSISTENT, scb, null);
+        if (null == batcher) {
+            createLedgerNode.run();
+        } else {
+            // the parent znodes may be missing, in which case the node is created on its own
+            batcher.submit(Op.create(ledgerPath, data, zkAcls, CreateMode.PERSISTENT),
+                    result -> scb.processResult(Code.OK.intValue(), ledgerPath, null, ledgerPath),
+                    createLedgerNode);
+        }
         return promise;
     }
 
@@ -343,6 +366,38 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
             }
         }
 
+        ZkMultiOpBatcher.PendingOp deletion = newLedgerNodeDeletion(ledgerId, znodeVersion, promise);
+        if (null == batcher) {
+            deletion.fallback.run();
+        } else {
+            batcher.submitAll(Collections.singletonList(deletion));
+        }
+        return promise;
+    }
+
+    @Override
+    public CompletableFuture<Void> removeLedgersMetadata(Collection<Long> ledgerIds) {
+        if (null == batcher) {
+            return LedgerManager.super.removeLedgersMetadata(ledgerIds);
+        }
+        // submitted together, so that the deletions fill whole transactions
+        List<ZkMultiOpBatcher.PendingOp> deletions = new ArrayList<>(ledgerIds.size());
+        CompletableFuture<?>[] removals = new CompletableFuture<?>[ledgerIds.size()];
+        int i = 0;
+        for (long ledgerId : ledgerIds) {
+            CompletableFuture<Void> promise = new CompletableFuture<>();
+            deletions.add(newLedgerNodeDeletion(ledgerId, -1, promise));
+            removals[i++] = promise;
+        }
+        batcher.submitAll(deletions);
+        return CompletableFuture.allOf(removals);
+    }
+
+    /**
+     * Build the deletion of a ledger znode, to submit to the batcher. Its fallback deletes the znode on its own.
+     */
+    private ZkMultiOpBatcher.PendingOp newLedgerNodeDeletion(long ledgerId, int znodeVersion,
+                                                             CompletableFuture<Void> promise) {
         VoidCallback callbackForDelete = new VoidCallback() {
             @Override
             public void processResult(int rc, String path, Object ctx) {
@@ -372,17 +427,53 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
             }
         };
         String ledgerZnodePath = getLedgerPath(ledgerId);
-        if (this instanceof HierarchicalLedgerManager || this instanceof LongHierarchicalLedgerManager) {
-            /*
-             * do recursive deletes only for HierarchicalLedgerManager and
-             * LongHierarchicalLedgerManager
-             */
-            ZkUtils.asyncDeleteFullPathOptimistic(zk, ledgerZnodePath, znodeVersion, callbackForDelete,
-                    ledgerZnodePath);
-        } else {
-            zk.delete(ledgerZnodePath, znodeVersion, callbackForDelete, null);
+        final boolean recursiveDelete =
+                this instanceof HierarchicalLedgerManager || this instanceof LongHierarchicalLedgerManager;
+        final int expectedVersion = znodeVersion;
+        Runnable deleteLedgerNode = () -> {
+            if (recursiveDelete) {
+                /*
+                 * do recursive deletes only for HierarchicalLedgerManager and
+                 * LongHierarchicalLedgerManager
+                 */
+                ZkUtils.asyncDeleteFullPathOptimistic(zk, ledgerZnodePath, expectedVersion, callbackForDelete,
+                        ledgerZnodePath);
+            } else {
+                zk.delete(ledgerZnodePath, expectedVersion, callbackForDelete, null);
+            }
+        };
+        return new ZkMultiOpBatcher.PendingOp(Op.delete(ledgerZnodePath, expectedVersion),
+                result -> {
+                    callbackForDelete.processResult(Code.OK.intValue(), ledgerZnodePath, null);
+                    if (recursiveDelete) {
+                        cleanupParentLater(ledgerZnodePath);
+                    }
+                },
+                deleteLedgerNode);
+    }
+
+    /**
+     * Delete the parent of a ledger znode deleted in a batch, if it became empty. Parents are cleaned up
+     * asynchronously, so that a parent shared by many of the ledgers of a batch is only checked once.
+     */
+    private void cleanupParentLater(String ledgerZnodePath) {
+        parentsToCleanup.add(ledgerZnodePath.substring(0, ledgerZnodePath.lastIndexOf('/')));
+        if (parentsCleanupScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.submit(() -> {
+                    parentsCleanupScheduled.set(false);
+                    Iterator<String> parents = parentsToCleanup.iterator();
+                    while (parents.hasNext()) {
+                        String parent = parents.next();
+                        parents.remove();
+                        // fails with NOTEMPTY if the parent still has children, which is fine
+                        ZkUtils.asyncDeleteFullPathOptimistic(zk, parent, -1, (rc, path, ctx) -> { }, parent);
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                LOG.debug("Ledger manager is closed, skipping the cleanup of empty parent znodes");
+            }
         }
-        return promise;
     }
 
     @Override
@@ -490,9 +581,8 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
             promise.completeExceptionally(new BKException.BKMetadataSerializationException(ioe));
             return promise;
         }
-        zk.setData(getLedgerPath(ledgerId),
-                   data, (int) zv.getLongVersion(),
-                   new StatCallback() {
+        final String ledgerPath = getLedgerPath(ledgerId);
+        StatCallback setDataCallback = new StatCallback() {
             @Override
             public void processResult(int rc, String path, Object ctx, Stat stat) {
                 if (KeeperException.Code.BADVERSION.intValue() == rc) {
@@ -509,7 +599,16 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, Watcher
                             new BKException.ZKException(KeeperException.create(Code.get(rc), path)));
                 }
             }
-        }, null);
+        };
+        Runnable setLedgerData = () -> zk.setData(ledgerPath, data, (int) zv.getLongVersion(), setDataCallback, null);
+        if (null == batcher) {
+            setLedgerData.run();
+        } else {
+            batcher.submit(Op.setData(ledgerPath, data, (int) zv.getLongVersion()),
+                    result -> setDataCallback.processResult(Code.OK.intValue(), ledgerPath, null,
+                            ((OpResult.SetDataResult) result).getStat()),
+                    setLedgerData);
+        }
         return promise;
     }
 
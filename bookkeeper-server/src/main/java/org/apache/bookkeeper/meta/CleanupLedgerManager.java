@@ -222,6 +222,19 @@ public class CleanupLedgerManager implements LedgerManager {
         }
     }
 
+    @Override
+    public LedgerRangeIterator getLedgerRanges(long zkOpTimeoutMs, long startLedgerId) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return new ClosedLedgerRangeIterator();
+            }
+            return underlying.getLedgerRanges(zkOpTimeoutMs, startLedgerId);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public void close() throws IOException {
@@ -93,6 +93,13 @@ class HierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
         return new HierarchicalLedgerRangeIterator(legacyLedgerRangeIterator, longLedgerRangeIterator);
     }
 
+    @Override
+    public LedgerRangeIterator getLedgerRanges(long zkOpTimeoutMs, long startLedgerId) {
+        LedgerRangeIterator legacyLedgerRangeIterator = legacyLM.getLedgerRanges(zkOpTimeoutMs, startLedgerId);
+        LedgerRangeIterator longLedgerRangeIterator = longLM.getLedgerRanges(zkOpTimeoutMs, startLedgerId);
+        return new HierarchicalLedgerRangeIterator(legacyLedgerRangeIterator, longLedgerRangeIterator);
+    }
+
     private static class HierarchicalLedgerRangeIterator implements LedgerRangeIterator {
 
         LedgerRangeIterator legacyLedgerRangeIterator;
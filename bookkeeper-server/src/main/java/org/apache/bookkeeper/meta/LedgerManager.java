@@ -19,6 +19,8 @@ package org.apache.bookkeeper.meta;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -71,6 +73,28 @@ public interface LedgerManager extends Closeable {
      */
     CompletableFuture<Void> removeLedgerMetadata(long ledgerId, Version version);
 
+    /**
+     * Remove the metadata of several ledgers, whatever their version.
+     *
+     * <p>Ledger managers that support it, e.g. zookeeper based ones with
+     * {@code zkLedgerMetadataBatchMaxOps} set, remove the metadata of multiple
+     * ledgers in a single request to the metadata store.
+     *
+     * @param ledgerIds
+     *          Ledger Ids
+     * @return Future which, when completed, denotes that the metadata of all the ledgers has been
+     *         removed. Completed with the exception of a failed removal, once all the removals
+     *         have completed, otherwise.
+     */
+    default CompletableFuture<Void> removeLedgersMetadata(Collection<Long> ledgerIds) {
+        CompletableFuture<?>[] removals = new CompletableFuture<?>[ledgerIds.size()];
+        int i = 0;
+        for (long ledgerId : ledgerIds) {
+            removals[i++] = removeLedgerMetadata(ledgerId, Version.ANY);
+        }
+        return CompletableFuture.allOf(removals);
+    }
+
     /**
      * Read ledger metadata of a specified ledger.
      *
@@ -156,6 +180,28 @@ public interface LedgerManager extends Closeable {
      */
     LedgerRangeIterator getLedgerRanges(long zkOpTimeOutMs);
 
+    /**
+     * Loop to scan the ledgers whose id is not less than <i>startLedgerId</i>.
+     *
+     * <p>The ranges are returned in ascending ledger id order, so a scan can be resumed by passing
+     * the successor of the last ledger it processed. Implementations should avoid listing the parts
+     * of the metadata store that only contain smaller ledger ids.
+     *
+     * @param zkOpTimeOutMs
+     *            Iterator considers timeout while fetching ledger-range from
+     *            zk.
+     * @param startLedgerId
+     *            the first ledger id (inclusive) to return
+     * @return will return a iterator of the Ranges
+     */
+    default LedgerRangeIterator getLedgerRanges(long zkOpTimeOutMs, long startLedgerId) {
+        LedgerRangeIterator iterator = getLedgerRanges(zkOpTimeOutMs);
+        if (startLedgerId <= 0) {
+            return iterator;
+        }
+        return new TailLedgerRangeIterator(iterator, startLedgerId);
+    }
+
     /**
      * Used to represent the Ledgers range returned from the
      * current scan.
@@ -185,6 +231,47 @@ public interface LedgerManager extends Closeable {
         }
     }
 
+    /**
+     * Filters the ranges of an underlying iterator down to the ledgers not less than a given id.
+     */
+    class TailLedgerRangeIterator implements LedgerRangeIterator {
+        private final LedgerRangeIterator iterator;
+        private final long startLedgerId;
+        // non-null iff there is a pending non-empty range
+        private LedgerRange nextRange;
+
+        public TailLedgerRangeIterator(LedgerRangeIterator iterator, long startLedgerId) {
+            this.iterator = iterator;
+            this.startLedgerId = startLedgerId;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            while (nextRange == null && iterator.hasNext()) {
+                LedgerRange range = iterator.next();
+                if (range.end() < startLedgerId) {
+                    continue;
+                }
+                if (range.start() >= startLedgerId) {
+                    nextRange = range;
+                } else {
+                    nextRange = new LedgerRange(range.ledgers.tailSet(startLedgerId));
+                }
+            }
+            return nextRange != null;
+        }
+
+        @Override
+        public LedgerRange next() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("next() must only be called if hasNext() is true");
+            }
+            LedgerRange ret = nextRange;
+            nextRange = null;
+            return ret;
+        }
+    }
+
     /**
      * Interface of the ledger meta range iterator from
      * storage (e.g. in ZooKeeper or other key/value store).
@@ -230,6 +230,26 @@ public interface LedgerUnderreplicationManager extends AutoCloseable {
      */
     long getReplicasCheckCTime() throws ReplicationException.UnavailableException;
 
+    /**
+     * Setter for the progress cursor of a periodic audit check, so that a new auditor
+     * can resume the check after a failover.
+     *
+     * @param checkName name of the audit check
+     * @param lastCheckedLedgerId all the ledgers up to this id were checked, -1 to reset the cursor
+     * @throws ReplicationException.UnavailableException
+     */
+    void setAuditCheckCursor(String checkName, long lastCheckedLedgerId)
+            throws ReplicationException.UnavailableException;
+
+    /**
+     * Getter for the progress cursor of a periodic audit check.
+     *
+     * @param checkName name of the audit check
+     * @return the id of the last ledger checked, or -1 if the check has to start from scratch
+     * @throws ReplicationException.UnavailableException
+     */
+    long getAuditCheckCursor(String checkName) throws ReplicationException.UnavailableException;
+
     /**
      * Receive notification asynchronously when the lostBookieRecoveryDelay value is Changed.
      *
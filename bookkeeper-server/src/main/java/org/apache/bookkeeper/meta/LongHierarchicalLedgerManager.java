@@ -18,12 +18,18 @@
 package org.apache.bookkeeper.meta;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.bookkeeper.conf.AbstractConfiguration;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
@@ -140,16 +146,29 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
 
     @Override
     public LedgerRangeIterator getLedgerRanges(long zkOpTimeoutMs) {
-        return new LongHierarchicalLedgerRangeIterator(zkOpTimeoutMs);
+        return new LongHierarchicalLedgerRangeIterator(zkOpTimeoutMs, 0L);
+    }
+
+    @Override
+    public LedgerRangeIterator getLedgerRanges(long zkOpTimeoutMs, long startLedgerId) {
+        return new LongHierarchicalLedgerRangeIterator(zkOpTimeoutMs, Math.max(0L, startLedgerId));
     }
 
 
     /**
      * Iterates recursively through each metadata bucket.
+     *
+     * <p>The subtrees only holding ledger ids less than the start ledger id are skipped without being
+     * listed, and up to {@link AbstractConfiguration#getZkLedgerRangesPrefetchNodes()} leaf nodes are
+     * listed ahead of the caller.
      */
     private class LongHierarchicalLedgerRangeIterator implements LedgerRangeIterator {
         LedgerRangeIterator rootIterator;
         final long zkOpTimeoutMs;
+        final long startLedgerId;
+        // path components of the start ledger id, one per level
+        final String[] startNodes;
+        final int prefetchNodes;
 
         /**
          * Returns all children with path as a parent.  If path is non-existent,
@@ -179,29 +198,73 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
 
         /**
          * Represents the ledger range rooted at a leaf node, returns at most one LedgerRange.
+         * The children of the leaf node are listed asynchronously as soon as the iterator is built.
          */
         class LeafIterator implements LedgerRangeIterator {
+            final String path;
+            final boolean boundedByStart;
+            final CompletableFuture<List<String>> childrenFuture = new CompletableFuture<>();
+            boolean resolved = false;
             // Null iff iteration is complete
             LedgerRange range;
 
-            LeafIterator(String path) throws IOException {
-                List<String> ledgerLeafNodes = getChildrenAt(path);
-                Set<Long> ledgerIds = ledgerListToSet(ledgerLeafNodes, path);
+            LeafIterator(String path, boolean boundedByStart) {
+                this.path = path;
+                this.boundedByStart = boundedByStart;
+                ZkUtils.getChildrenInSingleNode(zk, path, (rc, children) -> {
+                    if (KeeperException.Code.OK.intValue() == rc) {
+                        childrenFuture.complete(children);
+                    } else if (KeeperException.Code.NONODE.intValue() == rc) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("NoNodeException at path {}, assumed race with deletion", path);
+                        }
+                        childrenFuture.complete(Collections.emptyList());
+                    } else {
+                        childrenFuture.completeExceptionally(
+                                KeeperException.create(KeeperException.Code.get(rc), path));
+                    }
+                });
+            }
+
+            private void resolve() throws IOException {
+                if (resolved) {
+                    return;
+                }
+                List<String> ledgerLeafNodes;
+                try {
+                    ledgerLeafNodes = zkOpTimeoutMs > 0
+                            ? childrenFuture.get(zkOpTimeoutMs, TimeUnit.MILLISECONDS)
+                            : childrenFuture.get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading ledgers at path " + path, ie);
+                } catch (ExecutionException ee) {
+                    throw new IOException("Error reading ledgers at path " + path, ee.getCause());
+                } catch (TimeoutException te) {
+                    throw new IOException("Timed out reading ledgers at path " + path, te);
+                }
+                NavigableSet<Long> ledgerIds = ledgerListToSet(ledgerLeafNodes, path);
+                if (boundedByStart) {
+                    ledgerIds = ledgerIds.tailSet(startLedgerId, true);
+                }
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("All active ledgers from ZK for hash node {}: {}", path, ledgerIds);
                 }
                 if (!ledgerIds.isEmpty()) {
                     range = new LedgerRange(ledgerIds);
                 } // else, hasNext() should return false so that advance will skip us and move on
+                resolved = true;
             }
 
             @Override
             public boolean hasNext() throws IOException {
+                resolve();
                 return range != null;
             }
 
             @Override
             public LedgerRange next() throws IOException {
+                resolve();
                 if (range == null) {
                     throw new NoSuchElementException(
                             "next() must only be called if hasNext() is true");
@@ -225,9 +288,13 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
         private class InnerIterator implements LedgerRangeIterator {
             final String path;
             final int level;
+            // whether the ancestors of this node are the ancestors of the start ledger id
+            final boolean boundedByStart;
 
             // Always non-null
             final Iterator<String> thisLevelIterator;
+            // iterators of the next nodes of this level, built ahead of nextLevelIterator
+            final Deque<LedgerRangeIterator> pendingIterators = new ArrayDeque<>();
             // non-null iff nextLevelIterator.hasNext() is true
             LedgerRangeIterator nextLevelIterator;
 
@@ -236,11 +303,13 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
              *
              * @param path Subpath for thisLevelIterator
              * @param level Level of thisLevelIterator (must be <= 3)
+             * @param boundedByStart Whether the children less than the start ledger id must be skipped
              * @throws IOException
              */
-            InnerIterator(String path, int level) throws IOException {
+            InnerIterator(String path, int level, boolean boundedByStart) throws IOException {
                 this.path = path;
                 this.level = level;
+                this.boundedByStart = boundedByStart;
                 thisLevelIterator = getChildrenAt(path).iterator();
                 advance();
             }
@@ -254,14 +323,30 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
              * @throws IOException Exception representing error
              */
             void advance() throws IOException {
-                while (thisLevelIterator.hasNext()) {
-                    String node = thisLevelIterator.next();
-                    if (level == 0 && !isLedgerParentNode(node)) {
-                        continue;
+                // only the leaf listings are issued ahead, building an inner iterator lists its subtree
+                int maxPending = level < 3 ? 1 : prefetchNodes;
+                while (true) {
+                    while (pendingIterators.size() < maxPending && thisLevelIterator.hasNext()) {
+                        String node = thisLevelIterator.next();
+                        if (level == 0 && !isLedgerParentNode(node)) {
+                            continue;
+                        }
+                        boolean childBoundedByStart = false;
+                        if (boundedByStart) {
+                            int cmp = node.compareTo(startNodes[level]);
+                            if (cmp < 0) {
+                                continue;
+                            }
+                            childBoundedByStart = cmp == 0;
+                        }
+                        pendingIterators.add(level < 3
+                                ? new InnerIterator(path + "/" + node, level + 1, childBoundedByStart)
+                                : new LeafIterator(path + "/" + node, childBoundedByStart));
+                    }
+                    LedgerRangeIterator nextIterator = pendingIterators.poll();
+                    if (nextIterator == null) {
+                        break;
                     }
-                    LedgerRangeIterator nextIterator = level < 3
-                            ? new InnerIterator(path + "/" + node, level + 1)
-                            : new LeafIterator(path + "/" + node);
                     if (nextIterator.hasNext()) {
                         nextLevelIterator = nextIterator;
                         break;
@@ -285,13 +370,17 @@ class LongHierarchicalLedgerManager extends AbstractHierarchicalLedgerManager {
             }
         }
 
-        private LongHierarchicalLedgerRangeIterator(long zkOpTimeoutMs) {
+        private LongHierarchicalLedgerRangeIterator(long zkOpTimeoutMs, long startLedgerId) {
             this.zkOpTimeoutMs = zkOpTimeoutMs;
+            this.startLedgerId = startLedgerId;
+            // "/level0/level1/level2/level3/Llevel4"
+            this.startNodes = StringUtils.getLongHierarchicalLedgerPath(startLedgerId).substring(1).split("/");
+            this.prefetchNodes = Math.max(1, conf.getZkLedgerRangesPrefetchNodes());
         }
 
         private void bootstrap() throws IOException {
             if (rootIterator == null) {
-                rootIterator = new InnerIterator(ledgerRootPath, 0);
+                rootIterator = new InnerIterator(ledgerRootPath, 0, startLedgerId > 0);
             }
         }
 
@@ -121,6 +121,7 @@ public class ZkLedgerUnderreplicationManager implements LedgerUnderreplicationMa
     private final String checkAllLedgersCtimeZnode;
     private final String placementPolicyCheckCtimeZnode;
     private final String replicasCheckCtimeZnode;
+    private final String auditCheckCursorsZnode;
     private final ZooKeeper zkc;
     private final SubTreeCache subTreeCache;
 
@@ -136,6 +137,7 @@ public class ZkLedgerUnderreplicationManager implements LedgerUnderreplicationMa
         checkAllLedgersCtimeZnode = basePath + '/' + BookKeeperConstants.CHECK_ALL_LEDGERS_CTIME;
         placementPolicyCheckCtimeZnode = basePath + '/' + BookKeeperConstants.PLACEMENT_POLICY_CHECK_CTIME;
         replicasCheckCtimeZnode = basePath + '/' + BookKeeperConstants.REPLICAS_CHECK_CTIME;
+        auditCheckCursorsZnode = basePath + '/' + BookKeeperConstants.AUDIT_CHECK_CURSORS;
         idExtractionPattern = Pattern.compile("urL(\\d+)$");
         this.zkc = zkc;
         this.subTreeCache = new SubTreeCache(new SubTreeCache.TreeProvider() {
@@ -952,6 +954,49 @@ public class ZkLedgerUnderreplicationManager implements LedgerUnderreplicationMa
         }
     }
 
+    @Override
+    public void setAuditCheckCursor(String checkName, long lastCheckedLedgerId) throws UnavailableException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("setAuditCheckCursor({}, {})", checkName, lastCheckedLedgerId);
+        }
+        String cursorZnode = auditCheckCursorsZnode + '/' + checkName;
+        byte[] data = Long.toString(lastCheckedLedgerId).getBytes(UTF_8);
+        try {
+            if (zkc.exists(cursorZnode, false) != null) {
+                zkc.setData(cursorZnode, data, -1);
+            } else {
+                ZkUtils.createFullPathOptimistic(zkc, cursorZnode, data, ZkUtils.getACLs(conf),
+                        CreateMode.PERSISTENT);
+            }
+        } catch (KeeperException ke) {
+            throw new ReplicationException.UnavailableException("Error contacting zookeeper", ke);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ReplicationException.UnavailableException("Interrupted while contacting zookeeper", ie);
+        }
+    }
+
+    @Override
+    public long getAuditCheckCursor(String checkName) throws UnavailableException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("getAuditCheckCursor({})", checkName);
+        }
+        try {
+            byte[] data = zkc.getData(auditCheckCursorsZnode + '/' + checkName, false, null);
+            return Long.parseLong(new String(data, UTF_8));
+        } catch (KeeperException.NoNodeException ne) {
+            return -1;
+        } catch (NumberFormatException nfe) {
+            LOG.warn("Invalid cursor for audit check {}, starting it from scratch", checkName, nfe);
+            return -1;
+        } catch (KeeperException ke) {
+            throw new ReplicationException.UnavailableException("Error contacting zookeeper", ke);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ReplicationException.UnavailableException("Interrupted while contacting zookeeper", ie);
+        }
+    }
+
     @Override
     public void setPlacementPolicyCheckCTime(long placementPolicyCheckCTime) throws UnavailableException {
         if (LOG.isDebugEnabled()) {
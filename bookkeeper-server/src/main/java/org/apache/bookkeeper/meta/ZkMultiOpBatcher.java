@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.meta;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+import org.apache.jute.BinaryOutputArchive;
+import org.apache.zookeeper.AsyncCallback.MultiCallback;
+import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.client.ZKClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent zookeeper operations into {@link ZooKeeper#multi} transactions.
+ *
+ * <p>At most one transaction is in flight at any time. Operations submitted while a transaction is in flight are
+ * queued and sent together, up to {@code maxOpsPerBatch} operations and {@code maxBatchBytes} serialized bytes per
+ * transaction, once it completes. So a single operation is sent right away, and batches only build up under load.
+ * The size bound keeps transactions under the {@code jute.maxbuffer} limit of the zookeeper servers, which reject
+ * larger requests.
+ *
+ * <p>A transaction is atomic, so if any of its operations fails, none of them is applied. In that case, each
+ * operation of the batch is retried on its own through its fallback, which reports the result of that operation
+ * only.
+ */
+class ZkMultiOpBatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ZkMultiOpBatcher.class);
+
+    /**
+     * An operation to execute in a transaction, with its callbacks.
+     */
+    static final class PendingOp {
+        final Op op;
+        final int size;
+        final Consumer<OpResult> onSuccess;
+        final Runnable fallback;
+
+        PendingOp(Op op, Consumer<OpResult> onSuccess, Runnable fallback) {
+            this.op = op;
+            this.size = serializedSize(op);
+            this.onSuccess = onSuccess;
+            this.fallback = fallback;
+        }
+    }
+
+    // Bytes taken in a transaction by the header of each operation, and by the request header
+    static final int OP_HEADER_BYTES = 16;
+    static final int REQUEST_HEADER_BYTES = 1024;
+
+    private final ZooKeeper zk;
+    private final int maxOpsPerBatch;
+    private final int maxBatchBytes;
+    private final Queue<PendingOp> pendingOps = new ArrayDeque<>();
+    private boolean inFlight = false;
+
+    ZkMultiOpBatcher(ZooKeeper zk, int maxOpsPerBatch) {
+        this(zk, maxOpsPerBatch, Integer.getInteger(ZKClientConfig.JUTE_MAXBUFFER,
+                ZKClientConfig.CLIENT_MAX_PACKET_LENGTH_DEFAULT) - REQUEST_HEADER_BYTES);
+    }
+
+    ZkMultiOpBatcher(ZooKeeper zk, int maxOpsPerBatch, int maxBatchBytes) {
+        this.zk = zk;
+        this.maxOpsPerBatch = maxOpsPerBatch;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Submit an operation to be executed in the next transaction.
+     *
+     * @param op the zookeeper operation
+     * @param onSuccess invoked with the result of the operation, when the transaction succeeds
+     * @param fallback invoked to execute the operation on its own, when the transaction fails
+     */
+    void submit(Op op, Consumer<OpResult> onSuccess, Runnable fallback) {
+        submitAll(Collections.singletonList(new PendingOp(op, onSuccess, fallback)));
+    }
+
+    /**
+     * Submit several operations at once. They are queued together, so they fill whole transactions, rather than
+     * the first one being sent on its own when no transaction is in flight.
+     *
+     * @param ops the operations, with their callbacks
+     */
+    void submitAll(Collection<PendingOp> ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            pendingOps.addAll(ops);
+            if (inFlight) {
+                return;
+            }
+            inFlight = true;
+        }
+        sendNextBatch();
+    }
+
+    private void sendNextBatch() {
+        while (true) {
+            final List<PendingOp> batch;
+            synchronized (this) {
+                if (pendingOps.isEmpty()) {
+                    inFlight = false;
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(pendingOps.size(), maxOpsPerBatch));
+                // an operation larger than the size bound is still sent, on its own
+                long batchBytes = 0;
+                while (!pendingOps.isEmpty() && batch.size() < maxOpsPerBatch
+                        && (batch.isEmpty() || batchBytes + pendingOps.peek().size <= maxBatchBytes)) {
+                    PendingOp pendingOp = pendingOps.poll();
+                    batchBytes += pendingOp.size;
+                    batch.add(pendingOp);
+                }
+            }
+            List<Op> ops = new ArrayList<>(batch.size());
+            for (PendingOp pendingOp : batch) {
+                ops.add(pendingOp.op);
+            }
+            try {
+                multi(ops, (rc, path, ctx, results) -> {
+                    try {
+                        if (Code.OK.intValue() == rc) {
+                            for (int i = 0; i < batch.size(); i++) {
+                                batch.get(i).onSuccess.accept(results.get(i));
+                            }
+                        } else {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Failed to execute a batch of {} operations : {}, executing them one by one",
+                                        batch.size(), Code.get(rc));
+                            }
+                            fallback(batch);
+                        }
+                    } finally {
+                        sendNextBatch();
+                    }
+                });
+                return;
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to submit a batch of {} operations, executing them one by one", batch.size(), e);
+                fallback(batch);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void multi(List<Op> ops, MultiCallback cb) {
+        zk.multi(ops, cb, null);
+    }
+
+    private static int serializedSize(Op op) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            op.toRequestRecord().serialize(BinaryOutputArchive.getArchive(out), "request");
+        } catch (IOException e) {
+            // writing to memory can't fail
+            throw new UncheckedIOException(e);
+        }
+        return out.size() + OP_HEADER_BYTES;
+    }
+
+    private static void fallback(List<PendingOp> batch) {
+        for (PendingOp pendingOp : batch) {
+            pendingOp.fallback.run();
+        }
+    }
+}
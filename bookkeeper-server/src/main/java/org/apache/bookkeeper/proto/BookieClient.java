@@ -28,6 +28,7 @@ import org.apache.bookkeeper.client.api.WriteFlag;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ForceLedgerCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GetBookieInfoCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntriesCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadLacCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
@@ -143,6 +144,25 @@ public interface BookieClient {
                   long entryId, ByteBufList toSend, WriteCallback cb, Object ctx,
                   int options, boolean allowFastFail, EnumSet<WriteFlag> writeFlags);
 
+    /**
+     * Add a range of consecutive entries for ledger {@code ledgerId} on the bookie at
+     * address {@code address} in a single request. The callback is invoked once for the
+     * whole range, with the id of the last entry of the range.
+     *
+     * @param address the address of the bookie
+     * @param ledgerId the ledger to which we wish to add the entries
+     * @param masterKey the master key of the ledger
+     * @param startEntryId the id of the first entry of the range
+     * @param toSend the buffers containing the entries and their digests, in entry id order
+     * @param cb the callback notified when the request completes
+     * @param ctx a context object passed to the callback on completion
+     * @param writeFlags a set of write flags
+     *                   {@link org.apache.bookkeeper.client.api.WriteFlags}
+     */
+    void addEntries(BookieId address, long ledgerId, byte[] masterKey,
+                    long startEntryId, List<ByteBufList> toSend, WriteCallback cb, Object ctx,
+                    EnumSet<WriteFlag> writeFlags);
+
     /**
      * Read entry with a null masterkey, disallowing failfast.
      * @see #readEntry(BookieSocketAddress,long,long,ReadEntryCallback,Object,int,byte[],boolean)
@@ -180,6 +200,24 @@ public interface BookieClient {
                    ReadEntryCallback cb, Object ctx, int flags, byte[] masterKey,
                    boolean allowFastFail);
 
+    /**
+     * Read a range of consecutive entries from bookie at address {@code address}
+     * in a single request.
+     *
+     * @param address address of the bookie to read from
+     * @param ledgerId id of the ledger the entries belong to
+     * @param startEntryId id of the first entry we wish to read
+     * @param maxCount maximum number of entries to return
+     * @param maxSize maximum number of payload bytes to return; the first entry is
+     *                always returned regardless of its size
+     * @param cb the callback notified when the request completes
+     * @param ctx a context object passed to the callback on completion
+     * @param flags a bit mask of flags from BookieProtocol.FLAG_*
+     *              {@link org.apache.bookkeeper.proto.BookieProtocol}
+     */
+    void readEntries(BookieId address, long ledgerId, long startEntryId,
+                     int maxCount, long maxSize, ReadEntriesCallback cb, Object ctx, int flags);
+
     /**
      * Send a long poll request to bookie, waiting for the last add confirmed
      * to be updated. The client can also request that the full entry is returned
@@ -61,6 +61,7 @@ import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ForceLedgerCallba
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.FutureGetListOfEntriesOfLedger;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GetBookieInfoCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntriesCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadLacCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
@@ -332,6 +333,38 @@ public class BookieClientImpl implements BookieClient, PerChannelBookieClientFac
                       ledgerId);
     }
 
+    @Override
+    public void addEntries(final BookieId addr,
+                           final long ledgerId,
+                           final byte[] masterKey,
+                           final long startEntryId,
+                           final List<ByteBufList> toSend,
+                           final WriteCallback cb,
+                           final Object ctx,
+                           final EnumSet<WriteFlag> writeFlags) {
+        final long lastEntryId = startEntryId + toSend.size() - 1;
+        final PerChannelBookieClientPool client = lookupClient(addr);
+        if (client == null) {
+            completeAdd(getRc(BKException.Code.BookieHandleNotAvailableException),
+                        ledgerId, lastEntryId, addr, cb, ctx);
+            return;
+        }
+
+        // Retain the buffers, since the connection could be obtained after
+        // the PendingAddOps might have already failed
+        toSend.forEach(ByteBufList::retain);
+
+        // range adds are only available on the v3 protocol
+        client.obtain((rc, pcbc) -> {
+            if (rc != BKException.Code.OK) {
+                completeAdd(rc, ledgerId, lastEntryId, addr, cb, ctx);
+            } else {
+                pcbc.addEntries(ledgerId, masterKey, startEntryId, toSend, cb, ctx, writeFlags);
+            }
+            toSend.forEach(ByteBufList::release);
+        }, ledgerId, true);
+    }
+
     @Override
     public CompletableFuture<AvailabilityOfEntriesOfLedger> getListOfEntriesOfLedger(BookieId address,
             long ledgerId) {
@@ -515,6 +548,33 @@ public class BookieClientImpl implements BookieClient, PerChannelBookieClientFac
         }, ledgerId);
     }
 
+    @Override
+    public void readEntries(final BookieId addr, final long ledgerId, final long startEntryId,
+                            final int maxCount, final long maxSize,
+                            final ReadEntriesCallback cb, final Object ctx, int flags) {
+        final PerChannelBookieClientPool client = lookupClient(addr);
+        if (client == null) {
+            cb.readEntriesComplete(getRc(BKException.Code.BookieHandleNotAvailableException),
+                                   ledgerId, startEntryId, null, ctx);
+            return;
+        }
+
+        // range reads are only available on the v3 protocol
+        client.obtain((rc, pcbc) -> {
+            if (rc != BKException.Code.OK) {
+                try {
+                    executor.executeOrdered(ledgerId, safeRun(() -> {
+                        cb.readEntriesComplete(rc, ledgerId, startEntryId, null, ctx);
+                    }));
+                } catch (RejectedExecutionException re) {
+                    cb.readEntriesComplete(getRc(BKException.Code.InterruptedException),
+                            ledgerId, startEntryId, null, ctx);
+                }
+            } else {
+                pcbc.readEntries(ledgerId, startEntryId, maxCount, maxSize, cb, ctx, flags);
+            }
+        }, ledgerId, true);
+    }
 
     @Override
     public void readEntryWaitForLACUpdate(final BookieId addr,
@@ -20,6 +20,8 @@
  */
 package org.apache.bookkeeper.proto;
 
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.RESPONSES_PER_FLUSH;
+
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.ExtensionRegistry;
 import io.netty.bootstrap.ServerBootstrap;
@@ -77,6 +79,10 @@ import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.processor.RequestProcessor;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.stats.OpStatsLogger;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.stats.annotations.StatsDoc;
 import org.apache.bookkeeper.util.ByteBufList;
 import org.apache.bookkeeper.util.EventLoopUtil;
 import org.apache.zookeeper.KeeperException;
@@ -109,9 +115,22 @@ class BookieNettyServer {
 
     private final ByteBufAllocator allocator;
 
+    @StatsDoc(
+        name = RESPONSES_PER_FLUSH,
+        help = "number of responses written per flush of a client channel, when flushes are consolidated"
+    )
+    private final OpStatsLogger responsesPerFlushStats;
+
     BookieNettyServer(ServerConfiguration conf, RequestProcessor processor, ByteBufAllocator allocator)
         throws IOException, KeeperException, InterruptedException, BookieException {
+        this(conf, processor, allocator, NullStatsLogger.INSTANCE);
+    }
+
+    BookieNettyServer(ServerConfiguration conf, RequestProcessor processor, ByteBufAllocator allocator,
+                      StatsLogger statsLogger)
+        throws IOException, KeeperException, InterruptedException, BookieException {
         this.allocator = allocator;
+        this.responsesPerFlushStats = statsLogger.getOpStatsLogger(RESPONSES_PER_FLUSH);
         this.maxFrameSize = conf.getNettyMaxFrameSizeBytes();
         this.conf = conf;
         this.requestProcessor = processor;
@@ -346,6 +365,10 @@ class BookieNettyServer {
                     pipeline.addLast("bookieRequestHandler", requestHandler);
 
                     pipeline.addLast("contextHandler", contextHandler);
+                    if (conf.getServerFlushConsolidationMaxFlushes() > 1) {
+                        FlushConsolidation.addLast(pipeline, conf.getServerFlushConsolidationMaxFlushes(),
+                                responsesPerFlushStats);
+                    }
                 }
             });
 
@@ -29,6 +29,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.handler.ssl.SslHandler;
@@ -36,6 +37,7 @@ import io.netty.util.HashedWheelTimer;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 
+import java.security.GeneralSecurityException;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -49,10 +51,13 @@ import lombok.Getter;
 import org.apache.bookkeeper.auth.AuthProviderFactoryFactory;
 import org.apache.bookkeeper.auth.AuthToken;
 import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.client.BKException.BKDigestMatchException;
+import org.apache.bookkeeper.client.BookKeeper;
 import org.apache.bookkeeper.common.util.MathUtils;
 import org.apache.bookkeeper.common.util.OrderedExecutor;
 import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.processor.RequestProcessor;
+import org.apache.bookkeeper.proto.checksum.DigestManager;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.tls.SecurityException;
 import org.apache.bookkeeper.tls.SecurityHandlerFactory;
@@ -69,6 +74,10 @@ public class BookieRequestProcessor implements RequestProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(BookieRequestProcessor.class);
 
+    private static final byte[] EMPTY_PASSWORD = new byte[0];
+    private static final long INVALID_LEDGER_ID = -1L;
+    private static final int RANGE_READ_RESPONSE_HEADER_BYTES = 1024;
+
     /**
      * The server configuration. We use this for getting the number of add and read
      * worker threads.
@@ -92,6 +101,17 @@ public class BookieRequestProcessor implements RequestProcessor {
      */
     private final OrderedExecutor writeThreadPool;
 
+    /**
+     * The threadpool used to verify the digest of the entries of add requests, if enabled.
+     */
+    private final OrderedExecutor digestVerificationThreadPool;
+
+    /**
+     * The digest manager verifying the entries of add requests of all the ledgers, or null if entries aren't
+     * verified. CRC digest managers keep their state in thread locals, so a single instance is shared.
+     */
+    private final DigestManager entryDigestManager;
+
     /**
      * TLS management.
      */
@@ -130,6 +150,12 @@ public class BookieRequestProcessor implements RequestProcessor {
 
     private final boolean throttleReadResponses;
 
+    /**
+     * Server side bounds of the response to a range read request.
+     */
+    private final int rangeReadMaxEntries;
+    private final long rangeReadMaxSizeBytes;
+
     public BookieRequestProcessor(ServerConfiguration serverCfg, Bookie bookie, StatsLogger statsLogger,
             SecurityHandlerFactory shFactory, ByteBufAllocator allocator) throws SecurityException {
         this.serverCfg = serverCfg;
@@ -138,6 +164,9 @@ public class BookieRequestProcessor implements RequestProcessor {
         this.preserveMdcForTaskExecution = serverCfg.getPreserveMdcForTaskExecution();
         this.bookie = bookie;
         this.throttleReadResponses = serverCfg.isReadWorkerThreadsThrottlingEnabled();
+        this.rangeReadMaxEntries = serverCfg.getRangeReadMaxEntries();
+        // leave room for the protocol header of the response
+        this.rangeReadMaxSizeBytes = serverCfg.getNettyMaxFrameSizeBytes() - RANGE_READ_RESPONSE_HEADER_BYTES;
         this.readThreadPool = createExecutor(
                 this.serverCfg.getNumReadWorkerThreads(),
                 "BookieReadThreadPool",
@@ -148,6 +177,12 @@ public class BookieRequestProcessor implements RequestProcessor {
                 "BookieWriteThreadPool",
                 serverCfg.getMaxPendingAddRequestPerThread(),
                 statsLogger);
+        this.entryDigestManager = createEntryDigestManager(serverCfg.getEntryDigestVerificationType(), allocator);
+        this.digestVerificationThreadPool = entryDigestManager == null ? null : createExecutor(
+                this.serverCfg.getNumEntryDigestVerificationThreads(),
+                "BookieDigestVerificationThreadPool",
+                serverCfg.getMaxPendingAddRequestPerThread(),
+                statsLogger);
         if (serverCfg.getNumLongPollWorkerThreads() <= 0 && readThreadPool != null) {
             this.longPollThreadPool = this.readThreadPool;
         } else {
@@ -262,9 +297,56 @@ public class BookieRequestProcessor implements RequestProcessor {
         return requestStats.maxReadsInProgressCount();
     }
 
+    /**
+     * Returns whether the digest of the entries of add requests has to be verified before writing them.
+     */
+    boolean isEntryDigestVerificationEnabled() {
+        return entryDigestManager != null;
+    }
+
+    /**
+     * Returns the threadpool verifying the digest of the entries of add requests, or null if the digests are
+     * verified by the threads processing the add requests.
+     */
+    OrderedExecutor getDigestVerificationThreadPool() {
+        return digestVerificationThreadPool;
+    }
+
+    /**
+     * Verify the digest of an entry received by an add request.
+     *
+     * @return true if the digest matches, false otherwise
+     */
+    boolean verifyEntryDigest(long ledgerId, long entryId, ByteBuf entry) {
+        try {
+            // verify a view of the entry, so that its reader index is left untouched
+            entryDigestManager.verifyDigest(ledgerId, entryId, entry.slice());
+            return true;
+        } catch (BKDigestMatchException e) {
+            requestStats.getAddEntryDigestMismatchCounter().inc();
+            return false;
+        }
+    }
+
+    private static DigestManager createEntryDigestManager(BookKeeper.DigestType digestType,
+                                                          ByteBufAllocator allocator) {
+        if (digestType == null) {
+            return null;
+        }
+        try {
+            // the ledger id is given to each verification, the one of the digest manager is not used
+            return DigestManager.instantiate(INVALID_LEDGER_ID, EMPTY_PASSWORD,
+                    BookKeeper.DigestType.toProtoDigestType(digestType), allocator, true);
+        } catch (GeneralSecurityException e) {
+            // CRC digests don't need any security provider
+            throw new IllegalArgumentException("Failed to create the digest manager of entry digest verification", e);
+        }
+    }
+
     @Override
     public void close() {
         shutdownExecutor(writeThreadPool);
+        shutdownExecutor(digestVerificationThreadPool);
         shutdownExecutor(readThreadPool);
         if (serverCfg.getNumLongPollWorkerThreads() > 0 || readThreadPool == null) {
             shutdownExecutor(longPollThreadPool);
@@ -314,6 +396,12 @@ public class BookieRequestProcessor implements RequestProcessor {
                     case READ_ENTRY:
                         processReadRequestV3(r, c);
                         break;
+                    case RANGE_ADD_ENTRY:
+                        processRangeAddRequestV3(r, c);
+                        break;
+                    case RANGE_READ_ENTRY:
+                        processRangeReadRequestV3(r, c);
+                        break;
                     case FORCE_LEDGER:
                         processForceLedgerRequestV3(r, c);
                         break;
@@ -454,6 +542,43 @@ public class BookieRequestProcessor implements RequestProcessor {
         }
     }
 
+    private void processRangeAddRequestV3(final BookkeeperProtocol.Request r, final Channel c) {
+        RangeWriteEntryProcessorV3 write = new RangeWriteEntryProcessorV3(r, c, this);
+
+        final OrderedExecutor threadPool;
+        if (RequestUtils.isHighPriority(r)) {
+            threadPool = highPriorityThreadPool;
+        } else {
+            threadPool = writeThreadPool;
+        }
+
+        if (null == threadPool) {
+            write.run();
+        } else {
+            try {
+                threadPool.executeOrdered(r.getRangeAddRequest().getLedgerId(), write);
+            } catch (RejectedExecutionException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Failed to process request to add entries from {}:{}. Too many pending requests",
+                              r.getRangeAddRequest().getLedgerId(), r.getRangeAddRequest().getStartEntryId());
+                }
+                BookkeeperProtocol.RangeAddResponse.Builder rangeAddResponse =
+                        BookkeeperProtocol.RangeAddResponse.newBuilder()
+                        .setLedgerId(r.getRangeAddRequest().getLedgerId())
+                        .setStartEntryId(r.getRangeAddRequest().getStartEntryId())
+                        .setLastEntryId(r.getRangeAddRequest().getStartEntryId()
+                                + r.getRangeAddRequest().getBodyCount() - 1)
+                        .setStatus(BookkeeperProtocol.StatusCode.ETOOMANYREQUESTS);
+                BookkeeperProtocol.Response.Builder response = BookkeeperProtocol.Response.newBuilder()
+                        .setHeader(write.getHeader())
+                        .setStatus(rangeAddResponse.getStatus())
+                        .setRangeAddResponse(rangeAddResponse);
+                BookkeeperProtocol.Response resp = response.build();
+                write.sendResponse(rangeAddResponse.getStatus(), resp, requestStats.getRangeAddRequestStats());
+            }
+        }
+    }
+
     private void processForceLedgerRequestV3(final BookkeeperProtocol.Request r, final Channel c) {
         ForceLedgerProcessorV3 forceLedger = new ForceLedgerProcessorV3(r, c, this);
 
@@ -541,6 +666,29 @@ public class BookieRequestProcessor implements RequestProcessor {
         }
     }
 
+    private void processRangeReadRequestV3(final BookkeeperProtocol.Request r, final Channel c) {
+        final RangeReadEntryProcessorV3 read = new RangeReadEntryProcessorV3(r, c, this);
+        final OrderedExecutor threadPool = RequestUtils.isHighPriority(r) ? highPriorityThreadPool : readThreadPool;
+
+        if (null == threadPool) {
+            read.run();
+        } else {
+            try {
+                threadPool.executeOrdered(r.getRangeReadRequest().getLedgerId(), read);
+            } catch (RejectedExecutionException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Failed to process request to read entries from {}:{}. Too many pending requests",
+                              r.getRangeReadRequest().getLedgerId(), r.getRangeReadRequest().getStartEntryId());
+                }
+                read.sendResponse(BookkeeperProtocol.RangeReadResponse.newBuilder()
+                    .setLedgerId(r.getRangeReadRequest().getLedgerId())
+                    .setStartEntryId(r.getRangeReadRequest().getStartEntryId())
+                    .setStatus(BookkeeperProtocol.StatusCode.ETOOMANYREQUESTS)
+                    .build());
+            }
+        }
+    }
+
     private void processStartTLSRequestV3(final BookkeeperProtocol.Request r, final Channel c) {
         BookkeeperProtocol.Response.Builder response = BookkeeperProtocol.Response.newBuilder();
         BookkeeperProtocol.BKPacketHeader.Builder header = BookkeeperProtocol.BKPacketHeader.newBuilder();
@@ -681,6 +829,14 @@ public class BookieRequestProcessor implements RequestProcessor {
         return waitTimeoutOnBackpressureMillis;
     }
 
+    int getRangeReadMaxEntries() {
+        return rangeReadMaxEntries;
+    }
+
+    long getRangeReadMaxSizeBytes() {
+        return rangeReadMaxSizeBytes;
+    }
+
     public void blacklistChannel(Channel channel) {
         blacklistedChannels
                 .ifPresent(x -> x.put(channel, true));
@@ -113,7 +113,7 @@ public class BookieServer {
 
         ByteBufAllocator allocator = getAllocator(conf);
         this.statsLogger = statsLogger;
-        this.nettyServer = new BookieNettyServer(this.conf, null, allocator);
+        this.nettyServer = new BookieNettyServer(this.conf, null, allocator, statsLogger.scope(SERVER_SCOPE));
         try {
             this.bookie = newBookie(conf, allocator, bookieServiceInfoProvider);
         } catch (IOException | KeeperException | InterruptedException | BookieException e) {
@@ -0,0 +1,158 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * A hashed timing wheel of request ids, used by {@link PerChannelBookieClient} to find the
+ * operations that may have timed out without scanning every pending completion.
+ *
+ * <p>Only the (id, deadline) pairs are stored, in primitive arrays that are reused from one
+ * rotation to the next, so scheduling a timeout does not allocate in the steady state and the
+ * wheel never retains a reference to a completion. Entries are not removed when the operation
+ * completes: the expiry callback is expected to look the id up and ignore ids that are no longer
+ * pending.
+ */
+final class CompletionTimeoutWheel {
+
+    private static final int NUM_STRIPES = 4;
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+
+    private final long tickNanos;
+    private final int numSlots;
+    private final Stripe[] stripes;
+
+    // last tick that has been fully expired, only advanced by expire()
+    private volatile long lastExpiredTick;
+
+    CompletionTimeoutWheel(long tickNanos, long maxTimeoutNanos, long nowNanos) {
+        this.tickNanos = tickNanos;
+        // span the longest timeout, so most ids are looked at only once
+        this.numSlots = (int) Math.max(4, Math.min(1024, maxTimeoutNanos / tickNanos + 2));
+        this.stripes = new Stripe[numSlots * NUM_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.lastExpiredTick = Math.floorDiv(nowNanos, tickNanos);
+    }
+
+    /**
+     * Schedule a timeout check of <i>id</i> at <i>deadlineNanos</i>.
+     */
+    void add(long id, long deadlineNanos) {
+        // deadlines that already passed are checked at the next expiry
+        add(id, deadlineNanos, lastExpiredTick + 1);
+    }
+
+    private void add(long id, long deadlineNanos, long minTick) {
+        long tick = Math.max(Math.floorDiv(deadlineNanos, tickNanos), minTick);
+        int slot = (int) Math.floorMod(tick, (long) numSlots);
+        stripes[slot * NUM_STRIPES + (int) (id & (NUM_STRIPES - 1))].add(id, deadlineNanos);
+    }
+
+    /**
+     * Pass every id whose deadline is at or before <i>nowNanos</i> to <i>onExpired</i>. Ids whose
+     * deadline is still in the future stay in the wheel.
+     *
+     * @return number of ids for which <i>onExpired</i> returned true
+     */
+    synchronized int expire(long nowNanos, LongPredicate onExpired) {
+        long nowTick = Math.floorDiv(nowNanos, tickNanos);
+        // a full rotation visits every slot, no need to go further
+        long firstTick = Math.max(lastExpiredTick + 1, nowTick - numSlots + 1);
+        int expired = 0;
+        for (long tick = firstTick; tick <= nowTick; tick++) {
+            int slot = (int) Math.floorMod(tick, (long) numSlots);
+            for (int s = 0; s < NUM_STRIPES; s++) {
+                expired += stripes[slot * NUM_STRIPES + s].expire(nowNanos, nowTick, onExpired);
+            }
+        }
+        if (nowTick > lastExpiredTick) {
+            lastExpiredTick = nowTick;
+        }
+        return expired;
+    }
+
+    private final class Stripe {
+        // entries added by request threads
+        private long[] ids;
+        private long[] deadlines;
+        private int size;
+        // entries being expired, swapped with the active arrays so that adds are not blocked
+        private long[] expiringIds;
+        private long[] expiringDeadlines;
+
+        synchronized void add(long id, long deadlineNanos) {
+            if (ids == null) {
+                ids = new long[INITIAL_SLOT_CAPACITY];
+                deadlines = new long[INITIAL_SLOT_CAPACITY];
+            } else if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            ids[size] = id;
+            deadlines[size] = deadlineNanos;
+            size++;
+        }
+
+        // only called by the enclosing expire(), which is synchronized
+        int expire(long nowNanos, long nowTick, LongPredicate onExpired) {
+            long[] toExpireIds;
+            long[] toExpireDeadlines;
+            int toExpire;
+            synchronized (this) {
+                if (size == 0) {
+                    return 0;
+                }
+                toExpireIds = ids;
+                toExpireDeadlines = deadlines;
+                toExpire = size;
+                ids = expiringIds;
+                deadlines = expiringDeadlines;
+                size = 0;
+                if (ids == null) {
+                    ids = new long[INITIAL_SLOT_CAPACITY];
+                    deadlines = new long[INITIAL_SLOT_CAPACITY];
+                }
+            }
+
+            int expired = 0;
+            for (int i = 0; i < toExpire; i++) {
+                if (toExpireDeadlines[i] <= nowNanos) {
+                    if (onExpired.test(toExpireIds[i])) {
+                        expired++;
+                    }
+                } else {
+                    // not due yet, it belongs to a later tick or rotation
+                    CompletionTimeoutWheel.this.add(toExpireIds[i], toExpireDeadlines[i], nowTick + 1);
+                }
+            }
+
+            synchronized (this) {
+                expiringIds = toExpireIds;
+                expiringDeadlines = toExpireDeadlines;
+            }
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+import org.apache.bookkeeper.stats.OpStatsLogger;
+
+/**
+ * Consolidates the flushes of the requests or responses written on a channel.
+ *
+ * <p>Every request and response is written with a flush, which costs a syscall. With flush consolidation,
+ * the flushes issued while the event loop has pending tasks are merged into a single flush, which is
+ * forced after at most a given number of flushes.
+ */
+final class FlushConsolidation {
+
+    static final String CONSOLIDATION_HANDLER_NAME = "flushConsolidation";
+    static final String STATS_HANDLER_NAME = "flushStats";
+
+    private FlushConsolidation() {}
+
+    /**
+     * Add the flush consolidation handlers at the tail of the pipeline, so that they see the messages
+     * written on the channel before they are encoded.
+     *
+     * @param pipeline the pipeline of the channel
+     * @param maxFlushes the max number of flushes consolidated into a single one
+     * @param writesPerFlushStats the stats of the number of messages written per actual flush
+     */
+    static void addLast(ChannelPipeline pipeline, int maxFlushes, OpStatsLogger writesPerFlushStats) {
+        pipeline.addLast(STATS_HANDLER_NAME, new WritesPerFlushStatsHandler(writesPerFlushStats));
+        pipeline.addLast(CONSOLIDATION_HANDLER_NAME, new FlushConsolidationHandler(maxFlushes, true));
+    }
+
+    /**
+     * Records the number of messages written between two flushes reaching the socket.
+     */
+    static class WritesPerFlushStatsHandler extends ChannelOutboundHandlerAdapter {
+
+        private final OpStatsLogger writesPerFlushStats;
+        // only accessed from the event loop of the channel
+        private long pendingWrites = 0;
+
+        WritesPerFlushStatsHandler(OpStatsLogger writesPerFlushStats) {
+            this.writesPerFlushStats = writesPerFlushStats;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            pendingWrites++;
+            super.write(ctx, msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            if (pendingWrites > 0) {
+                writesPerFlushStats.registerSuccessfulValue(pendingWrites);
+                pendingWrites = 0;
+            }
+            super.flush(ctx);
+        }
+    }
+}
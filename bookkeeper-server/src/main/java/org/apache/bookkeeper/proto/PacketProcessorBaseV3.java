@@ -53,6 +53,15 @@ public abstract class PacketProcessorBaseV3 extends SafeRunnable {
     }
 
     protected void sendResponse(StatusCode code, Object response, OpStatsLogger statsLogger) {
+        sendResponse(code, response, statsLogger, null);
+    }
+
+    /**
+     * Send a response, and run <i>onWritten</i>, if not null, once the response is no longer
+     * referenced by the channel, whether it was written or not. Responses wrapping buffers
+     * without copying them use it to release the buffers.
+     */
+    protected void sendResponse(StatusCode code, Object response, OpStatsLogger statsLogger, Runnable onWritten) {
         final long writeNanos = MathUtils.nowInNano();
 
         final long timeOut = requestProcessor.getWaitTimeoutOnBackpressureMillis();
@@ -82,6 +91,9 @@ public abstract class PacketProcessorBaseV3 extends SafeRunnable {
                 requestProcessor.getRequestStats().getChannelWriteStats()
                         .registerFailedEvent(MathUtils.elapsedNanos(writeNanos), TimeUnit.NANOSECONDS);
                 statsLogger.registerFailedEvent(MathUtils.elapsedNanos(enqueueNanos), TimeUnit.NANOSECONDS);
+                if (onWritten != null) {
+                    onWritten.run();
+                }
                 return;
             } else {
                 requestProcessor.invalidateBlacklist(channel);
@@ -104,6 +116,9 @@ public abstract class PacketProcessorBaseV3 extends SafeRunnable {
                 } else {
                     statsLogger.registerFailedEvent(MathUtils.elapsedNanos(enqueueNanos), TimeUnit.NANOSECONDS);
                 }
+                if (onWritten != null) {
+                    onWritten.run();
+                }
             }
         });
     }
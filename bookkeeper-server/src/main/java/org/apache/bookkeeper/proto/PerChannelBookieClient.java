@@ -79,6 +79,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiPredicate;
+import java.util.function.LongPredicate;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLPeerUnverifiedException;
 import lombok.SneakyThrows;
@@ -97,6 +98,7 @@ import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ForceLedgerCallba
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GetBookieInfoCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GetListOfEntriesOfLedgerCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntriesCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallbackCtx;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadLacCallback;
@@ -114,6 +116,10 @@ import org.apache.bookkeeper.proto.BookkeeperProtocol.GetListOfEntriesOfLedgerRe
 import org.apache.bookkeeper.proto.BookkeeperProtocol.GetListOfEntriesOfLedgerResponse;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.OperationType;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.ProtocolVersion;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadResponse;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.ReadLacRequest;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.ReadLacResponse;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest;
@@ -136,6 +142,7 @@ import org.apache.bookkeeper.util.ByteBufList;
 import org.apache.bookkeeper.util.MathUtils;
 import org.apache.bookkeeper.util.SafeRunnable;
 import org.apache.bookkeeper.util.StringUtils;
+import org.apache.bookkeeper.util.collections.ConcurrentLongHashMap;
 import org.apache.bookkeeper.util.collections.ConcurrentOpenHashMap;
 import org.apache.bookkeeper.util.collections.SynchronizedHashMultiMap;
 import org.slf4j.Logger;
@@ -181,6 +188,20 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     private final ConcurrentOpenHashMap<CompletionKey, CompletionValue> completionObjects =
         new ConcurrentOpenHashMap<CompletionKey, CompletionValue>();
 
+    // V3 requests have a unique txnId, so they are tracked by txnId alone. This avoids building a key
+    // object to look up each response, and lets timeouts be found through the wheel instead of a scan.
+    private final ConcurrentLongHashMap<CompletionValue> completionObjectsV3 =
+        new ConcurrentLongHashMap<CompletionValue>();
+
+    // V2 keys are not unique, so pending V2 requests are also given a txnId when timeouts are monitored,
+    // for the wheel to find them. Completing a V2 request still claims it from completionObjects.
+    private final ConcurrentLongHashMap<CompletionValue> completionObjectsV2ByTxnId =
+        new ConcurrentLongHashMap<CompletionValue>();
+
+    // txnIds of pending requests bucketed by deadline, null if timeouts are not monitored
+    private final CompletionTimeoutWheel completionTimeouts;
+    private final LongPredicate timeoutCheckByTxnId = this::maybeTimeout;
+
     // Map that hold duplicated read requests. The idea is to only use this map (synchronized) when there is a duplicate
     // read request for the same ledgerId/entryId
     private final SynchronizedHashMultiMap<CompletionKey, CompletionValue> completionObjectsV2Conflicts =
@@ -197,6 +218,26 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         help = "timeout stats of read entries requests"
     )
     private final OpStatsLogger readTimeoutOpLogger;
+    @StatsDoc(
+        name = BookKeeperClientStats.CHANNEL_RANGE_READ_OP,
+        help = "channel stats of range read entries requests"
+    )
+    private final OpStatsLogger rangeReadOpLogger;
+    @StatsDoc(
+        name = BookKeeperClientStats.CHANNEL_TIMEOUT_RANGE_READ,
+        help = "timeout stats of range read entries requests"
+    )
+    private final OpStatsLogger rangeReadTimeoutOpLogger;
+    @StatsDoc(
+        name = BookKeeperClientStats.CHANNEL_RANGE_ADD_OP,
+        help = "channel stats of range add entries requests"
+    )
+    private final OpStatsLogger rangeAddOpLogger;
+    @StatsDoc(
+        name = BookKeeperClientStats.CHANNEL_TIMEOUT_RANGE_ADD,
+        help = "timeout stats of range add entries requests"
+    )
+    private final OpStatsLogger rangeAddTimeoutOpLogger;
     @StatsDoc(
         name = BookKeeperClientStats.CHANNEL_ADD_OP,
         help = "channel stats of add entries requests"
@@ -257,6 +298,11 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         help = "timeout stats of start_tls requests"
     )
     private final OpStatsLogger startTLSTimeoutOpLogger;
+    @StatsDoc(
+        name = BookKeeperClientStats.CHANNEL_REQUESTS_PER_FLUSH,
+        help = "number of requests written per flush of the channel, when flushes are consolidated"
+    )
+    private final OpStatsLogger requestsPerFlushOpLogger;
     @StatsDoc(
         name = BookKeeperClientStats.CLIENT_CONNECT_TIMER,
         help = "channel stats of connect requests"
@@ -392,6 +438,14 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         this.addEntryTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getAddEntryTimeout());
         this.readEntryTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getReadEntryTimeout());
         this.getBookieInfoTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getBookieInfoTimeout());
+        if (conf.getAddEntryTimeout() > 0 || conf.getReadEntryTimeout() > 0) {
+            // same condition as the timeout monitor in BookieClientImpl
+            this.completionTimeouts = new CompletionTimeoutWheel(TimeUnit.SECONDS.toNanos(1),
+                    Math.max(getBookieInfoTimeoutNanos, Math.max(addEntryTimeoutNanos, readEntryTimeoutNanos)),
+                    MathUtils.nowInNano());
+        } else {
+            this.completionTimeouts = null;
+        }
         this.startTLSTimeout = conf.getStartTLSTimeout();
         this.useV2WireProtocol = conf.getUseV2WireProtocol();
         this.preserveMdcForTaskExecution = conf.getPreserveMdcForTaskExecution();
@@ -415,6 +469,10 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         getListOfEntriesOfLedgerCompletionOpLogger = statsLogger
                 .getOpStatsLogger(BookKeeperClientStats.GET_LIST_OF_ENTRIES_OF_LEDGER_OP);
         readTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_READ);
+        rangeReadOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_RANGE_READ_OP);
+        rangeReadTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_RANGE_READ);
+        rangeAddOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_RANGE_ADD_OP);
+        rangeAddTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_RANGE_ADD);
         addTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_ADD);
         writeLacTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_WRITE_LAC);
         forceLedgerTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_FORCE);
@@ -422,6 +480,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         getBookieInfoTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.TIMEOUT_GET_BOOKIE_INFO);
         startTLSOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_START_TLS_OP);
         startTLSTimeoutOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_TIMEOUT_START_TLS_OP);
+        requestsPerFlushOpLogger = statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_REQUESTS_PER_FLUSH);
         getListOfEntriesOfLedgerCompletionTimeoutOpLogger = statsLogger
                 .getOpStatsLogger(BookKeeperClientStats.TIMEOUT_GET_LIST_OF_ENTRIES_OF_LEDGER);
         exceptionCounter = statsLogger.getCounter(BookKeeperClientStats.NETTY_EXCEPTION_CNT);
@@ -518,7 +577,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     }
 
     protected long getNumPendingCompletionRequests() {
-        return completionObjects.size();
+        return completionObjects.size() + completionObjectsV3.size();
     }
 
     protected ChannelFuture connect() {
@@ -585,6 +644,10 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
                 pipeline.addLast("authHandler", new AuthHandler.ClientSideHandler(authProviderFactory, txnIdGenerator,
                             connectionPeer, useV2WireProtocol));
                 pipeline.addLast("mainhandler", PerChannelBookieClient.this);
+                if (conf.getClientFlushConsolidationMaxFlushes() > 1) {
+                    FlushConsolidation.addLast(pipeline, conf.getClientFlushConsolidationMaxFlushes(),
+                            requestsPerFlushOpLogger);
+                }
             }
         });
 
@@ -670,7 +733,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         final CompletionKey completionKey = new V3CompletionKey(txnId,
                                                                 OperationType.WRITE_LAC);
         // writeLac is mostly like addEntry hence uses addEntryTimeout
-        completionObjects.put(completionKey,
+        putCompletionKeyValue(completionKey,
                               new WriteLacCompletion(completionKey, cb,
                                                      ctx, lac));
 
@@ -712,7 +775,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         final CompletionKey completionKey = new V3CompletionKey(txnId,
                                                                 OperationType.FORCE_LEDGER);
         // force is mostly like addEntry hence uses addEntryTimeout
-        completionObjects.put(completionKey,
+        putCompletionKeyValue(completionKey,
                               new ForceLedgerCompletion(completionKey, cb,
                                                      ctx, ledgerId));
 
@@ -828,6 +891,62 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Range Adds. The entries are sent in a single v3 request and the callback
+     * is invoked once, with the id of the last entry of the range.
+     */
+    void addEntries(final long ledgerId, byte[] masterKey, final long startEntryId, List<ByteBufList> toSend,
+                    WriteCallback cb, Object ctx, final EnumSet<WriteFlag> writeFlags) {
+        final long lastEntryId = startEntryId + toSend.size() - 1;
+        if (useV2WireProtocol) {
+            LOG.error("Range adds are not supported by the v2 protocol, bookie {}", bookieId);
+            executor.executeOrdered(ledgerId, () -> {
+                cb.writeComplete(BKException.Code.IllegalOpException, ledgerId, lastEntryId, bookieId, ctx);
+            });
+            return;
+        }
+        final long txnId = getTxnId();
+        final CompletionKey completionKey = new V3CompletionKey(txnId, OperationType.RANGE_ADD_ENTRY);
+
+        // Build the request and calculate the total size to be included in the packet.
+        BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
+                .setVersion(ProtocolVersion.VERSION_THREE)
+                .setOperation(OperationType.RANGE_ADD_ENTRY)
+                .setTxnId(txnId);
+
+        RangeAddRequest.Builder rangeAddBuilder = RangeAddRequest.newBuilder()
+                .setLedgerId(ledgerId)
+                .setStartEntryId(startEntryId)
+                .setMasterKey(UnsafeByteOperations.unsafeWrap(masterKey));
+        for (ByteBufList entry : toSend) {
+            ByteString body = null;
+            if (entry.hasArray()) {
+                body = UnsafeByteOperations.unsafeWrap(entry.array(), entry.arrayOffset(), entry.readableBytes());
+            } else {
+                for (int i = 0; i < entry.size(); i++) {
+                    ByteString piece = UnsafeByteOperations.unsafeWrap(entry.getBuffer(i).nioBuffer());
+                    // use ByteString.concat to avoid byte[] allocation when entry has multiple ByteBufs
+                    body = (body == null) ? piece : body.concat(piece);
+                }
+            }
+            rangeAddBuilder.addBody(body);
+        }
+
+        if (!writeFlags.isEmpty()) {
+            rangeAddBuilder.setWriteFlags(WriteFlag.getWriteFlagsValue(writeFlags));
+        }
+
+        final Request request = withRequestContext(Request.newBuilder())
+                .setHeader(headerBuilder)
+                .setRangeAddRequest(rangeAddBuilder)
+                .build();
+
+        putCompletionKeyValue(completionKey,
+                              new RangeAddCompletion(completionKey, cb, ctx, ledgerId, startEntryId, lastEntryId));
+        // range adds time out on backpressure, like single adds
+        writeAndFlush(channel, completionKey, request, false);
+    }
+
     public void readLac(final long ledgerId, ReadLacCallback cb, Object ctx) {
         Object request = null;
         CompletionKey completionKey = null;
@@ -860,7 +979,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     public void getListOfEntriesOfLedger(final long ledgerId, GetListOfEntriesOfLedgerCallback cb) {
         final long txnId = getTxnId();
         final CompletionKey completionKey = new V3CompletionKey(txnId, OperationType.GET_LIST_OF_ENTRIES_OF_LEDGER);
-        completionObjects.put(completionKey, new GetListOfEntriesOfLedgerCompletion(completionKey, cb, ledgerId));
+        putCompletionKeyValue(completionKey, new GetListOfEntriesOfLedgerCompletion(completionKey, cb, ledgerId));
 
         // Build the request.
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder().setVersion(ProtocolVersion.VERSION_THREE)
@@ -983,10 +1102,53 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         writeAndFlush(channel, completionKey, request, allowFastFail);
     }
 
+    /**
+     * Range Reads.
+     */
+    public void readEntries(final long ledgerId,
+                            final long startEntryId,
+                            final int maxCount,
+                            final long maxSize,
+                            ReadEntriesCallback cb,
+                            Object ctx,
+                            int flags) {
+        if (useV2WireProtocol) {
+            LOG.error("Range reads are not supported by the v2 protocol, bookie {}", bookieId);
+            cb.readEntriesComplete(BKException.Code.IllegalOpException, ledgerId, startEntryId, null, ctx);
+            return;
+        }
+        final long txnId = getTxnId();
+        final CompletionKey completionKey = new V3CompletionKey(txnId, OperationType.RANGE_READ_ENTRY);
+
+        // Build the request and calculate the total size to be included in the packet.
+        BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
+                .setVersion(ProtocolVersion.VERSION_THREE)
+                .setOperation(OperationType.RANGE_READ_ENTRY)
+                .setTxnId(txnId);
+        if (((short) flags & BookieProtocol.FLAG_HIGH_PRIORITY) == BookieProtocol.FLAG_HIGH_PRIORITY) {
+            headerBuilder.setPriority(DEFAULT_HIGH_PRIORITY_VALUE);
+        }
+
+        RangeReadRequest.Builder rangeReadBuilder = RangeReadRequest.newBuilder()
+                .setLedgerId(ledgerId)
+                .setStartEntryId(startEntryId)
+                .setMaxCount(maxCount)
+                .setMaxSize(maxSize);
+
+        final Request request = withRequestContext(Request.newBuilder())
+                .setHeader(headerBuilder)
+                .setRangeReadRequest(rangeReadBuilder)
+                .build();
+
+        putCompletionKeyValue(completionKey,
+                              new RangeReadCompletion(completionKey, cb, ctx, ledgerId, startEntryId));
+        writeAndFlush(channel, completionKey, request);
+    }
+
     public void getBookieInfo(final long requested, GetBookieInfoCallback cb, Object ctx) {
         final long txnId = getTxnId();
         final CompletionKey completionKey = new V3CompletionKey(txnId, OperationType.GET_BOOKIE_INFO);
-        completionObjects.put(completionKey,
+        putCompletionKeyValue(completionKey,
                               new GetBookieInfoCompletion(
                                       completionKey, cb, ctx));
 
@@ -1012,9 +1174,13 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     };
 
     public void checkTimeoutOnPendingOperations() {
-        int timedOutOperations = completionObjects.removeIf(timeoutCheck);
-
-        timedOutOperations += completionObjectsV2Conflicts.removeIf(timeoutCheck);
+        int timedOutOperations;
+        if (completionTimeouts != null) {
+            timedOutOperations = completionTimeouts.expire(MathUtils.nowInNano(), timeoutCheckByTxnId);
+        } else {
+            timedOutOperations = completionObjects.removeIf(timeoutCheck);
+            timedOutOperations += completionObjectsV2Conflicts.removeIf(timeoutCheck);
+        }
 
         if (timedOutOperations > 0) {
             LOG.info("Timed-out {} operations to channel {} for {}",
@@ -1135,7 +1301,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
             ChannelPromise promise = channel.newPromise().addListener(future -> {
                 if (future.isSuccess()) {
                     nettyOpLogger.registerSuccessfulEvent(MathUtils.elapsedNanos(startTime), TimeUnit.NANOSECONDS);
-                    CompletionValue completion = completionObjects.get(key);
+                    CompletionValue completion = peekCompletionValue(key);
                     if (completion != null) {
                         completion.setOutstanding();
                     }
@@ -1155,12 +1321,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Removing completion key: {}", key);
         }
-        CompletionValue completion = completionObjects.remove(key);
+        CompletionValue completion = getCompletionValue(key);
         if (completion != null) {
             completion.errorOut();
-        } else {
-            // If there's no completion object here, try in the multimap
-            completionObjectsV2Conflicts.removeAny(key).ifPresent(c -> c.errorOut());
         }
     }
 
@@ -1168,12 +1331,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Removing completion key: {}", key);
         }
-        CompletionValue completion = completionObjects.remove(key);
+        CompletionValue completion = getCompletionValue(key);
         if (completion != null) {
             completion.errorOut(rc);
-        } else {
-            // If there's no completion object here, try in the multimap
-            completionObjectsV2Conflicts.removeAny(key).ifPresent(c -> c.errorOut(rc));
         }
     }
 
@@ -1210,6 +1370,12 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         for (CompletionKey key : completionObjects.keys()) {
             errorOut(key, rc);
         }
+        for (long txnId : completionObjectsV3.keys()) {
+            CompletionValue completion = completionObjectsV3.remove(txnId);
+            if (completion != null) {
+                completion.errorOut(rc);
+            }
+        }
     }
 
     void recordError() {
@@ -1447,8 +1613,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     private void readV3Response(final Response response) {
         final BKPacketHeader header = response.getHeader();
 
-        final CompletionKey key = newCompletionKey(header.getTxnId(), header.getOperation());
-        final CompletionValue completionValue = completionObjects.get(key);
+        final CompletionValue completionValue = completionObjectsV3.remove(header.getTxnId());
 
         if (null == completionValue) {
             // Unexpected response, so log it. The txnId should have been present.
@@ -1473,8 +1638,6 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
                 }
             });
         }
-
-        completionObjects.remove(key);
     }
 
     void initTLSHandshake() {
@@ -1568,6 +1731,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         protected long ledgerId;
         protected long entryId;
         protected long startTime;
+        // set while a V2 request is pending and its timeout is monitored, guarded by this
+        private long txnId = -1;
+        private CompletionKey completionKey = null;
 
         public CompletionValue(String operationName,
                                Object ctx,
@@ -1601,8 +1767,12 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
             }
         }
 
+        long timeoutNanos() {
+            return readEntryTimeoutNanos;
+        }
+
         boolean maybeTimeout() {
-            if (MathUtils.elapsedNanos(startTime) >= readEntryTimeoutNanos) {
+            if (MathUtils.elapsedNanos(startTime) >= timeoutNanos()) {
                 timeout();
                 return true;
             } else {
@@ -1936,6 +2106,134 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         }
     }
 
+    // visible for testing
+    class RangeReadCompletion extends CompletionValue {
+        final ReadEntriesCallback cb;
+
+        public RangeReadCompletion(final CompletionKey key,
+                                   final ReadEntriesCallback originalCallback,
+                                   final Object originalCtx,
+                                   long ledgerId, final long startEntryId) {
+            super("RangeRead", originalCtx, ledgerId, startEntryId,
+                  rangeReadOpLogger, rangeReadTimeoutOpLogger);
+
+            this.cb = new ReadEntriesCallback() {
+                    @Override
+                    public void readEntriesComplete(int rc, long ledgerId,
+                                                    long startEntryId, List<ByteBuf> entries,
+                                                    Object ctx) {
+                        logOpResult(rc);
+                        originalCallback.readEntriesComplete(rc,
+                                                             ledgerId, startEntryId,
+                                                             entries, originalCtx);
+                        key.release();
+                    }
+                };
+        }
+
+        @Override
+        public void errorOut() {
+            errorOut(BKException.Code.BookieHandleNotAvailableException);
+        }
+
+        @Override
+        public void errorOut(final int rc) {
+            errorOutAndRunCallback(
+                    () -> cb.readEntriesComplete(rc, ledgerId,
+                                                 entryId, null, ctx));
+        }
+
+        @Override
+        public void setOutstanding() {
+            readEntryOutstanding.inc();
+        }
+
+        @Override
+        public void handleV3Response(BookkeeperProtocol.Response response) {
+            readEntryOutstanding.dec();
+            RangeReadResponse rangeReadResponse = response.getRangeReadResponse();
+            StatusCode status = response.getStatus() == StatusCode.EOK
+                ? rangeReadResponse.getStatus() : response.getStatus();
+
+            if (LOG.isDebugEnabled()) {
+                logResponse(status, "ledger", ledgerId, "startEntry", entryId,
+                            "numEntries", rangeReadResponse.getBodyCount());
+            }
+
+            int rc = convertStatus(status, BKException.Code.ReadException);
+
+            List<ByteBuf> entries = new ArrayList<>(rangeReadResponse.getBodyCount());
+            for (int i = 0; i < rangeReadResponse.getBodyCount(); i++) {
+                entries.add(Unpooled.wrappedBuffer(rangeReadResponse.getBody(i).asReadOnlyByteBuffer()));
+            }
+            if (rangeReadResponse.hasMaxLAC() && (ctx instanceof ReadEntryCallbackCtx)) {
+                ((ReadEntryCallbackCtx) ctx).setLastAddConfirmed(rangeReadResponse.getMaxLAC());
+            }
+            cb.readEntriesComplete(rc, ledgerId, entryId, entries, ctx);
+        }
+    }
+
+    class RangeAddCompletion extends CompletionValue {
+        final WriteCallback cb;
+        final long lastEntryId;
+
+        public RangeAddCompletion(final CompletionKey key,
+                                  final WriteCallback originalCallback,
+                                  final Object originalCtx,
+                                  final long ledgerId, final long startEntryId,
+                                  final long lastEntryId) {
+            super("RangeAdd", originalCtx, ledgerId, startEntryId,
+                  rangeAddOpLogger, rangeAddTimeoutOpLogger);
+            this.lastEntryId = lastEntryId;
+            this.cb = new WriteCallback() {
+                    @Override
+                    public void writeComplete(int rc, long ledgerId, long entryId,
+                                              BookieId addr, Object ctx) {
+                        logOpResult(rc);
+                        originalCallback.writeComplete(rc, ledgerId, entryId, addr, ctx);
+                        key.release();
+                    }
+                };
+        }
+
+        @Override
+        long timeoutNanos() {
+            return addEntryTimeoutNanos;
+        }
+
+        @Override
+        public void errorOut() {
+            errorOut(BKException.Code.BookieHandleNotAvailableException);
+        }
+
+        @Override
+        public void errorOut(final int rc) {
+            errorOutAndRunCallback(
+                    () -> cb.writeComplete(rc, ledgerId, lastEntryId, bookieId, ctx));
+        }
+
+        @Override
+        public void setOutstanding() {
+            addEntryOutstanding.inc();
+        }
+
+        @Override
+        public void handleV3Response(BookkeeperProtocol.Response response) {
+            addEntryOutstanding.dec();
+            RangeAddResponse rangeAddResponse = response.getRangeAddResponse();
+            StatusCode status = response.getStatus() == StatusCode.EOK
+                ? rangeAddResponse.getStatus() : response.getStatus();
+
+            if (LOG.isDebugEnabled()) {
+                logResponse(status, "ledger", ledgerId, "startEntry", entryId,
+                            "lastEntry", lastEntryId);
+            }
+
+            int rc = convertStatus(status, BKException.Code.WriteException);
+            cb.writeComplete(rc, ledgerId, lastEntryId, bookieId, ctx);
+        }
+    }
+
     class StartTLSCompletion extends CompletionValue {
         final StartTLSCallback cb;
 
@@ -2008,13 +2306,8 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         }
 
         @Override
-        boolean maybeTimeout() {
-            if (MathUtils.elapsedNanos(startTime) >= getBookieInfoTimeoutNanos) {
-                timeout();
-                return true;
-            } else {
-                return false;
-            }
+        long timeoutNanos() {
+            return getBookieInfoTimeoutNanos;
         }
 
         @Override
@@ -2154,13 +2447,8 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         }
 
         @Override
-        boolean maybeTimeout() {
-            if (MathUtils.elapsedNanos(startTime) >= addEntryTimeoutNanos) {
-                timeout();
-                return true;
-            } else {
-                return false;
-            }
+        long timeoutNanos() {
+            return addEntryTimeoutNanos;
         }
 
         @Override
@@ -2286,6 +2574,22 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     }
 
     private void putCompletionKeyValue(CompletionKey key, CompletionValue value) {
+        if (key instanceof V3CompletionKey) {
+            completionObjectsV3.put(key.txnId, value);
+            if (completionTimeouts != null) {
+                completionTimeouts.add(key.txnId, value.startTime + value.timeoutNanos());
+            }
+            return;
+        }
+        if (completionTimeouts != null) {
+            long txnId = getTxnId();
+            synchronized (value) {
+                value.txnId = txnId;
+                value.completionKey = key;
+            }
+            completionObjectsV2ByTxnId.put(txnId, value);
+            completionTimeouts.add(txnId, value.startTime + value.timeoutNanos());
+        }
         CompletionValue existingValue = completionObjects.putIfAbsent(key, value);
         if (existingValue != null) { // will only happen for V2 keys, as V3 have unique txnid
             // There's a pending read request on same ledger/entry. Use the multimap to track all of them
@@ -2294,14 +2598,70 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     }
 
     private CompletionValue getCompletionValue(CompletionKey key) {
+        if (key instanceof V3CompletionKey) {
+            return completionObjectsV3.remove(key.txnId);
+        }
         CompletionValue completionValue = completionObjects.remove(key);
         if (completionValue == null) {
             // If there's no completion object here, try in the multimap
             completionValue = completionObjectsV2Conflicts.removeAny(key).orElse(null);
         }
+        if (completionValue != null && completionTimeouts != null) {
+            // the value was claimed above, so it can't be completed and reused while its txnId is read
+            completionObjectsV2ByTxnId.remove(completionValue.txnId, completionValue);
+        }
         return completionValue;
     }
 
+    private CompletionValue peekCompletionValue(CompletionKey key) {
+        if (key instanceof V3CompletionKey) {
+            return completionObjectsV3.get(key.txnId);
+        }
+        return completionObjects.get(key);
+    }
+
+    private boolean maybeTimeout(long txnId) {
+        CompletionValue completionValue = completionObjectsV3.get(txnId);
+        if (completionValue != null) {
+            long deadline = completionValue.startTime + completionValue.timeoutNanos();
+            if (deadline - MathUtils.nowInNano() > 0) {
+                completionTimeouts.add(txnId, deadline);
+                return false;
+            }
+            // a response may be racing with the timeout, only the one that removes the value completes it
+            if (!completionObjectsV3.remove(txnId, completionValue)) {
+                return false;
+            }
+            completionValue.timeout();
+            return true;
+        }
+        completionValue = completionObjectsV2ByTxnId.get(txnId);
+        if (completionValue == null) {
+            // already completed
+            return false;
+        }
+        synchronized (completionValue) {
+            if (completionValue.txnId != txnId) {
+                // completed, and the value was recycled for another request
+                return false;
+            }
+            long deadline = completionValue.startTime + completionValue.timeoutNanos();
+            if (deadline - MathUtils.nowInNano() > 0) {
+                completionTimeouts.add(txnId, deadline);
+                return false;
+            }
+            // as for responses, the value is claimed by removing it from completionObjects or the conflicts
+            CompletionKey key = completionValue.completionKey;
+            if (!completionObjects.remove(key, completionValue)
+                    && !completionObjectsV2Conflicts.remove(key, completionValue)) {
+                return false;
+            }
+            completionObjectsV2ByTxnId.remove(txnId, completionValue);
+        }
+        completionValue.timeout();
+        return true;
+    }
+
     private long getTxnId() {
         return txnIdGenerator.incrementAndGet();
     }
@@ -2535,7 +2895,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         assert state == ConnectionState.CONNECTING;
         final long txnId = getTxnId();
         final CompletionKey completionKey = new V3CompletionKey(txnId, OperationType.START_TLS);
-        completionObjects.put(completionKey,
+        putCompletionKeyValue(completionKey,
                               new StartTLSCompletion(completionKey));
         BookkeeperProtocol.Request.Builder h = withRequestContext(BookkeeperProtocol.Request.newBuilder());
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import com.google.common.base.Stopwatch;
+import com.google.protobuf.UnsafeByteOperations;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.util.MathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A processor for v3 range read requests. It reads consecutive entries of a ledger,
+ * starting at the requested entry, until either the count or the size limit of the
+ * request is reached or the bookie has no more entries to return. Both limits are capped
+ * by the bookie, so that the response always fits in a frame.
+ *
+ * <p>Entries are added to the response without being copied, and released once the
+ * response has been written.
+ */
+class RangeReadEntryProcessorV3 extends PacketProcessorBaseV3 {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RangeReadEntryProcessorV3.class);
+
+    // protobuf tag and length of each entry of the response
+    private static final int ENTRY_OVERHEAD_BYTES = 8;
+
+    protected final RangeReadRequest rangeReadRequest;
+    protected final long ledgerId;
+    protected final long startEntryId;
+    private final List<ByteBuf> entryBodies = new ArrayList<>();
+
+    public RangeReadEntryProcessorV3(Request request,
+                                     Channel channel,
+                                     BookieRequestProcessor requestProcessor) {
+        super(request, channel, requestProcessor);
+        requestProcessor.onReadRequestStart(channel);
+
+        this.rangeReadRequest = request.getRangeReadRequest();
+        this.ledgerId = rangeReadRequest.getLedgerId();
+        this.startEntryId = rangeReadRequest.getStartEntryId();
+    }
+
+    private RangeReadResponse getRangeReadResponse() {
+        final Stopwatch startTimeSw = Stopwatch.createStarted();
+        final RangeReadResponse.Builder response = RangeReadResponse.newBuilder()
+            .setLedgerId(ledgerId)
+            .setStartEntryId(startEntryId);
+
+        if (startEntryId < 0 || rangeReadRequest.getMaxCount() <= 0) {
+            return buildResponse(response, StatusCode.EBADREQ, startTimeSw);
+        }
+
+        final int maxCount = Math.min(rangeReadRequest.getMaxCount(), requestProcessor.getRangeReadMaxEntries());
+        final long maxSize = Math.min(rangeReadRequest.getMaxSize(), requestProcessor.getRangeReadMaxSizeBytes());
+        long readBytes = 0;
+        long entryId = startEntryId;
+        try {
+            while (response.getBodyCount() < maxCount) {
+                ByteBuf entryBody;
+                try {
+                    entryBody = requestProcessor.getBookie().readEntry(ledgerId, entryId);
+                } catch (Bookie.NoEntryException e) {
+                    if (response.getBodyCount() == 0) {
+                        throw e;
+                    }
+                    // return what we have read so far, the client will ask again for the rest
+                    break;
+                }
+                int entrySize = entryBody.readableBytes() + ENTRY_OVERHEAD_BYTES;
+                if (response.getBodyCount() > 0 && readBytes + entrySize > maxSize) {
+                    ReferenceCountUtil.release(entryBody);
+                    break;
+                }
+                entryBodies.add(entryBody);
+                response.addBody(UnsafeByteOperations.unsafeWrap(entryBody.nioBuffer()));
+                readBytes += entrySize;
+                entryId++;
+            }
+            response.setMaxLAC(requestProcessor.getBookie().readLastAddConfirmed(ledgerId));
+            return buildResponse(response, StatusCode.EOK, startTimeSw);
+        } catch (Bookie.NoLedgerException e) {
+            LOG.info("No ledger found while reading entries from: {} of ledger: {}", startEntryId, ledgerId);
+            return buildResponse(response, StatusCode.ENOLEDGER, startTimeSw);
+        } catch (Bookie.NoEntryException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("No entry found while reading entries from: {} of ledger: {}", startEntryId, ledgerId);
+            }
+            return buildResponse(response, StatusCode.ENOENTRY, startTimeSw);
+        } catch (IOException e) {
+            LOG.error("IOException while reading entry: {} from ledger {} ", entryId, ledgerId, e);
+            return buildResponse(response, StatusCode.EIO, startTimeSw);
+        }
+    }
+
+    @Override
+    public void safeRun() {
+        requestProcessor.getRequestStats().getReadEntrySchedulingDelayStats().registerSuccessfulEvent(
+            MathUtils.elapsedNanos(enqueueNanos), TimeUnit.NANOSECONDS);
+
+        if (!isVersionCompatible()) {
+            RangeReadResponse response = RangeReadResponse.newBuilder()
+                .setLedgerId(ledgerId)
+                .setStartEntryId(startEntryId)
+                .setStatus(StatusCode.EBADVERSION)
+                .build();
+            sendResponse(response);
+            return;
+        }
+
+        sendResponse(getRangeReadResponse());
+    }
+
+    private RangeReadResponse buildResponse(RangeReadResponse.Builder responseBuilder,
+                                            StatusCode statusCode,
+                                            Stopwatch startTimeSw) {
+        long elapsedNanos = startTimeSw.elapsed(TimeUnit.NANOSECONDS);
+        if (StatusCode.EOK == statusCode) {
+            requestProcessor.getRequestStats().getRangeReadEntryStats()
+                .registerSuccessfulEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            // do not return partial results along with an error
+            responseBuilder.clearBody();
+            releaseEntryBodies();
+            requestProcessor.getRequestStats().getRangeReadEntryStats()
+                .registerFailedEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+        responseBuilder.setStatus(statusCode);
+        return responseBuilder.build();
+    }
+
+    void sendResponse(RangeReadResponse rangeReadResponse) {
+        Response.Builder response = Response.newBuilder()
+                .setHeader(getHeader())
+                .setStatus(rangeReadResponse.getStatus())
+                .setRangeReadResponse(rangeReadResponse);
+        sendResponse(response.getStatus(),
+                     response.build(),
+                     requestProcessor.getRequestStats().getRangeReadRequestStats(),
+                     this::releaseEntryBodies);
+        requestProcessor.onReadRequestFinish();
+    }
+
+    private void releaseEntryBodies() {
+        for (ByteBuf entryBody : entryBodies) {
+            ReferenceCountUtil.release(entryBody);
+        }
+        entryBodies.clear();
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.bookkeeper.proto;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY_BLOCKED;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY_BLOCKED_WAIT;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY_DIGEST_MISMATCH;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY_IN_PROGRESS;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY_REQUEST;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.CATEGORY_SERVER;
@@ -32,6 +33,10 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.GET_BOOKIE_INFO
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.GET_BOOKIE_INFO_REQUEST;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.GET_LIST_OF_ENTRIES_OF_LEDGER;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.GET_LIST_OF_ENTRIES_OF_LEDGER_REQUEST;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.RANGE_ADD_ENTRY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.RANGE_ADD_ENTRY_REQUEST;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.RANGE_READ_ENTRY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.RANGE_READ_ENTRY_REQUEST;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.READ_ENTRY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.READ_ENTRY_BLOCKED;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.READ_ENTRY_BLOCKED_WAIT;
@@ -135,6 +140,28 @@ public class RequestStats {
         help = "operation stats of ReadEntry scheduling delays on a bookie"
     )
     final OpStatsLogger readEntrySchedulingDelayStats;
+    @StatsDoc(
+        name = RANGE_READ_ENTRY_REQUEST,
+        help = "request stats of RangeReadEntry on a bookie"
+    )
+    final OpStatsLogger rangeReadRequestStats;
+    @StatsDoc(
+        name = RANGE_READ_ENTRY,
+        help = "operation stats of RangeReadEntry on a bookie",
+        parent = RANGE_READ_ENTRY_REQUEST
+    )
+    final OpStatsLogger rangeReadEntryStats;
+    @StatsDoc(
+        name = RANGE_ADD_ENTRY_REQUEST,
+        help = "request stats of RangeAddEntry on a bookie"
+    )
+    final OpStatsLogger rangeAddRequestStats;
+    @StatsDoc(
+        name = RANGE_ADD_ENTRY,
+        help = "operation stats of RangeAddEntry on a bookie",
+        parent = RANGE_ADD_ENTRY_REQUEST
+    )
+    final OpStatsLogger rangeAddEntryStats;
     @StatsDoc(
         name = READ_ENTRY_LONG_POLL_PRE_WAIT,
         help = "operation stats of LongPoll Reads pre wait time on a bookie",
@@ -165,6 +192,11 @@ public class RequestStats {
         help = "total NOENTRY errors of reading last entry on a bookie"
     )
     final Counter readLastEntryNoEntryErrorCounter;
+    @StatsDoc(
+        name = ADD_ENTRY_DIGEST_MISMATCH,
+        help = "total AddEntry requests rejected on a bookie because the digest of the entry didn't match"
+    )
+    final Counter addEntryDigestMismatchCounter;
     @StatsDoc(
         name = WRITE_LAC_REQUEST,
         help = "request stats of WriteLac on a bookie"
@@ -235,11 +267,16 @@ public class RequestStats {
         this.fenceReadRequestStats = statsLogger.getOpStatsLogger(READ_ENTRY_FENCE_REQUEST);
         this.fenceReadWaitStats = statsLogger.getOpStatsLogger(READ_ENTRY_FENCE_WAIT);
         this.readEntrySchedulingDelayStats = statsLogger.getOpStatsLogger(READ_ENTRY_SCHEDULING_DELAY);
+        this.rangeReadEntryStats = statsLogger.getOpStatsLogger(RANGE_READ_ENTRY);
+        this.rangeReadRequestStats = statsLogger.getOpStatsLogger(RANGE_READ_ENTRY_REQUEST);
+        this.rangeAddEntryStats = statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY);
+        this.rangeAddRequestStats = statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY_REQUEST);
         this.longPollPreWaitStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_PRE_WAIT);
         this.longPollWaitStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_WAIT);
         this.longPollReadStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_READ);
         this.longPollReadRequestStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_REQUEST);
         this.readLastEntryNoEntryErrorCounter = statsLogger.getCounter(READ_LAST_ENTRY_NOENTRY_ERROR);
+        this.addEntryDigestMismatchCounter = statsLogger.getCounter(ADD_ENTRY_DIGEST_MISMATCH);
         this.writeLacStats = statsLogger.getOpStatsLogger(WRITE_LAC);
         this.writeLacRequestStats = statsLogger.getOpStatsLogger(WRITE_LAC_REQUEST);
         this.readLacStats = statsLogger.getOpStatsLogger(READ_LAC);
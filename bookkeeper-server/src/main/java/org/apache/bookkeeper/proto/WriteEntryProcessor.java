@@ -23,10 +23,12 @@ import io.netty.channel.Channel;
 import io.netty.util.Recycler;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.bookkeeper.bookie.BookieException;
 import org.apache.bookkeeper.bookie.BookieException.OperationRejectedException;
+import org.apache.bookkeeper.common.util.OrderedExecutor;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookieProtocol.ParsedAddRequest;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
@@ -71,6 +73,47 @@ class WriteEntryProcessor extends PacketProcessorBase<ParsedAddRequest> implemen
         }
 
         startTimeNanos = MathUtils.nowInNano();
+        if (requestProcessor.isEntryDigestVerificationEnabled()) {
+            OrderedExecutor verificationThreadPool = requestProcessor.getDigestVerificationThreadPool();
+            if (verificationThreadPool != null) {
+                try {
+                    // entries of the same ledger are verified, and then added, in the order they were received
+                    verificationThreadPool.executeOrdered(request.getLedgerId(), this::verifyAndAddEntry);
+                } catch (RejectedExecutionException e) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Failed to verify entry {}@{}. Too many pending verifications",
+                                  request.getEntryId(), request.getLedgerId());
+                    }
+                    rejectEntry(BookieProtocol.ETOOMANYREQUESTS);
+                }
+            } else {
+                verifyAndAddEntry();
+            }
+        } else {
+            addEntry();
+        }
+    }
+
+    private void verifyAndAddEntry() {
+        if (requestProcessor.verifyEntryDigest(request.getLedgerId(), request.getEntryId(), request.getData())) {
+            addEntry();
+            return;
+        }
+        LOG.error("Digest mismatch for entry {}@{}, rejecting it", request.getEntryId(), request.getLedgerId());
+        rejectEntry(BookieProtocol.EBADREQ);
+    }
+
+    private void rejectEntry(int rc) {
+        request.getData().release();
+        requestProcessor.getRequestStats().getAddEntryStats()
+            .registerFailedEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
+        sendResponse(rc,
+                     ResponseBuilder.buildErrorResponse(rc, request),
+                     requestProcessor.getRequestStats().getAddRequestStats());
+        request.recycle();
+    }
+
+    private void addEntry() {
         int rc = BookieProtocol.EOK;
         ByteBuf addData = request.getData();
         try {
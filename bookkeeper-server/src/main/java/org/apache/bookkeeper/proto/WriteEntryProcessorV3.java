@@ -26,11 +26,13 @@ import io.netty.channel.Channel;
 
 import java.io.IOException;
 import java.util.EnumSet;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.bookkeeper.bookie.BookieException;
 import org.apache.bookkeeper.bookie.BookieException.OperationRejectedException;
 import org.apache.bookkeeper.client.api.WriteFlag;
+import org.apache.bookkeeper.common.util.OrderedExecutor;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse;
@@ -118,6 +120,12 @@ class WriteEntryProcessorV3 extends PacketProcessorBaseV3 {
         StatusCode status = null;
         byte[] masterKey = addRequest.getMasterKey().toByteArray();
         ByteBuf entryToAdd = Unpooled.wrappedBuffer(addRequest.getBody().asReadOnlyByteBuffer());
+        if (requestProcessor.isEntryDigestVerificationEnabled()
+                && !requestProcessor.verifyEntryDigest(ledgerId, entryId, entryToAdd)) {
+            logger.error("Digest mismatch for entry {}@{}, rejecting it", entryId, ledgerId);
+            addResponse.setStatus(StatusCode.EBADREQ);
+            return addResponse.build();
+        }
         try {
             if (RequestUtils.hasFlag(addRequest, AddRequest.Flag.RECOVERY_ADD)) {
                 requestProcessor.getBookie().recoveryAddEntry(entryToAdd, wcb, channel, masterKey);
@@ -162,19 +170,46 @@ class WriteEntryProcessorV3 extends PacketProcessorBaseV3 {
 
     @Override
     public void safeRun() {
+        OrderedExecutor verificationThreadPool = requestProcessor.getDigestVerificationThreadPool();
+        if (null == verificationThreadPool) {
+            addEntry();
+            return;
+        }
+        AddRequest addRequest = request.getAddRequest();
+        try {
+            // entries of the same ledger are verified, and then added, in the order they were received
+            verificationThreadPool.executeOrdered(addRequest.getLedgerId(), this::addEntry);
+        } catch (RejectedExecutionException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to verify entry {}@{}. Too many pending verifications",
+                        addRequest.getEntryId(), addRequest.getLedgerId());
+            }
+            sendAddResponse(AddResponse.newBuilder()
+                    .setLedgerId(addRequest.getLedgerId())
+                    .setEntryId(addRequest.getEntryId())
+                    .setStatus(StatusCode.ETOOMANYREQUESTS)
+                    .build());
+        }
+    }
+
+    private void addEntry() {
         AddResponse addResponse = getAddResponse();
         if (null != addResponse) {
             // This means there was an error and we should send this back.
-            Response.Builder response = Response.newBuilder()
-                    .setHeader(getHeader())
-                    .setStatus(addResponse.getStatus())
-                    .setAddResponse(addResponse);
-            Response resp = response.build();
-            sendResponse(addResponse.getStatus(), resp,
-                         requestProcessor.getRequestStats().getAddRequestStats());
+            sendAddResponse(addResponse);
         }
     }
 
+    private void sendAddResponse(AddResponse addResponse) {
+        Response.Builder response = Response.newBuilder()
+                .setHeader(getHeader())
+                .setStatus(addResponse.getStatus())
+                .setAddResponse(addResponse);
+        Response resp = response.build();
+        sendResponse(addResponse.getStatus(), resp,
+                     requestProcessor.getRequestStats().getAddRequestStats());
+    }
+
     @Override
     protected void sendResponse(StatusCode code, Object response, OpStatsLogger statsLogger) {
         super.sendResponse(code, response, statsLogger);
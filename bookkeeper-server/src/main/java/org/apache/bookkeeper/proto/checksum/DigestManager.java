@@ -162,6 +162,11 @@ public abstract class DigestManager {
 
     private void verifyDigest(long entryId, ByteBuf dataReceived, boolean skipEntryIdCheck)
             throws BKDigestMatchException {
+        verifyDigest(ledgerId, entryId, dataReceived, skipEntryIdCheck);
+    }
+
+    private void verifyDigest(long ledgerId, long entryId, ByteBuf dataReceived, boolean skipEntryIdCheck)
+            throws BKDigestMatchException {
 
         if ((METADATA_LENGTH + macCodeLength) > dataReceived.readableBytes()) {
             logger.error("Data received is smaller than the minimum for this digest type. "
@@ -252,6 +257,21 @@ public abstract class DigestManager {
         return dataReceived;
     }
 
+    /**
+     * Verify that the digest of an entry of the given ledger matches, whatever the ledger
+     * this digest manager was created for. This lets a single digest manager verify the
+     * entries of any ledger, as long as the digest doesn't depend on the ledger password.
+     *
+     * @param ledgerId
+     * @param entryId
+     * @param dataReceived
+     * @throws BKDigestMatchException
+     */
+    public void verifyDigest(long ledgerId, long entryId, ByteBuf dataReceived)
+            throws BKDigestMatchException {
+        verifyDigest(ledgerId, entryId, dataReceived, false);
+    }
+
     /**
      * A representation of RecoveryData.
      */
@@ -60,7 +60,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -70,6 +72,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -133,6 +136,10 @@ public class Auditor implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(Auditor.class);
     private static final int MAX_CONCURRENT_REPLICAS_CHECK_LEDGER_REQUESTS = 100;
     private static final int REPLICAS_CHECK_TIMEOUT_IN_SECS = 120;
+    // names of the audit checks whose progress is checkpointed in the underreplication manager
+    static final String CHECK_ALL_LEDGERS_CURSOR = "checkAllLedgers";
+    static final String PLACEMENT_POLICY_CHECK_CURSOR = "placementPolicyCheck";
+    static final String REPLICAS_CHECK_CURSOR = "replicasCheck";
     private static final BitSet EMPTY_BITSET = new BitSet();
     private final ServerConfiguration conf;
     private final BookKeeper bkc;
@@ -1195,21 +1202,9 @@ public class Auditor implements AutoCloseable {
         try {
             final LedgerChecker checker = new LedgerChecker(localClient);
 
-            final CompletableFuture<Void> processFuture = new CompletableFuture<>();
-
-            Processor<Long> checkLedgersProcessor = (ledgerId, callback) -> {
-                try {
-                    if (!ledgerUnderreplicationManager.isLedgerReplicationEnabled()) {
-                        LOG.info("Ledger rereplication has been disabled, aborting periodic check");
-                        FutureUtils.complete(processFuture, null);
-                        return;
-                    }
-                } catch (UnavailableException ue) {
-                    LOG.error("Underreplication manager unavailable running periodic check", ue);
-                    FutureUtils.complete(processFuture, null);
-                    return;
-                }
+            final AtomicBoolean stopped = new AtomicBoolean(false);
 
+            Processor<Long> checkLedgersProcessor = stopWhenReplicationDisabled((ledgerId, callback) -> {
                 localAdmin.asyncOpenLedgerNoRecovery(ledgerId, (rc, lh, ctx) -> {
                     if (Code.OK == rc) {
                         checker.checkLedger(lh,
@@ -1232,17 +1227,12 @@ public class Auditor implements AutoCloseable {
                         callback.processResult(rc, null, null);
                     }
                 }, null);
-            };
+            }, stopped);
 
-            ledgerManager.asyncProcessLedgers(checkLedgersProcessor,
-                (rc, path, ctx) -> {
-                    if (Code.OK == rc) {
-                        FutureUtils.complete(processFuture, null);
-                    } else {
-                        FutureUtils.completeExceptionally(processFuture, BKException.create(rc));
-                    }
-                }, null, BKException.Code.OK, BKException.Code.ReadException);
-            FutureUtils.result(processFuture, BKException.HANDLER);
+            int rc = processLedgersIncrementally(CHECK_ALL_LEDGERS_CURSOR, checkLedgersProcessor, stopped);
+            if (Code.OK != rc) {
+                throw BKException.create(rc);
+            }
             try {
                 ledgerUnderreplicationManager.setCheckAllLedgersCTime(System.currentTimeMillis());
             } catch (UnavailableException ue) {
@@ -1254,8 +1244,116 @@ public class Auditor implements AutoCloseable {
         }
     }
 
+    /**
+     * Wrap a processor of the ledgers to stop processing them once the ledger replication is disabled.
+     *
+     * @param processor processor invoked for every ledger while the replication is enabled
+     * @param stopped set when the replication is found disabled, or its state can't be read
+     */
+    @VisibleForTesting
+    Processor<Long> stopWhenReplicationDisabled(Processor<Long> processor, AtomicBoolean stopped) {
+        return (ledgerId, callback) -> {
+            try {
+                if (!ledgerUnderreplicationManager.isLedgerReplicationEnabled()) {
+                    if (stopped.compareAndSet(false, true)) {
+                        LOG.info("Ledger rereplication has been disabled, aborting periodic check");
+                    }
+                    callback.processResult(Code.OK, null, null);
+                    return;
+                }
+            } catch (UnavailableException ue) {
+                if (stopped.compareAndSet(false, true)) {
+                    LOG.error("Underreplication manager unavailable running periodic check", ue);
+                }
+                callback.processResult(Code.OK, null, null);
+                return;
+            }
+            processor.process(ledgerId, callback);
+        };
+    }
+
+    /**
+     * Process all the ledgers range by range, in ascending ledger id order, with at most
+     * auditorMaxConcurrentLedgerChecks ledgers in progress. The progress of the check is
+     * checkpointed in the underreplication manager after each range, so that a new auditor
+     * resumes the check after a failover instead of starting it from scratch.
+     *
+     * @param checkName name of the check, used to store its progress
+     * @param processor processor invoked for every ledger
+     * @param stopped when set by the processor, no more ledgers are processed and the progress
+     *                of the ranges already completed is kept for the next run
+     * @return the result code of processing the ledgers
+     */
+    @VisibleForTesting
+    int processLedgersIncrementally(String checkName, Processor<Long> processor, AtomicBoolean stopped)
+            throws InterruptedException, IOException {
+        final long cursor = getAuditCheckCursor(checkName);
+        final Semaphore maxConcurrentSemaphore = new Semaphore(conf.getAuditorMaxConcurrentLedgerChecks());
+        LedgerRangeIterator ledgerRangeIterator = ledgerManager.getLedgerRanges(zkOpTimeoutMs, cursor + 1);
+        while (!stopped.get() && ledgerRangeIterator.hasNext()) {
+            NavigableSet<Long> ledgersInRange = ledgersAfterCursor(ledgerRangeIterator.next(), cursor);
+            if (ledgersInRange.isEmpty()) {
+                continue;
+            }
+            CompletableFuture<Integer> rangeResult = new CompletableFuture<>();
+            MultiCallback mcb = new MultiCallback(ledgersInRange.size(),
+                    (rc, path, ctx) -> rangeResult.complete(rc), null, Code.OK, Code.ReadException);
+            for (Long ledgerId : ledgersInRange) {
+                if (stopped.get()) {
+                    mcb.processResult(Code.OK, null, null);
+                    continue;
+                }
+                maxConcurrentSemaphore.acquire();
+                processor.process(ledgerId, (rc, path, ctx) -> {
+                    maxConcurrentSemaphore.release();
+                    mcb.processResult(rc, path, ctx);
+                });
+            }
+            int rc;
+            try {
+                rc = rangeResult.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+            if (rc != Code.OK) {
+                return rc;
+            }
+            if (!stopped.get()) {
+                setAuditCheckCursor(checkName, ledgersInRange.last());
+            }
+        }
+        if (!stopped.get()) {
+            setAuditCheckCursor(checkName, -1);
+        }
+        return Code.OK;
+    }
+
+    private static NavigableSet<Long> ledgersAfterCursor(LedgerRange ledgerRange, long cursor) {
+        return new TreeSet<>(ledgerRange.getLedgers()).tailSet(cursor, false);
+    }
+
+    private long getAuditCheckCursor(String checkName) {
+        try {
+            long cursor = ledgerUnderreplicationManager.getAuditCheckCursor(checkName);
+            if (cursor >= 0) {
+                LOG.info("Resuming {} after ledger {}", checkName, cursor);
+            }
+            return cursor;
+        } catch (UnavailableException ue) {
+            LOG.warn("Failed to read the progress of {}, checking all the ledgers", checkName, ue);
+            return -1;
+        }
+    }
+
+    private void setAuditCheckCursor(String checkName, long lastCheckedLedgerId) {
+        try {
+            ledgerUnderreplicationManager.setAuditCheckCursor(checkName, lastCheckedLedgerId);
+        } catch (UnavailableException ue) {
+            LOG.warn("Failed to store the progress of {}", checkName, ue);
+        }
+    }
+
     void placementPolicyCheck() throws BKAuditException {
-        final CountDownLatch placementPolicyCheckLatch = new CountDownLatch(1);
         this.numOfLedgersFoundNotAdheringInPlacementPolicyCheck.set(0);
         this.numOfLedgersFoundSoftlyAdheringInPlacementPolicyCheck.set(0);
         this.numOfClosedLedgersAuditedInPlacementPolicyCheck.set(0);
@@ -1346,25 +1444,19 @@ public class Auditor implements AutoCloseable {
                 });
             }
         };
-        // Reading the result after processing all the ledgers
-        final List<Integer> resultCode = new ArrayList<Integer>(1);
-        ledgerManager.asyncProcessLedgers(ledgerProcessor, new AsyncCallback.VoidCallback() {
-
-            @Override
-            public void processResult(int rc, String s, Object obj) {
-                resultCode.add(rc);
-                placementPolicyCheckLatch.countDown();
-            }
-        }, null, BKException.Code.OK, BKException.Code.ReadException);
+        int resultCode;
         try {
-            placementPolicyCheckLatch.await();
+            resultCode = processLedgersIncrementally(PLACEMENT_POLICY_CHECK_CURSOR, ledgerProcessor,
+                    new AtomicBoolean(false));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new BKAuditException("Exception while doing placementPolicy check", e);
+        } catch (IOException e) {
+            throw new BKAuditException("Exception while doing placementPolicy check", e);
         }
-        if (!resultCode.contains(BKException.Code.OK)) {
+        if (resultCode != BKException.Code.OK) {
             throw new BKAuditException("Exception while doing placementPolicy check",
-                    BKException.create(resultCode.get(0)));
+                    BKException.create(resultCode));
         }
         try {
             ledgerUnderreplicationManager.setPlacementPolicyCheckCTime(System.currentTimeMillis());
@@ -1739,8 +1831,9 @@ public class Auditor implements AutoCloseable {
                     new ConcurrentHashMap<Long, MissingEntriesInfoOfLedger>();
         ConcurrentHashMap<Long, MissingEntriesInfoOfLedger> ledgersWithUnavailableBookies =
                     new ConcurrentHashMap<Long, MissingEntriesInfoOfLedger>();
-        LedgerRangeIterator ledgerRangeIterator = ledgerManager.getLedgerRanges(zkOpTimeoutMs);
         final Semaphore maxConcurrentSemaphore = new Semaphore(MAX_CONCURRENT_REPLICAS_CHECK_LEDGER_REQUESTS);
+        final long cursor = getAuditCheckCursor(REPLICAS_CHECK_CURSOR);
+        LedgerRangeIterator ledgerRangeIterator = ledgerManager.getLedgerRanges(zkOpTimeoutMs, cursor + 1);
         while (true) {
             LedgerRange ledgerRange = null;
             try {
@@ -1758,7 +1851,10 @@ public class Auditor implements AutoCloseable {
             numLedgersFoundHavingNoReplicaOfAnEntry.set(0);
             numLedgersFoundHavingLessThanAQReplicasOfAnEntry.set(0);
             numLedgersFoundHavingLessThanWQReplicasOfAnEntry.set(0);
-            Set<Long> ledgersInRange = ledgerRange.getLedgers();
+            NavigableSet<Long> ledgersInRange = ledgersAfterCursor(ledgerRange, cursor);
+            if (ledgersInRange.isEmpty()) {
+                continue;
+            }
             int numOfLedgersInRange = ledgersInRange.size();
             // Final result after processing all the ledgers
             final AtomicInteger resultCode = new AtomicInteger();
@@ -1828,7 +1924,9 @@ public class Auditor implements AutoCloseable {
                 throw new BKAuditException("Exception while doing replicas check",
                         BKException.create(resultCodeIntValue));
             }
+            setAuditCheckCursor(REPLICAS_CHECK_CURSOR, ledgersInRange.last());
         }
+        setAuditCheckCursor(REPLICAS_CHECK_CURSOR, -1);
         try {
             ledgerUnderreplicationManager.setReplicasCheckCTime(System.currentTimeMillis());
         } catch (UnavailableException ue) {
@@ -26,10 +26,12 @@ import static org.apache.bookkeeper.replication.ReplicationStats.REPLICATE_EXCEP
 import static org.apache.bookkeeper.replication.ReplicationStats.REPLICATION_WORKER_SCOPE;
 import static org.apache.bookkeeper.replication.ReplicationStats.REREPLICATE_OP;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -43,6 +45,9 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
@@ -87,6 +92,7 @@ public class ReplicationWorker implements Runnable {
             .getLogger(ReplicationWorker.class);
     private static final int REPLICATED_FAILED_LEDGERS_MAXSIZE = 2000;
     public static final int NUM_OF_EXPONENTIAL_BACKOFF_RETRIALS = 5;
+    private static final String REPLICATION_THREAD_NAME = "ReplicationWorker-ledger";
 
     private final LedgerUnderreplicationManager underreplicationManager;
     private final ServerConfiguration conf;
@@ -96,6 +102,11 @@ public class ReplicationWorker implements Runnable {
     private final BookKeeper bkc;
     private final boolean ownBkc;
     private final Thread workerThread;
+    // Rereplicates ledgers when more than one ledger can be rereplicated concurrently, null otherwise
+    private final ExecutorService replicationExecutor;
+    private final Semaphore replicationPermits;
+    // set on the replication executor threads while they run a replication task
+    private final ThreadLocal<Boolean> inReplicationTask = ThreadLocal.withInitial(() -> Boolean.FALSE);
     private final long rwRereplicateBackoffMs;
     private final long openLedgerRereplicationGracePeriod;
     private final Timer pendingReplicationTimer;
@@ -184,6 +195,15 @@ public class ReplicationWorker implements Runnable {
         this.admin = new BookKeeperAdmin(bkc, statsLogger);
         this.ledgerChecker = new LedgerChecker(bkc);
         this.workerThread = new BookieThread(this, "ReplicationWorker");
+        int maxConcurrentLedgers = conf.getRwMaxConcurrentLedgers();
+        if (maxConcurrentLedgers > 1) {
+            this.replicationExecutor = Executors.newFixedThreadPool(maxConcurrentLedgers,
+                    new DefaultThreadFactory(REPLICATION_THREAD_NAME));
+            this.replicationPermits = new Semaphore(maxConcurrentLedgers);
+        } else {
+            this.replicationExecutor = null;
+            this.replicationPermits = null;
+        }
         this.openLedgerRereplicationGracePeriod = conf
                 .getOpenLedgerRereplicationGracePeriod();
         this.lockReleaseOfFailedLedgerGracePeriod = conf.getLockReleaseOfFailedLedgerGracePeriod();
@@ -235,7 +255,11 @@ public class ReplicationWorker implements Runnable {
         workerRunning = true;
         while (workerRunning) {
             try {
-                rereplicate();
+                if (replicationExecutor == null) {
+                    rereplicate();
+                } else {
+                    submitNextLedgerToRereplicate();
+                }
             } catch (InterruptedException e) {
                 LOG.info("InterruptedException "
                         + "while replicating fragments", e);
@@ -262,15 +286,50 @@ public class ReplicationWorker implements Runnable {
         }
     }
 
+    /**
+     * Wait for a free replication slot, then acquire the next under replicated ledger and
+     * rereplicate it in the background, so that several ledgers are rereplicated concurrently.
+     */
+    private void submitNextLedgerToRereplicate() throws InterruptedException, UnavailableException {
+        replicationPermits.acquire();
+        long ledgerIdToReplicate;
+        try {
+            ledgerIdToReplicate = underreplicationManager.getLedgerToRereplicate();
+        } catch (UnavailableException | RuntimeException e) {
+            replicationPermits.release();
+            throw e;
+        }
+        replicationExecutor.execute(() -> {
+            inReplicationTask.set(Boolean.TRUE);
+            try {
+                rereplicateWithStats(ledgerIdToReplicate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.info("InterruptedException while replicating fragments of ledger {}", ledgerIdToReplicate);
+            } catch (BKException e) {
+                LOG.error("BKException while replicating fragments of ledger {}", ledgerIdToReplicate, e);
+                waitBackOffTime(rwRereplicateBackoffMs);
+            } catch (UnavailableException e) {
+                LOG.error("UnavailableException while replicating fragments of ledger {}", ledgerIdToReplicate, e);
+                waitBackOffTime(rwRereplicateBackoffMs);
+            } finally {
+                inReplicationTask.remove();
+                replicationPermits.release();
+            }
+        });
+    }
+
     /**
      * Replicates the under replicated fragments from failed bookie ledger to
      * targetBookie.
      */
     private void rereplicate() throws InterruptedException, BKException,
             UnavailableException {
-        long ledgerIdToReplicate = underreplicationManager
-                .getLedgerToRereplicate();
+        rereplicateWithStats(underreplicationManager.getLedgerToRereplicate());
+    }
 
+    private void rereplicateWithStats(long ledgerIdToReplicate) throws InterruptedException, BKException,
+            UnavailableException {
         Stopwatch stopwatch = Stopwatch.createStarted();
         boolean success = false;
         try {
@@ -353,7 +412,8 @@ public class ReplicationWorker implements Runnable {
         return (returnRCValue.get() == BKException.Code.OK);
     }
 
-    private boolean rereplicate(long ledgerIdToReplicate) throws InterruptedException, BKException,
+    @VisibleForTesting
+    boolean rereplicate(long ledgerIdToReplicate) throws InterruptedException, BKException,
             UnavailableException {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Going to replicate the fragments of the ledger: {}", ledgerIdToReplicate);
@@ -624,6 +684,16 @@ public class ReplicationWorker implements Runnable {
         try {
             this.workerThread.interrupt();
             this.workerThread.join();
+            if (replicationExecutor != null) {
+                replicationExecutor.shutdown();
+                // shutdown can be called from a replication task, which can't wait for itself
+                if (!inReplicationTask.get()) {
+                    while (!replicationExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                        LOG.warn("Replication executor not shutting down, interrupting");
+                        replicationExecutor.shutdownNow();
+                    }
+                }
+            }
         } catch (InterruptedException e) {
             LOG.error("Interrupted during shutting down replication worker : ",
                     e);
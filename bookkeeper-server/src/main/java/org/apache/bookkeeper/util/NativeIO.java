@@ -20,8 +20,10 @@ package org.apache.bookkeeper.util;
 
 import com.sun.jna.LastErrorException;
 import com.sun.jna.Native;
+import com.sun.jna.Pointer;
 
 import java.io.FileDescriptor;
+import java.io.IOException;
 import java.lang.reflect.Field;
 
 import org.slf4j.Logger;
@@ -35,6 +37,10 @@ public final class NativeIO {
 
     private static final int POSIX_FADV_DONTNEED = 4; /* fadvise.h */
 
+    private static final int O_RDONLY = 00; /* fcntl.h */
+    private static final int O_WRONLY = 01; /* fcntl.h */
+    private static final int O_DIRECT = getODirectFlag();
+
     private static boolean initialized = false;
     private static boolean fadvisePossible = true;
 
@@ -54,8 +60,137 @@ public final class NativeIO {
     // fadvice
     public static native int posix_fadvise(int fd, long offset, long len, int flag) throws LastErrorException;
 
+    // direct io
+    public static native int open(String pathname, int flags, int mode) throws LastErrorException;
+    public static native long pwrite(int fd, Pointer buf, long count, long offset) throws LastErrorException;
+    public static native long pread(int fd, Pointer buf, long count, long offset) throws LastErrorException;
+    public static native int fsync(int fd) throws LastErrorException;
+    public static native int fdatasync(int fd) throws LastErrorException;
+    public static native int close(int fd) throws LastErrorException;
+
     private NativeIO() {}
 
+    /**
+     * O_DIRECT is only available on Linux and its value depends on the architecture.
+     */
+    private static int getODirectFlag() {
+        if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux")) {
+            return 0;
+        }
+        String arch = System.getProperty("os.arch", "");
+        if (arch.startsWith("aarch64") || arch.startsWith("arm")) {
+            return 0200000;
+        } else if (arch.startsWith("ppc")) {
+            return 0400000;
+        } else {
+            return 040000;
+        }
+    }
+
+    /**
+     * Whether files can be opened for direct I/O on this platform.
+     */
+    public static boolean isDirectIOSupported() {
+        return initialized && O_DIRECT != 0;
+    }
+
+    /**
+     * Open an existing file for writing with O_DIRECT, bypassing the page cache.
+     * Writes to the returned file descriptor must be aligned to the logical block
+     * size of the underlying device, both in offset, length and memory address.
+     *
+     * @param path the file to open
+     * @return the file descriptor, or -1 if direct I/O is not available
+     */
+    public static int openDirect(String path) {
+        return openDirect(path, O_WRONLY);
+    }
+
+    /**
+     * Open an existing file for reading with O_DIRECT, bypassing the page cache.
+     *
+     * @param path the file to open
+     * @return the file descriptor, or -1 if direct I/O is not available
+     * @see #openDirect(String)
+     */
+    public static int openDirectForRead(String path) {
+        return openDirect(path, O_RDONLY);
+    }
+
+    private static int openDirect(String path, int mode) {
+        if (!isDirectIOSupported()) {
+            return -1;
+        }
+        try {
+            return open(path, mode | O_DIRECT, 0);
+        } catch (LastErrorException | UnsatisfiedLinkError e) {
+            LOG.warn("Unable to open {} with O_DIRECT : ", path, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Write {@code count} bytes of {@code buf} to {@code fd} at {@code offset}.
+     */
+    public static void pwriteFully(int fd, Pointer buf, long count, long offset) throws IOException {
+        long written = 0;
+        try {
+            while (written < count) {
+                long n = pwrite(fd, buf.share(written), count - written, offset + written);
+                if (n <= 0) {
+                    throw new IOException("Short write on file descriptor " + fd + " at offset " + (offset + written));
+                }
+                written += n;
+            }
+        } catch (LastErrorException e) {
+            throw new IOException("pwrite failed on file descriptor " + fd + " at offset " + (offset + written)
+                    + " : errno " + e.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Read up to {@code count} bytes of {@code fd} at {@code offset} into {@code buf}.
+     *
+     * @return the number of bytes read, 0 at the end of the file
+     */
+    public static int preadOnce(int fd, Pointer buf, int count, long offset) throws IOException {
+        try {
+            return (int) pread(fd, buf, count, offset);
+        } catch (LastErrorException e) {
+            throw new IOException("pread failed on file descriptor " + fd + " at offset " + offset
+                    + " : errno " + e.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Persist the content of {@code fd} to the disk.
+     *
+     * @param fd the file descriptor
+     * @param forceMetadata whether to also persist the file metadata (fsync rather than fdatasync)
+     */
+    public static void sync(int fd, boolean forceMetadata) throws IOException {
+        try {
+            if (forceMetadata) {
+                fsync(fd);
+            } else {
+                fdatasync(fd);
+            }
+        } catch (LastErrorException e) {
+            throw new IOException("sync failed on file descriptor " + fd + " : errno " + e.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Close a file descriptor returned by {@link #openDirect(String)}.
+     */
+    public static void closeFd(int fd) throws IOException {
+        try {
+            close(fd);
+        } catch (LastErrorException e) {
+            throw new IOException("close failed on file descriptor " + fd + " : errno " + e.getErrorCode(), e);
+        }
+    }
+
     private static Field getFieldByReflection(Class cls, String fieldName) {
         Field field = null;
 
@@ -0,0 +1,90 @@
+package com.scurrilous.circe.checksum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.scurrilous.circe.IncrementalIntHash;
+import com.scurrilous.circe.crc.StandardCrcProvider;
+import com.scurrilous.circe.params.CrcParameters;
+
+@RunWith(Parameterized.class)
+public class Java9IntHashTest {
+
+	// Hash instances
+	private final Java9IntHash hash = new Java9IntHash();
+	private final IncrementalIntHash reference = new StandardCrcProvider().getIncrementalInt(CrcParameters.CRC32C);
+
+	// Test parameters
+	private int firstLength;
+	private int secondLength;
+
+	// Test environment
+	private byte[] data;
+
+	public Java9IntHashTest(int firstLength, int secondLength) {
+		this.firstLength = firstLength;
+		this.secondLength = secondLength;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ 0, 0 },
+			{ 0, 10 },
+			{ 10, 0 },
+			{ 1, 1 },
+			{ 3, 5 },
+			{ 100, 1 },
+			{ 4096, 4096 },
+			{ 1000, 65537 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() {
+		assumeTrue(Java9IntHash.isSupported());
+		data = new byte[firstLength + secondLength];
+		new Random(firstLength * 31 + secondLength).nextBytes(data);
+	}
+
+	@Test
+	public void combineTest() {
+		int first = reference.calculate(data, 0, firstLength);
+		int second = reference.calculate(data, firstLength, secondLength);
+
+		// Assert that the combined checksums of the two parts are the checksum of the concatenation
+		assertEquals(reference.calculate(data), Java9IntHash.combine(first, second, secondLength));
+	}
+
+	@Test
+	public void resumeArrayTest() {
+		int checksum = hash.calculate(data, 0, firstLength);
+		assertEquals(reference.calculate(data, 0, firstLength), checksum);
+
+		// Assert that resuming from the checksum of the first part gives the checksum of the concatenation
+		assertEquals(reference.calculate(data), hash.resume(checksum, data, firstLength, secondLength));
+	}
+
+	@Test
+	public void resumeDirectBufferTest() {
+		ByteBuffer first = ByteBuffer.allocateDirect(firstLength);
+		first.put(data, 0, firstLength).flip();
+		ByteBuffer second = ByteBuffer.allocateDirect(secondLength);
+		second.put(data, firstLength, secondLength).flip();
+
+		// Assert that direct buffers, checksummed in place, give the checksum of the concatenation
+		assertEquals(reference.calculate(data), hash.resume(hash.resume(0, first), second));
+	}
+}
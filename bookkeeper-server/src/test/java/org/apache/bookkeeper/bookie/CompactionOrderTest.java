@@ -0,0 +1,67 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CompactionOrderTest {
+
+	// Test environment
+	private static final long CUR_LOG_ID = 100L;
+
+	@Test
+	public void ageOverUsageTest() {
+		EntryLogMetadata young = newMetadata(99L, 20, 80);
+		EntryLogMetadata old = newMetadata(10L, 60, 40);
+
+		// Ordered by usage alone, the young log holding more garbage would be compacted first
+		List<EntryLogMetadata> byUsage = new ArrayList<>(Arrays.asList(old, young));
+		byUsage.sort(Comparator.comparingDouble(EntryLogMetadata::getUsage));
+		assertEquals(Arrays.asList(young, old), byUsage);
+
+		// The old log is compacted first, as its remaining entries are less likely to be deleted soon
+		assertEquals(Arrays.asList(old, young), sort(young, old));
+	}
+
+	@Test
+	public void usageTest() {
+		EntryLogMetadata full = newMetadata(50L, 50, 50);
+		EntryLogMetadata sparse = newMetadata(51L, 30, 70);
+		EntryLogMetadata empty = new EntryLogMetadata(52L);
+
+		// For logs of about the same age, the less used log is compacted first, and a log without
+		// any entry last
+		assertEquals(Arrays.asList(sparse, full, empty), sort(empty, full, sparse));
+		assertEquals(0.0, GarbageCollectorThread.getCompactionScore(empty, CUR_LOG_ID), 0.0);
+	}
+
+	@Test
+	public void currentLogTest() {
+		EntryLogMetadata current = newMetadata(CUR_LOG_ID, 10, 90);
+		EntryLogMetadata previous = newMetadata(CUR_LOG_ID - 1, 10, 90);
+
+		// The age of a log is never below the one of the latest rolled log
+		assertEquals(GarbageCollectorThread.getCompactionScore(previous, CUR_LOG_ID),
+				GarbageCollectorThread.getCompactionScore(current, CUR_LOG_ID), 0.0);
+		assertEquals(0.9 / 1.1, GarbageCollectorThread.getCompactionScore(current, CUR_LOG_ID), 1e-9);
+	}
+
+	private static List<EntryLogMetadata> sort(EntryLogMetadata... logs) {
+		List<EntryLogMetadata> sorted = new ArrayList<>(Arrays.asList(logs));
+		sorted.sort(GarbageCollectorThread.compactionOrder(CUR_LOG_ID));
+		return sorted;
+	}
+
+	private static EntryLogMetadata newMetadata(long logId, long remainingSize, long deletedSize) {
+		EntryLogMetadata metadata = new EntryLogMetadata(logId);
+		metadata.addLedgerSize(1L, remainingSize);
+		metadata.addLedgerSize(2L, deletedSize);
+		metadata.removeLedgerIf(ledgerId -> ledgerId == 2L);
+		return metadata;
+	}
+}
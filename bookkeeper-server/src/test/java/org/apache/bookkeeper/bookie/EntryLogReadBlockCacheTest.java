@@ -0,0 +1,237 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.bookkeeper.tests.util.SimpleCounter;
+import org.apache.bookkeeper.util.NativeIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+@RunWith(Parameterized.class)
+public class EntryLogReadBlockCacheTest {
+
+	// Cache instance
+	private EntryLogReadBlockCache cache;
+
+	// Cache configuration
+	private static final int BLOCK_SIZE = 4096;
+	private static final int NUM_BLOCKS = 4;
+	private static final int FILE_SIZE = BLOCK_SIZE * 10 + 123;
+
+	// Test parameters
+	private boolean directIO;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private final SimpleCounter hits = new SimpleCounter();
+	private final SimpleCounter misses = new SimpleCounter();
+	private final List<FileChannel> channels = new ArrayList<>();
+	private final List<Integer> fds = new ArrayList<>();
+
+	public EntryLogReadBlockCacheTest(boolean directIO) {
+		this.directIO = directIO;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ false },
+			{ true },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() {
+		cache = new EntryLogReadBlockCache(ByteBufAllocator.DEFAULT, NUM_BLOCKS * BLOCK_SIZE, BLOCK_SIZE,
+				hits, misses);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		for (FileChannel fc : channels) {
+			fc.close();
+		}
+		for (int fd : fds) {
+			NativeIO.closeFd(fd);
+		}
+		cache.close();
+	}
+
+	@Test
+	public void readTest() throws Exception {
+		byte[] data = randomData(1);
+		File file = writeFile("0.log", data);
+		FileChannel fc = open(file);
+		int fd = openDirect(file);
+
+		// Reads within a block, across blocks, and past the end of the file
+		assertRead(data, 0L, fd, fc, 0, 100);
+		assertRead(data, 0L, fd, fc, BLOCK_SIZE - 10, 20);
+		assertRead(data, 0L, fd, fc, BLOCK_SIZE * 2 + 5, BLOCK_SIZE * 2);
+		assertRead(data, 0L, fd, fc, FILE_SIZE - 50, 50);
+		assertEquals(50, read(0L, fd, fc, FILE_SIZE - 50, 100).readableBytes());
+		assertEquals(0, read(0L, fd, fc, FILE_SIZE, 100).readableBytes());
+	}
+
+	@Test
+	public void hitAndEvictionTest() throws Exception {
+		byte[] data = randomData(2);
+		File file = writeFile("0.log", data);
+		FileChannel fc = open(file);
+		int fd = openDirect(file);
+
+		// The second read of a block is served by the cache
+		assertRead(data, 0L, fd, fc, 0, 100);
+		assertEquals(1L, (long) misses.get());
+		assertRead(data, 0L, fd, fc, 200, 100);
+		assertEquals(1L, (long) hits.get());
+
+		// Reading more blocks than the cache holds evicts blocks, and the cache stays bounded
+		for (int block = 0; block < 10; block++) {
+			assertRead(data, 0L, fd, fc, block * BLOCK_SIZE, BLOCK_SIZE);
+		}
+		assertTrue(cache.size() <= NUM_BLOCKS * BLOCK_SIZE);
+		long missesBefore = misses.get();
+		assertRead(data, 0L, fd, fc, 0, 100);
+		assertEquals(missesBefore + 1, (long) misses.get());
+	}
+
+	@Test
+	public void invalidateTest() throws Exception {
+		byte[] data = randomData(3);
+		File file = writeFile("0.log", data);
+		FileChannel fc = open(file);
+		int fd = openDirect(file);
+		assertRead(data, 0L, fd, fc, 0, BLOCK_SIZE * 2);
+		assertEquals(2 * BLOCK_SIZE, cache.size());
+
+		// Blocks of another entry log are not invalidated
+		cache.invalidate(1L);
+		assertEquals(2 * BLOCK_SIZE, cache.size());
+
+		// After the entry log is removed, its blocks are dropped
+		cache.invalidate(0L);
+		assertEquals(0, cache.size());
+
+		// A new entry log with the same id is not served stale blocks
+		byte[] newData = randomData(4);
+		File newFile = writeFile("0-new.log", newData);
+		FileChannel newFc = open(newFile);
+		int newFd = openDirect(newFile);
+		long missesBefore = misses.get();
+		assertRead(newData, 0L, newFd, newFc, 0, BLOCK_SIZE * 2);
+		assertEquals(missesBefore + 2, (long) misses.get());
+	}
+
+	@Test
+	public void concurrentReadTest() throws Exception {
+		byte[][] data = { randomData(5), randomData(6) };
+		FileChannel[] fcs = new FileChannel[data.length];
+		int[] directFds = new int[data.length];
+		for (int i = 0; i < data.length; i++) {
+			File file = writeFile(i + ".log", data[i]);
+			fcs[i] = open(file);
+			directFds[i] = openDirect(file);
+		}
+
+		// Readers of two entry logs compete for a cache smaller than the files, and must never
+		// see the content of another block
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				final Random random = new Random(t);
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 2000; i++) {
+						int logId = random.nextInt(data.length);
+						int length = 1 + random.nextInt(2 * BLOCK_SIZE);
+						int pos = random.nextInt(FILE_SIZE - length);
+						assertRead(data[logId], logId, directFds[logId], fcs[logId], pos, length);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private void assertRead(byte[] data, long logId, int fd, FileChannel fc, int pos, int length)
+			throws Exception {
+		ByteBuf buf = read(logId, fd, fc, pos, length);
+		try {
+			assertEquals(Unpooled.wrappedBuffer(data, pos, length), buf);
+		} finally {
+			buf.release();
+		}
+	}
+
+	private ByteBuf read(long logId, int fd, FileChannel fc, int pos, int length) throws Exception {
+		ByteBuf buf = Unpooled.buffer(length);
+		cache.read(logId, fd, fc, buf, pos, length);
+		return buf;
+	}
+
+	private static byte[] randomData(long seed) {
+		byte[] data = new byte[FILE_SIZE];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	private File writeFile(String name, byte[] data) throws Exception {
+		File file = new File(testDir.getRoot(), name);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.getChannel().write(ByteBuffer.wrap(data));
+			raf.getChannel().force(true);
+		}
+		return file;
+	}
+
+	private FileChannel open(File file) throws Exception {
+		FileChannel fc = new RandomAccessFile(file, "r").getChannel();
+		channels.add(fc);
+		return fc;
+	}
+
+	private int openDirect(File file) {
+		if (!directIO || !cache.isDirectIOAvailable()) {
+			return -1;
+		}
+		int fd = NativeIO.openDirectForRead(file.getPath());
+		if (fd >= 0) {
+			fds.add(fd);
+		}
+		return fd;
+	}
+}
@@ -0,0 +1,45 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ForegroundLatencyMonitorTest {
+
+	// ForegroundLatencyMonitor instance
+	private final ForegroundLatencyMonitor monitor = new ForegroundLatencyMonitor();
+
+	@Test
+	public void percentileTest() {
+		for (int i = 0; i < 990; i++) {
+			monitor.recordLatency(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+		for (int i = 0; i < 10; i++) {
+			monitor.recordLatency(TimeUnit.MICROSECONDS.toNanos(1100));
+		}
+
+		// The p99 is within 12.5% of the latency holding it, not rounded up to the next power of two
+		long p99 = monitor.getPercentileMicrosAndReset(99.0);
+		assertTrue(p99 >= 100 && p99 <= 100 + 100 / 8);
+
+		// The window is reset on each read
+		assertEquals(0, monitor.getPercentileMicrosAndReset(99.0));
+		for (int i = 0; i < 10; i++) {
+			monitor.recordLatency(TimeUnit.MICROSECONDS.toNanos(1100));
+		}
+		p99 = monitor.getPercentileMicrosAndReset(99.0);
+		assertTrue(p99 >= 1100 && p99 <= 1100 + 1100 / 8);
+	}
+
+	@Test
+	public void outOfRangeTest() {
+		// Negative latencies go to the first bucket, huge latencies are kept
+		monitor.recordLatency(-1L);
+		assertEquals(0, monitor.getPercentileMicrosAndReset(99.0));
+		monitor.recordLatency(Long.MAX_VALUE);
+		assertTrue(monitor.getPercentileMicrosAndReset(99.0) >= TimeUnit.NANOSECONDS.toMicros(Long.MAX_VALUE));
+	}
+}
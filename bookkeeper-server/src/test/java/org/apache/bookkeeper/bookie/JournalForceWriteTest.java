@@ -0,0 +1,180 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.common.collections.RecyclableArrayList;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@RunWith(Parameterized.class)
+public class JournalForceWriteTest {
+
+	// Journal instance, never started so that the force write requests are only enqueued by the test
+	private Journal journal;
+
+	// Test parameters
+	private boolean groupForceWrites;
+	private int expectedSyncsPerFile;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long TIMEOUT_MS = 10000;
+	private static final int REQUESTS_PER_FILE = 3;
+	private File journalDir;
+
+	public JournalForceWriteTest(boolean groupForceWrites, int expectedSyncsPerFile) {
+		this.groupForceWrites = groupForceWrites;
+		this.expectedSyncsPerFile = expectedSyncsPerFile;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// The requests for the same file are satisfied by a single fsync
+			{ true, 1 },
+			// Each request is synced on its own
+			{ false, REQUESTS_PER_FILE },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		journalDir = testDir.newFolder("journal");
+		ServerConfiguration conf = TestUtil.getConfiguration(journalDir, testDir.newFolder("ledger"));
+		conf.setJournalAdaptiveGroupWrites(groupForceWrites);
+		LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+		journal = new Journal(0, journalDir, conf, ledgerDirsManager);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		if (journal.forceWriteThread.isAlive()) {
+			journal.forceWriteThread.shutdown();
+		}
+	}
+
+	@Test
+	public void groupForceWriteTest() throws Exception {
+		CountingJournalChannel first = new CountingJournalChannel(1L, null);
+		CountingJournalChannel second = new CountingJournalChannel(2L, null);
+
+		// Requests for two journal files are pending when the force write thread wakes up, the last
+		// request of the second file closes it
+		enqueue(first, REQUESTS_PER_FILE, false);
+		enqueue(second, REQUESTS_PER_FILE, true);
+		journal.forceWriteThread.start();
+		assertTrue(second.closed.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+		// Each file is synced once per group of requests, and the first file is left open
+		assertEquals(expectedSyncsPerFile, first.syncs.get());
+		assertEquals(expectedSyncsPerFile, second.syncs.get());
+		assertEquals(1L, first.closed.getCount());
+	}
+
+	@Test
+	public void closeOnShutdownTest() throws Exception {
+		CountDownLatch syncing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountingJournalChannel synced = new CountingJournalChannel(1L, () -> {
+			syncing.countDown();
+			Uninterruptibles.awaitUninterruptibly(release);
+		});
+		CountingJournalChannel queued = new CountingJournalChannel(2L, null);
+
+		// A request is queued while the force write thread is syncing another file
+		journal.forceWriteThread.start();
+		enqueue(synced, 1, false);
+		assertTrue(syncing.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		enqueue(queued, 1, false);
+
+		// The force write thread is shut down before it takes the queued request
+		Thread shutdown = new Thread(() -> {
+			try {
+				journal.forceWriteThread.shutdown();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		shutdown.start();
+		while (journal.forceWriteThread.running) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+		shutdown.join(TIMEOUT_MS);
+		assertFalse(shutdown.isAlive());
+
+		// Both files are closed, the queued request is never synced
+		assertEquals(0L, synced.closed.getCount());
+		assertEquals(0L, queued.closed.getCount());
+		assertEquals(0, queued.syncs.get());
+	}
+
+	private void enqueue(CountingJournalChannel logFile, int numRequests, boolean closeLast)
+			throws InterruptedException {
+		for (int i = 1; i <= numRequests; i++) {
+			journal.forceWriteRequests.put(journal.createForceWriteRequest(logFile, logFile.logId, i * 100L,
+					new RecyclableArrayList<>(), closeLast && i == numRequests));
+		}
+	}
+
+	/**
+	 * Journal channel counting its fsyncs and closes.
+	 */
+	private class CountingJournalChannel extends JournalChannel {
+
+		private final long logId;
+		private final AtomicInteger syncs = new AtomicInteger();
+		private final CountDownLatch closed = new CountDownLatch(1);
+		private final Runnable onSync;
+
+		CountingJournalChannel(long logId, Runnable onSync) throws IOException {
+			super(journalDir, logId);
+			this.logId = logId;
+			this.onSync = onSync;
+		}
+
+		@Override
+		public void forceWrite(boolean forceMetadata) throws IOException {
+			// the header of the new file is synced while it is opened, before the counters are created
+			if (syncs != null) {
+				syncs.incrementAndGet();
+				if (onSync != null) {
+					onSync.run();
+				}
+			}
+			super.forceWrite(forceMetadata);
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed.countDown();
+			super.close();
+		}
+	}
+}
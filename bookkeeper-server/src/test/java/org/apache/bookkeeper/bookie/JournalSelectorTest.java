@@ -0,0 +1,96 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.netty.buffer.Unpooled;
+
+public class JournalSelectorTest {
+
+	// Journal instances, never started so that their queues keep what is logged to them
+	private List<Journal> journals;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		File ledgerDir = testDir.newFolder("ledger");
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), ledgerDir);
+		LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+		journals = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			journals.add(new Journal(i, testDir.newFolder("journal" + i), conf, ledgerDirsManager));
+		}
+	}
+
+	@Test
+	public void hashSelectionTest() {
+		JournalSelector selector = new JournalSelector(journals, false);
+
+		// Without load awareness, the ledger id is hashed
+		for (long ledgerId = 0; ledgerId < 10; ledgerId++) {
+			assertSame(journals.get((int) (ledgerId % journals.size())), selector.getJournal(ledgerId));
+		}
+	}
+
+	@Test
+	public void idleJournalsTest() {
+		JournalSelector selector = new JournalSelector(journals, true);
+
+		// On idle journals, ties are broken by the number of assigned ledgers
+		for (long ledgerId = 0; ledgerId < 6; ledgerId++) {
+			selector.getJournal(100 + ledgerId);
+		}
+		for (Journal journal : journals) {
+			assertEquals(2, journal.getAssignedLedgers().get());
+		}
+	}
+
+	@Test
+	public void stickyAssignmentTest() {
+		JournalSelector selector = new JournalSelector(journals, true);
+
+		// A ledger stays on its journal until it is deleted
+		Journal journal = selector.getJournal(1L);
+		for (long ledgerId = 2; ledgerId < 10; ledgerId++) {
+			selector.getJournal(ledgerId);
+		}
+		assertSame(journal, selector.getJournal(1L));
+
+		// Deleting the ledger releases its assignment
+		long assigned = journal.getAssignedLedgers().get();
+		selector.ledgerDeleted(1L);
+		assertEquals(assigned - 1, journal.getAssignedLedgers().get());
+		selector.ledgerDeleted(1L);
+		assertEquals(assigned - 1, journal.getAssignedLedgers().get());
+	}
+
+	@Test
+	public void backlogAvoidanceTest() throws Exception {
+		JournalSelector selector = new JournalSelector(journals, true);
+
+		// Queue entries on the first two journals
+		for (int i = 0; i < 2; i++) {
+			journals.get(i).logAddEntry(Unpooled.wrappedBuffer(new byte[1024 * (i + 1)]), false,
+					(rc, ledgerId, entryId, addr, ctx) -> { }, null);
+		}
+
+		// New ledgers go to the journal without backlog
+		assertSame(journals.get(2), selector.getJournal(1L));
+	}
+}
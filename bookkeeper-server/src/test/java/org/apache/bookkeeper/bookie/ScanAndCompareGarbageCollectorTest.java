@@ -0,0 +1,298 @@
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.bookie.storage.ldb.SingleDirectoryDbLedgerStorage;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.LedgerMetadataBuilder;
+import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.LedgerManager;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.apache.bookkeeper.versioning.LongVersion;
+import org.apache.bookkeeper.versioning.Version;
+import org.apache.bookkeeper.versioning.Versioned;
+import org.apache.zookeeper.AsyncCallback;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBufAllocator;
+
+@RunWith(Parameterized.class)
+public class ScanAndCompareGarbageCollectorTest {
+
+	// ScanAndCompareGarbageCollector instance
+	private ScanAndCompareGarbageCollector garbageCollector;
+
+	// Test parameters
+	private long fullMetadataScanWaitTimeMillis;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final byte[] MASTER_KEY = "key".getBytes();
+	private final InMemoryLedgerManager ledgerManager = new InMemoryLedgerManager();
+	private final Set<Long> cleaned = new TreeSet<>();
+	private SingleDirectoryDbLedgerStorage storage;
+	private ScheduledExecutorService gcExecutor;
+
+	public ScanAndCompareGarbageCollectorTest(long fullMetadataScanWaitTimeMillis) {
+		this.fullMetadataScanWaitTimeMillis = fullMetadataScanWaitTimeMillis;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Every garbage collection scans all the ledger metadata
+			{ 0L },
+			// Only the first garbage collection scans all the ledger metadata
+			{ TimeUnit.HOURS.toMillis(1) },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		File ledgerDir = testDir.newFolder("ledger");
+		new File(ledgerDir, "current").mkdirs();
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), ledgerDir);
+		conf.setDiskUsageThreshold(0.999f);
+		conf.setDiskUsageWarnThreshold(0.99f);
+		conf.setGcFullMetadataScanWaitTime(fullMetadataScanWaitTimeMillis, TimeUnit.MILLISECONDS);
+		LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+		gcExecutor = Executors.newSingleThreadScheduledExecutor();
+
+		storage = new SingleDirectoryDbLedgerStorage(conf, null, ledgerDirsManager, ledgerDirsManager, null,
+				new CheckpointSource() {
+					@Override
+					public Checkpoint newCheckpoint() {
+						return Checkpoint.MAX;
+					}
+
+					@Override
+					public void checkpointComplete(Checkpoint checkpoint, boolean compact) {
+						// empty
+					}
+				}, Checkpointer.NULL, NullStatsLogger.INSTANCE, ByteBufAllocator.DEFAULT, gcExecutor,
+				4 * 1024 * 1024, 4 * 1024 * 1024);
+		garbageCollector = new ScanAndCompareGarbageCollector(ledgerManager, storage, conf,
+				NullStatsLogger.INSTANCE);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		storage.shutdown();
+		gcExecutor.shutdown();
+	}
+
+	@Test
+	public void gcTest() throws Exception {
+		for (long ledgerId = 1; ledgerId <= 4; ledgerId++) {
+			createLedger(ledgerId, true);
+		}
+
+		// The first garbage collection scans all the metadata, each ledger is only read to be watched
+		gc();
+		assertEquals(Collections.emptySet(), cleaned);
+		assertReads(4);
+		assertWatched(1L, 2L, 3L, 4L);
+
+		// A ledger deleted from the metadata store is garbage collected
+		ledgerManager.delete(2L);
+		gc();
+		assertEquals(new TreeSet<>(Arrays.asList(2L)), cleaned);
+		assertReads(5);
+		assertFalse(ledgerManager.isWatched(2L));
+
+		// A new ledger is kept, and a ledger missing from the metadata store is garbage collected,
+		// the metadata of each is read once
+		createLedger(5L, true);
+		createLedger(6L, false);
+		gc();
+		assertEquals(new TreeSet<>(Arrays.asList(2L, 6L)), cleaned);
+		assertReads(7);
+		assertWatched(1L, 3L, 4L, 5L);
+		assertFalse(ledgerManager.isWatched(6L));
+
+		// Once every ledger of the bookie is in the snapshot, nothing is read anymore
+		gc();
+		assertEquals(new TreeSet<>(Arrays.asList(2L, 6L)), cleaned);
+		assertReads(7);
+		assertEquals(new HashSet<>(Arrays.asList(1L, 3L, 4L, 5L)), activeLedgers());
+	}
+
+	private void gc() {
+		garbageCollector.gc(ledgerId -> {
+			cleaned.add(ledgerId);
+			try {
+				storage.deleteLedger(ledgerId);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+	}
+
+	private void createLedger(long ledgerId, boolean inMetadata) throws IOException {
+		storage.setMasterKey(ledgerId, MASTER_KEY);
+		if (inMetadata) {
+			ledgerManager.put(ledgerId);
+		}
+	}
+
+	private Set<Long> activeLedgers() throws IOException {
+		Set<Long> ledgers = new HashSet<>();
+		storage.getActiveLedgersInRange(0, Long.MAX_VALUE).forEach(ledgers::add);
+		return ledgers;
+	}
+
+	private void assertReads(int snapshotReads) {
+		// Without the snapshot, the ledgers are only found through the full scans
+		assertEquals(fullMetadataScanWaitTimeMillis > 0 ? snapshotReads : 0, ledgerManager.reads.get());
+	}
+
+	private void assertWatched(long... ledgerIds) {
+		for (long ledgerId : ledgerIds) {
+			assertEquals(fullMetadataScanWaitTimeMillis > 0, ledgerManager.isWatched(ledgerId));
+		}
+	}
+
+	/**
+	 * Ledger manager keeping the ledgers in memory. Like the zookeeper ledger managers, it reads the metadata
+	 * of a ledger to notify a listener registered on it, and notifies the listeners of the deletions.
+	 */
+	private static class InMemoryLedgerManager implements LedgerManager {
+
+		private final Map<Long, Versioned<LedgerMetadata>> ledgers = new ConcurrentHashMap<>();
+		private final Map<Long, Set<LedgerMetadataListener>> listeners = new ConcurrentHashMap<>();
+		private final AtomicInteger reads = new AtomicInteger();
+
+		void put(long ledgerId) {
+			LedgerMetadata metadata = LedgerMetadataBuilder.create()
+					.withId(ledgerId)
+					.withEnsembleSize(1)
+					.withWriteQuorumSize(1)
+					.withAckQuorumSize(1)
+					.newEnsembleEntry(0L, Arrays.asList(BookieId.parse("bookie-1:3181")))
+					.build();
+			ledgers.put(ledgerId, new Versioned<>(metadata, new LongVersion(1L)));
+		}
+
+		void delete(long ledgerId) {
+			ledgers.remove(ledgerId);
+			Set<LedgerMetadataListener> ledgerListeners = listeners.remove(ledgerId);
+			if (ledgerListeners != null) {
+				ledgerListeners.forEach(listener -> listener.onChanged(ledgerId, null));
+			}
+		}
+
+		boolean isWatched(long ledgerId) {
+			return !listeners.getOrDefault(ledgerId, Collections.emptySet()).isEmpty();
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> readLedgerMetadata(long ledgerId) {
+			reads.incrementAndGet();
+			Versioned<LedgerMetadata> metadata = ledgers.get(ledgerId);
+			if (metadata == null) {
+				CompletableFuture<Versioned<LedgerMetadata>> future = new CompletableFuture<>();
+				future.completeExceptionally(new BKException.BKNoSuchLedgerExistsOnMetadataServerException());
+				return future;
+			}
+			return CompletableFuture.completedFuture(metadata);
+		}
+
+		@Override
+		public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
+			listeners.computeIfAbsent(ledgerId, id -> new CopyOnWriteArraySet<>()).add(listener);
+			reads.incrementAndGet();
+			Versioned<LedgerMetadata> metadata = ledgers.get(ledgerId);
+			if (metadata == null) {
+				listeners.remove(ledgerId);
+			}
+			listener.onChanged(ledgerId, metadata);
+		}
+
+		@Override
+		public void unregisterLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
+			listeners.getOrDefault(ledgerId, Collections.emptySet()).remove(listener);
+		}
+
+		@Override
+		public LedgerRangeIterator getLedgerRanges(long zkOpTimeOutMs) {
+			Iterator<LedgerRange> ranges = Collections.singletonList(new LedgerRange(ledgers.keySet())).iterator();
+			return new LedgerRangeIterator() {
+				@Override
+				public boolean hasNext() {
+					return ranges.hasNext();
+				}
+
+				@Override
+				public LedgerRange next() {
+					return ranges.next();
+				}
+			};
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> createLedgerMetadata(long ledgerId,
+				LedgerMetadata metadata) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Void> removeLedgerMetadata(long ledgerId, Version version) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> writeLedgerMetadata(long ledgerId,
+				LedgerMetadata metadata, Version currentVersion) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void asyncProcessLedgers(Processor<Long> processor, AsyncCallback.VoidCallback finalCb,
+				Object context, int successRc, int failureRc) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			// empty
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.bookkeeper.bookie.CheckpointSource;
+import org.apache.bookkeeper.bookie.CheckpointSource.Checkpoint;
+import org.apache.bookkeeper.bookie.Checkpointer;
+import org.apache.bookkeeper.bookie.LedgerDirsManager;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.Batch;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBufAllocator;
+
+@RunWith(Parameterized.class)
+public class DbLedgerStorageCheckpointTest {
+
+	// Storage instance
+	private SingleDirectoryDbLedgerStorage storage;
+
+	// Test parameters
+	private int numEntries;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long LEDGER_ID = 1L;
+	private final List<String> flushes = new CopyOnWriteArrayList<>();
+	private ScheduledExecutorService gcExecutor;
+
+	public DbLedgerStorageCheckpointTest(int numEntries) {
+		this.numEntries = numEntries;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Nothing to flush
+			{ 0 },
+			{ 10 },
+			{ 10000 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		File ledgerDir = testDir.newFolder("ledger");
+		new File(ledgerDir, "current").mkdirs();
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), ledgerDir);
+		conf.setDiskUsageThreshold(0.999f);
+		conf.setDiskUsageWarnThreshold(0.99f);
+		LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+		gcExecutor = Executors.newSingleThreadScheduledExecutor();
+
+		CheckpointSource checkpointSource = new CheckpointSource() {
+			@Override
+			public Checkpoint newCheckpoint() {
+				return Checkpoint.MAX;
+			}
+
+			@Override
+			public void checkpointComplete(Checkpoint checkpoint, boolean compact) {
+				// empty
+			}
+		};
+
+		// Record the order of the entry log and index flushes, with a slow entry log sync
+		storage = new SingleDirectoryDbLedgerStorage(conf, null, ledgerDirsManager, ledgerDirsManager, null,
+				checkpointSource, Checkpointer.NULL, NullStatsLogger.INSTANCE, ByteBufAllocator.DEFAULT, gcExecutor,
+				4 * 1024 * 1024, 4 * 1024 * 1024) {
+			@Override
+			void flushEntryLogger() throws IOException {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.flushEntryLogger();
+				flushes.add("entrylog");
+			}
+
+			@Override
+			void flushEntryLocations(Batch batch) throws IOException {
+				flushes.add("index");
+				super.flushEntryLocations(batch);
+			}
+		};
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		storage.shutdown();
+		gcExecutor.shutdown();
+	}
+
+	@Test
+	public void checkpointTest() throws Exception {
+		for (long entryId = 0; entryId < numEntries; entryId++) {
+			storage.addEntry(TestUtil.generateEntry(LEDGER_ID, entryId));
+		}
+
+		// Assert that the index is written after the entry log is synced
+		storage.flush();
+		assertEquals(Arrays.asList("entrylog", "index"), flushes);
+
+		// Assert that the flushed entries are read back through the index
+		assertEquals(0, storage.getWriteCacheCount());
+		for (long entryId = 0; entryId < numEntries; entryId++) {
+			assertEquals(TestUtil.generateEntry(LEDGER_ID, entryId), storage.getEntry(LEDGER_ID, entryId));
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.tests.util.SimpleCounter;
+import org.junit.After;
+import org.junit.Test;
+
+public class ReadAheadManagerTest {
+
+	// ReadAheadManager instance
+	private ReadAheadManager readAheadManager;
+
+	// Read-ahead configuration
+	private static final int INITIAL_BATCH_SIZE = 4;
+	private static final int MAX_BATCH_SIZE = 16;
+
+	// Test environment
+	private final SimpleCounter randomAccessSkips = new SimpleCounter();
+	private final SimpleCounter drops = new SimpleCounter();
+	// the ledger id, first entry id and max number of entries of each read-ahead
+	private final BlockingQueue<long[]> fills = new LinkedBlockingQueue<>();
+	private final CountDownLatch fillAllowed = new CountDownLatch(1);
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		fillAllowed.countDown();
+		readAheadManager.shutdown();
+	}
+
+	@Test
+	public void windowTest() throws Exception {
+		newReadAheadManager();
+		fillAllowed.countDown();
+
+		// The window grows while the ledger is read sequentially, up to the max batch size
+		assertFill(1L, 0L, INITIAL_BATCH_SIZE);
+		assertFill(1L, 5L, 2 * INITIAL_BATCH_SIZE);
+		assertFill(1L, 14L, MAX_BATCH_SIZE);
+		assertFill(1L, 31L, MAX_BATCH_SIZE);
+
+		// Random misses shrink the window, then disable read-ahead
+		assertFill(1L, 1000L, MAX_BATCH_SIZE / 2);
+		readAheadManager.onReadCacheMiss(1L, 5000L, 0L);
+		assertNull(fills.poll(100, TimeUnit.MILLISECONDS));
+		assertEquals(1L, (long) randomAccessSkips.get());
+
+		// Other ledgers are not affected
+		assertFill(2L, 5000L, INITIAL_BATCH_SIZE);
+	}
+
+	@Test
+	public void awaitReadAheadTest() throws Exception {
+		newReadAheadManager();
+
+		// Start a read-ahead of the entries following entry 0, blocked in the filler
+		readAheadManager.onReadCacheMiss(1L, 0L, 0L);
+		fills.take();
+
+		// Only readers of the entries being read ahead wait
+		assertFalse(readAheadManager.awaitReadAhead(1L, 0L));
+		assertFalse(readAheadManager.awaitReadAhead(1L, 1L + INITIAL_BATCH_SIZE));
+		assertFalse(readAheadManager.awaitReadAhead(2L, 1L));
+
+		// A reader of an entry being read ahead is released when the read-ahead completes
+		CompletableFuture<Boolean> waited = CompletableFuture.supplyAsync(
+				() -> readAheadManager.awaitReadAhead(1L, 1L));
+		Thread.sleep(20);
+		assertFalse(waited.isDone());
+		fillAllowed.countDown();
+		assertTrue(waited.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void awaitReadAheadTimeoutTest() throws Exception {
+		newReadAheadManager();
+
+		// A reader does not wait for longer than a disk read would take
+		readAheadManager.onReadCacheMiss(1L, 0L, 0L);
+		fills.take();
+		assertFalse(readAheadManager.awaitReadAhead(1L, 1L));
+	}
+
+	@Test
+	public void pendingReadAheadsTest() throws Exception {
+		newReadAheadManager();
+
+		// Block the read-ahead thread, then miss on many ledgers
+		int numLedgers = 100;
+		readAheadManager.onReadCacheMiss(0L, 0L, 0L);
+		fills.take();
+		for (long ledgerId = 1; ledgerId < numLedgers; ledgerId++) {
+			readAheadManager.onReadCacheMiss(ledgerId, 0L, 0L);
+		}
+
+		// A second miss on a ledger with a pending read-ahead does not queue another one
+		readAheadManager.onReadCacheMiss(1L, 1L, 0L);
+
+		// The read-aheads that do not fit in the queue are dropped, the others are run
+		assertTrue(drops.get() > 0);
+		fillAllowed.countDown();
+		for (long i = 0; i < numLedgers - 1 - drops.get(); i++) {
+			assertTrue(fills.poll(10, TimeUnit.SECONDS) != null);
+		}
+		assertNull(fills.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	private void newReadAheadManager() {
+		readAheadManager = new ReadAheadManager(INITIAL_BATCH_SIZE, MAX_BATCH_SIZE,
+				(ledgerId, firstEntryId, firstEntryLocation, maxEntries) -> {
+					fills.add(new long[] { ledgerId, firstEntryId, maxEntries });
+					try {
+						fillAllowed.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return maxEntries;
+				}, randomAccessSkips, drops);
+	}
+
+	private void assertFill(long ledgerId, long entryId, int expectedEntries) throws Exception {
+		readAheadManager.onReadCacheMiss(ledgerId, entryId, 0L);
+		long[] fill = fills.poll(10, TimeUnit.SECONDS);
+		assertEquals(ledgerId, fill[0]);
+		assertEquals(entryId + 1, fill[1]);
+		assertEquals(expectedEntries, fill[2]);
+
+		// Wait for the read-ahead to complete
+		readAheadManager.awaitReadAhead(ledgerId, entryId + 1);
+	}
+}
@@ -0,0 +1,133 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.client.AdaptiveSpeculativeRequestExecutionPolicy.Window;
+import org.apache.bookkeeper.util.LogLinearHistogram;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Futures;
+
+public class AdaptiveSpeculativeRequestExecutionPolicyTest {
+
+	// Test environment
+	private static final int FIRST_TIMEOUT_MS = 100;
+	private static final int MAX_TIMEOUT_MS = 2000;
+	private static final long NO_ROTATION_MS = TimeUnit.HOURS.toMillis(1);
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void percentileTest() {
+		Window window = new Window();
+
+		// Too few samples give no percentile
+		for (int i = 0; i < AdaptiveSpeculativeRequestExecutionPolicy.MIN_SAMPLES_PER_WINDOW - 1; i++) {
+			window.record(1000L);
+		}
+		assertEquals(-1L, window.getPercentileMicros(99.0));
+
+		// The percentile is the upper bound of the bucket holding it
+		for (int i = 0; i < 9900; i++) {
+			window.record(1000L);
+		}
+		for (int i = 0; i < 100; i++) {
+			window.record(50000L);
+		}
+		assertEquals(LogLinearHistogram.upperBound(LogLinearHistogram.bucket(1000L)), window.getPercentileMicros(99.0));
+		assertEquals(LogLinearHistogram.upperBound(LogLinearHistogram.bucket(50000L)), window.getPercentileMicros(99.5));
+	}
+
+	@Test
+	public void timeoutTest() throws Exception {
+		AdaptiveSpeculativeRequestExecutionPolicy policy = new AdaptiveSpeculativeRequestExecutionPolicy(
+				FIRST_TIMEOUT_MS, MAX_TIMEOUT_MS, 2.0f, 99.0, 10.0, 50);
+		assertEquals(TimeUnit.MILLISECONDS.toMicros(FIRST_TIMEOUT_MS), policy.getSpeculativeRequestTimeoutMicros());
+
+		// Once a window is complete, the timeout follows the latency percentile
+		for (int i = 0; i < 1000; i++) {
+			policy.onRequestComplete(5, TimeUnit.MILLISECONDS);
+		}
+		Thread.sleep(100);
+		policy.onRequestComplete(5, TimeUnit.MILLISECONDS);
+		long timeoutMicros = policy.getSpeculativeRequestTimeoutMicros();
+		assertTrue(timeoutMicros >= 5000 && timeoutMicros <= 5000 + 5000 / 8);
+
+		// The timeout is bounded by the max timeout
+		for (int i = 0; i < 1000; i++) {
+			policy.onRequestComplete(10, TimeUnit.SECONDS);
+		}
+		Thread.sleep(100);
+		policy.onRequestComplete(10, TimeUnit.SECONDS);
+		assertEquals(TimeUnit.MILLISECONDS.toMicros(MAX_TIMEOUT_MS), policy.getSpeculativeRequestTimeoutMicros());
+	}
+
+	@Test
+	public void budgetTest() {
+		AdaptiveSpeculativeRequestExecutionPolicy policy = new AdaptiveSpeculativeRequestExecutionPolicy(
+				FIRST_TIMEOUT_MS * 1000, MAX_TIMEOUT_MS * 1000, 2.0f, 99.0, 10.0, NO_ROTATION_MS);
+		initiateRequests(policy, 30);
+
+		// Speculative requests are limited to a percentage of the requests
+		for (int i = 0; i < 3; i++) {
+			assertTrue(policy.tryAcquireSpeculativeRequest());
+		}
+		assertFalse(policy.tryAcquireSpeculativeRequest());
+
+		// More requests give more budget
+		initiateRequests(policy, 10);
+		assertTrue(policy.tryAcquireSpeculativeRequest());
+		assertFalse(policy.tryAcquireSpeculativeRequest());
+	}
+
+	@Test
+	public void budgetFloorTest() {
+		AdaptiveSpeculativeRequestExecutionPolicy policy = new AdaptiveSpeculativeRequestExecutionPolicy(
+				FIRST_TIMEOUT_MS * 1000, MAX_TIMEOUT_MS * 1000, 2.0f, 99.0, 10.0, NO_ROTATION_MS);
+		initiateRequests(policy, 5);
+
+		// A client with too few requests for a whole speculative request still gets one
+		assertTrue(policy.tryAcquireSpeculativeRequest());
+		assertFalse(policy.tryAcquireSpeculativeRequest());
+	}
+
+	@Test
+	public void unlimitedTest() {
+		AdaptiveSpeculativeRequestExecutionPolicy policy = new AdaptiveSpeculativeRequestExecutionPolicy(
+				FIRST_TIMEOUT_MS, MAX_TIMEOUT_MS, 2.0f, 99.0, 0.0, NO_ROTATION_MS);
+
+		// Without a limit, speculative requests are always allowed
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.tryAcquireSpeculativeRequest());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativePercentTest() {
+		new AdaptiveSpeculativeRequestExecutionPolicy(FIRST_TIMEOUT_MS, MAX_TIMEOUT_MS, 2.0f, 99.0, -1.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPercentileTest() {
+		new AdaptiveSpeculativeRequestExecutionPolicy(FIRST_TIMEOUT_MS, MAX_TIMEOUT_MS, 2.0f, 100.0, 10.0);
+	}
+
+	private void initiateRequests(AdaptiveSpeculativeRequestExecutionPolicy policy, int numRequests) {
+		// the speculative requests are never issued, as their timeout is far longer than the test
+		for (int i = 0; i < numRequests; i++) {
+			policy.initiateSpeculativeRequest(scheduler, () -> Futures.immediateFuture(false));
+		}
+	}
+}
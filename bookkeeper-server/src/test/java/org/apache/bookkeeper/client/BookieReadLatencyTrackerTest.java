@@ -0,0 +1,56 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.Test;
+
+public class BookieReadLatencyTrackerTest {
+
+	// Test environment
+	private static final BookieId BOOKIE_1 = BookieId.parse("127.0.0.1:3181");
+	private static final BookieId BOOKIE_2 = BookieId.parse("127.0.0.2:3181");
+
+	@Test
+	public void latencyTest() {
+		BookieReadLatencyTracker tracker = new BookieReadLatencyTracker(60000, NullStatsLogger.INSTANCE);
+
+		// A bookie never read from has no latency
+		assertEquals(-1L, tracker.getReadLatencyMicros(BOOKIE_1));
+
+		// The first sample is taken as is, and a slower one replaces the average straight away
+		tracker.recordReadLatency(BOOKIE_1, TimeUnit.MILLISECONDS.toNanos(1));
+		assertBetween(990L, 1000L, tracker.getReadLatencyMicros(BOOKIE_1));
+		tracker.recordReadLatency(BOOKIE_1, TimeUnit.MILLISECONDS.toNanos(5));
+		assertBetween(4950L, 5000L, tracker.getReadLatencyMicros(BOOKIE_1));
+
+		// A faster sample only moves the average by the weight of the time since the previous one
+		tracker.recordReadLatency(BOOKIE_1, TimeUnit.MILLISECONDS.toNanos(1));
+		assertBetween(4900L, 5000L, tracker.getReadLatencyMicros(BOOKIE_1));
+
+		// The bookies are tracked separately
+		assertEquals(-1L, tracker.getReadLatencyMicros(BOOKIE_2));
+	}
+
+	@Test
+	public void decayTest() throws Exception {
+		BookieReadLatencyTracker tracker = new BookieReadLatencyTracker(10, NullStatsLogger.INSTANCE);
+		tracker.recordReadLatency(BOOKIE_1, TimeUnit.MILLISECONDS.toNanos(5));
+
+		// The average decays while the bookie is not read from, so that it is tried again
+		Thread.sleep(200);
+		assertEquals(0L, tracker.getReadLatencyMicros(BOOKIE_1));
+
+		// Once decayed, a faster sample gets most of the weight
+		tracker.recordReadLatency(BOOKIE_1, TimeUnit.MILLISECONDS.toNanos(1));
+		assertBetween(990L, 1000L, tracker.getReadLatencyMicros(BOOKIE_1));
+	}
+
+	private static void assertBetween(long min, long max, long actual) {
+		assertTrue(actual + " not in [" + min + ", " + max + "]", actual >= min && actual <= max);
+	}
+}
@@ -0,0 +1,50 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class InFlightBytesThrottleTest {
+
+	// InFlightBytesThrottle instance
+	private final InFlightBytesThrottle throttle = new InFlightBytesThrottle(MAX_IN_FLIGHT_BYTES);
+
+	// Test environment
+	private static final long MAX_IN_FLIGHT_BYTES = 100;
+	private final List<String> admitted = new ArrayList<>();
+
+	@Test
+	public void fifoAdmissionTest() {
+		throttle.acquire(60, () -> admitted.add("first"));
+		// The second request does not fit, and the third one waits behind it even if it would fit
+		throttle.acquire(60, () -> admitted.add("second"));
+		throttle.acquire(10, () -> admitted.add("third"));
+		assertEquals(Arrays.asList("first"), admitted);
+
+		// Releasing the bytes admits the waiting requests in order
+		throttle.release(60);
+		assertEquals(Arrays.asList("first", "second", "third"), admitted);
+		throttle.release(60);
+		throttle.release(10);
+	}
+
+	@Test
+	public void oversizedRequestTest() {
+		// A request larger than the limit is admitted when nothing is in flight
+		throttle.acquire(10, () -> admitted.add("small"));
+		throttle.acquire(2 * MAX_IN_FLIGHT_BYTES, () -> admitted.add("oversized"));
+		assertEquals(Arrays.asList("small"), admitted);
+		throttle.release(10);
+		assertEquals(Arrays.asList("small", "oversized"), admitted);
+
+		// and nothing else is admitted along with it
+		throttle.acquire(10, () -> admitted.add("next"));
+		assertEquals(Arrays.asList("small", "oversized"), admitted);
+		throttle.release(2 * MAX_IN_FLIGHT_BYTES);
+		assertEquals(Arrays.asList("small", "oversized", "next"), admitted);
+	}
+}
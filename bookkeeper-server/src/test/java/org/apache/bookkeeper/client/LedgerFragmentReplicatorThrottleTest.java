@@ -0,0 +1,89 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LedgerFragmentReplicatorThrottleTest {
+
+	// LedgerFragmentReplicator instance
+	private LedgerFragmentReplicator replicator;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long ENTRY_SIZE = 100;
+	private static final BookieId BOOKIE_A = BookieId.parse("bookie-a:3181");
+	private static final BookieId BOOKIE_B = BookieId.parse("bookie-b:3181");
+	private ServerCnxnFactory serverFactory;
+	private BookKeeper bk;
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		conf.setMetadataServiceUri(metadataServiceUri);
+		assertTrue(BookKeeperAdmin.format(conf, false, true));
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		// each bookie takes one entry at a time
+		clientConf.setRereplicationMaxInFlightBytesPerBookie(ENTRY_SIZE);
+		bk = new BookKeeper(clientConf);
+		replicator = new LedgerFragmentReplicator(bk);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		bk.close();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void throttleOrderTest() {
+		List<BookieId> ordered = LedgerFragmentReplicator.inThrottleOrder(
+				new HashSet<>(Arrays.asList(BOOKIE_B, BOOKIE_A)));
+		assertEquals(Arrays.asList(BOOKIE_A, BOOKIE_B), ordered);
+
+		// An entry writing to bookie A holds its throttle
+		List<String> admitted = new ArrayList<>();
+		replicator.acquireInFlightBytes(Arrays.asList(BOOKIE_A), ENTRY_SIZE, () -> admitted.add("A"));
+
+		// An entry to both bookies waits for bookie A first, without holding the throttle of bookie B
+		replicator.acquireInFlightBytes(ordered, ENTRY_SIZE, () -> admitted.add("AB"));
+		replicator.acquireInFlightBytes(Arrays.asList(BOOKIE_B), ENTRY_SIZE, () -> admitted.add("B"));
+		assertEquals(Arrays.asList("A", "B"), admitted);
+
+		// Once both are released, the entry to both bookies goes through
+		replicator.releaseInFlightBytes(BOOKIE_A, ENTRY_SIZE);
+		assertEquals(Arrays.asList("A", "B"), admitted);
+		replicator.releaseInFlightBytes(BOOKIE_B, ENTRY_SIZE);
+		assertTrue(admitted.contains("AB"));
+		replicator.releaseInFlightBytes(BOOKIE_A, ENTRY_SIZE);
+		replicator.releaseInFlightBytes(BOOKIE_B, ENTRY_SIZE);
+	}
+}
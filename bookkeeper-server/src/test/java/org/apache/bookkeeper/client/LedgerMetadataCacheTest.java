@@ -0,0 +1,243 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.meta.LedgerManager;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.versioning.LongVersion;
+import org.apache.bookkeeper.versioning.Version;
+import org.apache.bookkeeper.versioning.Versioned;
+import org.apache.zookeeper.AsyncCallback;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LedgerMetadataCacheTest {
+
+	// LedgerMetadataCache instance
+	private LedgerMetadataCache cache;
+
+	// Test environment
+	private static final int MAX_ENTRIES = 2;
+	private final InMemoryLedgerManager ledgerManager = new InMemoryLedgerManager();
+
+	// Setup the test environment
+	@Before
+	public void setUp() {
+		cache = new LedgerMetadataCache(ledgerManager, Runnable::run, MAX_ENTRIES,
+				BookKeeperClientStats.newInstance(NullStatsLogger.INSTANCE));
+	}
+
+	@Test
+	public void closedLedgerTest() throws Exception {
+		ledgerManager.put(1L, newMetadata(1L, true), 1L);
+
+		// The metadata of a closed ledger is read once, and is not watched
+		assertTrue(read(1L, true).getValue().isClosed());
+		assertTrue(read(1L, false).getValue().isClosed());
+		assertEquals(1, ledgerManager.reads.get());
+		assertFalse(ledgerManager.isWatched(1L));
+	}
+
+	@Test
+	public void openLedgerTest() throws Exception {
+		ledgerManager.put(1L, newMetadata(1L, false), 1L);
+
+		// The metadata of an open ledger is cached and watched, but opens that need a closed ledger
+		// read it again
+		assertEquals(new LongVersion(1L), read(1L, false).getVersion());
+		assertEquals(new LongVersion(1L), read(1L, false).getVersion());
+		assertEquals(1, ledgerManager.reads.get());
+		assertTrue(ledgerManager.isWatched(1L));
+		read(1L, true);
+		assertEquals(2, ledgerManager.reads.get());
+
+		// The cached copy follows the changes of the metadata, and the watch is removed once the
+		// ledger is closed
+		ledgerManager.put(1L, newMetadata(1L, false), 2L);
+		assertEquals(new LongVersion(2L), read(1L, false).getVersion());
+		ledgerManager.put(1L, newMetadata(1L, true), 3L);
+		Versioned<LedgerMetadata> closed = read(1L, true);
+		assertEquals(new LongVersion(3L), closed.getVersion());
+		assertTrue(closed.getValue().isClosed());
+		assertEquals(2, ledgerManager.reads.get());
+		assertFalse(ledgerManager.isWatched(1L));
+	}
+
+	@Test
+	public void closedWhileWatchingTest() throws Exception {
+		ledgerManager.put(1L, newMetadata(1L, false), 1L);
+
+		// The ledger is closed while the listener of the cache is being registered
+		ledgerManager.onRegister = () -> cache.onChanged(1L, new Versioned<>(newMetadata(1L, true),
+				new LongVersion(2L)));
+		read(1L, false);
+
+		// The closed ledger is not left watched
+		assertFalse(ledgerManager.isWatched(1L));
+		assertTrue(read(1L, true).getValue().isClosed());
+		assertEquals(1, ledgerManager.reads.get());
+	}
+
+	@Test
+	public void deletedLedgerTest() throws Exception {
+		ledgerManager.put(1L, newMetadata(1L, false), 1L);
+		ledgerManager.put(2L, newMetadata(2L, true), 1L);
+		read(1L, false);
+		read(2L, false);
+
+		// A deleted open ledger is dropped when the deletion is notified, a closed one when the
+		// client invalidates it
+		ledgerManager.delete(1L);
+		assertFalse(ledgerManager.isWatched(1L));
+		ledgerManager.delete(2L);
+		cache.invalidate(2L);
+		assertNoSuchLedger(1L);
+		assertNoSuchLedger(2L);
+		assertEquals(4, ledgerManager.reads.get());
+	}
+
+	@Test
+	public void evictionTest() throws Exception {
+		for (long ledgerId = 1; ledgerId <= MAX_ENTRIES + 1; ledgerId++) {
+			ledgerManager.put(ledgerId, newMetadata(ledgerId, false), 1L);
+			read(ledgerId, false);
+		}
+
+		// The cache keeps a bounded number of ledgers, and stops watching the evicted ones
+		int watched = 0;
+		for (long ledgerId = 1; ledgerId <= MAX_ENTRIES + 1; ledgerId++) {
+			watched += ledgerManager.isWatched(ledgerId) ? 1 : 0;
+		}
+		assertEquals(MAX_ENTRIES, watched);
+	}
+
+	private Versioned<LedgerMetadata> read(long ledgerId, boolean closedOnly) throws Exception {
+		return cache.readLedgerMetadata(ledgerId, closedOnly).get();
+	}
+
+	private void assertNoSuchLedger(long ledgerId) throws Exception {
+		try {
+			read(ledgerId, false);
+			fail("The metadata of a deleted ledger should not be returned");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof BKException.BKNoSuchLedgerExistsOnMetadataServerException);
+		}
+	}
+
+	private static LedgerMetadata newMetadata(long ledgerId, boolean closed) {
+		LedgerMetadataBuilder builder = LedgerMetadataBuilder.create()
+				.withId(ledgerId)
+				.withEnsembleSize(1)
+				.withWriteQuorumSize(1)
+				.withAckQuorumSize(1)
+				.newEnsembleEntry(0L, Arrays.asList(BookieId.parse("bookie-1:3181")));
+		if (closed) {
+			builder.withClosedState().withLastEntryId(10L).withLength(100L);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Ledger manager keeping the metadata in memory, and notifying the listeners of every change.
+	 */
+	private static class InMemoryLedgerManager implements LedgerManager {
+
+		private final Map<Long, Versioned<LedgerMetadata>> ledgers = new ConcurrentHashMap<>();
+		private final Map<Long, Set<LedgerMetadataListener>> listeners = new ConcurrentHashMap<>();
+		private final AtomicInteger reads = new AtomicInteger();
+		// run when a listener is registered, before it is added
+		private Runnable onRegister = () -> { };
+
+		void put(long ledgerId, LedgerMetadata metadata, long version) {
+			Versioned<LedgerMetadata> versioned = new Versioned<>(metadata, new LongVersion(version));
+			ledgers.put(ledgerId, versioned);
+			notifyListeners(ledgerId, versioned);
+		}
+
+		void delete(long ledgerId) {
+			ledgers.remove(ledgerId);
+			notifyListeners(ledgerId, null);
+		}
+
+		boolean isWatched(long ledgerId) {
+			return !listeners.getOrDefault(ledgerId, new CopyOnWriteArraySet<>()).isEmpty();
+		}
+
+		private void notifyListeners(long ledgerId, Versioned<LedgerMetadata> metadata) {
+			listeners.getOrDefault(ledgerId, new CopyOnWriteArraySet<>())
+					.forEach(listener -> listener.onChanged(ledgerId, metadata));
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> readLedgerMetadata(long ledgerId) {
+			reads.incrementAndGet();
+			Versioned<LedgerMetadata> metadata = ledgers.get(ledgerId);
+			if (metadata == null) {
+				CompletableFuture<Versioned<LedgerMetadata>> future = new CompletableFuture<>();
+				future.completeExceptionally(new BKException.BKNoSuchLedgerExistsOnMetadataServerException());
+				return future;
+			}
+			return CompletableFuture.completedFuture(metadata);
+		}
+
+		@Override
+		public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
+			onRegister.run();
+			listeners.computeIfAbsent(ledgerId, id -> new CopyOnWriteArraySet<>()).add(listener);
+		}
+
+		@Override
+		public void unregisterLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
+			listeners.getOrDefault(ledgerId, new CopyOnWriteArraySet<>()).remove(listener);
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> createLedgerMetadata(long ledgerId,
+				LedgerMetadata metadata) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Void> removeLedgerMetadata(long ledgerId, Version version) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Versioned<LedgerMetadata>> writeLedgerMetadata(long ledgerId,
+				LedgerMetadata metadata, Version currentVersion) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void asyncProcessLedgers(Processor<Long> processor, AsyncCallback.VoidCallback finalCb,
+				Object context, int successRc, int failureRc) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LedgerRangeIterator getLedgerRanges(long zkOpTimeOutMs) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			// empty
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package org.apache.bookkeeper.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookieClient;
+import org.apache.bookkeeper.proto.BookieServer;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntriesCallback;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RangeReadTest {
+
+	// BookKeeper client instance
+	private RecordingBookKeeper bk;
+
+	// Test parameters
+	private int ensembleSize;
+	private int writeQuorumSize;
+	private int numEntries;
+	private boolean rangeReadEnabled;
+	private boolean failRangeReads;
+	private int expectedRangeReads;
+	private int expectedSingleReads;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final int NUM_BOOKIES = 2;
+	private static final byte[] PASSWORD = "password".getBytes();
+	private ServerCnxnFactory serverFactory;
+	private final List<BookieServer> bookieServers = new ArrayList<>();
+	private final List<BookieId> rangeReadBookies = new CopyOnWriteArrayList<>();
+	private final AtomicInteger singleReads = new AtomicInteger();
+
+	public RangeReadTest(int ensembleSize, int writeQuorumSize, int numEntries, boolean rangeReadEnabled,
+			boolean failRangeReads, int expectedRangeReads, int expectedSingleReads) {
+		this.ensembleSize = ensembleSize;
+		this.writeQuorumSize = writeQuorumSize;
+		this.numEntries = numEntries;
+		this.rangeReadEnabled = rangeReadEnabled;
+		this.failRangeReads = failRangeReads;
+		this.expectedRangeReads = expectedRangeReads;
+		this.expectedSingleReads = expectedSingleReads;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Every bookie stores every entry, the entries are read with a single range read
+			{ 2, 2, 5, true, false, 1, 0 },
+			// Entries striped over the bookies are read one by one
+			{ 2, 1, 5, true, false, 0, 5 },
+			// Range reads disabled
+			{ 2, 2, 5, false, false, 0, 5 },
+			// A single entry is read on its own
+			{ 2, 2, 1, true, false, 0, 1 },
+			// A failed range read falls back to reading each entry from the other replica
+			{ 2, 2, 5, true, true, 1, 5 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		for (int i = 0; i < NUM_BOOKIES; i++) {
+			ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal" + i),
+					testDir.newFolder("ledger" + i));
+			conf.setDiskUsageThreshold(0.999f);
+			conf.setDiskUsageWarnThreshold(0.99f);
+			conf.setMetadataServiceUri(metadataServiceUri);
+			if (i == 0) {
+				assertTrue(BookKeeperAdmin.format(conf, false, true));
+			}
+			BookieServer bookieServer = new BookieServer(conf);
+			bookieServer.start();
+			bookieServers.add(bookieServer);
+		}
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		clientConf.setUseV2WireProtocol(false);
+		clientConf.setRangeReadEnabled(rangeReadEnabled);
+		clientConf.setReorderReadsByLatencyEnabled(true);
+		// no speculative reads, so that every read sent is expected
+		clientConf.setSpeculativeReadTimeout(0);
+		bk = new RecordingBookKeeper(clientConf);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		bk.close();
+		for (BookieServer bookieServer : bookieServers) {
+			bookieServer.shutdown();
+		}
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void rangeReadTest() throws Exception {
+		LedgerHandle lh = bk.createLedger(ensembleSize, writeQuorumSize, writeQuorumSize, DigestType.CRC32C,
+				PASSWORD);
+		for (int i = 0; i < numEntries; i++) {
+			lh.addEntry(("entry-" + i).getBytes());
+		}
+
+		// The entries are read in order, whatever the way they are read
+		Enumeration<LedgerEntry> entries = lh.readEntries(0, numEntries - 1);
+		for (int i = 0; i < numEntries; i++) {
+			LedgerEntry entry = entries.nextElement();
+			assertEquals(i, entry.getEntryId());
+			assertArrayEquals(("entry-" + i).getBytes(), entry.getEntry());
+		}
+		assertEquals(expectedRangeReads, rangeReadBookies.size());
+		assertEquals(expectedSingleReads, singleReads.get());
+
+		// The latency of the successful range reads is tracked
+		if (!failRangeReads) {
+			for (BookieId bookie : rangeReadBookies) {
+				assertNotEquals(-1L, bk.getClientCtx().getReadLatencyTracker().getReadLatencyMicros(bookie));
+			}
+		}
+		lh.close();
+	}
+
+	/**
+	 * BookKeeper client counting the reads sent to the bookies, and failing the range reads if requested.
+	 */
+	private class RecordingBookKeeper extends BookKeeper {
+
+		private final BookieClient recordingClient;
+
+		RecordingBookKeeper(ClientConfiguration conf) throws IOException, InterruptedException, BKException {
+			super(conf);
+			recordingClient = (BookieClient) Proxy.newProxyInstance(BookieClient.class.getClassLoader(),
+					new Class<?>[] { BookieClient.class }, (proxy, method, args) -> {
+						if ("readEntries".equals(method.getName())) {
+							rangeReadBookies.add((BookieId) args[0]);
+							if (failRangeReads) {
+								ReadEntriesCallback cb = (ReadEntriesCallback) args[5];
+								CompletableFuture.runAsync(() -> cb.readEntriesComplete(
+										BKException.Code.ReadException, (long) args[1], (long) args[2],
+										Collections.emptyList(), args[6]));
+								return null;
+							}
+						} else if ("readEntry".equals(method.getName())) {
+							singleReads.incrementAndGet();
+						}
+						try {
+							return method.invoke(bookieClient, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+		@Override
+		BookieClient getBookieClient() {
+			return recordingClient == null ? bookieClient : recordingClient;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package org.apache.bookkeeper.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.LedgerManager.LedgerRange;
+import org.apache.bookkeeper.meta.LedgerManager.LedgerRangeIterator;
+import org.apache.bookkeeper.meta.zk.ZKMetadataDriverBase;
+import org.apache.bookkeeper.util.StringUtils;
+import org.apache.bookkeeper.util.ZkUtils;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class LongHierarchicalLedgerRangesTest {
+
+	// LedgerManager instance
+	private LongHierarchicalLedgerManager ledgerManager;
+
+	// Test parameters
+	private int prefetchNodes;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long TIMEOUT_MS = 10000;
+	// ledgers spread over the different levels of the znode hierarchy
+	private static final NavigableSet<Long> LEDGERS = new TreeSet<>(Arrays.asList(
+			1L, 2L, 9999L, 10000L, 10001L, 123456789L, 123456790L, 5000000000L, 9999999999999L, 1234567890123456789L));
+	private ServerCnxnFactory serverFactory;
+	private ZooKeeper zk;
+
+	public LongHierarchicalLedgerRangesTest(int prefetchNodes) {
+		this.prefetchNodes = prefetchNodes;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ 1 },
+			{ 4 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+
+		CountDownLatch connected = new CountDownLatch(1);
+		zk = new ZooKeeper("127.0.0.1:" + serverFactory.getLocalPort(), 10000, event -> {
+			if (event.getState() == KeeperState.SyncConnected) {
+				connected.countDown();
+			}
+		});
+		assertTrue(connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+		ServerConfiguration conf = new ServerConfiguration();
+		conf.setZkLedgerRangesPrefetchNodes(prefetchNodes);
+		ledgerManager = new LongHierarchicalLedgerManager(conf, zk);
+		String ledgersRootPath = ZKMetadataDriverBase.resolveZkLedgersRootPath(conf);
+		for (long ledgerId : LEDGERS) {
+			ZkUtils.createFullPathOptimistic(zk, ledgersRootPath + StringUtils.getLongHierarchicalLedgerPath(ledgerId),
+					new byte[0], Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+		}
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		ledgerManager.close();
+		zk.close();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void fullScanTest() throws Exception {
+		assertEquals(new ArrayList<>(LEDGERS), scan(ledgerManager.getLedgerRanges(TIMEOUT_MS)));
+		assertEquals(new ArrayList<>(LEDGERS), scan(ledgerManager.getLedgerRanges(TIMEOUT_MS, 0L)));
+	}
+
+	@Test
+	public void resumedScanTest() throws Exception {
+
+		// Assert that a scan resumed from any ledger id returns the ledgers from that id, in order
+		List<Long> startLedgerIds = new ArrayList<>();
+		for (long ledgerId : LEDGERS) {
+			startLedgerIds.add(ledgerId - 1);
+			startLedgerIds.add(ledgerId);
+			startLedgerIds.add(ledgerId + 1);
+		}
+		startLedgerIds.add(Long.MAX_VALUE);
+		for (long startLedgerId : startLedgerIds) {
+			assertEquals("Scan from " + startLedgerId, new ArrayList<>(LEDGERS.tailSet(startLedgerId, true)),
+					scan(ledgerManager.getLedgerRanges(TIMEOUT_MS, startLedgerId)));
+		}
+	}
+
+	private static List<Long> scan(LedgerRangeIterator iterator) throws Exception {
+		List<Long> ledgers = new ArrayList<>();
+		while (iterator.hasNext()) {
+			LedgerRange range = iterator.next();
+			assertTrue(range.size() > 0);
+			ledgers.addAll(range.getLedgers());
+		}
+		return ledgers;
+	}
+}
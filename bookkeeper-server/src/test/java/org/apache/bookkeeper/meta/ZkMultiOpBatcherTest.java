@@ -0,0 +1,250 @@
+package org.apache.bookkeeper.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.client.LedgerMetadataBuilder;
+import org.apache.bookkeeper.client.api.DigestType;
+import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.zookeeper.AsyncCallback.MultiCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ZkMultiOpBatcherTest {
+
+	// ZkMultiOpBatcher instance
+	private ZkMultiOpBatcher batcher;
+
+	// Test parameters
+	private int maxOpsPerBatch;
+	private int maxBatchBytes;
+	private int dataSize;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final int NUM_OPS = 20;
+	private static final long TIMEOUT_MS = 10000;
+	private static final long REMOVED_LEDGERS_START = 100000000L;
+	private static final long KEPT_LEDGER = 200000000L;
+	// the transactions sent, and their callbacks, completed by the test
+	private final List<List<Op>> transactions = new ArrayList<>();
+	private final List<MultiCallback> callbacks = new ArrayList<>();
+	private final AtomicInteger succeeded = new AtomicInteger();
+	private final AtomicInteger fellBack = new AtomicInteger();
+
+	public ZkMultiOpBatcherTest(int maxOpsPerBatch, int maxBatchBytes, int dataSize) {
+		this.maxOpsPerBatch = maxOpsPerBatch;
+		this.maxBatchBytes = maxBatchBytes;
+		this.dataSize = dataSize;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Batches bounded by their number of operations
+			{ 4, 1024 * 1024, 100 },
+			// Batches bounded by their size
+			{ 100, 4 * 1024, 1000 },
+			// Operations larger than the size bound
+			{ 100, 1024, 2000 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() {
+		batcher = new ZkMultiOpBatcher(null, maxOpsPerBatch, maxBatchBytes) {
+			@Override
+			void multi(List<Op> ops, MultiCallback cb) {
+				transactions.add(ops);
+				callbacks.add(cb);
+			}
+		};
+	}
+
+	@Test
+	public void batchBoundsTest() {
+
+		// The first operation is sent right away, the others are queued while it is in flight
+		for (int i = 0; i < NUM_OPS; i++) {
+			submit(i);
+		}
+		assertEquals(1, transactions.size());
+		assertEquals(1, transactions.get(0).size());
+
+		// Complete the transactions one at a time, so that the queued operations are batched
+		for (int i = 0; i < transactions.size(); i++) {
+			complete(i, Code.OK);
+		}
+		assertEquals(NUM_OPS, succeeded.get());
+		assertEquals(0, fellBack.get());
+
+		// Assert that every transaction is within the bounds, unless it holds a single operation
+		int numOps = 0;
+		for (List<Op> transaction : transactions) {
+			numOps += transaction.size();
+			assertTrue(transaction.size() <= maxOpsPerBatch);
+			assertTrue(transaction.size() == 1 || transaction.size() * (dataSize + 16) <= maxBatchBytes);
+		}
+		assertEquals(NUM_OPS, numOps);
+		assertTrue(transactions.size() > 2);
+	}
+
+	@Test
+	public void fallbackTest() {
+		for (int i = 0; i < NUM_OPS; i++) {
+			submit(i);
+		}
+
+		// A failed transaction runs the fallback of each of its operations, and the next batch is sent
+		complete(0, Code.OK);
+		complete(1, Code.NODEEXISTS);
+		assertEquals(1, succeeded.get());
+		assertEquals(transactions.get(1).size(), fellBack.get());
+		assertEquals(3, transactions.size());
+	}
+
+	@Test
+	public void submitAllTest() {
+
+		// Operations submitted together fill the first transaction, up to the bounds
+		List<ZkMultiOpBatcher.PendingOp> ops = new ArrayList<>();
+		for (int i = 0; i < NUM_OPS; i++) {
+			ops.add(newPendingOp(i));
+		}
+		batcher.submitAll(ops);
+		assertEquals(1, transactions.size());
+		int firstSize = transactions.get(0).size();
+		assertTrue(firstSize <= maxOpsPerBatch);
+		assertEquals(dataSize + 16 <= maxBatchBytes, firstSize > 1);
+
+		for (int i = 0; i < transactions.size(); i++) {
+			complete(i, Code.OK);
+		}
+		assertEquals(NUM_OPS, succeeded.get());
+		assertEquals(0, fellBack.get());
+	}
+
+	@Test
+	public void removeLedgersMetadataTest() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		ServerCnxnFactory serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		CountDownLatch connected = new CountDownLatch(1);
+		ZooKeeper zk = new ZooKeeper("127.0.0.1:" + serverFactory.getLocalPort(), 10000, event -> {
+			if (event.getState() == KeeperState.SyncConnected) {
+				connected.countDown();
+			}
+		});
+		HierarchicalLedgerManager ledgerManager = null;
+		try {
+			assertTrue(connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+			ServerConfiguration conf = new ServerConfiguration();
+			conf.setZkLedgerMetadataBatchMaxOps(maxOpsPerBatch);
+			ledgerManager = new HierarchicalLedgerManager(conf, zk);
+
+			// The removed ledgers share a parent znode, the kept ledger is under another one
+			List<Long> removedLedgers = new ArrayList<>();
+			for (long ledgerId = REMOVED_LEDGERS_START; ledgerId < REMOVED_LEDGERS_START + NUM_OPS; ledgerId++) {
+				removedLedgers.add(ledgerId);
+			}
+			for (long ledgerId : removedLedgers) {
+				createLedger(ledgerManager, ledgerId);
+			}
+			createLedger(ledgerManager, KEPT_LEDGER);
+			String removedParent = parent(ledgerManager.getLedgerPath(REMOVED_LEDGERS_START));
+			String keptParent = parent(ledgerManager.getLedgerPath(KEPT_LEDGER));
+			assertEquals(NUM_OPS, zk.getChildren(removedParent, false).size());
+
+			ledgerManager.removeLedgersMetadata(removedLedgers).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			for (long ledgerId : removedLedgers) {
+				assertNull(zk.exists(ledgerManager.getLedgerPath(ledgerId), false));
+			}
+			assertNotNull(zk.exists(ledgerManager.getLedgerPath(KEPT_LEDGER), false));
+
+			// The emptied parent is deleted in the background, the other one is kept
+			long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+			while (zk.exists(removedParent, false) != null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertNull(zk.exists(removedParent, false));
+			assertNotNull(zk.exists(keptParent, false));
+
+			// Ledgers that do not exist are removed successfully
+			ledgerManager.removeLedgersMetadata(Arrays.asList(KEPT_LEDGER, KEPT_LEDGER + 1))
+					.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			assertNull(zk.exists(ledgerManager.getLedgerPath(KEPT_LEDGER), false));
+		} finally {
+			if (ledgerManager != null) {
+				ledgerManager.close();
+			}
+			zk.close();
+			serverFactory.shutdown();
+		}
+	}
+
+	private static void createLedger(LedgerManager ledgerManager, long ledgerId) throws Exception {
+		LedgerMetadata metadata = LedgerMetadataBuilder.create()
+				.withId(ledgerId)
+				.withEnsembleSize(1)
+				.withWriteQuorumSize(1)
+				.withAckQuorumSize(1)
+				.withPassword(new byte[0])
+				.withDigestType(DigestType.CRC32C)
+				.newEnsembleEntry(0L, Arrays.asList(BookieId.parse("bookie-1:3181")))
+				.build();
+		ledgerManager.createLedgerMetadata(ledgerId, metadata).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+	}
+
+	private static String parent(String path) {
+		return path.substring(0, path.lastIndexOf('/'));
+	}
+
+	private void submit(int i) {
+		ZkMultiOpBatcher.PendingOp pendingOp = newPendingOp(i);
+		batcher.submit(pendingOp.op, pendingOp.onSuccess, pendingOp.fallback);
+	}
+
+	private ZkMultiOpBatcher.PendingOp newPendingOp(int i) {
+		Op op = Op.create("/ledgers/L" + String.format("%010d", i), new byte[dataSize], Ids.OPEN_ACL_UNSAFE,
+				CreateMode.PERSISTENT);
+		return new ZkMultiOpBatcher.PendingOp(op, result -> succeeded.incrementAndGet(), fellBack::incrementAndGet);
+	}
+
+	private void complete(int transaction, Code rc) {
+		List<OpResult> results = new ArrayList<>();
+		for (Op op : transactions.get(transaction)) {
+			results.add(new OpResult.CreateResult(op.getPath()));
+		}
+		callbacks.get(transaction).processResult(rc.intValue(), null, null, results);
+	}
+}
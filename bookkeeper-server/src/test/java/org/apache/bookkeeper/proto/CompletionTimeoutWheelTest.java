@@ -0,0 +1,127 @@
+package org.apache.bookkeeper.proto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class CompletionTimeoutWheelTest {
+
+	// CompletionTimeoutWheel instance, with 12 slots of 1ms
+	private final CompletionTimeoutWheel wheel = new CompletionTimeoutWheel(millis(1), millis(10), 0L);
+
+	// Test environment
+	private final List<Long> expired = new ArrayList<>();
+
+	@Test
+	public void expireTest() {
+		for (long id = 1; id <= 5; id++) {
+			wheel.add(id, millis(id));
+		}
+
+		// Only the ids whose deadline passed are expired, and each of them once
+		assertEquals(3, expire(millis(3)));
+		assertEquals(Arrays.asList(1L, 2L, 3L), expired);
+		assertEquals(0, expire(millis(3)));
+		assertEquals(2, expire(millis(10)));
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), expired);
+	}
+
+	@Test
+	public void laterRotationTest() {
+		wheel.add(1L, millis(30));
+
+		// An id due after a full rotation stays in the wheel when its slot is visited too early
+		assertEquals(0, expire(millis(5)));
+		assertEquals(0, expire(millis(20)));
+		assertEquals(0, expire(millis(29)));
+		assertEquals(1, expire(millis(30)));
+		assertEquals(Arrays.asList(1L), expired);
+	}
+
+	@Test
+	public void pastDeadlineTest() {
+		assertEquals(0, expire(millis(10)));
+
+		// An id added with a deadline that already passed is expired at the next tick
+		wheel.add(1L, millis(2));
+		assertEquals(0, expire(millis(10)));
+		assertEquals(1, expire(millis(11)));
+		assertEquals(Arrays.asList(1L), expired);
+	}
+
+	@Test
+	public void jumpTest() {
+		for (long id = 1; id <= 20; id++) {
+			wheel.add(id, millis(id * 5));
+		}
+
+		// Expiring far in the future visits every slot once, and expires every id
+		assertEquals(20, expire(millis(1000)));
+		assertEquals(20, expired.size());
+	}
+
+	@Test
+	public void completedTest() {
+		wheel.add(1L, millis(1));
+		wheel.add(2L, millis(1));
+
+		// The ids that are no longer pending are dropped, but not counted as expired
+		assertEquals(1, wheel.expire(millis(1), id -> id == 1L));
+		assertEquals(0, expire(millis(100)));
+	}
+
+	@Test
+	public void concurrentAddTest() throws Exception {
+		int numThreads = 4;
+		int idsPerThread = 10000;
+		ConcurrentHashMap<Long, Integer> expiries = new ConcurrentHashMap<>();
+		AtomicBoolean adding = new AtomicBoolean(true);
+
+		// Ids are added by several threads while the wheel is expired
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < numThreads; t++) {
+			long firstId = (long) t * idsPerThread;
+			threads.add(new Thread(() -> {
+				for (long id = firstId; id < firstId + idsPerThread; id++) {
+					wheel.add(id, ThreadLocalRandom.current().nextLong(millis(50)));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		Thread expirer = new Thread(() -> {
+			long now = 0;
+			while (adding.get()) {
+				now = Math.min(now + millis(1), millis(49));
+				wheel.expire(now, id -> expiries.merge(id, 1, Integer::sum) > 0);
+			}
+		});
+		expirer.start();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		adding.set(false);
+		expirer.join();
+
+		// Every id is expired exactly once
+		wheel.expire(millis(100), id -> expiries.merge(id, 1, Integer::sum) > 0);
+		assertEquals(numThreads * idsPerThread, expiries.size());
+		assertTrue(expiries.values().stream().allMatch(count -> count == 1));
+	}
+
+	private int expire(long nowNanos) {
+		return wheel.expire(nowNanos, id -> expired.add(id));
+	}
+
+	private static long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
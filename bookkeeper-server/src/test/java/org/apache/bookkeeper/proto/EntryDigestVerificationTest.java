@@ -0,0 +1,260 @@
+package org.apache.bookkeeper.proto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.bookie.BookieImpl;
+import org.apache.bookkeeper.client.BookKeeper;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.OperationType;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.ProtocolVersion;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.proto.DataFormats.LedgerMetadataFormat.DigestType;
+import org.apache.bookkeeper.proto.checksum.DigestManager;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.ByteBufList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.protobuf.ByteString;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+@RunWith(Parameterized.class)
+public class EntryDigestVerificationTest {
+
+	// Bookie and request processor instances
+	private Bookie bookie;
+	private BookieRequestProcessor processor;
+
+	// Add requests sent to the bookie
+	private enum AddType { V2_ADD, V3_ADD, V3_RANGE_ADD }
+
+	// Test parameters
+	private AddType addType;
+	private int numEntries;
+	private int expectedMismatchRc;
+	private int expectedRejectedRc;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long LEDGER_ID = 1L;
+	private static final long START_ENTRY_ID = 0L;
+	private static final long TIMEOUT_MS = 10000;
+	private ServerConfiguration conf;
+	private EmbeddedChannel channel;
+
+	public EntryDigestVerificationTest(AddType addType, int numEntries, int expectedMismatchRc,
+			int expectedRejectedRc) {
+		this.addType = addType;
+		this.numEntries = numEntries;
+		this.expectedMismatchRc = expectedMismatchRc;
+		this.expectedRejectedRc = expectedRejectedRc;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ AddType.V2_ADD, 1, BookieProtocol.EBADREQ, BookieProtocol.ETOOMANYREQUESTS },
+			{ AddType.V3_ADD, 1, StatusCode.EBADREQ_VALUE, StatusCode.ETOOMANYREQUESTS_VALUE },
+			// only the last entry of the range is corrupted
+			{ AddType.V3_RANGE_ADD, 3, StatusCode.EBADREQ_VALUE, StatusCode.ETOOMANYREQUESTS_VALUE },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		conf.setDiskUsageThreshold(0.999f);
+		conf.setDiskUsageWarnThreshold(0.99f);
+		conf.setNumReadWorkerThreads(0);
+		conf.setNumAddWorkerThreads(0);
+		conf.setNumHighPriorityWorkerThreads(0);
+		conf.setEntryDigestVerificationType(BookKeeper.DigestType.CRC32C);
+		conf.setMaxPendingAddRequestPerThread(1);
+
+		bookie = new BookieImpl(conf);
+		bookie.start();
+		channel = new EmbeddedChannel();
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		channel.finishAndReleaseAll();
+		if (processor != null) {
+			processor.close();
+		}
+		bookie.shutdown();
+	}
+
+	@Test
+	public void digestMismatchTest() throws Exception {
+		// The digests are verified by the thread processing the request
+		conf.setNumEntryDigestVerificationThreads(0);
+		processor = new BookieRequestProcessor(conf, bookie, NullStatsLogger.INSTANCE, null,
+				ByteBufAllocator.DEFAULT);
+
+		// The request with a corrupted entry is rejected
+		sendAddRequest(true);
+		assertEquals(expectedMismatchRc, readResponseRc());
+
+		// None of its entries is added to the bookie
+		assertNoEntryAdded();
+	}
+
+	@Test
+	public void verificationPoolFullTest() throws Exception {
+		conf.setNumEntryDigestVerificationThreads(1);
+		processor = new BookieRequestProcessor(conf, bookie, NullStatsLogger.INSTANCE, null,
+				ByteBufAllocator.DEFAULT);
+
+		// Block the verification thread, and fill its queue
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		processor.getDigestVerificationThreadPool().executeOrdered(LEDGER_ID, () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		processor.getDigestVerificationThreadPool().executeOrdered(LEDGER_ID, () -> { });
+
+		// The request is rejected without being verified
+		try {
+			sendAddRequest(false);
+			assertEquals(expectedRejectedRc, readResponseRc());
+		} finally {
+			release.countDown();
+		}
+		assertNoEntryAdded();
+	}
+
+	private void sendAddRequest(boolean corruptLastEntry) throws Exception {
+		ByteBuf[] entries = new ByteBuf[numEntries];
+		for (int i = 0; i < numEntries; i++) {
+			entries[i] = newEntry(START_ENTRY_ID + i, corruptLastEntry && i == numEntries - 1);
+		}
+		BKPacketHeader.Builder header = BKPacketHeader.newBuilder()
+				.setVersion(ProtocolVersion.VERSION_THREE)
+				.setTxnId(1L);
+		switch (addType) {
+		case V2_ADD:
+			processor.processRequest(BookieProtocol.ParsedAddRequest.create(BookieProtocol.CURRENT_PROTOCOL_VERSION,
+					LEDGER_ID, START_ENTRY_ID, BookieProtocol.FLAG_NONE, new byte[0], entries[0]), channel);
+			break;
+		case V3_ADD:
+			processor.processRequest(Request.newBuilder()
+					.setHeader(header.setOperation(OperationType.ADD_ENTRY))
+					.setAddRequest(AddRequest.newBuilder()
+							.setLedgerId(LEDGER_ID)
+							.setEntryId(START_ENTRY_ID)
+							.setMasterKey(ByteString.EMPTY)
+							.setBody(ByteString.copyFrom(ByteBufUtil.getBytes(entries[0]))))
+					.build(), channel);
+			break;
+		case V3_RANGE_ADD:
+			RangeAddRequest.Builder rangeAddRequest = RangeAddRequest.newBuilder()
+					.setLedgerId(LEDGER_ID)
+					.setStartEntryId(START_ENTRY_ID)
+					.setMasterKey(ByteString.EMPTY);
+			for (ByteBuf entry : entries) {
+				rangeAddRequest.addBody(ByteString.copyFrom(ByteBufUtil.getBytes(entry)));
+			}
+			processor.processRequest(Request.newBuilder()
+					.setHeader(header.setOperation(OperationType.RANGE_ADD_ENTRY))
+					.setRangeAddRequest(rangeAddRequest)
+					.build(), channel);
+			break;
+		default:
+			fail("Unknown add type " + addType);
+		}
+		for (ByteBuf entry : entries) {
+			entry.release();
+		}
+	}
+
+	/**
+	 * @return the return code of the response to the add request
+	 */
+	private int readResponseRc() {
+		Object response = channel.readOutbound();
+		if (addType == AddType.V2_ADD) {
+			BookieProtocol.Response addResponse = (BookieProtocol.Response) response;
+			assertEquals(LEDGER_ID, addResponse.getLedgerId());
+			assertEquals(START_ENTRY_ID, addResponse.getEntryId());
+			return addResponse.getErrorCode();
+		}
+		Response v3Response = (Response) response;
+		if (addType == AddType.V3_RANGE_ADD) {
+			// the response covers the whole range
+			RangeAddResponse rangeAddResponse = v3Response.getRangeAddResponse();
+			assertEquals(LEDGER_ID, rangeAddResponse.getLedgerId());
+			assertEquals(START_ENTRY_ID, rangeAddResponse.getStartEntryId());
+			assertEquals(START_ENTRY_ID + numEntries - 1, rangeAddResponse.getLastEntryId());
+			assertEquals(v3Response.getStatus(), rangeAddResponse.getStatus());
+			return rangeAddResponse.getStatus().getNumber();
+		}
+		assertEquals(LEDGER_ID, v3Response.getAddResponse().getLedgerId());
+		assertEquals(START_ENTRY_ID, v3Response.getAddResponse().getEntryId());
+		assertEquals(v3Response.getStatus(), v3Response.getAddResponse().getStatus());
+		return v3Response.getAddResponse().getStatus().getNumber();
+	}
+
+	private void assertNoEntryAdded() throws Exception {
+		try {
+			bookie.readEntry(LEDGER_ID, START_ENTRY_ID);
+			fail("No entry should have been added");
+		} catch (Bookie.NoLedgerException | Bookie.NoEntryException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * @return an entry as sent by the client, with its digest corrupted if requested
+	 */
+	private static ByteBuf newEntry(long entryId, boolean corrupted) throws Exception {
+		DigestManager digestManager = DigestManager.instantiate(LEDGER_ID, new byte[0], DigestType.CRC32C,
+				ByteBufAllocator.DEFAULT, true);
+		ByteBuf payload = Unpooled.wrappedBuffer(("entry-" + entryId).getBytes());
+		ByteBufList packaged = digestManager.computeDigestAndPackageForSending(entryId, entryId - 1,
+				payload.readableBytes(), payload);
+		ByteBuf entry = ByteBufList.coalesce(packaged);
+		packaged.release();
+		if (corrupted) {
+			int last = entry.writerIndex() - 1;
+			entry.setByte(last, entry.getByte(last) ^ 0xff);
+		}
+		return entry;
+	}
+}
@@ -0,0 +1,191 @@
+package org.apache.bookkeeper.proto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.stats.OpStatsData;
+import org.apache.bookkeeper.stats.OpStatsLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+
+@RunWith(Parameterized.class)
+public class FlushConsolidationTest {
+
+	// Channels with the flush consolidation handlers
+	private Channel serverChannel;
+	private Channel clientChannel;
+
+	// Test parameters
+	private int numWrites;
+	private List<Long> expectedWritesPerFlush;
+
+	// Test environment
+	private static final int MAX_FLUSHES = 4;
+	private final List<Long> serverWritesPerFlush = new CopyOnWriteArrayList<>();
+	private final List<Long> clientWritesPerFlush = new CopyOnWriteArrayList<>();
+	private DefaultEventLoopGroup eventLoopGroup;
+	private CountDownLatch serverReceived;
+	private CountDownLatch clientReceived;
+
+	public FlushConsolidationTest(int numWrites, List<Long> expectedWritesPerFlush) {
+		this.numWrites = numWrites;
+		this.expectedWritesPerFlush = expectedWritesPerFlush;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ 1, Arrays.asList(1L) },
+			{ 3, Arrays.asList(3L) },
+			// A flush is forced after MAX_FLUSHES flushes
+			{ MAX_FLUSHES, Arrays.asList(4L) },
+			{ 10, Arrays.asList(4L, 4L, 2L) },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		eventLoopGroup = new DefaultEventLoopGroup(1);
+		serverReceived = new CountDownLatch(numWrites);
+		clientReceived = new CountDownLatch(numWrites);
+		LocalAddress address = new LocalAddress("flush-consolidation-" + numWrites);
+
+		// The server answers a request holding a number with as many responses, each one flushed,
+		// like the bookie, and has the flush consolidation handlers after its request handler
+		serverChannel = new ServerBootstrap()
+				.group(eventLoopGroup)
+				.channel(LocalServerChannel.class)
+				.childHandler(new ChannelInitializer<LocalChannel>() {
+					@Override
+					protected void initChannel(LocalChannel ch) {
+						ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+							@Override
+							public void channelRead(ChannelHandlerContext ctx, Object msg) {
+								serverReceived.countDown();
+								if (msg instanceof Integer) {
+									for (int i = 0; i < (Integer) msg; i++) {
+										ctx.channel().writeAndFlush("response-" + i);
+									}
+								}
+							}
+						});
+						FlushConsolidation.addLast(ch.pipeline(), MAX_FLUSHES,
+								new RecordingOpStatsLogger(serverWritesPerFlush));
+					}
+				})
+				.bind(address).sync().channel();
+
+		clientChannel = new Bootstrap()
+				.group(eventLoopGroup)
+				.channel(LocalChannel.class)
+				.handler(new ChannelInitializer<LocalChannel>() {
+					@Override
+					protected void initChannel(LocalChannel ch) {
+						ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+							@Override
+							public void channelRead(ChannelHandlerContext ctx, Object msg) {
+								clientReceived.countDown();
+							}
+						});
+						FlushConsolidation.addLast(ch.pipeline(), MAX_FLUSHES,
+								new RecordingOpStatsLogger(clientWritesPerFlush));
+					}
+				})
+				.connect(address).sync().channel();
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		clientChannel.close().sync();
+		serverChannel.close().sync();
+		eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+	}
+
+	@Test
+	public void requestsTest() throws Exception {
+		// The requests written by a single event loop task are flushed once the task completes, or
+		// after MAX_FLUSHES flushes
+		clientChannel.eventLoop().submit(() -> {
+			for (int i = 0; i < numWrites; i++) {
+				clientChannel.writeAndFlush("request-" + i);
+			}
+		}).sync();
+		assertTrue(serverReceived.await(10, TimeUnit.SECONDS));
+		assertEquals(expectedWritesPerFlush, clientWritesPerFlush);
+	}
+
+	@Test
+	public void responsesTest() throws Exception {
+		// The responses written while handling a request are consolidated the same way
+		clientChannel.writeAndFlush(numWrites).sync();
+		assertTrue(clientReceived.await(10, TimeUnit.SECONDS));
+		assertEquals(expectedWritesPerFlush, serverWritesPerFlush);
+		assertEquals(Arrays.asList(1L), clientWritesPerFlush);
+	}
+
+	/**
+	 * Records the values registered, i.e. the number of writes of each flush.
+	 */
+	private static class RecordingOpStatsLogger implements OpStatsLogger {
+
+		private final List<Long> values;
+
+		RecordingOpStatsLogger(List<Long> values) {
+			this.values = values;
+		}
+
+		@Override
+		public void registerSuccessfulValue(long value) {
+			values.add(value);
+		}
+
+		@Override
+		public void registerFailedEvent(long eventLatency, TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void registerSuccessfulEvent(long eventLatency, TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void registerFailedValue(long value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public OpStatsData toOpStatsData() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void clear() {
+			values.clear();
+		}
+	}
+}
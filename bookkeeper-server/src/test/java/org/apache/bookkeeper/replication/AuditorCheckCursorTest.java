@@ -0,0 +1,193 @@
+package org.apache.bookkeeper.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.BookKeeper;
+import org.apache.bookkeeper.client.BookKeeperAdmin;
+import org.apache.bookkeeper.client.LedgerMetadataBuilder;
+import org.apache.bookkeeper.client.api.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.ZkLedgerUnderreplicationManager;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AuditorCheckCursorTest {
+
+	// Auditor instance
+	private Auditor auditor;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long TIMEOUT_MS = 10000;
+	private static final String CHECK_NAME = Auditor.CHECK_ALL_LEDGERS_CURSOR;
+	// ledgers in three ranges of the hierarchical ledger manager
+	private static final List<Long> LEDGERS = Arrays.asList(1L, 2L, 10001L, 10002L, 20001L);
+	private ServerCnxnFactory serverFactory;
+	private ServerConfiguration conf;
+	private ZooKeeper zk;
+	private ZkLedgerUnderreplicationManager underreplicationManager;
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		conf.setMetadataServiceUri(metadataServiceUri);
+		conf.setAuditorMaxConcurrentLedgerChecks(1);
+		assertTrue(BookKeeperAdmin.format(conf, false, true));
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		try (BookKeeper bk = new BookKeeper(clientConf)) {
+			for (long ledgerId : LEDGERS) {
+				bk.getLedgerManager().createLedgerMetadata(ledgerId, LedgerMetadataBuilder.create()
+						.withId(ledgerId)
+						.withEnsembleSize(1)
+						.withWriteQuorumSize(1)
+						.withAckQuorumSize(1)
+						.withPassword(new byte[0])
+						.withDigestType(DigestType.CRC32C)
+						.newEnsembleEntry(0L, Arrays.asList(BookieId.parse("bookie-1:3181")))
+						.build()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		CountDownLatch connected = new CountDownLatch(1);
+		zk = new ZooKeeper("127.0.0.1:" + serverFactory.getLocalPort(), 10000, event -> {
+			if (event.getState() == KeeperState.SyncConnected) {
+				connected.countDown();
+			}
+		});
+		assertTrue(connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		underreplicationManager = new ZkLedgerUnderreplicationManager(conf, zk);
+		auditor = new Auditor("auditor-1:3181", conf, NullStatsLogger.INSTANCE);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		auditor.close();
+		underreplicationManager.close();
+		zk.close();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void cursorStoreTest() throws Exception {
+		// A check never run has no cursor
+		assertEquals(-1L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+
+		// Each check has its own cursor
+		underreplicationManager.setAuditCheckCursor(CHECK_NAME, 10L);
+		underreplicationManager.setAuditCheckCursor(Auditor.REPLICAS_CHECK_CURSOR, 20L);
+		assertEquals(10L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+		assertEquals(20L, underreplicationManager.getAuditCheckCursor(Auditor.REPLICAS_CHECK_CURSOR));
+
+		// The cursor is overwritten
+		underreplicationManager.setAuditCheckCursor(CHECK_NAME, -1L);
+		assertEquals(-1L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+	}
+
+	@Test
+	public void cursorSavedAfterEachRangeTest() throws Exception {
+		List<Long> processed = new ArrayList<>();
+		List<Long> cursors = new ArrayList<>();
+		assertEquals(BKException.Code.OK, auditor.processLedgersIncrementally(CHECK_NAME,
+				recordingProcessor(processed, cursors, -1L), new AtomicBoolean(false)));
+
+		// The cursor is the last ledger of the previous range
+		assertEquals(LEDGERS, processed);
+		assertEquals(Arrays.asList(-1L, -1L, 2L, 2L, 10002L), cursors);
+
+		// The cursor is reset after a full pass
+		assertEquals(-1L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+	}
+
+	@Test
+	public void failoverTest() throws Exception {
+		// The check fails in the second range
+		List<Long> processed = new ArrayList<>();
+		assertEquals(BKException.Code.ReadException, auditor.processLedgersIncrementally(CHECK_NAME,
+				recordingProcessor(processed, new ArrayList<>(), 10002L), new AtomicBoolean(false)));
+		assertEquals(Arrays.asList(1L, 2L, 10001L, 10002L), processed);
+		assertEquals(2L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+
+		// A new auditor resumes the check from the failed range
+		auditor.close();
+		auditor = new Auditor("auditor-2:3181", conf, NullStatsLogger.INSTANCE);
+		processed.clear();
+		assertEquals(BKException.Code.OK, auditor.processLedgersIncrementally(CHECK_NAME,
+				recordingProcessor(processed, new ArrayList<>(), -1L), new AtomicBoolean(false)));
+		assertEquals(Arrays.asList(10001L, 10002L, 20001L), processed);
+		assertEquals(-1L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+	}
+
+	@Test
+	public void replicationDisabledTest() throws Exception {
+		// The replication is disabled while the second range is checked
+		List<Long> processed = new ArrayList<>();
+		AtomicBoolean stopped = new AtomicBoolean(false);
+		Processor<Long> processor = (ledgerId, callback) -> {
+			processed.add(ledgerId);
+			if (ledgerId == 10001L) {
+				try {
+					underreplicationManager.disableLedgerReplication();
+				} catch (ReplicationException.UnavailableException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			callback.processResult(BKException.Code.OK, null, null);
+		};
+		assertEquals(BKException.Code.OK, auditor.processLedgersIncrementally(CHECK_NAME,
+				auditor.stopWhenReplicationDisabled(processor, stopped), stopped));
+
+		// The check stops early, and keeps the cursor of the last range completed
+		assertTrue(stopped.get());
+		assertEquals(Arrays.asList(1L, 2L, 10001L), processed);
+		assertEquals(2L, underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+	}
+
+	/**
+	 * @return a processor recording the ledgers processed with the cursor at that time, and failing on the given
+	 *         ledger
+	 */
+	private Processor<Long> recordingProcessor(List<Long> processed, List<Long> cursors, long failingLedgerId) {
+		return (ledgerId, callback) -> {
+			processed.add(ledgerId);
+			try {
+				cursors.add(underreplicationManager.getAuditCheckCursor(CHECK_NAME));
+			} catch (ReplicationException.UnavailableException e) {
+				throw new RuntimeException(e);
+			}
+			callback.processResult(ledgerId == failingLedgerId ? BKException.Code.ReadException
+					: BKException.Code.OK, null, null);
+		};
+	}
+}
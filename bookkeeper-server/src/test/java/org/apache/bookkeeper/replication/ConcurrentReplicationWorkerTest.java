@@ -0,0 +1,136 @@
+package org.apache.bookkeeper.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.client.BookKeeper;
+import org.apache.bookkeeper.client.BookKeeperAdmin;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.ZkLedgerUnderreplicationManager;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConcurrentReplicationWorkerTest {
+
+	// ReplicationWorker instance
+	private ReplicationWorker worker;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long TIMEOUT_MS = 10000;
+	private static final int MAX_CONCURRENT_LEDGERS = 2;
+	private ServerCnxnFactory serverFactory;
+	private ServerConfiguration conf;
+	private BookKeeper bk;
+	private ZooKeeper zk;
+	private ZkLedgerUnderreplicationManager underreplicationManager;
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		conf.setMetadataServiceUri(metadataServiceUri);
+		conf.setRwMaxConcurrentLedgers(MAX_CONCURRENT_LEDGERS);
+		assertTrue(BookKeeperAdmin.format(conf, false, true));
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		bk = new BookKeeper(clientConf);
+
+		CountDownLatch connected = new CountDownLatch(1);
+		zk = new ZooKeeper("127.0.0.1:" + serverFactory.getLocalPort(), 10000, event -> {
+			if (event.getState() == KeeperState.SyncConnected) {
+				connected.countDown();
+			}
+		});
+		assertTrue(connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		underreplicationManager = new ZkLedgerUnderreplicationManager(conf, zk);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		if (worker != null) {
+			worker.shutdown();
+		}
+		underreplicationManager.close();
+		zk.close();
+		bk.close();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void drainOnShutdownTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(MAX_CONCURRENT_LEDGERS);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger finished = new AtomicInteger();
+		worker = new ReplicationWorker(conf, bk, false, NullStatsLogger.INSTANCE) {
+			@Override
+			boolean rereplicate(long ledgerIdToReplicate) throws InterruptedException {
+				started.countDown();
+				release.await();
+				finished.incrementAndGet();
+				return true;
+			}
+		};
+		worker.start();
+
+		// The ledgers are rereplicated concurrently
+		for (long ledgerId = 1; ledgerId <= MAX_CONCURRENT_LEDGERS; ledgerId++) {
+			underreplicationManager.markLedgerUnderreplicated(ledgerId, "bookie-1:3181");
+		}
+		assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+		// Shutting down waits for the running rereplications
+		Thread shutdown = new Thread(worker::shutdown);
+		shutdown.start();
+		shutdown.join(200);
+		assertTrue(shutdown.isAlive());
+		assertEquals(0, finished.get());
+
+		release.countDown();
+		shutdown.join(TIMEOUT_MS);
+		assertFalse(shutdown.isAlive());
+		assertEquals(MAX_CONCURRENT_LEDGERS, finished.get());
+	}
+
+	@Test
+	public void shutdownFromReplicationTaskTest() throws Exception {
+		CountDownLatch shutdownReturned = new CountDownLatch(1);
+		worker = new ReplicationWorker(conf, bk, false, NullStatsLogger.INSTANCE) {
+			@Override
+			boolean rereplicate(long ledgerIdToReplicate) {
+				// A replication task shutting down the worker does not wait for itself
+				shutdown();
+				shutdownReturned.countDown();
+				return false;
+			}
+		};
+		worker.start();
+		underreplicationManager.markLedgerUnderreplicated(1L, "bookie-1:3181");
+		assertTrue(shutdownReturned.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		assertFalse(worker.isRunning());
+	}
+}
@@ -0,0 +1,132 @@
+package org.apache.bookkeeper.tests.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.bookie.BookieException;
+import org.apache.bookkeeper.bookie.BookieException.LedgerFencedException;
+import org.apache.bookkeeper.bookie.BookieImpl;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+
+@RunWith(Parameterized.class)
+public class BookieAddEntriesTest {
+
+	// Bookie instance
+	private Bookie bookie;
+
+	// Test parameters
+	private long[] entryIds;
+	private boolean fenced;
+	private Class<? extends Exception> expectedException;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Rule to manage exceptions
+	@Rule public ExpectedException exceptionRule = ExpectedException.none();
+
+	// Test environment
+	private static final long LEDGER_ID = 1L;
+	private static final byte[] MASTER_KEY = {0, 1, 2, 3, 4};
+	private File journalDir;
+	private File ledgerDir;
+	private ServerConfiguration conf;
+
+	public BookieAddEntriesTest(long[] entryIds, boolean fenced, Class<? extends Exception> expectedException) {
+		this.entryIds = entryIds;
+		this.fenced = fenced;
+		this.expectedException = expectedException;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+
+			// Consecutive entries
+			{ new long[] { 0L }, false, null },
+			{ new long[] { 0L, 1L, 2L, 3L, 4L }, false, null },
+			{ new long[] { 5L, 6L, 7L }, false, null },
+
+			// Invalid ranges
+			{ new long[] {}, false, IllegalArgumentException.class },
+			{ new long[] { 0L, 2L }, false, IllegalArgumentException.class },
+			{ new long[] { 1L, 0L }, false, IllegalArgumentException.class },
+
+			// Fenced ledger
+			{ new long[] { 0L, 1L }, true, LedgerFencedException.class },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws IOException, InterruptedException, BookieException {
+		journalDir = testDir.newFolder("journal");
+		ledgerDir = testDir.newFolder("ledger");
+		conf = TestUtil.getConfiguration(journalDir, ledgerDir);
+
+		bookie = new BookieImpl(conf);
+		bookie.start();
+
+		if (expectedException != null) {
+			exceptionRule.expect(expectedException);
+		}
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		bookie.shutdown();
+	}
+
+	@Test
+	public void addEntriesTest() throws Exception {
+
+		if (fenced) {
+
+			// Fence the ledger
+			bookie.fenceLedger(LEDGER_ID, MASTER_KEY).get();
+		}
+
+		List<ByteBuf> entries = new ArrayList<>();
+		for (long entryId : entryIds) {
+			entries.add(TestUtil.generateEntry(LEDGER_ID, entryId));
+		}
+
+		// Add the range of entries, the callback is called once for the last entry
+		CompletableFuture<Long> lastEntryId = new CompletableFuture<>();
+		bookie.addEntries(entries, false, (rc, ledgerId, entryId, addr, ctx) -> {
+			assertEquals(0, rc);
+			assertTrue(lastEntryId.complete(entryId));
+		}, null, MASTER_KEY);
+
+		// Assert that the range is acknowledged once, and that every entry can be read back
+		assertEquals(entryIds[entryIds.length - 1], (long) lastEntryId.get(10, TimeUnit.SECONDS));
+		for (long entryId : entryIds) {
+			ByteBuf entry = bookie.readEntry(LEDGER_ID, entryId);
+			assertEquals(TestUtil.generateEntry(LEDGER_ID, entryId), entry);
+			entry.release();
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package org.apache.bookkeeper.tests.bookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+import org.apache.bookkeeper.bookie.EntryLogMetadata;
+import org.apache.bookkeeper.bookie.EntryLogMetadataMap;
+import org.apache.bookkeeper.bookie.InMemoryEntryLogMetadataMap;
+import org.apache.bookkeeper.bookie.PersistentEntryLogMetadataMap;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class EntryLogMetadataMapTest {
+
+	// Map instance
+	private EntryLogMetadataMap map;
+
+	// Test parameters
+	private boolean persistent;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private File metadataDir;
+	private ServerConfiguration conf;
+
+	public EntryLogMetadataMapTest(boolean persistent) {
+		this.persistent = persistent;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ false },
+			{ true },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		metadataDir = testDir.newFolder("metadata");
+		conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		map = newMap();
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws IOException {
+		map.close();
+	}
+
+	@Test
+	public void putGetRemoveTest() throws Exception {
+		for (long logId = 0; logId < 3; logId++) {
+			map.put(logId, newMetadata(logId));
+		}
+
+		// Assert that every entry log metadata is found
+		assertEquals(3, map.size());
+		assertTrue(map.containsKey(1L));
+		assertFalse(map.containsKey(3L));
+		Map<Long, EntryLogMetadata> content = content();
+		for (long logId = 0; logId < 3; logId++) {
+			assertMetadata(newMetadata(logId), content.get(logId));
+		}
+
+		// Assert that removed and replaced metadata are not returned anymore
+		map.remove(1L);
+		EntryLogMetadata replaced = newMetadata(2L);
+		replaced.removeLedgerIf(ledgerId -> ledgerId == 2L);
+		map.put(2L, replaced);
+		assertEquals(2, map.size());
+		assertFalse(map.containsKey(1L));
+		assertMetadata(replaced, content().get(2L));
+	}
+
+	@Test
+	public void reopenTest() throws Exception {
+		map.put(1L, newMetadata(1L));
+		map.close();
+
+		// Only the persistent map keeps the metadata across restarts
+		map = newMap();
+		assertEquals(persistent ? 1 : 0, map.size());
+		if (persistent) {
+			assertMetadata(newMetadata(1L), content().get(1L));
+		}
+	}
+
+	@Test
+	public void serializationTest() throws Exception {
+		EntryLogMetadata metadata = newMetadata(5L);
+		metadata.removeLedgerIf(ledgerId -> ledgerId == 1L);
+		map.put(5L, metadata);
+
+		// Assert that sizes and ledgers survive the round trip, including after a ledger removal
+		EntryLogMetadata stored = content().get(5L);
+		assertMetadata(metadata, stored);
+		assertEquals(metadata.getUsage(), stored.getUsage(), 0.0);
+	}
+
+	@Test
+	public void staleMetadataTest() throws Exception {
+		for (long logId = 0; logId < 3; logId++) {
+			map.put(logId, newMetadata(logId));
+		}
+		map.close();
+
+		// The metadata of the entry logs removed from the disk is not loaded anymore
+		map = newMap(logId -> logId != 1L);
+		assertEquals(persistent ? 2 : 0, map.size());
+		assertFalse(map.containsKey(1L));
+		assertEquals(persistent ? 2 : 0, content().size());
+
+		// And it stays removed after another restart
+		map.close();
+		map = newMap();
+		assertEquals(persistent ? 2 : 0, map.size());
+	}
+
+	@Test
+	public void sizeTest() throws Exception {
+
+		// Replacing or removing missing metadata doesn't change the size
+		map.put(1L, newMetadata(1L));
+		map.put(1L, newMetadata(1L));
+		map.remove(2L);
+		assertEquals(1, map.size());
+		map.remove(1L);
+		map.remove(1L);
+		assertEquals(0, map.size());
+	}
+
+	private EntryLogMetadataMap newMap() throws IOException {
+		return newMap(logId -> true);
+	}
+
+	private EntryLogMetadataMap newMap(LongPredicate logExists) throws IOException {
+		return persistent
+				? new PersistentEntryLogMetadataMap(metadataDir.getPath(), "entrylogs", conf, logExists)
+				: new InMemoryEntryLogMetadataMap();
+	}
+
+	private Map<Long, EntryLogMetadata> content() throws IOException {
+		Map<Long, EntryLogMetadata> content = new HashMap<>();
+		map.forEach((logId, metadata) -> assertEquals(null, content.put(logId, metadata)));
+		return content;
+	}
+
+	private static EntryLogMetadata newMetadata(long logId) {
+		EntryLogMetadata metadata = new EntryLogMetadata(logId);
+		for (long ledgerId = 0; ledgerId <= logId + 1; ledgerId++) {
+			metadata.addLedgerSize(ledgerId, 100 * (ledgerId + 1));
+		}
+		return metadata;
+	}
+
+	private static void assertMetadata(EntryLogMetadata expected, EntryLogMetadata actual) {
+		assertEquals(expected.getEntryLogId(), actual.getEntryLogId());
+		assertEquals(expected.getTotalSize(), actual.getTotalSize());
+		assertEquals(expected.getRemainingSize(), actual.getRemainingSize());
+		assertEquals(expected.getLedgersMap().size(), actual.getLedgersMap().size());
+		expected.getLedgersMap().forEach((ledgerId, size) ->
+				assertEquals(size, actual.getLedgersMap().get(ledgerId)));
+	}
+}
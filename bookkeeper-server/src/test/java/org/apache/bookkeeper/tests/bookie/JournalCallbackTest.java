@@ -0,0 +1,110 @@
+package org.apache.bookkeeper.tests.bookie;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.bookie.Journal;
+import org.apache.bookkeeper.bookie.LedgerDirsManager;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class JournalCallbackTest {
+
+	// Journal instance
+	private Journal journal;
+
+	// Test parameters
+	private int numCallbackThreads;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final int NUM_LEDGERS = 5;
+	private static final int NUM_ENTRIES = 200;
+
+	public JournalCallbackTest(int numCallbackThreads) {
+		this.numCallbackThreads = numCallbackThreads;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Callbacks run by the force write thread
+			{ 0 },
+			{ 1 },
+			// Callbacks split by ledger
+			{ 4 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		File journalDir = new File(testDir.newFolder("journal"), "current");
+		journalDir.mkdirs();
+		ServerConfiguration conf = TestUtil.getConfiguration(journalDir, testDir.newFolder("ledger"));
+		conf.setNumJournalCallbackThreads(numCallbackThreads);
+		LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+		journal = new Journal(0, journalDir, conf, ledgerDirsManager);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		journal.shutdown();
+	}
+
+	@Test
+	public void callbackTest() throws Exception {
+
+		// Queue the entries of several ledgers before the journal starts, so that they are
+		// drained in batches
+		ConcurrentHashMap<Long, ConcurrentLinkedQueue<Long>> persisted = new ConcurrentHashMap<>();
+		CountDownLatch allPersisted = new CountDownLatch(NUM_LEDGERS * NUM_ENTRIES);
+		for (long entryId = 0; entryId < NUM_ENTRIES; entryId++) {
+			for (long ledgerId = 0; ledgerId < NUM_LEDGERS; ledgerId++) {
+				journal.logAddEntry(TestUtil.generateEntry(ledgerId, entryId), false, (rc, lId, eId, addr, ctx) -> {
+					assertEquals(0, rc);
+					persisted.computeIfAbsent(lId, id -> new ConcurrentLinkedQueue<>()).add(eId);
+					allPersisted.countDown();
+				}, null);
+			}
+		}
+		assertEquals(NUM_LEDGERS * NUM_ENTRIES, journal.getJournalQueueLength());
+
+		// Assert that every entry is acknowledged once, and that the queue length, which counts
+		// the drained entries, goes back to zero
+		journal.start();
+		assertEquals(true, allPersisted.await(30, TimeUnit.SECONDS));
+		for (long ledgerId = 0; ledgerId < NUM_LEDGERS; ledgerId++) {
+			List<Long> entryIds = new ArrayList<>(persisted.get(ledgerId));
+			entryIds.sort(null);
+			assertEquals(NUM_ENTRIES, entryIds.size());
+			for (int i = 0; i < NUM_ENTRIES; i++) {
+				assertEquals(i, (long) entryIds.get(i));
+			}
+		}
+		assertEquals(0, journal.getJournalQueueLength());
+	}
+}
@@ -0,0 +1,140 @@
+package org.apache.bookkeeper.tests.bookie;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.bookie.Journal;
+import org.apache.bookkeeper.bookie.LedgerDirsManager;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.bookkeeper.util.DiskChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+@RunWith(Parameterized.class)
+public class JournalDirectIOTest {
+
+	// Journal instance
+	private Journal journal;
+
+	// Test parameters
+	private boolean directIO;
+	private int numEntries;
+	private int entrySize;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final long LEDGER_ID = 1L;
+	private File journalDir;
+	private ServerConfiguration conf;
+	private LedgerDirsManager ledgerDirsManager;
+
+	public JournalDirectIOTest(boolean directIO, int numEntries, int entrySize) {
+		this.directIO = directIO;
+		this.numEntries = numEntries;
+		this.entrySize = entrySize;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+
+			// Buffered writes, for reference
+			{ false, 100, 100 },
+
+			// Entries smaller than a block, the trailing partial block is rewritten by each flush
+			{ true, 1, 100 },
+			{ true, 100, 100 },
+			// Entries spanning several blocks, with unaligned sizes
+			{ true, 50, 4096 * 3 + 17 },
+			// Entries larger than the write buffer
+			{ true, 5, 1024 * 1024 + 1 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		journalDir = new File(testDir.newFolder("journal"), "current");
+		journalDir.mkdirs();
+		File ledgerDir = testDir.newFolder("ledger");
+		conf = TestUtil.getConfiguration(journalDir, ledgerDir);
+		conf.setJournalDirectIOEnabled(directIO);
+		conf.setJournalWriteBufferSizeKB(64);
+		ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
+				new DiskChecker(conf.getDiskUsageThreshold(), conf.getDiskUsageWarnThreshold()));
+
+		journal = new Journal(0, journalDir, conf, ledgerDirsManager);
+		journal.start();
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		journal.shutdown();
+	}
+
+	@Test
+	public void journalDirectIOTest() throws Exception {
+
+		// Write the entries, and wait until they are all persisted
+		Random random = new Random(numEntries * entrySize);
+		List<ByteBuf> entries = new ArrayList<>();
+		CountDownLatch persisted = new CountDownLatch(numEntries);
+		for (long entryId = 0; entryId < numEntries; entryId++) {
+			byte[] data = new byte[entrySize];
+			random.nextBytes(data);
+			ByteBuf entry = Unpooled.buffer(16 + entrySize);
+			entry.writeLong(LEDGER_ID);
+			entry.writeLong(entryId);
+			entry.writeBytes(data);
+			entries.add(entry);
+			journal.logAddEntry(entry.retainedDuplicate(), false,
+					(rc, ledgerId, eId, addr, ctx) -> persisted.countDown(), null);
+		}
+		persisted.await(30, TimeUnit.SECONDS);
+		assertEquals(0, persisted.getCount());
+		journal.shutdown();
+
+		// Read the journal back with a new journal instance
+		List<ByteBuf> scanned = new ArrayList<>();
+		Journal reader = new Journal(0, journalDir, conf, ledgerDirsManager);
+		List<Long> journalIds = new ArrayList<>();
+		for (File file : journalDir.listFiles()) {
+			if (file.getName().endsWith(".txn")) {
+				journalIds.add(Long.parseLong(file.getName().split("\\.")[0], 16));
+			}
+		}
+		Collections.sort(journalIds);
+		for (long journalId : journalIds) {
+			reader.scanJournal(journalId, 0L, (journalVersion, offset, entry) -> {
+				if (entry.getLong(entry.position()) == LEDGER_ID) {
+					scanned.add(Unpooled.copiedBuffer(entry));
+				}
+			});
+		}
+
+		// Assert that every entry was persisted, in order and intact
+		assertEquals(entries, scanned);
+	}
+}
@@ -0,0 +1,160 @@
+package org.apache.bookkeeper.tests.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.BookKeeper;
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.client.BookKeeperAdmin;
+import org.apache.bookkeeper.client.LedgerHandle;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.proto.BookieServer;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+@RunWith(Parameterized.class)
+public class AddMemoryLimitTest {
+
+	// BookKeeper client instance
+	private BookKeeper bk;
+
+	// Test parameters
+	private boolean failFast;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final int ENTRY_SIZE = 1024;
+	// the limit can be exceeded by a single add, so 3 adds fit in it
+	private static final long MEMORY_LIMIT = 2 * ENTRY_SIZE;
+	private static final byte[] PASSWORD = "password".getBytes();
+	private ServerCnxnFactory serverFactory;
+	private BookieServer bookieServer;
+
+	public AddMemoryLimitTest(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Adds over the limit wait for memory to be released
+			{ false },
+			// Adds over the limit fail
+			{ true },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		File ledgerDir = testDir.newFolder("ledger");
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), ledgerDir);
+		conf.setDiskUsageThreshold(0.999f);
+		conf.setDiskUsageWarnThreshold(0.99f);
+		conf.setMetadataServiceUri(metadataServiceUri);
+		assertTrue(BookKeeperAdmin.format(conf, false, true));
+		bookieServer = new BookieServer(conf);
+		bookieServer.start();
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		clientConf.setAddEntryMemoryLimitBytes(MEMORY_LIMIT);
+		clientConf.setAddEntryMemoryLimitFailFast(failFast);
+		bk = new BookKeeper(clientConf);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		bookieServer.resumeProcessing();
+		bk.close();
+		bookieServer.shutdown();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void memoryLimitTest() throws Exception {
+		LedgerHandle lh = bk.createLedger(1, 1, 1, DigestType.CRC32C, PASSWORD);
+
+		// While the bookie does not answer, the adds hold their memory until the limit is reached.
+		// No add completes before, as a completed add may give its memory back after its callback
+		bookieServer.suspendProcessing();
+		List<CompletableFuture<Long>> pendingAdds = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			pendingAdds.add(lh.appendAsync(newEntry()));
+		}
+		CompletableFuture<CompletableFuture<Long>> overLimitAdd = CompletableFuture.supplyAsync(
+				() -> lh.appendAsync(newEntry()));
+
+		if (failFast) {
+			// The add over the limit fails without waiting
+			try {
+				overLimitAdd.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+				fail("An add over the memory limit should fail");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof BKException.BKTooManyRequestsException);
+			}
+
+			// The failed add has no entry id
+			CompletableFuture<long[]> failedAdd = new CompletableFuture<>();
+			lh.asyncAddEntry(new byte[ENTRY_SIZE], (rc, handle, entryId, ctx) -> {
+				failedAdd.complete(new long[] { rc, entryId });
+			}, null);
+			long[] rcAndEntryId = failedAdd.get(10, TimeUnit.SECONDS);
+			assertEquals(BKException.Code.TooManyRequestsException, rcAndEntryId[0]);
+			assertEquals(LedgerHandle.INVALID_ENTRY_ID, rcAndEntryId[1]);
+		} else {
+			// The add over the limit waits for memory to be released
+			Thread.sleep(200);
+			assertFalse(overLimitAdd.isDone());
+		}
+
+		// Once the bookie answers, the memory is released and the waiting add goes through
+		bookieServer.resumeProcessing();
+		for (int i = 0; i < pendingAdds.size(); i++) {
+			assertEquals((long) i, (long) pendingAdds.get(i).get(10, TimeUnit.SECONDS));
+		}
+		long nextEntryId = pendingAdds.size();
+		if (!failFast) {
+			assertEquals(nextEntryId++, (long) overLimitAdd.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(nextEntryId, (long) lh.appendAsync(newEntry()).get(10, TimeUnit.SECONDS));
+		lh.close();
+	}
+
+	private static ByteBuf newEntry() {
+		return Unpooled.wrappedBuffer(new byte[ENTRY_SIZE]);
+	}
+}
@@ -0,0 +1,171 @@
+package org.apache.bookkeeper.tests.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.bookkeeper.client.BookiesHealthInfo;
+import org.apache.bookkeeper.client.DistributionSchedule;
+import org.apache.bookkeeper.client.RackawareEnsemblePlacementPolicy;
+import org.apache.bookkeeper.client.RoundRobinDistributionSchedule;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.feature.SettableFeatureProvider;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.net.DNSToSwitchMapping;
+import org.apache.bookkeeper.net.NetworkTopology;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.After;
+import org.junit.Test;
+
+import io.netty.util.HashedWheelTimer;
+
+public class ReadReorderByLatencyTest {
+
+	// RackawareEnsemblePlacementPolicy instance
+	private RackawareEnsemblePlacementPolicy policy;
+
+	// Test environment
+	private static final int NUM_READS = 100;
+	private static final List<BookieId> ENSEMBLE = Arrays.asList(
+			BookieId.parse("127.0.0.1:3181"), BookieId.parse("127.0.0.2:3181"), BookieId.parse("127.0.0.3:3181"));
+	private final HashedWheelTimer timer = new HashedWheelTimer();
+	private final Map<BookieId, Long> latencies = new HashMap<>();
+	private final Map<BookieId, Long> pendingRequests = new HashMap<>();
+	private final BookiesHealthInfo healthInfo = new BookiesHealthInfo() {
+		@Override
+		public long getBookieFailureHistory(BookieId bookie) {
+			return -1L;
+		}
+
+		@Override
+		public long getBookiePendingRequests(BookieId bookie) {
+			return pendingRequests.getOrDefault(bookie, 0L);
+		}
+
+		@Override
+		public long getBookieReadLatencyMicros(BookieId bookie) {
+			return latencies.getOrDefault(bookie, -1L);
+		}
+	};
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		policy.uninitalize();
+		timer.stop();
+	}
+
+	@Test
+	public void slowBookieTest() {
+		newPolicy(true);
+		setLatencies(10000L, 100L, 100L);
+
+		// The slow bookie is never read first, as it loses against any other replica
+		for (int i = 0; i < NUM_READS; i++) {
+			assertNotEquals(0, (int) reorder().get(0));
+		}
+	}
+
+	@Test
+	public void pendingRequestsTest() {
+		newPolicy(true);
+		setLatencies(100L, 100L, 100L);
+		pendingRequests.put(ENSEMBLE.get(0), 50L);
+
+		// With the same latency, the bookie with the deepest queue is not read first
+		for (int i = 0; i < NUM_READS; i++) {
+			assertNotEquals(0, (int) reorder().get(0));
+		}
+	}
+
+	@Test
+	public void unknownLatencyTest() {
+		newPolicy(true);
+		latencies.put(ENSEMBLE.get(0), 100L);
+
+		// The bookies that have not been read yet are tried, so that their latency becomes known
+		for (int i = 0; i < NUM_READS; i++) {
+			assertNotEquals(0, (int) reorder().get(0));
+		}
+	}
+
+	@Test
+	public void fastBookieTest() {
+		newPolicy(true);
+		setLatencies(100L, 10000L, 10000L);
+
+		// The fast bookie stays first
+		for (int i = 0; i < NUM_READS; i++) {
+			assertEquals(Arrays.asList(0, 1, 2), reorder());
+		}
+	}
+
+	@Test
+	public void equalScoresTest() {
+		newPolicy(true);
+		setLatencies(100L, 100L, 100L);
+
+		// Replicas that are no better than the first one do not replace it
+		for (int i = 0; i < NUM_READS; i++) {
+			assertEquals(Arrays.asList(0, 1, 2), reorder());
+		}
+	}
+
+	@Test
+	public void disabledTest() {
+		newPolicy(false);
+		setLatencies(10000L, 100L, 100L);
+
+		// Without latency reordering, the write set order is kept
+		for (int i = 0; i < NUM_READS; i++) {
+			assertEquals(Arrays.asList(0, 1, 2), reorder());
+		}
+	}
+
+	private void newPolicy(boolean reorderReadsByLatency) {
+		ClientConfiguration conf = new ClientConfiguration();
+		conf.setReorderReadSequenceEnabled(true);
+		conf.setReorderReadsByLatencyEnabled(reorderReadsByLatency);
+		DNSToSwitchMapping dnsResolver = new DNSToSwitchMapping() {
+			@Override
+			public List<String> resolve(List<String> names) {
+				return new ArrayList<>(Collections.nCopies(names.size(), NetworkTopology.DEFAULT_REGION_AND_RACK));
+			}
+
+			@Override
+			public void reloadCachedMappings() {
+				// empty
+			}
+		};
+		policy = new RackawareEnsemblePlacementPolicy();
+		policy.initialize(conf, Optional.of(dnsResolver), timer, SettableFeatureProvider.DISABLE_ALL,
+				NullStatsLogger.INSTANCE, BookieSocketAddress.LEGACY_BOOKIEID_RESOLVER);
+		policy.onClusterChanged(new HashSet<>(ENSEMBLE), Collections.emptySet());
+	}
+
+	private void setLatencies(long... latencyMicros) {
+		for (int i = 0; i < latencyMicros.length; i++) {
+			latencies.put(ENSEMBLE.get(i), latencyMicros[i]);
+		}
+	}
+
+	private List<Integer> reorder() {
+		DistributionSchedule.WriteSet writeSet = new RoundRobinDistributionSchedule(3, 2, 3).getWriteSet(0L);
+		DistributionSchedule.WriteSet reordered = policy.reorderReadSequence(ENSEMBLE, healthInfo, writeSet);
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < reordered.size(); i++) {
+			order.add(reordered.get(i));
+		}
+		reordered.recycle();
+		return order;
+	}
+}
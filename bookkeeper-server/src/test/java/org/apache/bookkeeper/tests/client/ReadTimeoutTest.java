@@ -0,0 +1,123 @@
+package org.apache.bookkeeper.tests.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.BookKeeper;
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.client.BookKeeperAdmin;
+import org.apache.bookkeeper.client.LedgerEntry;
+import org.apache.bookkeeper.client.LedgerHandle;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.proto.BookieServer;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ReadTimeoutTest {
+
+	// BookKeeper client instance
+	private BookKeeper bk;
+
+	// Test parameters
+	private boolean useV2WireProtocol;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private static final byte[] ENTRY = "entry".getBytes();
+	private static final byte[] PASSWORD = "password".getBytes();
+	private ServerCnxnFactory serverFactory;
+	private BookieServer bookieServer;
+
+	public ReadTimeoutTest(boolean useV2WireProtocol) {
+		this.useV2WireProtocol = useV2WireProtocol;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			// Requests with a unique txnId
+			{ false },
+			// Requests keyed by ledger and entry, duplicate reads share a key
+			{ true },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		ZooKeeperServer server = new ZooKeeperServer(testDir.newFolder("snapshot"), testDir.newFolder("log"), 2000);
+		serverFactory = ServerCnxnFactory.createFactory(0, 10);
+		serverFactory.startup(server);
+		String metadataServiceUri = "zk+null://127.0.0.1:" + serverFactory.getLocalPort() + "/ledgers";
+
+		ServerConfiguration conf = TestUtil.getConfiguration(testDir.newFolder("journal"), testDir.newFolder("ledger"));
+		conf.setDiskUsageThreshold(0.999f);
+		conf.setDiskUsageWarnThreshold(0.99f);
+		conf.setMetadataServiceUri(metadataServiceUri);
+		assertTrue(BookKeeperAdmin.format(conf, false, true));
+		bookieServer = new BookieServer(conf);
+		bookieServer.start();
+
+		ClientConfiguration clientConf = new ClientConfiguration();
+		clientConf.setMetadataServiceUri(metadataServiceUri);
+		clientConf.setUseV2WireProtocol(useV2WireProtocol);
+		clientConf.setReadEntryTimeout(1);
+		clientConf.setTimeoutMonitorIntervalSec(1);
+		bk = new BookKeeper(clientConf);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() throws Exception {
+		bookieServer.resumeProcessing();
+		bk.close();
+		bookieServer.shutdown();
+		serverFactory.shutdown();
+	}
+
+	@Test
+	public void readTimeoutTest() throws Exception {
+		LedgerHandle lh = bk.createLedger(1, 1, 1, DigestType.CRC32C, PASSWORD);
+		lh.addEntry(ENTRY);
+
+		// Reads of the same entry are all timed out while the bookie does not answer
+		bookieServer.suspendProcessing();
+		List<CompletableFuture<Integer>> reads = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			CompletableFuture<Integer> read = new CompletableFuture<>();
+			lh.asyncReadEntries(0, 0, (rc, handle, entries, ctx) -> read.complete(rc), null);
+			reads.add(read);
+		}
+		for (CompletableFuture<Integer> read : reads) {
+			assertEquals(BKException.Code.TimeoutException, (int) read.get(10, TimeUnit.SECONDS));
+		}
+
+		// The late responses are dropped, and the next read goes through
+		bookieServer.resumeProcessing();
+		LedgerEntry entry = lh.readEntries(0, 0).nextElement();
+		assertArrayEquals(ENTRY, entry.getEntry());
+		lh.close();
+	}
+}
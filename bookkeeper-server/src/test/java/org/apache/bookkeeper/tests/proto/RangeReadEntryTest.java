@@ -0,0 +1,180 @@
+package org.apache.bookkeeper.tests.proto;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.bookie.BookieException;
+import org.apache.bookkeeper.bookie.BookieImpl;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookieRequestProcessor;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.OperationType;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.ProtocolVersion;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeReadResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+@RunWith(Parameterized.class)
+public class RangeReadEntryTest {
+
+	// Bookie and request processor instances
+	private Bookie bookie;
+	private BookieRequestProcessor processor;
+
+	// Bookie configuration
+	private static final long LEDGER_ID = 1L;
+	private static final int NUM_ENTRIES = 10;
+	private static final int MAX_ENTRIES = 5;
+	private static final int DEFAULT_FRAME_SIZE = 5 * 1024 * 1024;
+	// size of the entries generated by TestUtil, plus the protobuf overhead counted by the bookie
+	private static final int ENTRY_SIZE = 26 + 8;
+
+	// Test parameters
+	private long ledgerId;
+	private long startEntryId;
+	private int maxCount;
+	private long maxSize;
+	private int frameSize;
+	private StatusCode expectedStatus;
+	private int expectedEntries;
+
+	// Rule to make temporary folders
+	@Rule public final TemporaryFolder testDir = new TemporaryFolder();
+
+	// Test environment
+	private EmbeddedChannel channel;
+	private static WriteCallback callback = new WriteCallback() {
+		@Override
+		public void writeComplete(int rc, long ledgerId, long entryId, BookieId addr, Object ctx) {
+			// empty
+		}
+	};
+
+	public RangeReadEntryTest(long ledgerId, long startEntryId, int maxCount, long maxSize, int frameSize,
+			StatusCode expectedStatus, int expectedEntries) {
+		this.ledgerId = ledgerId;
+		this.startEntryId = startEntryId;
+		this.maxCount = maxCount;
+		this.maxSize = maxSize;
+		this.frameSize = frameSize;
+		this.expectedStatus = expectedStatus;
+		this.expectedEntries = expectedEntries;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+
+			// Limited by the requested count
+			{ LEDGER_ID, 0L, 4, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.EOK, 4 },
+			// Limited by the requested size
+			{ LEDGER_ID, 0L, 4, 2L * ENTRY_SIZE, DEFAULT_FRAME_SIZE, StatusCode.EOK, 2 },
+			// The first entry is returned even if it exceeds the requested size
+			{ LEDGER_ID, 0L, 4, 1L, DEFAULT_FRAME_SIZE, StatusCode.EOK, 1 },
+			// Count clamped by the bookie
+			{ LEDGER_ID, 0L, 100, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.EOK, MAX_ENTRIES },
+			// Size clamped by the bookie frame size
+			{ LEDGER_ID, 0L, 4, Long.MAX_VALUE, 1024 + 3 * ENTRY_SIZE, StatusCode.EOK, 3 },
+			// Partial response at the end of the ledger
+			{ LEDGER_ID, 8L, 4, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.EOK, 2 },
+			// Errors
+			{ LEDGER_ID, 10L, 4, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.ENOENTRY, 0 },
+			{ 2L, 0L, 4, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.ENOLEDGER, 0 },
+			{ LEDGER_ID, -1L, 4, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.EBADREQ, 0 },
+			{ LEDGER_ID, 0L, 0, 1024 * 1024L, DEFAULT_FRAME_SIZE, StatusCode.EBADREQ, 0 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() throws Exception {
+		File journalDir = testDir.newFolder("journal");
+		File ledgerDir = testDir.newFolder("ledger");
+		ServerConfiguration conf = TestUtil.getConfiguration(journalDir, ledgerDir);
+		conf.setNumReadWorkerThreads(0);
+		conf.setNumAddWorkerThreads(0);
+		conf.setRangeReadMaxEntries(MAX_ENTRIES);
+		conf.setNettyMaxFrameSizeBytes(frameSize);
+
+		bookie = new BookieImpl(conf);
+		bookie.start();
+		for (long entryId = 0; entryId < NUM_ENTRIES; entryId++) {
+			bookie.addEntry(TestUtil.generateEntry(LEDGER_ID, entryId), false, callback, null, new byte[0]);
+		}
+
+		processor = new BookieRequestProcessor(conf, bookie, NullStatsLogger.INSTANCE, null,
+				ByteBufAllocator.DEFAULT);
+		// serialize the responses like the protocol encoder, before the entries are released
+		channel = new EmbeddedChannel(new MessageToMessageEncoder<Response>() {
+			@Override
+			protected void encode(ChannelHandlerContext ctx, Response msg, List<Object> out) {
+				out.add(Unpooled.wrappedBuffer(msg.toByteArray()));
+			}
+		});
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		channel.finishAndReleaseAll();
+		processor.close();
+		bookie.shutdown();
+	}
+
+	@Test
+	public void rangeReadTest() throws IOException, BookieException {
+
+		// Send the range read request to the bookie
+		processor.processRequest(Request.newBuilder()
+				.setHeader(BKPacketHeader.newBuilder()
+						.setVersion(ProtocolVersion.VERSION_THREE)
+						.setOperation(OperationType.RANGE_READ_ENTRY)
+						.setTxnId(1L))
+				.setRangeReadRequest(RangeReadRequest.newBuilder()
+						.setLedgerId(ledgerId)
+						.setStartEntryId(startEntryId)
+						.setMaxCount(maxCount)
+						.setMaxSize(maxSize))
+				.build(), channel);
+
+		// Assert that the response holds the expected consecutive entries
+		ByteBuf serializedResponse = channel.readOutbound();
+		Response response = Response.parseFrom(ByteBufUtil.getBytes(serializedResponse));
+		serializedResponse.release();
+		RangeReadResponse rangeReadResponse = response.getRangeReadResponse();
+		assertEquals(expectedStatus, rangeReadResponse.getStatus());
+		assertEquals(expectedEntries, rangeReadResponse.getBodyCount());
+		for (int i = 0; i < expectedEntries; i++) {
+			ByteBuf expectedEntry = TestUtil.generateEntry(ledgerId, startEntryId + i);
+			assertEquals(expectedEntry, Unpooled.wrappedBuffer(rangeReadResponse.getBody(i).toByteArray()));
+		}
+	}
+}
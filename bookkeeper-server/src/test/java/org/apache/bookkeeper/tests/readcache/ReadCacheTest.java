@@ -0,0 +1,219 @@
+package org.apache.bookkeeper.tests.readcache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.bookkeeper.bookie.storage.ldb.ReadCache;
+import org.apache.bookkeeper.tests.util.SimpleCounter;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+public class ReadCacheTest {
+
+	// ReadCache instance
+	private ReadCache readCache;
+
+	// Cache configuration, the entries generated by TestUtil take 64 bytes once aligned
+	private static final int ALIGNED_ENTRY_SIZE = 64;
+	private static final int ENTRIES_PER_SEGMENT = 16;
+	private static final int SEGMENT_SIZE = ALIGNED_ENTRY_SIZE * ENTRIES_PER_SEGMENT;
+	private static final int SEGMENTS_COUNT = 4;
+
+	// Test environment
+	private final SimpleCounter hits = new SimpleCounter();
+	private final SimpleCounter misses = new SimpleCounter();
+	private final SimpleCounter evictedEntries = new SimpleCounter();
+	private final SimpleCounter admissionRejects = new SimpleCounter();
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		readCache.close();
+	}
+
+	@Test
+	public void putGetTest() {
+		newCache(SEGMENT_SIZE * SEGMENTS_COUNT, SEGMENT_SIZE);
+		readCache.put(1L, 0L, TestUtil.generateEntry(1L, 0L));
+
+		// Assert that the entry is returned, and that other entries miss
+		assertEntry(1L, 0L);
+		assertNull(readCache.get(1L, 1L));
+		assertEquals(1L, (long) hits.get());
+		assertEquals(1L, (long) misses.get());
+		assertEquals(1L, readCache.count());
+	}
+
+	@Test
+	public void hotSegmentSecondChanceTest() {
+		newCache(SEGMENT_SIZE * SEGMENTS_COUNT, SEGMENT_SIZE);
+
+		// Half fill the first segment with entries read several times
+		int hotEntries = ENTRIES_PER_SEGMENT / 2;
+		for (long entryId = 0; entryId < hotEntries; entryId++) {
+			readCache.put(1L, entryId, TestUtil.generateEntry(1L, entryId));
+		}
+		for (int i = 0; i < 3; i++) {
+			for (long entryId = 0; entryId < hotEntries; entryId++) {
+				assertEntry(1L, entryId);
+			}
+		}
+
+		// Scan through the cache with read-ahead entries, up to the rotation that would evict
+		// the first segment in FIFO order
+		long scanEntries = (ENTRIES_PER_SEGMENT - hotEntries) + (SEGMENTS_COUNT - 1) * ENTRIES_PER_SEGMENT + 1;
+		for (long entryId = 0; entryId < scanEntries; entryId++) {
+			readCache.put(2L, entryId, TestUtil.generateEntry(2L, entryId), true);
+		}
+
+		// Assert that the hot segment got a second chance, and that the cold segment after it
+		// was evicted instead
+		assertEquals(ENTRIES_PER_SEGMENT, (long) evictedEntries.get());
+		assertEquals(0L, (long) admissionRejects.get());
+		for (long entryId = 0; entryId < hotEntries; entryId++) {
+			assertEntry(1L, entryId);
+		}
+		assertEntry(2L, 0L);
+		assertNull(readCache.get(2L, ENTRIES_PER_SEGMENT - hotEntries));
+		assertEntry(2L, scanEntries - 1);
+	}
+
+	@Test
+	public void readAheadAdmissionTest() {
+		newCache(SEGMENT_SIZE * SEGMENTS_COUNT, SEGMENT_SIZE);
+
+		// Fill every segment, and read all the entries twice to make the segments hot
+		long numEntries = SEGMENTS_COUNT * ENTRIES_PER_SEGMENT;
+		for (long entryId = 0; entryId < numEntries; entryId++) {
+			readCache.put(1L, entryId, TestUtil.generateEntry(1L, entryId));
+		}
+		for (int i = 0; i < 2; i++) {
+			for (long entryId = 0; entryId < numEntries; entryId++) {
+				assertEntry(1L, entryId);
+			}
+		}
+
+		// A read-ahead entry does not evict a hot segment
+		readCache.put(2L, 0L, TestUtil.generateEntry(2L, 0L), true);
+		assertEquals(1L, (long) admissionRejects.get());
+		assertEquals(0L, (long) evictedEntries.get());
+		assertNull(readCache.get(2L, 0L));
+		assertEquals(numEntries, readCache.count());
+
+		// An entry that was actually read is always admitted
+		readCache.put(2L, 1L, TestUtil.generateEntry(2L, 1L));
+		assertEntry(2L, 1L);
+		assertEquals(ENTRIES_PER_SEGMENT, (long) evictedEntries.get());
+		assertEquals(numEntries - ENTRIES_PER_SEGMENT + 1, readCache.count());
+	}
+
+	@Test
+	public void oversizedEntryTest() {
+		newCache(SEGMENT_SIZE * SEGMENTS_COUNT, SEGMENT_SIZE);
+
+		// An entry larger than a segment is not cached
+		readCache.put(1L, 0L, TestUtil.generateEntry(SEGMENT_SIZE + 1));
+		assertEquals(1L, (long) admissionRejects.get());
+		assertEquals(0L, readCache.count());
+	}
+
+	@Test
+	public void concurrentPutGetTest() throws Exception {
+		int numWriters = 2;
+		int numReaders = 4;
+		int entriesPerWriter = 20000;
+		newCache(64 * 1024 * SEGMENTS_COUNT, 64 * 1024);
+
+		// Writers rotate the segments while readers look up the entries already written, a
+		// returned entry must never hold the bytes of another entry
+		AtomicLongArray written = new AtomicLongArray(numWriters);
+		ExecutorService executor = Executors.newFixedThreadPool(numWriters + numReaders);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < numWriters; w++) {
+				final long ledgerId = w;
+				futures.add(executor.submit(() -> {
+					for (long entryId = 0; entryId < entriesPerWriter; entryId++) {
+						readCache.put(ledgerId, entryId, variableEntry(ledgerId, entryId), entryId % 2 == 0);
+						written.set((int) ledgerId, entryId + 1);
+					}
+					return null;
+				}));
+			}
+			for (int r = 0; r < numReaders; r++) {
+				final Random random = new Random(r);
+				futures.add(executor.submit(() -> {
+					while (written.get(0) < entriesPerWriter || written.get(1) < entriesPerWriter) {
+						long ledgerId = random.nextInt(numWriters);
+						long count = written.get((int) ledgerId);
+						if (count == 0) {
+							continue;
+						}
+						// look up mostly recent entries, so that some lookups hit
+						long entryId = Math.max(0, count - 1 - random.nextInt(200));
+						ByteBuf entry = readCache.get(ledgerId, entryId);
+						if (entry != null) {
+							try {
+								assertEquals(variableEntry(ledgerId, entryId), entry);
+							} finally {
+								entry.release();
+							}
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Assert that the cache was both hit and rotated during the test, and stays bounded
+		assertTrue(hits.get() > 0);
+		assertTrue(evictedEntries.get() > 0);
+		assertTrue(readCache.size() <= 64 * 1024 * SEGMENTS_COUNT);
+	}
+
+	private void newCache(long maxCacheSize, int maxSegmentSize) {
+		readCache = new ReadCache(ByteBufAllocator.DEFAULT, maxCacheSize, maxSegmentSize,
+				hits, misses, evictedEntries, admissionRejects);
+	}
+
+	private void assertEntry(long ledgerId, long entryId) {
+		ByteBuf entry = readCache.get(ledgerId, entryId);
+		assertNotNull(entry);
+		try {
+			assertEquals(TestUtil.generateEntry(ledgerId, entryId), entry);
+		} finally {
+			entry.release();
+		}
+	}
+
+	private static ByteBuf variableEntry(long ledgerId, long entryId) {
+		Random random = new Random(ledgerId * 1_000_003L + entryId);
+		byte[] data = new byte[1 + random.nextInt(1000)];
+		random.nextBytes(data);
+		ByteBuf entry = Unpooled.buffer(16 + data.length);
+		entry.writeLong(ledgerId);
+		entry.writeLong(entryId);
+		entry.writeBytes(data);
+		return entry;
+	}
+}
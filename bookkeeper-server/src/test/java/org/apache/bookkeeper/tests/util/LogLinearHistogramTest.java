@@ -0,0 +1,62 @@
+package org.apache.bookkeeper.tests.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.bookkeeper.util.LogLinearHistogram;
+import org.junit.Test;
+
+public class LogLinearHistogramTest {
+
+	// LogLinearHistogram instance
+	private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+	@Test
+	public void bucketTest() {
+		for (long value = 0; value < 1L << 20; value++) {
+			int bucket = LogLinearHistogram.bucket(value);
+			long upperBound = LogLinearHistogram.upperBound(bucket);
+
+			// The upper bound of a bucket is within 12.5% of every value it holds
+			assertTrue(upperBound >= value);
+			assertTrue(upperBound <= value + value / 8);
+
+			// The buckets are contiguous
+			assertEquals(bucket, LogLinearHistogram.bucket(upperBound));
+			assertEquals(bucket + 1, LogLinearHistogram.bucket(upperBound + 1));
+		}
+
+		// The largest values fit in the last bucket
+		assertEquals(Long.MAX_VALUE, LogLinearHistogram.upperBound(LogLinearHistogram.bucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void percentileTest() {
+		assertEquals(0, histogram.getPercentile(99.0));
+		for (int i = 0; i < 990; i++) {
+			histogram.record(100);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(50000);
+		}
+		assertEquals(1000, histogram.getCount());
+
+		// The percentile is the upper bound of the bucket holding it
+		assertEquals(LogLinearHistogram.upperBound(LogLinearHistogram.bucket(100)), histogram.getPercentile(99.0));
+		assertEquals(LogLinearHistogram.upperBound(LogLinearHistogram.bucket(50000)), histogram.getPercentile(99.5));
+
+		// Reading the percentile only clears the histogram when asked to
+		assertEquals(LogLinearHistogram.upperBound(LogLinearHistogram.bucket(100)),
+				histogram.getPercentileAndReset(99.0));
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99.0));
+	}
+
+	@Test
+	public void negativeValueTest() {
+		// Negative values are recorded as 0
+		histogram.record(-1L);
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(100.0));
+	}
+}
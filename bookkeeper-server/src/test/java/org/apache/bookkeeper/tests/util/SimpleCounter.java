@@ -0,0 +1,38 @@
+package org.apache.bookkeeper.tests.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.bookkeeper.stats.Counter;
+
+/**
+ * A {@link Counter} that keeps its value, to check the stats of the tested components.
+ */
+public class SimpleCounter implements Counter {
+
+	private final AtomicLong value = new AtomicLong();
+
+	@Override
+	public void clear() {
+		value.set(0);
+	}
+
+	@Override
+	public void inc() {
+		value.incrementAndGet();
+	}
+
+	@Override
+	public void dec() {
+		value.decrementAndGet();
+	}
+
+	@Override
+	public void add(long delta) {
+		value.addAndGet(delta);
+	}
+
+	@Override
+	public Long get() {
+		return value.get();
+	}
+}
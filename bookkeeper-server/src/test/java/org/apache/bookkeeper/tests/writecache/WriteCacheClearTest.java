@@ -0,0 +1,108 @@
+package org.apache.bookkeeper.tests.writecache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.bookkeeper.bookie.storage.ldb.WriteCache;
+import org.apache.bookkeeper.tests.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+@RunWith(Parameterized.class)
+public class WriteCacheClearTest {
+
+	// WriteCache instance
+	private WriteCache writeCache;
+
+	// Cache configuration, the entries generated by TestUtil take 64 bytes once aligned
+	private static final int ENTRIES_PER_SEGMENT = 16;
+	private static final int SEGMENT_SIZE = 64 * ENTRIES_PER_SEGMENT;
+	private static final int SEGMENTS_COUNT = 4;
+
+	// Test parameters
+	private int retainedSegment;
+
+	public WriteCacheClearTest(int retainedSegment) {
+		this.retainedSegment = retainedSegment;
+	}
+
+	@Parameters
+	public static Collection<Object[]> getParameters() {
+		return Arrays.asList(new Object[][] {
+			{ 0 },
+			{ 2 },
+			{ SEGMENTS_COUNT - 1 },
+		});
+	}
+
+	// Setup the test environment
+	@Before
+	public void setUp() {
+		writeCache = new WriteCache(ByteBufAllocator.DEFAULT, SEGMENT_SIZE * SEGMENTS_COUNT, SEGMENT_SIZE);
+	}
+
+	// Cleanup the test environment
+	@After
+	public void cleanUp() {
+		writeCache.clear();
+		writeCache.close();
+	}
+
+	@Test
+	public void clearWithRetainedEntryTest() {
+
+		// Fill the cache, and keep an entry of one segment across the clear
+		fill(1L);
+		long retainedEntryId = retainedSegment * ENTRIES_PER_SEGMENT;
+		ByteBuf retainedEntry = writeCache.get(1L, retainedEntryId);
+		writeCache.clear();
+		assertNull(writeCache.get(1L, retainedEntryId));
+
+		// The retained segment is not reused, so the cache holds one segment less and the entry
+		// is not overwritten
+		assertEquals((SEGMENTS_COUNT - 1) * ENTRIES_PER_SEGMENT, fill(2L));
+		assertEquals(TestUtil.generateEntry(1L, retainedEntryId), retainedEntry);
+		for (long entryId = 0; entryId < (SEGMENTS_COUNT - 1) * ENTRIES_PER_SEGMENT; entryId++) {
+			ByteBuf entry = writeCache.get(2L, entryId);
+			assertEquals(TestUtil.generateEntry(2L, entryId), entry);
+			entry.release();
+		}
+
+		// Once released, the segment is reused after the next clear
+		retainedEntry.release();
+		writeCache.clear();
+		assertEquals(SEGMENTS_COUNT * ENTRIES_PER_SEGMENT, fill(3L));
+	}
+
+	@Test
+	public void clearWithReleasedEntryTest() {
+
+		// An entry released before the clear does not reduce the cache capacity
+		fill(1L);
+		writeCache.get(1L, retainedSegment * ENTRIES_PER_SEGMENT).release();
+		writeCache.clear();
+		assertTrue(writeCache.isEmpty());
+		assertEquals(SEGMENTS_COUNT * ENTRIES_PER_SEGMENT, fill(2L));
+	}
+
+	private long fill(long ledgerId) {
+		long entryId = 0;
+		while (writeCache.put(ledgerId, entryId, TestUtil.generateEntry(ledgerId, entryId))) {
+			entryId++;
+		}
+		assertFalse(writeCache.put(ledgerId, entryId, TestUtil.generateEntry(ledgerId, entryId)));
+		return entryId;
+	}
+}
@@ -25,6 +25,7 @@ import com.scurrilous.circe.IncrementalIntHash;
 import com.scurrilous.circe.crc.Sse42Crc32C;
 import com.scurrilous.circe.crc.StandardCrcProvider;
 import io.netty.buffer.ByteBuf;
+import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,9 @@ public class Crc32cIntChecksum {
         if (Sse42Crc32C.isSupported()) {
             CRC32C_HASH = new Crc32cSse42Provider().getIncrementalInt(CRC32C);
             log.info("SSE4.2 CRC32C provider initialized");
+        } else if (Java9IntHash.isSupported()) {
+            CRC32C_HASH = new Java9IntHash();
+            log.info("Failed to load Circe JNI library. Falling back to java.util.zip.CRC32C provider");
         } else {
             CRC32C_HASH = new StandardCrcProvider().getIncrementalInt(CRC32C);
             log.warn("Failed to load Circe JNI library. Falling back to Java based CRC32c provider");
@@ -53,31 +57,33 @@ public class Crc32cIntChecksum {
      * @return
      */
     public static int computeChecksum(ByteBuf payload) {
-        if (payload.hasMemoryAddress() && (CRC32C_HASH instanceof Sse42Crc32C)) {
-            return CRC32C_HASH.calculate(payload.memoryAddress() + payload.readerIndex(), payload.readableBytes());
-        } else if (payload.hasArray()) {
-            return CRC32C_HASH.calculate(payload.array(), payload.arrayOffset() + payload.readerIndex(),
-                payload.readableBytes());
-        } else {
-            return CRC32C_HASH.calculate(payload.nioBuffer());
-        }
+        return resumeChecksum(0, payload);
     }
 
 
     /**
-     * Computes incremental checksum with input previousChecksum and input payload
+     * Computes incremental checksum with input previousChecksum and input payload.
+     *
+     * <p>Buffers made of several components, like {@link io.netty.buffer.CompositeByteBuf}, are checksummed component
+     * by component, without being copied into a single buffer.
      *
      * @param previousChecksum : previously computed checksum
      * @param payload
      * @return
      */
     public static int resumeChecksum(int previousChecksum, ByteBuf payload) {
-        if (payload.hasMemoryAddress() && (CRC32C_HASH instanceof Sse42Crc32C)) {
+        if (payload.hasMemoryAddress() && CRC32C_HASH.supportsUnsafe()) {
             return CRC32C_HASH.resume(previousChecksum, payload.memoryAddress() + payload.readerIndex(),
                 payload.readableBytes());
         } else if (payload.hasArray()) {
             return CRC32C_HASH.resume(previousChecksum, payload.array(), payload.arrayOffset() + payload.readerIndex(),
                 payload.readableBytes());
+        } else if (payload.nioBufferCount() > 1) {
+            int checksum = previousChecksum;
+            for (ByteBuffer component : payload.nioBuffers()) {
+                checksum = CRC32C_HASH.resume(checksum, component);
+            }
+            return checksum;
         } else {
             return CRC32C_HASH.resume(previousChecksum, payload.nioBuffer());
         }
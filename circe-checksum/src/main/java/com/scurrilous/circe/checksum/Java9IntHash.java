@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.scurrilous.circe.checksum;
+
+import com.scurrilous.circe.impl.AbstractIncrementalIntHash;
+import com.scurrilous.circe.params.CrcParameters;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C implementation backed by {@code java.util.zip.CRC32C}, which is available since Java 9 and is intrinsified
+ * by the JIT on platforms with hardware CRC32C instructions.
+ *
+ * <p>{@code java.util.zip.CRC32C} cannot be seeded with a previous checksum, so the checksum of each input range is
+ * computed from scratch and combined with the previous one in {@code O(log(length))} using the linearity of CRC.
+ */
+final class Java9IntHash extends AbstractIncrementalIntHash {
+
+    // CRC-32C polynomial, reflected
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    // X2N_TABLE[n] holds x^(2^n) modulo the polynomial
+    private static final int[] X2N_TABLE = new int[32];
+
+    private static final MethodHandle NEW_CRC32C;
+    private static final MethodHandle UPDATE_BYTE_BUFFER;
+
+    static {
+        int p = 1 << 30; // x^1
+        X2N_TABLE[0] = p;
+        for (int n = 1; n < X2N_TABLE.length; n++) {
+            X2N_TABLE[n] = p = multModP(p, p);
+        }
+
+        MethodHandle newCrc32c = null;
+        MethodHandle updateByteBuffer = null;
+        try {
+            Class<?> crc32c = Class.forName("java.util.zip.CRC32C");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            newCrc32c = lookup.findConstructor(crc32c, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Checksum.class));
+            updateByteBuffer = lookup.findVirtual(Checksum.class, "update",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (ReflectiveOperationException e) {
+            // running on Java 8
+            newCrc32c = null;
+            updateByteBuffer = null;
+        }
+        NEW_CRC32C = newCrc32c;
+        UPDATE_BYTE_BUFFER = updateByteBuffer;
+    }
+
+    /**
+     * Returns whether {@code java.util.zip.CRC32C} is available in this JVM.
+     */
+    static boolean isSupported() {
+        return NEW_CRC32C != null;
+    }
+
+    @Override
+    public String algorithm() {
+        return CrcParameters.CRC32C.algorithm();
+    }
+
+    @Override
+    public int length() {
+        return 4;
+    }
+
+    @Override
+    protected int initial() {
+        return 0;
+    }
+
+    @Override
+    protected int resumeUnchecked(int current, byte[] input, int index, int length) {
+        if (length == 0) {
+            return current;
+        }
+        Checksum checksum = newChecksum();
+        checksum.update(input, index, length);
+        return combine(current, (int) checksum.getValue(), length);
+    }
+
+    @Override
+    public int resume(int current, ByteBuffer input) {
+        if (input.hasArray() || UPDATE_BYTE_BUFFER == null) {
+            return super.resume(current, input);
+        }
+        int length = input.remaining();
+        if (length == 0) {
+            return current;
+        }
+        // direct buffers are checksummed in place, without copying them on the heap
+        Checksum checksum = newChecksum();
+        try {
+            UPDATE_BYTE_BUFFER.invokeExact(checksum, input);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to update CRC32C checksum", t);
+        }
+        return combine(current, (int) checksum.getValue(), length);
+    }
+
+    private static Checksum newChecksum() {
+        try {
+            return (Checksum) NEW_CRC32C.invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create CRC32C checksum", t);
+        }
+    }
+
+    /**
+     * Returns the checksum of the concatenation of two inputs, given their checksums and the length of the second one.
+     */
+    static int combine(int crc1, int crc2, long length2) {
+        return multModP(x2nModP(length2, 3), crc1) ^ crc2;
+    }
+
+    // Multiplies a and b modulo the polynomial, both in reflected bit order
+    private static int multModP(int a, int b) {
+        int m = 1 << 31;
+        int p = 0;
+        for (;;) {
+            if ((a & m) != 0) {
+                p ^= b;
+                if ((a & (m - 1)) == 0) {
+                    break;
+                }
+            }
+            m >>>= 1;
+            b = (b & 1) != 0 ? (b >>> 1) ^ POLYNOMIAL : b >>> 1;
+        }
+        return p;
+    }
+
+    // Returns x^(n * 2^k) modulo the polynomial
+    private static int x2nModP(long n, int k) {
+        int p = 1 << 31; // x^0
+        while (n != 0) {
+            if ((n & 1) != 0) {
+                p = multModP(X2N_TABLE[k & 31], p);
+            }
+            n >>>= 1;
+            k++;
+        }
+        return p;
+    }
+}
@@ -53,6 +53,7 @@ import org.apache.bookkeeper.metadata.etcd.helpers.KeyIterator;
 import org.apache.bookkeeper.metadata.etcd.helpers.KeyStream;
 import org.apache.bookkeeper.metadata.etcd.helpers.ValueStream;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.MultiCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
 import org.apache.bookkeeper.util.collections.ConcurrentLongHashMap;
 import org.apache.bookkeeper.versioning.LongVersion;
@@ -384,25 +385,32 @@ class EtcdLedgerManager implements LedgerManager {
         }
     }
 
-    @Override
-    public void asyncProcessLedgers(Processor<Long> processor,
-                                    VoidCallback finalCb,
-                                    Object context,
-                                    int successRc,
-                                    int failureRc) {
-        KeyStream<Long> ks = new KeyStream<>(
+    private KeyStream<Long> newLedgerKeyStream(long startLedgerId) {
+        return new KeyStream<>(
             kvClient,
-            ByteSequence.from(EtcdUtils.getLedgerKey(scope, 0L), StandardCharsets.UTF_8),
+            ByteSequence.from(EtcdUtils.getLedgerKey(scope, startLedgerId), StandardCharsets.UTF_8),
             ByteSequence.from(EtcdUtils.getLedgerKey(scope, Long.MAX_VALUE), StandardCharsets.UTF_8),
             bs -> {
                 UUID uuid = EtcdUtils.parseLedgerKey(bs.toString(StandardCharsets.UTF_8));
                 return uuid.getLeastSignificantBits();
             }
         );
+    }
+
+    @Override
+    public void asyncProcessLedgers(Processor<Long> processor,
+                                    VoidCallback finalCb,
+                                    Object context,
+                                    int successRc,
+                                    int failureRc) {
         processLedgers(
-            ks, processor, finalCb, context, successRc, failureRc);
+            newLedgerKeyStream(0L), processor, finalCb, context, successRc, failureRc);
     }
 
+    /**
+     * Process the ledgers batch by batch: the next batch of keys is only read after all the ledgers
+     * of the current batch are processed, so the scan never holds more than one batch.
+     */
     private void processLedgers(KeyStream<Long> ks,
                                 Processor<Long> processor,
                                 VoidCallback finalCb,
@@ -416,8 +424,14 @@ class EtcdLedgerManager implements LedgerManager {
                 if (ledgers.isEmpty()) {
                     finalCb.processResult(successRc, null, context);
                 } else {
-                    ledgers.forEach(l -> processor.process(l, finalCb));
-                    processLedgers(ks, processor, finalCb, context, successRc, failureRc);
+                    MultiCallback batchCb = new MultiCallback(ledgers.size(), (rc, path, ctx) -> {
+                        if (rc != successRc) {
+                            finalCb.processResult(failureRc, null, context);
+                        } else {
+                            processLedgers(ks, processor, finalCb, context, successRc, failureRc);
+                        }
+                    }, null, successRc, failureRc);
+                    ledgers.forEach(l -> processor.process(l, batchCb));
                 }
             }
         });
@@ -425,15 +439,12 @@ class EtcdLedgerManager implements LedgerManager {
 
     @Override
     public LedgerRangeIterator getLedgerRanges(long opTimeOutMs) {
-        KeyStream<Long> ks = new KeyStream<>(
-            kvClient,
-            ByteSequence.from(EtcdUtils.getLedgerKey(scope, 0L), StandardCharsets.UTF_8),
-            ByteSequence.from(EtcdUtils.getLedgerKey(scope, Long.MAX_VALUE), StandardCharsets.UTF_8),
-            bs -> {
-                UUID uuid = EtcdUtils.parseLedgerKey(bs.toString(StandardCharsets.UTF_8));
-                return uuid.getLeastSignificantBits();
-            }
-        );
+        return getLedgerRanges(opTimeOutMs, 0L);
+    }
+
+    @Override
+    public LedgerRangeIterator getLedgerRanges(long opTimeOutMs, long startLedgerId) {
+        KeyStream<Long> ks = newLedgerKeyStream(Math.max(0L, startLedgerId));
         KeyIterator<Long> ki = new KeyIterator<>(ks);
         return new LedgerRangeIterator() {
             @Override